@@ -25,4 +25,14 @@ public interface CacheStatistics extends AdminObject, DomainAware {
 
     int getRequestCount();
 
+    /**
+     * @return the number of entries evicted from the cache, or -1 if not tracked
+     */
+    long getEvictionCount();
+
+    /**
+     * @return the estimated size in bytes of the cache entries, or -1 if not tracked
+     */
+    long getSizeEstimate();
+
 }
@@ -26,6 +26,8 @@ public class CacheStatisticsMetadata extends AdminObjectImpl implements CacheSta
     private double hitRatio;
     private int totalEntries;
     private int requestCount;
+    private long evictionCount = -1;
+    private long sizeEstimate = -1;
 
     @Override
     public int getRequestCount() {
@@ -54,11 +56,31 @@ public class CacheStatisticsMetadata extends AdminObjectImpl implements CacheSta
         this.totalEntries = value;
     }
 
+    @Override
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public void setEvictionCount(long evictionCount) {
+        this.evictionCount = evictionCount;
+    }
+
+    @Override
+    public long getSizeEstimate() {
+        return sizeEstimate;
+    }
+
+    public void setSizeEstimate(long sizeEstimate) {
+        this.sizeEstimate = sizeEstimate;
+    }
+
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("hitRatio=").append(hitRatio);//$NON-NLS-1$
         sb.append("; totalEntries=").append(totalEntries); //$NON-NLS-1$
         sb.append("; requestCount=").append(requestCount); //$NON-NLS-1$
+        sb.append("; evictionCount=").append(evictionCount); //$NON-NLS-1$
+        sb.append("; sizeEstimate=").append(sizeEstimate); //$NON-NLS-1$
         return sb.toString();
     }
 }
@@ -27,6 +27,12 @@ public class Column extends BaseColumn implements Comparable<Column> {
 
     private static final long serialVersionUID = -1310120788764453726L;
 
+    /**
+     * Extension property to request a bitmap index on the column of an internal materialized view,
+     * which is useful for low cardinality columns.
+     */
+    public static final String BITMAP_INDEX = AbstractMetadataRecord.RELATIONAL_PREFIX + "bitmap_index"; //$NON-NLS-1$
+
     public enum SearchType {
         Unsearchable,
         Like_Only {
@@ -32,6 +32,13 @@ public class KeyRecord extends ColumnSet<Table> {
         Index,
     }
 
+    /**
+     * Extension property for an index with a comma separated list of the names of non-key columns
+     * to store with the index.  Used with materialized views so that queries referencing only the
+     * index and included columns may be answered without accessing the table.
+     */
+    public static final String INCLUDE = AbstractMetadataRecord.RELATIONAL_PREFIX + "include"; //$NON-NLS-1$
+
     private Type type;
 
     public KeyRecord(Type type) {
@@ -1686,4 +1686,18 @@ public class BaseDelegatingExecutionFactory<F, C> extends ExecutionFactory<F, C>
             Boolean supportsOnlyRelationshipStyleJoins) {
         this.supportsOnlyRelationshipStyleJoins = supportsOnlyRelationshipStyleJoins;
     }
+
+    Boolean supportsDependentJoinRangeFilter;
+    @Override
+    public boolean supportsDependentJoinRangeFilter() {
+        if (supportsDependentJoinRangeFilter != null) {
+            return supportsDependentJoinRangeFilter;
+        }
+        return delegate.supportsDependentJoinRangeFilter();
+    }
+
+    public void setSupportsDependentJoinRangeFilter(
+            Boolean supportsDependentJoinRangeFilter) {
+        this.supportsDependentJoinRangeFilter = supportsDependentJoinRangeFilter;
+    }
 }
@@ -1526,4 +1526,16 @@ public class ExecutionFactory<F, C> {
     public boolean supportsProcedureParameterExpression() {
         return false;
     }
+
+    /**
+     * Return true if the translator supports min/max range criteria in place of dependent join
+     * values that are too numerous to be sent as sets.  The range values will be of the same type
+     * as the dependent expression and the source ordering of that type is expected to match the engine.
+     * Requires {@link #supportsCompareCriteriaOrdered()}
+     * @since 17.1
+     * @return true if range filters should be sent for large dependent joins
+     */
+    public boolean supportsDependentJoinRangeFilter() {
+        return false;
+    }
 }
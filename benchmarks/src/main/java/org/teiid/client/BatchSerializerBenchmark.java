@@ -0,0 +1,108 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.core.types.DataTypeManager;
+
+/**
+ * Serialization and deserialization of a batch of mixed type rows, as is done
+ * for results sent to the client and for buffer manager storage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BatchSerializerBenchmark {
+
+    @Param({"256", "2048"})
+    private int rows;
+
+    private String[] types = new String[] {
+            DataTypeManager.DefaultDataTypes.INTEGER,
+            DataTypeManager.DefaultDataTypes.LONG,
+            DataTypeManager.DefaultDataTypes.STRING,
+            DataTypeManager.DefaultDataTypes.BIG_DECIMAL,
+            DataTypeManager.DefaultDataTypes.TIMESTAMP,
+            DataTypeManager.DefaultDataTypes.BOOLEAN};
+
+    private List<List<?>> batch;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() throws Exception {
+        Random random = new Random(0);
+        batch = new ArrayList<List<?>>(rows);
+        for (int i = 0; i < rows; i++) {
+            batch.add(Arrays.asList(
+                    //leave some nulls
+                    i % 10 == 0?null:random.nextInt(),
+                    random.nextLong(),
+                    "value" + random.nextInt(1000), //$NON-NLS-1$
+                    BigDecimal.valueOf(random.nextInt(), 2),
+                    new Timestamp(1500000000000l + random.nextInt()),
+                    random.nextBoolean()));
+        }
+        serialized = write();
+    }
+
+    private byte[] write() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(baos);
+        BatchSerializer.writeBatch(out, types, batch);
+        out.close();
+        return baos.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] writeBatch() throws Exception {
+        return write();
+    }
+
+    @Benchmark
+    public List<List<Object>> readBatch() throws Exception {
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized));
+        return BatchSerializer.readBatch(in, types);
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.common.buffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.teiid.common.buffer.STree.InsertMode;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+/**
+ * Inserts into and point lookups against an {@link STree} keyed on an integer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class STreeBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    private BufferManager bufferManager;
+    private List<ElementSymbol> elements;
+    private List<List<?>> tuples;
+    private List<List<?>> keys;
+    private STree tree;
+
+    @Setup
+    public void setup() throws Exception {
+        bufferManager = BufferManagerFactory.createBufferManager();
+        ElementSymbol key = new ElementSymbol("key"); //$NON-NLS-1$
+        key.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        ElementSymbol value = new ElementSymbol("value"); //$NON-NLS-1$
+        value.setType(DataTypeManager.DefaultDataClasses.STRING);
+        elements = Arrays.asList(key, value);
+        Random random = new Random(0);
+        tuples = new ArrayList<List<?>>(rows);
+        keys = new ArrayList<List<?>>(rows);
+        for (int i = 0; i < rows; i++) {
+            tuples.add(Arrays.asList(i, String.valueOf(random.nextInt())));
+            keys.add(Arrays.asList(i));
+        }
+        Collections.shuffle(tuples, random);
+        Collections.shuffle(keys, random);
+        tree = createTree();
+    }
+
+    private STree createTree() throws Exception {
+        STree result = bufferManager.createSTree(elements, "bench", 1); //$NON-NLS-1$
+        for (List<?> tuple : tuples) {
+            result.insert(tuple, InsertMode.NEW, -1);
+        }
+        return result;
+    }
+
+    @TearDown
+    public void teardown() {
+        tree.remove();
+    }
+
+    @Benchmark
+    public long insert() throws Exception {
+        STree result = createTree();
+        long count = result.getRowCount();
+        result.remove();
+        return count;
+    }
+
+    @Benchmark
+    public void find(Blackhole blackhole) throws Exception {
+        for (List<?> key : keys) {
+            blackhole.consume(tree.find(key));
+        }
+    }
+
+}
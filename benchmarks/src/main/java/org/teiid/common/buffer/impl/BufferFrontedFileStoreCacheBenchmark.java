@@ -0,0 +1,161 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.common.buffer.impl;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.teiid.common.buffer.CacheEntry;
+import org.teiid.common.buffer.Serializer;
+
+/**
+ * Adds to and reads from the memory buffer fronting the storage of the buffer manager.
+ * When the entries exceed the memory buffer space, the reads will also go to the
+ * (in memory) storage.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BufferFrontedFileStoreCacheBenchmark {
+
+    private static final long GROUP = 1;
+
+    /**
+     * Serializes an array of ints sized to approximate a batch
+     */
+    private static class IntArraySerializer implements Serializer<int[]> {
+        @Override
+        public int[] deserialize(ObjectInput ois) throws IOException {
+            int[] result = new int[ois.readInt()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = ois.readInt();
+            }
+            return result;
+        }
+
+        @Override
+        public Long getId() {
+            return GROUP;
+        }
+
+        @Override
+        public void serialize(int[] obj, ObjectOutput oos) throws IOException {
+            oos.writeInt(obj.length);
+            for (int value : obj) {
+                oos.writeInt(value);
+            }
+        }
+
+        @Override
+        public boolean useSoftCache() {
+            return false;
+        }
+
+        @Override
+        public String describe(int[] obj) {
+            return null;
+        }
+    }
+
+    @Param({"1000"})
+    private int entries;
+
+    @Param({"1024", "16384"})
+    private int entryInts;
+
+    @Param({"67108864", "4194304"})
+    private int memoryBufferSpace;
+
+    private BufferFrontedFileStoreCache cache;
+    private IntArraySerializer serializer = new IntArraySerializer();
+    private WeakReference<Serializer<?>> ref = new WeakReference<Serializer<?>>(serializer);
+    private int[] value;
+    private long nextId;
+
+    @Setup
+    public void setup() throws Exception {
+        cache = new BufferFrontedFileStoreCache();
+        cache.cleanerRunning.set(true); //prevent async effects
+        cache.setMemoryBufferSpace(memoryBufferSpace);
+        cache.setDirect(false);
+        SplittableStorageManager ssm = new SplittableStorageManager(new MemoryStorageManager());
+        ssm.setMaxFileSizeDirect(MemoryStorageManager.MAX_FILE_SIZE);
+        cache.setStorageManager(ssm);
+        cache.initialize();
+        cache.createCacheGroup(GROUP);
+        value = new int[entryInts];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = i;
+        }
+        for (nextId = 0; nextId < entries; nextId++) {
+            add(nextId);
+        }
+    }
+
+    private void add(long id) {
+        CacheEntry ce = new CacheEntry(id);
+        ce.setObject(value);
+        cache.addToCacheGroup(GROUP, id);
+        cache.add(ce, serializer);
+    }
+
+    @TearDown
+    public void teardown() {
+        cache.shutdown();
+    }
+
+    @Benchmark
+    public void add() {
+        //replace the oldest entries so that the used space remains constant
+        for (int i = 0; i < entries; i++, nextId++) {
+            Long oldest = nextId - entries;
+            cache.remove(GROUP, oldest);
+            add(nextId);
+        }
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) throws Exception {
+        for (long id = nextId - entries; id < nextId; id++) {
+            PhysicalInfo info = cache.lockForLoad(id, serializer);
+            blackhole.consume(cache.get(info, id, ref));
+            cache.unlockForLoad(info);
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.teiid.query.eval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.ColumnarBatch;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.eval.ExpressionCompiler.CompiledCriteria;
+import org.teiid.query.processor.relational.RelationalNode;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.SetCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Selection over batches of rows with the row evaluator, the compiled criteria and the
+ * {@link ColumnarEvaluator}, including the extraction of each {@link ColumnarBatch}.
+ * <br>
+ * The range and in shapes test a column more than once and are the ones evaluated by column,
+ * an in counts as a single test. The single shape is included to show the cost of extraction
+ * when nothing is shared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ColumnarEvaluatorBenchmark {
+
+    private static final int ROWS = 10000;
+    private static final int BATCH_SIZE = 512;
+
+    @Param({"single", "range", "in"})
+    private String shape;
+
+    private Criteria criteria;
+    private CompiledCriteria compiled;
+    private ColumnarEvaluator columnar;
+    private Evaluator evaluator;
+    private List<List<List<?>>> batches;
+
+    @Setup
+    public void setup() {
+        ElementSymbol e1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        e1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        ElementSymbol e2 = new ElementSymbol("e2"); //$NON-NLS-1$
+        e2.setType(DataTypeManager.DefaultDataClasses.STRING);
+        List<ElementSymbol> elements = Arrays.asList(e1, e2);
+        Map<Expression, Integer> lookup = RelationalNode.createLookupMap(elements);
+        if (shape.equals("single")) { //$NON-NLS-1$
+            //e1 > 100
+            criteria = new CompareCriteria(e1, CompareCriteria.GT, new Constant(100));
+        } else if (shape.equals("range")) { //$NON-NLS-1$
+            //e1 >= 100 and e1 < 900 and e2 >= 'b' and e2 < 'e'
+            criteria = new CompoundCriteria(Arrays.asList(
+                    new CompareCriteria(e1, CompareCriteria.GE, new Constant(100)),
+                    new CompareCriteria(e1, CompareCriteria.LT, new Constant(900)),
+                    new CompareCriteria(e2, CompareCriteria.GE, new Constant("b")), //$NON-NLS-1$
+                    new CompareCriteria(e2, CompareCriteria.LT, new Constant("e")))); //$NON-NLS-1$
+        } else {
+            //e1 >= 100 and e1 < 900 and e2 in ('a', 'c', 'e', 'g')
+            criteria = new CompoundCriteria(Arrays.asList(
+                    new CompareCriteria(e1, CompareCriteria.GE, new Constant(100)),
+                    new CompareCriteria(e1, CompareCriteria.LT, new Constant(900)),
+                    new SetCriteria(e2, Arrays.asList(new Constant("a"), new Constant("c"), new Constant("e"), new Constant("g"))))); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        }
+        compiled = ExpressionCompiler.compile(criteria, lookup);
+        columnar = ColumnarEvaluator.create(criteria, lookup);
+        evaluator = new Evaluator(lookup, null, new CommandContext());
+        Random random = new Random(0);
+        batches = new ArrayList<List<List<?>>>();
+        List<List<?>> batch = null;
+        for (int i = 0; i < ROWS; i++) {
+            if (i % BATCH_SIZE == 0) {
+                batch = new ArrayList<List<?>>(BATCH_SIZE);
+                batches.add(batch);
+            }
+            batch.add(Arrays.asList(random.nextInt(1000), String.valueOf((char)('a' + random.nextInt(8)))));
+        }
+    }
+
+    @Benchmark
+    public int evaluate() throws Exception {
+        int matches = 0;
+        for (List<List<?>> batch : batches) {
+            for (List<?> tuple : batch) {
+                if (evaluator.evaluate(criteria, tuple)) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int evaluateCompiled() throws Exception {
+        int matches = 0;
+        for (List<List<?>> batch : batches) {
+            for (List<?> tuple : batch) {
+                if (compiled.evaluateCriteria(evaluator, tuple)) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int evaluateColumnar() throws Exception {
+        if (columnar == null) {
+            //not a shape evaluated by column
+            return evaluateCompiled();
+        }
+        int matches = 0;
+        for (List<List<?>> batch : batches) {
+            boolean[] selection = columnar.evaluate(new ColumnarBatch(batch, 2));
+            for (boolean selected : selection) {
+                if (selected) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+}
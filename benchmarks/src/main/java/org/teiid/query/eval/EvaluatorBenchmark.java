@@ -0,0 +1,118 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.eval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.eval.ExpressionCompiler.CompiledCriteria;
+import org.teiid.query.processor.relational.RelationalNode;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Evaluation of a conjunction of comparisons over rows, both interpreted and with
+ * the criteria compiled by the {@link ExpressionCompiler}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class EvaluatorBenchmark {
+
+    private static final int ROWS = 10000;
+
+    private Criteria criteria;
+    private CompiledCriteria compiled;
+    private Evaluator evaluator;
+    private List<List<?>> tuples;
+
+    @Setup
+    public void setup() {
+        ElementSymbol e1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        e1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        ElementSymbol e2 = new ElementSymbol("e2"); //$NON-NLS-1$
+        e2.setType(DataTypeManager.DefaultDataClasses.STRING);
+        ElementSymbol e3 = new ElementSymbol("e3"); //$NON-NLS-1$
+        e3.setType(DataTypeManager.DefaultDataClasses.DOUBLE);
+        List<ElementSymbol> elements = Arrays.asList(e1, e2, e3);
+        Map<Expression, Integer> lookup = RelationalNode.createLookupMap(elements);
+        //e1 > 100 and e2 <> 'b' and e3 is not null
+        IsNullCriteria isNull = new IsNullCriteria(e3);
+        isNull.setNegated(true);
+        criteria = new CompoundCriteria(Arrays.asList(
+                new CompareCriteria(e1, CompareCriteria.GT, new Constant(100)),
+                new CompareCriteria(e2, CompareCriteria.NE, new Constant("b")), //$NON-NLS-1$
+                isNull));
+        compiled = ExpressionCompiler.compile(criteria, lookup);
+        evaluator = new Evaluator(lookup, null, new CommandContext());
+        Random random = new Random(0);
+        tuples = new ArrayList<List<?>>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            tuples.add(Arrays.asList(random.nextInt(1000), String.valueOf((char)('a' + random.nextInt(3))),
+                    random.nextInt(10) == 0?null:random.nextDouble()));
+        }
+    }
+
+    @Benchmark
+    public int evaluate() throws Exception {
+        int matches = 0;
+        for (List<?> tuple : tuples) {
+            if (evaluator.evaluate(criteria, tuple)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int evaluateCompiled() throws Exception {
+        int matches = 0;
+        for (List<?> tuple : tuples) {
+            if (compiled.evaluateCriteria(evaluator, tuple)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.lang.OrderBy;
+import org.teiid.query.sql.symbol.AggregateSymbol;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * Grouped count/sum/avg/max over unordered rows, either sorting the input or hashing the groups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class GroupingNodeBenchmark {
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"100", "10000"})
+    private int groups;
+
+    @Param({"false", "true"})
+    private boolean hashAggregate;
+
+    private BufferManager bufferManager;
+    private List<ElementSymbol> childElements;
+    private List<Expression> outputElements;
+    private List[] data;
+
+    @Setup
+    public void setup() {
+        bufferManager = BufferManagerFactory.createBufferManager();
+        ElementSymbol e1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        e1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        ElementSymbol e2 = new ElementSymbol("e2"); //$NON-NLS-1$
+        e2.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        childElements = Arrays.asList(e1, e2);
+        outputElements = Arrays.asList(e1,
+                new AggregateSymbol("COUNT", false, null), //$NON-NLS-1$
+                new AggregateSymbol("SUM", false, e2), //$NON-NLS-1$
+                new AggregateSymbol("AVG", false, e2), //$NON-NLS-1$
+                new AggregateSymbol("MAX", false, e2)); //$NON-NLS-1$
+        Random random = new Random(0);
+        data = new List[rows];
+        for (int i = 0; i < rows; i++) {
+            data[i] = Arrays.asList(random.nextInt(groups), random.nextInt(1000));
+        }
+    }
+
+    @Benchmark
+    public long aggregate() throws Exception {
+        GroupingNode node = new GroupingNode(1);
+        node.setElements(outputElements);
+        node.setOrderBy(new OrderBy(childElements.subList(0, 1)).getOrderByItems());
+        node.setHashAggregate(hashAggregate);
+        FakeRelationalNode child = new FakeRelationalNode(0, data, bufferManager.getProcessorBatchSize());
+        child.setElements(childElements);
+        node.addChild(child);
+        node.initialize(new CommandContext("pid", "bench", null, null, 1), bufferManager, null); //$NON-NLS-1$ //$NON-NLS-2$
+        node.open();
+        long count = 0;
+        while (true) {
+            try {
+                TupleBatch batch = node.nextBatch();
+                count += batch.getRowCount();
+                if (batch.getTerminationFlag()) {
+                    break;
+                }
+            } catch (BlockedException e) {
+                //continue
+            }
+        }
+        node.close();
+        return count;
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.processor.relational.SortUtility.Mode;
+import org.teiid.query.sql.symbol.ElementSymbol;
+
+/**
+ * Sorts of unordered integer/string rows.  The merge variant uses a buffer manager with a small
+ * processing size so that the sort produces many initial runs that must be merged.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SortUtilityBenchmark {
+
+    @Param({"10000", "100000"})
+    private int rows;
+
+    @Param({"SORT", "DUP_REMOVE"})
+    private Mode mode;
+
+    private BufferManager bufferManager;
+    private BufferManager mergeBufferManager;
+    private List<ElementSymbol> elements;
+    private TupleBuffer source;
+
+    @Setup
+    public void setup() throws Exception {
+        bufferManager = BufferManagerFactory.createBufferManager();
+        mergeBufferManager = BufferManagerFactory.getTestBufferManager(1 << 18, 256);
+        ElementSymbol e1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        e1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        ElementSymbol e2 = new ElementSymbol("e2"); //$NON-NLS-1$
+        e2.setType(DataTypeManager.DefaultDataClasses.STRING);
+        elements = Arrays.asList(e1, e2);
+        source = bufferManager.createTupleBuffer(elements, "bench", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+        Random random = new Random(0);
+        for (int i = 0; i < rows; i++) {
+            //allow for duplicates
+            int value = random.nextInt(rows);
+            source.addTuple(Arrays.asList(value, String.valueOf(value)));
+        }
+        source.close();
+    }
+
+    @TearDown
+    public void teardown() {
+        source.remove();
+    }
+
+    @Benchmark
+    public long sort() throws Exception {
+        return sort(bufferManager);
+    }
+
+    @Benchmark
+    public long sortMerge() throws Exception {
+        return sort(mergeBufferManager);
+    }
+
+    private long sort(BufferManager bm) throws Exception {
+        SortUtility sortUtility = new SortUtility(source.createIndexedTupleSource(), elements,
+                Arrays.asList(Boolean.TRUE, Boolean.TRUE), mode, bm, "bench", elements); //$NON-NLS-1$
+        TupleBuffer result = sortUtility.sort();
+        long count = result.getRowCount();
+        result.remove();
+        return count;
+    }
+
+}
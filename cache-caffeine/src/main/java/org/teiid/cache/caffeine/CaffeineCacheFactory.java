@@ -21,6 +21,7 @@ package org.teiid.cache.caffeine;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -28,13 +29,27 @@ import org.checkerframework.checker.index.qual.NonNegative;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.teiid.cache.Cache;
 import org.teiid.cache.CacheFactory;
+import org.teiid.cache.CacheStatisticsProvider;
+import org.teiid.core.util.PropertiesUtils;
+import org.teiid.dqp.internal.process.CachedResults;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.Weigher;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class CaffeineCacheFactory implements CacheFactory {
 
+    /**
+     * The prefix of the system property for the byte budget of the named cache,
+     * e.g. org.teiid.caffeine.resultset.maxBytes
+     */
+    public static final String MAX_BYTES_PREFIX = "org.teiid.caffeine."; //$NON-NLS-1$
+    public static final String MAX_BYTES_SUFFIX = ".maxBytes"; //$NON-NLS-1$
+
+    public static final int DEFAULT_MAX_ENTRIES = 512;
+
     static class ExpiringValue<V> {
         private V value;
         private Long ttl;
@@ -55,14 +70,47 @@ public class CaffeineCacheFactory implements CacheFactory {
         }
     }
 
-    static class CaffeineCache<K, V> implements Cache<K, V> {
+    /**
+     * Weighs entries in kilobytes by their size estimate, so that a large result counts
+     * against the budget in proportion to its size.  Entries without a size estimate
+     * count as an equal share of the budget.
+     */
+    static class SizeWeigher<K, V> implements Weigher<K, ExpiringValue<V>> {
+        private int defaultWeight;
+
+        SizeWeigher(int defaultWeight) {
+            this.defaultWeight = defaultWeight;
+        }
+
+        @Override
+        public @NonNegative int weigh(@NonNull K key, @NonNull ExpiringValue<V> value) {
+            if (value.value instanceof CachedResults) {
+                long kilobytes = ((CachedResults)value.value).getSizeEstimate() >> 10;
+                return (int)Math.max(1, Math.min(Integer.MAX_VALUE, kilobytes));
+            }
+            return defaultWeight;
+        }
+    }
+
+    static class CaffeineCache<K, V> implements Cache<K, V>, CacheStatisticsProvider {
         private String name;
+        private com.github.benmanes.caffeine.cache.Cache<K, ExpiringValue<V>> cache;
         private Map<K, ExpiringValue<V>> delegate;
 
-        CaffeineCache(String cacheName, int maxSize) {
+        /**
+         * @param maxBytes if positive the entries are limited by their estimated size rather than by count
+         */
+        CaffeineCache(String cacheName, int maxSize, long maxBytes) {
             this.name = cacheName;
-            this.delegate = Caffeine.newBuilder()
-                    .maximumSize(maxSize)
+            Caffeine builder = Caffeine.newBuilder().recordStats();
+            if (maxBytes > 0) {
+                long maxWeight = Math.max(1, maxBytes >> 10);
+                builder = builder.maximumWeight(maxWeight)
+                        .weigher(new SizeWeigher<K, V>((int)Math.max(1, Math.min(Integer.MAX_VALUE, maxWeight / Math.max(1, maxSize)))));
+            } else {
+                builder = builder.maximumSize(maxSize);
+            }
+            this.cache = builder
                     .expireAfter(new Expiry<K, ExpiringValue<V>>() {
                         @Override
                         public long expireAfterCreate(@NonNull K key, @NonNull ExpiringValue<V> value, long currentTime) {
@@ -90,7 +138,29 @@ public class CaffeineCacheFactory implements CacheFactory {
                             return currentDuration;
                         }
                     })
-                    .build().asMap();
+                    .build();
+            this.delegate = this.cache.asMap();
+        }
+
+        /**
+         * Perform pending maintenance, such as eviction
+         */
+        void cleanUp() {
+            cache.cleanUp();
+        }
+
+        @Override
+        public long getEvictionCount() {
+            return cache.stats().evictionCount();
+        }
+
+        @Override
+        public long getSizeEstimate() {
+            Optional<Policy.Eviction<K, ExpiringValue<V>>> eviction = cache.policy().eviction();
+            if (!eviction.isPresent() || !eviction.get().isWeighted()) {
+                return -1;
+            }
+            return eviction.get().weightedSize().orElse(0) << 10;
         }
 
         @Override
@@ -147,13 +217,39 @@ public class CaffeineCacheFactory implements CacheFactory {
     }
 
     private Map<String, Cache> map = new HashMap<>();
+    private Map<String, Long> maxBytes = new HashMap<>();
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
 
     @Override
     public <K, V> Cache<K, V> get(String name) {
-        map.put(name, new CaffeineCache<K,V>(name, 512));
+        map.put(name, new CaffeineCache<K,V>(name, maxEntries, getMaxBytes(name)));
         return map.get(name);
     }
 
+    /**
+     * Set the byte budget for the named cache, which overrides the system property.
+     * A budget of 0 or less limits the cache by the max entries instead.
+     */
+    public void setMaxBytes(String cacheName, long bytes) {
+        this.maxBytes.put(cacheName, bytes);
+    }
+
+    public long getMaxBytes(String cacheName) {
+        Long result = this.maxBytes.get(cacheName);
+        if (result != null) {
+            return result;
+        }
+        return PropertiesUtils.getHierarchicalProperty(MAX_BYTES_PREFIX + cacheName + MAX_BYTES_SUFFIX, 0l, Long.class);
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
     @Override
     public void destroy() {
         Set<String> keys = new HashSet<>(map.keySet());
@@ -19,9 +19,13 @@
 package org.teiid.cache.caffeine;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
 import org.junit.Test;
 import org.teiid.cache.Cache;
+import org.teiid.cache.caffeine.CaffeineCacheFactory.CaffeineCache;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.dqp.internal.process.CachedResults;
 
 public class TestCaffeineCacheFactory {
 
@@ -38,4 +42,44 @@ public class TestCaffeineCacheFactory {
         assertNull(cache.get("key"));
     }
 
+    private static CachedResults results(long rows, int rowSize) {
+        TupleBuffer tb = mock(TupleBuffer.class);
+        when(tb.getRowCount()).thenReturn(rows);
+        when(tb.getRowSizeEstimate()).thenReturn(rowSize);
+        CachedResults result = new CachedResults();
+        result.setResults(tb, null);
+        return result;
+    }
+
+    @Test public void testWeightedEviction() {
+        CaffeineCacheFactory ccf = new CaffeineCacheFactory();
+        ccf.setMaxBytes("resultset", 4 << 20);
+        CaffeineCache<String, CachedResults> cache = (CaffeineCache<String, CachedResults>)ccf.<String, CachedResults>get("resultset");
+
+        for (int i = 0; i < 3; i++) {
+            cache.put("small" + i, results(10, 100), null);
+        }
+        cache.put("large", results(1000, 1024), null);
+        cache.cleanUp();
+        assertEquals(0, cache.getEvictionCount());
+        //small entries weigh at least 1 kilobyte
+        assertEquals((3 + 1000) << 10, cache.getSizeEstimate());
+
+        //more than the whole budget
+        cache.put("huge", results(5000, 1024), null);
+        cache.cleanUp();
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get("huge"));
+        assertNotNull(cache.get("small0"));
+        assertNotNull(cache.get("large"));
+    }
+
+    @Test public void testCountBased() {
+        CaffeineCacheFactory ccf = new CaffeineCacheFactory();
+        CaffeineCache<String, String> cache = (CaffeineCache<String, String>)ccf.<String, String>get("preparedplan");
+        cache.put("key", "value", null);
+        assertEquals(-1, cache.getSizeEstimate());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
 }
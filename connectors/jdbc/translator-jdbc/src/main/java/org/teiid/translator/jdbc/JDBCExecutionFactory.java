@@ -530,6 +530,11 @@ public class JDBCExecutionFactory extends ExecutionFactory<DataSource, Connectio
         return true;
     }
 
+    @Override
+    public boolean supportsDependentJoinRangeFilter() {
+        return supportsCompareCriteriaOrdered();
+    }
+
     @Override
     public boolean supportsHaving() {
         return true;
@@ -0,0 +1,230 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.common.buffer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.core.types.DataTypeManager;
+
+/**
+ * A column oriented view of a list of tuples.
+ * <br>
+ * Columns are extracted on demand, and then cached, as primitive arrays with a null bitmap
+ * or as dictionary encoded values for strings so that operators may work on whole columns
+ * rather than dispatching per row.  The row form is still available via {@link #getTuple(int)}.
+ */
+public class ColumnarBatch {
+
+    public abstract static class Column {
+        private long[] nulls;
+
+        Column(int size) {
+            this.nulls = new long[(size + 63) >>> 6];
+        }
+
+        void setNull(int row) {
+            nulls[row >>> 6] |= 1l << row;
+        }
+
+        public boolean isNull(int row) {
+            return (nulls[row >>> 6] & (1l << row)) != 0;
+        }
+    }
+
+    public static final class IntColumn extends Column {
+        private int[] values;
+
+        IntColumn(int size) {
+            super(size);
+            this.values = new int[size];
+        }
+
+        public int[] getValues() {
+            return values;
+        }
+    }
+
+    public static final class LongColumn extends Column {
+        private long[] values;
+
+        LongColumn(int size) {
+            super(size);
+            this.values = new long[size];
+        }
+
+        public long[] getValues() {
+            return values;
+        }
+    }
+
+    public static final class DoubleColumn extends Column {
+        private double[] values;
+
+        DoubleColumn(int size) {
+            super(size);
+            this.values = new double[size];
+        }
+
+        public double[] getValues() {
+            return values;
+        }
+    }
+
+    /**
+     * Values are encoded as indexes into the dictionary of distinct values.
+     * Null values have a code of -1.
+     */
+    public static final class DictionaryColumn extends Column {
+        private int[] codes;
+        private Object[] dictionary;
+
+        DictionaryColumn(int size) {
+            super(size);
+            this.codes = new int[size];
+        }
+
+        public int[] getCodes() {
+            return codes;
+        }
+
+        public Object[] getDictionary() {
+            return dictionary;
+        }
+    }
+
+    public static final class ObjectColumn extends Column {
+        private Object[] values;
+
+        ObjectColumn(int size) {
+            super(size);
+            this.values = new Object[size];
+        }
+
+        public Object[] getValues() {
+            return values;
+        }
+    }
+
+    private List<? extends List<?>> tuples;
+    private Column[] columns;
+
+    public ColumnarBatch(List<? extends List<?>> tuples, int columnCount) {
+        this.tuples = tuples;
+        this.columns = new Column[columnCount];
+    }
+
+    public int getRowCount() {
+        return tuples.size();
+    }
+
+    public List<?> getTuple(int row) {
+        return tuples.get(row);
+    }
+
+    /**
+     * Get the column at the given index, which will be extracted if needed.
+     * @param type the runtime type of the column, which determines the column representation
+     */
+    public Column getColumn(int index, Class<?> type) {
+        Column column = columns[index];
+        if (column == null) {
+            column = createColumn(index, type);
+            columns[index] = column;
+        }
+        return column;
+    }
+
+    private Column createColumn(int index, Class<?> type) {
+        int size = tuples.size();
+        if (type == DataTypeManager.DefaultDataClasses.INTEGER
+                || type == DataTypeManager.DefaultDataClasses.SHORT
+                || type == DataTypeManager.DefaultDataClasses.BYTE) {
+            IntColumn column = new IntColumn(size);
+            for (int i = 0; i < size; i++) {
+                Object value = tuples.get(i).get(index);
+                if (value == null) {
+                    column.setNull(i);
+                } else {
+                    column.values[i] = ((Number)value).intValue();
+                }
+            }
+            return column;
+        }
+        if (type == DataTypeManager.DefaultDataClasses.LONG) {
+            LongColumn column = new LongColumn(size);
+            for (int i = 0; i < size; i++) {
+                Object value = tuples.get(i).get(index);
+                if (value == null) {
+                    column.setNull(i);
+                } else {
+                    column.values[i] = (Long)value;
+                }
+            }
+            return column;
+        }
+        if (type == DataTypeManager.DefaultDataClasses.DOUBLE
+                || type == DataTypeManager.DefaultDataClasses.FLOAT) {
+            DoubleColumn column = new DoubleColumn(size);
+            for (int i = 0; i < size; i++) {
+                Object value = tuples.get(i).get(index);
+                if (value == null) {
+                    column.setNull(i);
+                } else {
+                    column.values[i] = ((Number)value).doubleValue();
+                }
+            }
+            return column;
+        }
+        if (type == DataTypeManager.DefaultDataClasses.STRING) {
+            DictionaryColumn column = new DictionaryColumn(size);
+            Map<Object, Integer> codes = new HashMap<Object, Integer>();
+            for (int i = 0; i < size; i++) {
+                Object value = tuples.get(i).get(index);
+                if (value == null) {
+                    column.setNull(i);
+                    column.codes[i] = -1;
+                    continue;
+                }
+                Integer code = codes.get(value);
+                if (code == null) {
+                    code = codes.size();
+                    codes.put(value, code);
+                }
+                column.codes[i] = code;
+            }
+            column.dictionary = new Object[codes.size()];
+            for (Map.Entry<Object, Integer> entry : codes.entrySet()) {
+                column.dictionary[entry.getValue()] = entry.getKey();
+            }
+            return column;
+        }
+        ObjectColumn column = new ObjectColumn(size);
+        for (int i = 0; i < size; i++) {
+            Object value = tuples.get(i).get(index);
+            if (value == null) {
+                column.setNull(i);
+            }
+            column.values[i] = value;
+        }
+        return column;
+    }
+
+}
@@ -0,0 +1,522 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.common.buffer;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import org.teiid.client.BatchSerializer;
+import org.teiid.common.buffer.impl.SizeUtility;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.DataTypeManager.DefaultDataClasses;
+
+/**
+ * An immutable batch of rows stored by column.  Each column chunk is dictionary, run-length,
+ * or frame of reference encoded when that is smaller than the plain values.  Rows are decoded
+ * as they are accessed.
+ */
+public final class EncodedBatch extends AbstractList<List<?>> implements RandomAccess {
+
+    private static final byte PLAIN = 0;
+    private static final byte DICTIONARY = 1;
+    private static final byte RUN_LENGTH = 2;
+    private static final byte FRAME_OF_REFERENCE = 3;
+
+    private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+    private static final int ARRAY_OVERHEAD = 16;
+
+    /**
+     * Immutable types that may be encoded and summarized in the {@link ZoneMap}
+     */
+    private static final Set<Class<?>> ENCODABLE_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            DefaultDataClasses.STRING, DefaultDataClasses.CHAR, DefaultDataClasses.BOOLEAN,
+            DefaultDataClasses.BYTE, DefaultDataClasses.SHORT, DefaultDataClasses.INTEGER,
+            DefaultDataClasses.LONG, DefaultDataClasses.BIG_INTEGER, DefaultDataClasses.FLOAT,
+            DefaultDataClasses.DOUBLE, DefaultDataClasses.BIG_DECIMAL, DefaultDataClasses.DATE,
+            DefaultDataClasses.TIME, DefaultDataClasses.TIMESTAMP));
+
+    private abstract static class Chunk {
+        abstract Object get(int row);
+        abstract long getSizeEstimate();
+        abstract void writeTo(ObjectOutput out, String type) throws IOException;
+    }
+
+    private static class PlainChunk extends Chunk {
+        private Object[] values;
+
+        PlainChunk(Object[] values) {
+            this.values = values;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        long getSizeEstimate() {
+            return getValuesSizeEstimate(values);
+        }
+
+        @Override
+        void writeTo(ObjectOutput out, String type) throws IOException {
+            out.writeByte(PLAIN);
+            writeValues(out, type, values);
+        }
+    }
+
+    private static class DictionaryChunk extends Chunk {
+        private Object[] dictionary;
+        private byte[] byteCodes;
+        private char[] charCodes;
+
+        DictionaryChunk(Object[] dictionary, byte[] byteCodes, char[] charCodes) {
+            this.dictionary = dictionary;
+            this.byteCodes = byteCodes;
+            this.charCodes = charCodes;
+        }
+
+        @Override
+        Object get(int row) {
+            if (byteCodes != null) {
+                return dictionary[byteCodes[row] & 0xff];
+            }
+            return dictionary[charCodes[row]];
+        }
+
+        @Override
+        long getSizeEstimate() {
+            return getValuesSizeEstimate(dictionary) + ARRAY_OVERHEAD + (byteCodes != null?byteCodes.length:(charCodes.length<<1));
+        }
+
+        @Override
+        void writeTo(ObjectOutput out, String type) throws IOException {
+            out.writeByte(DICTIONARY);
+            writeValues(out, type, dictionary);
+            out.writeBoolean(byteCodes != null);
+            if (byteCodes != null) {
+                out.writeInt(byteCodes.length);
+                out.write(byteCodes);
+            } else {
+                out.writeInt(charCodes.length);
+                for (char code : charCodes) {
+                    out.writeChar(code);
+                }
+            }
+        }
+    }
+
+    private static class RunLengthChunk extends Chunk {
+        private Object[] values;
+        /**
+         * The exclusive end row of each run
+         */
+        private int[] ends;
+
+        RunLengthChunk(Object[] values, int[] ends) {
+            this.values = values;
+            this.ends = ends;
+        }
+
+        @Override
+        Object get(int row) {
+            int index = Arrays.binarySearch(ends, row);
+            return values[index >= 0?index + 1:-index - 1];
+        }
+
+        @Override
+        long getSizeEstimate() {
+            return getValuesSizeEstimate(values) + ARRAY_OVERHEAD + (ends.length<<2);
+        }
+
+        @Override
+        void writeTo(ObjectOutput out, String type) throws IOException {
+            out.writeByte(RUN_LENGTH);
+            writeValues(out, type, values);
+            for (int end : ends) {
+                out.writeInt(end);
+            }
+        }
+    }
+
+    /**
+     * Integral values without nulls stored as unsigned offsets from the minimum value
+     */
+    private static class FrameOfReferenceChunk extends Chunk {
+        private Class<?> type;
+        private long base;
+        private byte[] byteDeltas;
+        private char[] charDeltas;
+        private int[] intDeltas;
+
+        FrameOfReferenceChunk(Class<?> type, long base, byte[] byteDeltas, char[] charDeltas, int[] intDeltas) {
+            this.type = type;
+            this.base = base;
+            this.byteDeltas = byteDeltas;
+            this.charDeltas = charDeltas;
+            this.intDeltas = intDeltas;
+        }
+
+        @Override
+        Object get(int row) {
+            long value = base;
+            if (byteDeltas != null) {
+                value += byteDeltas[row] & 0xff;
+            } else if (charDeltas != null) {
+                value += charDeltas[row];
+            } else {
+                value += intDeltas[row] & 0xffffffffL;
+            }
+            if (type == DefaultDataClasses.INTEGER) {
+                return Integer.valueOf((int)value);
+            }
+            if (type == DefaultDataClasses.LONG) {
+                return Long.valueOf(value);
+            }
+            if (type == DefaultDataClasses.SHORT) {
+                return Short.valueOf((short)value);
+            }
+            return Byte.valueOf((byte)value);
+        }
+
+        @Override
+        long getSizeEstimate() {
+            if (byteDeltas != null) {
+                return ARRAY_OVERHEAD + byteDeltas.length;
+            }
+            if (charDeltas != null) {
+                return ARRAY_OVERHEAD + (charDeltas.length<<1);
+            }
+            return ARRAY_OVERHEAD + (intDeltas.length<<2);
+        }
+
+        @Override
+        void writeTo(ObjectOutput out, String type) throws IOException {
+            out.writeByte(FRAME_OF_REFERENCE);
+            out.writeLong(base);
+            if (byteDeltas != null) {
+                out.writeByte(1);
+                out.write(byteDeltas);
+            } else if (charDeltas != null) {
+                out.writeByte(2);
+                for (char delta : charDeltas) {
+                    out.writeChar(delta);
+                }
+            } else {
+                out.writeByte(4);
+                for (int delta : intDeltas) {
+                    out.writeInt(delta);
+                }
+            }
+        }
+    }
+
+    private int rowCount;
+    private Chunk[] chunks;
+    private long sizeEstimate;
+    private ZoneMap zoneMap;
+
+    private EncodedBatch(int rowCount, Chunk[] chunks) {
+        this.rowCount = rowCount;
+        this.chunks = chunks;
+        this.sizeEstimate = ARRAY_OVERHEAD + chunks.length * SizeUtility.REFERENCE_SIZE;
+        for (Chunk chunk : chunks) {
+            this.sizeEstimate += chunk.getSizeEstimate();
+        }
+    }
+
+    /**
+     * Encode the rows by column.
+     * @return the encoded batch or null if the rows should not be encoded
+     */
+    public static EncodedBatch encode(List<? extends List<?>> rows, String[] types) {
+        if (rows.isEmpty()) {
+            return null;
+        }
+        for (String type : types) {
+            if (DataTypeManager.isLOB(type)) {
+                //lob references are managed with the rows
+                return null;
+            }
+        }
+        ZoneMap zoneMap = new ZoneMap(types.length);
+        Chunk[] chunks = new Chunk[types.length];
+        Object[] values = new Object[rows.size()];
+        for (int column = 0; column < types.length; column++) {
+            for (int row = 0; row < values.length; row++) {
+                values[row] = rows.get(row).get(column);
+            }
+            chunks[column] = encode(values, DataTypeManager.getDataTypeClass(types[column]), zoneMap, column);
+        }
+        EncodedBatch result = new EncodedBatch(rows.size(), chunks);
+        result.zoneMap = zoneMap;
+        return result;
+    }
+
+    private static Chunk encode(Object[] values, Class<?> type, ZoneMap zoneMap, int column) {
+        if (!ENCODABLE_TYPES.contains(type)) {
+            return new PlainChunk(values.clone());
+        }
+        zoneMap.track(column);
+        int runs = 1;
+        boolean hasNull = false;
+        for (int i = 0; i < values.length; i++) {
+            zoneMap.add(column, values[i]);
+            hasNull |= values[i] == null;
+            if (i > 0 && !equals(values[i], values[i - 1])) {
+                runs++;
+            }
+        }
+        if (runs <= values.length>>2) {
+            return encodeRunLength(values, runs);
+        }
+        if (!hasNull && (type == DefaultDataClasses.INTEGER || type == DefaultDataClasses.LONG
+                || type == DefaultDataClasses.SHORT || type == DefaultDataClasses.BYTE)) {
+            Chunk chunk = encodeFrameOfReference(values, type);
+            if (chunk != null) {
+                return chunk;
+            }
+        }
+        return encodeDictionary(values);
+    }
+
+    private static Chunk encodeRunLength(Object[] values, int runs) {
+        Object[] runValues = new Object[runs];
+        int[] ends = new int[runs];
+        int run = 0;
+        runValues[0] = values[0];
+        for (int i = 1; i < values.length; i++) {
+            if (!equals(values[i], values[i - 1])) {
+                ends[run++] = i;
+                runValues[run] = values[i];
+            }
+        }
+        ends[run] = values.length;
+        return new RunLengthChunk(runValues, ends);
+    }
+
+    private static Chunk encodeFrameOfReference(Object[] values, Class<?> type) {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (Object value : values) {
+            long l = ((Number)value).longValue();
+            min = Math.min(min, l);
+            max = Math.max(max, l);
+        }
+        long range = max - min;
+        if (range < 0 || range > 0xffffffffL) {
+            //overflow or too wide
+            return null;
+        }
+        byte[] byteDeltas = null;
+        char[] charDeltas = null;
+        int[] intDeltas = null;
+        if (range <= 0xff) {
+            byteDeltas = new byte[values.length];
+        } else if (range <= 0xffff) {
+            charDeltas = new char[values.length];
+        } else {
+            intDeltas = new int[values.length];
+        }
+        for (int i = 0; i < values.length; i++) {
+            long delta = ((Number)values[i]).longValue() - min;
+            if (byteDeltas != null) {
+                byteDeltas[i] = (byte)delta;
+            } else if (charDeltas != null) {
+                charDeltas[i] = (char)delta;
+            } else {
+                intDeltas[i] = (int)delta;
+            }
+        }
+        return new FrameOfReferenceChunk(type, min, byteDeltas, charDeltas, intDeltas);
+    }
+
+    private static Chunk encodeDictionary(Object[] values) {
+        int maxSize = Math.min(MAX_DICTIONARY_SIZE, values.length>>1);
+        Map<Object, Integer> codes = new HashMap<Object, Integer>();
+        List<Object> dictionary = new ArrayList<Object>();
+        int[] rowCodes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            Integer code = codes.get(values[i]);
+            if (code == null) {
+                if (dictionary.size() == maxSize) {
+                    return new PlainChunk(values.clone());
+                }
+                code = dictionary.size();
+                codes.put(values[i], code);
+                dictionary.add(values[i]);
+            }
+            rowCodes[i] = code;
+        }
+        byte[] byteCodes = null;
+        char[] charCodes = null;
+        if (dictionary.size() <= 0x100) {
+            byteCodes = new byte[values.length];
+            for (int i = 0; i < values.length; i++) {
+                byteCodes[i] = (byte)rowCodes[i];
+            }
+        } else {
+            charCodes = new char[values.length];
+            for (int i = 0; i < values.length; i++) {
+                charCodes[i] = (char)rowCodes[i];
+            }
+        }
+        return new DictionaryChunk(dictionary.toArray(), byteCodes, charCodes);
+    }
+
+    private static boolean equals(Object value, Object other) {
+        if (value == null) {
+            return other == null;
+        }
+        return value.equals(other);
+    }
+
+    private static long getValuesSizeEstimate(Object[] values) {
+        long size = ARRAY_OVERHEAD + values.length * SizeUtility.REFERENCE_SIZE;
+        boolean valueCache = DataTypeManager.isValueCacheEnabled();
+        for (Object value : values) {
+            size += SizeUtility.getSize(value, valueCache);
+        }
+        return size;
+    }
+
+    private static void writeValues(ObjectOutput out, String type, Object[] values) throws IOException {
+        List<List<?>> batch = new ArrayList<List<?>>(values.length);
+        for (Object value : values) {
+            batch.add(Collections.singletonList(value));
+        }
+        BatchSerializer.writeBatch(out, new String[] {type}, batch);
+    }
+
+    private static Object[] readValues(ObjectInput in, String type) throws IOException, ClassNotFoundException {
+        List<List<Object>> batch = BatchSerializer.readBatch(in, new String[] {type});
+        Object[] values = new Object[batch.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = batch.get(i).get(0);
+        }
+        return values;
+    }
+
+    public void writeTo(ObjectOutput out, String[] types) throws IOException {
+        out.writeInt(rowCount);
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i].writeTo(out, types[i]);
+        }
+    }
+
+    public static EncodedBatch readFrom(ObjectInput in, String[] types) throws IOException, ClassNotFoundException {
+        int rowCount = in.readInt();
+        Chunk[] chunks = new Chunk[types.length];
+        for (int i = 0; i < chunks.length; i++) {
+            byte encoding = in.readByte();
+            switch (encoding) {
+            case PLAIN:
+                chunks[i] = new PlainChunk(readValues(in, types[i]));
+                break;
+            case DICTIONARY:
+                Object[] dictionary = readValues(in, types[i]);
+                if (in.readBoolean()) {
+                    byte[] byteCodes = new byte[in.readInt()];
+                    in.readFully(byteCodes);
+                    chunks[i] = new DictionaryChunk(dictionary, byteCodes, null);
+                } else {
+                    char[] charCodes = new char[in.readInt()];
+                    for (int j = 0; j < charCodes.length; j++) {
+                        charCodes[j] = in.readChar();
+                    }
+                    chunks[i] = new DictionaryChunk(dictionary, null, charCodes);
+                }
+                break;
+            case RUN_LENGTH:
+                Object[] values = readValues(in, types[i]);
+                int[] ends = new int[values.length];
+                for (int j = 0; j < ends.length; j++) {
+                    ends[j] = in.readInt();
+                }
+                chunks[i] = new RunLengthChunk(values, ends);
+                break;
+            case FRAME_OF_REFERENCE:
+                long base = in.readLong();
+                byte width = in.readByte();
+                byte[] byteDeltas = null;
+                char[] charDeltas = null;
+                int[] intDeltas = null;
+                if (width == 1) {
+                    byteDeltas = new byte[rowCount];
+                    in.readFully(byteDeltas);
+                } else if (width == 2) {
+                    charDeltas = new char[rowCount];
+                    for (int j = 0; j < rowCount; j++) {
+                        charDeltas[j] = in.readChar();
+                    }
+                } else {
+                    intDeltas = new int[rowCount];
+                    for (int j = 0; j < rowCount; j++) {
+                        intDeltas[j] = in.readInt();
+                    }
+                }
+                chunks[i] = new FrameOfReferenceChunk(DataTypeManager.getDataTypeClass(types[i]), base, byteDeltas, charDeltas, intDeltas);
+                break;
+            default:
+                throw new IOException("Unknown column encoding " + encoding); //$NON-NLS-1$
+            }
+        }
+        return new EncodedBatch(rowCount, chunks);
+    }
+
+    @Override
+    public List<?> get(int index) {
+        if (index < 0 || index >= rowCount) {
+            throw new IndexOutOfBoundsException(String.valueOf(index));
+        }
+        Object[] row = new Object[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            row[i] = chunks[i].get(index);
+        }
+        return Arrays.asList(row);
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    public long getSizeEstimate() {
+        return sizeEstimate;
+    }
+
+    /**
+     * @return the zone map computed when the batch was encoded, or null if it was deserialized
+     */
+    public ZoneMap getZoneMap() {
+        return zoneMap;
+    }
+
+}
@@ -21,6 +21,7 @@ package org.teiid.common.buffer;
 import java.lang.ref.PhantomReference;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -84,6 +85,16 @@ class SPage implements Cloneable {
 
     private static AtomicLong counter = new AtomicLong();
 
+    /**
+     * Marks a key page that holds a non-primitive (null) key
+     */
+    private static final long[] NON_PRIMITIVE_KEYS = new long[0];
+
+    /**
+     * Indicates that a primitive search encountered a null
+     */
+    private static final int NULL_KEY = Integer.MIN_VALUE;
+
     STree stree;
 
     private long id;
@@ -93,6 +104,14 @@ class SPage implements Cloneable {
     protected Object trackingObject;
     protected List<List<?>> values;
     protected List<SPage> children;
+    /**
+     * The primitive keys of a key page, which are kept on heap since key pages prefer memory
+     */
+    private volatile long[] keys;
+    /**
+     * The summary of a leaf page stored as a {@link EncodedBatch}
+     */
+    protected ZoneMap zoneMap;
 
     SPage(STree stree, boolean leaf) {
         this.stree = stree;
@@ -133,7 +152,7 @@ class SPage implements Cloneable {
         List<List<?>> previousValues = null;
         for (;;) {
             List<List<?>> values = page.getValues();
-            int index = Collections.binarySearch(values, k, page.stree.comparator);
+            int index = page.binarySearch(values, k);
             int flippedIndex = - index - 1;
             if (previousValues != null) {
                 if (flippedIndex == 0) {
@@ -143,7 +162,7 @@ class SPage implements Cloneable {
                 if (parent != null && index != 0) {
                     page.stree.updateLock.lock();
                     try {
-                        index = Collections.binarySearch(values, k, page.stree.comparator);
+                        index = page.binarySearch(values, k);
                         if (index != 0) {
                             //for non-matches move the previous pointer over to this page
                             SPage childPage = page;
@@ -177,7 +196,83 @@ class SPage implements Cloneable {
         }
     }
 
+    int binarySearch(List<List<?>> values, List k) {
+        return binarySearch(stree, values, k, this);
+    }
+
+    /**
+     * Search the values for the key.  A single integral key is compared as a long,
+     * against the primitive keys for a key page, rather than with the comparator.
+     * @param page the page holding the values or null if not known
+     */
+    static int binarySearch(STree stree, List<List<?>> values, List k, SPage page) {
+        if (!k.isEmpty() && STree.isPrimitiveKeyValue(k.get(0)) && stree.isPrimitiveKey()) {
+            long key = ((Number)k.get(0)).longValue();
+            long[] pageKeys = page != null?page.getKeys(values):null;
+            int index = NULL_KEY;
+            if (pageKeys != null) {
+                index = Arrays.binarySearch(pageKeys, key);
+            } else {
+                index = binarySearch(values, key);
+            }
+            if (index != NULL_KEY) {
+                if (index >= 0) {
+                    //allow the comparator to track distinctness
+                    stree.comparator.compare(values.get(index), k);
+                }
+                return index;
+            }
+        }
+        return Collections.binarySearch(values, k, stree.comparator);
+    }
+
+    private static int binarySearch(List<List<?>> values, long key) {
+        int low = 0;
+        int high = values.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Object value = values.get(mid).get(0);
+            if (value == null) {
+                return NULL_KEY;
+            }
+            long midKey = ((Number)value).longValue();
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private long[] getKeys(List<List<?>> values) {
+        if (children == null) {
+            return null;
+        }
+        long[] result = keys;
+        if (result == NON_PRIMITIVE_KEYS) {
+            return null;
+        }
+        if (result == null || result.length != values.size()) {
+            result = new long[values.size()];
+            for (int i = 0; i < result.length; i++) {
+                Object value = values.get(i).get(0);
+                if (value == null) {
+                    keys = NON_PRIMITIVE_KEYS;
+                    return null;
+                }
+                result[i] = ((Number)value).longValue();
+            }
+            keys = result;
+        }
+        return result;
+    }
+
     protected void setValues(List<List<?>> values) throws TeiidComponentException {
+        this.keys = null;
+        this.zoneMap = null;
         if (values instanceof LightWeightCopyOnWriteList<?>) {
             values = ((LightWeightCopyOnWriteList<List<?>>)values).getList();
         }
@@ -189,12 +284,29 @@ class SPage implements Cloneable {
             stree.incompleteInsert = this;
             return;
         }
+        if (children == null) {
+            if (stree.columnar) {
+                if (!(values instanceof EncodedBatch)) {
+                    EncodedBatch batch = EncodedBatch.encode(values, stree.getBatchManager(true).getTypes());
+                    if (batch != null) {
+                        values = batch;
+                        this.zoneMap = batch.getZoneMap();
+                    }
+                }
+            } else if (values instanceof EncodedBatch) {
+                values = new ResizingArrayList<List<?>>(values);
+            }
+        }
         this.values = null;
         managedBatch = stree.getBatchManager(children == null).createManagedBatch(values, managedBatch, trackingObject == null);
         this.trackingObject = null;
     }
 
     private void setDirectValues(List<List<?>> values) {
+        if (values instanceof EncodedBatch) {
+            //direct values are modified in place
+            values = new ResizingArrayList<List<?>>(values);
+        }
         if (managedBatch != null && trackingObject == null) {
             stree.getBatchManager(children == null).remove(managedBatch);
             managedBatch = null;
@@ -213,6 +325,8 @@ class SPage implements Cloneable {
         }
         values = null;
         children = null;
+        keys = null;
+        zoneMap = null;
     }
 
     protected List<List<?>> getValues() throws TeiidComponentException {
@@ -234,7 +348,7 @@ class SPage implements Cloneable {
             }
         }
         List<List<?>> result = stree.getBatchManager(children == null).getBatch(managedBatch, true);
-        if (trackingObject != null) {
+        if (trackingObject != null || result instanceof EncodedBatch) {
             return new LightWeightCopyOnWriteList<List<?>>(result);
         }
         return result;
@@ -37,6 +37,7 @@ import org.teiid.common.buffer.SPage.SearchResult;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
+import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.util.Assertion;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.processor.relational.ListNestedSortComparator;
@@ -70,6 +71,8 @@ public class STree implements Cloneable {
     protected boolean batchInsert;
     protected SPage incompleteInsert;
     protected LobManager lobManager;
+    protected boolean primitiveKey;
+    protected boolean columnar;
 
     protected ReentrantLock updateLock = new ReentrantLock();
 
@@ -99,10 +102,29 @@ public class STree implements Cloneable {
         this.leafSize = leafSize;
         this.keyLength = keyLength;
         this.lobManager = lobManager;
+        this.primitiveKey = keyLength == 1 && isPrimitiveKeyType(leafManager.getTypes()[0]);
         this.minPageSize = this.pageSize>>5;
         this.minStorageSize = this.pageSize>>2;
     }
 
+    private static boolean isPrimitiveKeyType(String type) {
+        return DataTypeManager.DefaultDataTypes.INTEGER.equals(type)
+                || DataTypeManager.DefaultDataTypes.LONG.equals(type)
+                || DataTypeManager.DefaultDataTypes.SHORT.equals(type)
+                || DataTypeManager.DefaultDataTypes.BYTE.equals(type);
+    }
+
+    static boolean isPrimitiveKeyValue(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * @return true if the key is a single integral value that may be searched without the comparator
+     */
+    boolean isPrimitiveKey() {
+        return primitiveKey && comparator.isAscending(0);
+    }
+
     public STree clone() {
         updateLock.lock();
         try {
@@ -546,6 +568,28 @@ public class STree implements Cloneable {
         return this.leafManager.prefersMemory();
     }
 
+    /**
+     * Store full leaf pages as {@link EncodedBatch}es, with a {@link ZoneMap} for each page.
+     * The existing leaf pages are rewritten.
+     */
+    public void setColumnar(boolean columnar) throws TeiidComponentException {
+        updateLock.lock();
+        try {
+            this.columnar = columnar;
+            for (SPage page = header[0]; page != null; page = page.next) {
+                if (page.managedBatch != null) {
+                    page.setValues(page.getValues());
+                }
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    public boolean isColumnar() {
+        return columnar;
+    }
+
     public ListNestedSortComparator getComparator() {
         return comparator;
     }
@@ -57,6 +57,8 @@ public class TupleBrowser implements TupleSource {
 
     private boolean atBound;
 
+    private List<ZoneMap.Condition> pageConditions;
+
     /**
      * Construct a value based browser.  The {@link TupleSource} should already be in the
      * proper direction.
@@ -198,7 +200,7 @@ public class TupleBrowser implements TupleSource {
                     continue;
                 }
                 if (values != null) {
-                    int possibleIndex = Collections.binarySearch(values, newValue, tree.comparator);
+                    int possibleIndex = SPage.binarySearch(tree, values, newValue, page);
                     if (possibleIndex >= 0) {
                         //value exists in the current page
                         index = possibleIndex;
@@ -234,6 +236,18 @@ public class TupleBrowser implements TupleSource {
                 return null;
             }
             if (values == null) {
+                ZoneMap zoneMap = page.zoneMap;
+                if (pageConditions != null && zoneMap != null && !zoneMap.mayMatch(pageConditions)) {
+                    //skip the page without loading it
+                    if (page == bound) {
+                        page = null;
+                    } else if (direction) {
+                        page = page.next;
+                    } else {
+                        page = page.prev;
+                    }
+                    continue;
+                }
                 setValues(page.getValues());
                 if (direction) {
                     index = 0;
@@ -261,6 +275,14 @@ public class TupleBrowser implements TupleSource {
         }
     }
 
+    /**
+     * Set conditions that all returned rows must satisfy, so that pages with
+     * a {@link ZoneMap} may be skipped.  The conditions are not otherwise enforced.
+     */
+    public void setPageConditions(List<ZoneMap.Condition> pageConditions) {
+        this.pageConditions = pageConditions;
+    }
+
     public void reset(TupleSource ts) throws TeiidComponentException {
         this.valueSet = ts;
         resetState();
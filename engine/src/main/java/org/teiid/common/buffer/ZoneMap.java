@@ -0,0 +1,140 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.common.buffer;
+
+import java.util.List;
+
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.symbol.Constant;
+
+/**
+ * The minimum and maximum non-null values of each column of a {@link EncodedBatch},
+ * which are kept with the page so that a scan may skip the pages that cannot contain a
+ * matching row without loading them.
+ */
+public final class ZoneMap {
+
+    /**
+     * A condition that each matching row must satisfy.
+     */
+    public static final class Condition {
+        public static final int IS_NULL = -1;
+        public static final int IS_NOT_NULL = -2;
+
+        private int column;
+        private int operator;
+        private Object value;
+
+        /**
+         * @param column the index of the column
+         * @param operator a {@link CompareCriteria} operator other than NE, {@link #IS_NULL}, or {@link #IS_NOT_NULL}
+         * @param value the non-null value to compare against
+         */
+        public Condition(int column, int operator, Object value) {
+            this.column = column;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return column + " " + operator + " " + value; //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    private Object[] min;
+    private Object[] max;
+    private boolean[] tracked;
+    private boolean[] hasNull;
+
+    ZoneMap(int columns) {
+        this.min = new Object[columns];
+        this.max = new Object[columns];
+        this.tracked = new boolean[columns];
+        this.hasNull = new boolean[columns];
+    }
+
+    void track(int column) {
+        this.tracked[column] = true;
+    }
+
+    void add(int column, Object value) {
+        if (!tracked[column]) {
+            return;
+        }
+        if (value == null) {
+            hasNull[column] = true;
+            return;
+        }
+        if (min[column] == null || Constant.COMPARATOR.compare(value, min[column]) < 0) {
+            min[column] = value;
+        }
+        if (max[column] == null || Constant.COMPARATOR.compare(value, max[column]) > 0) {
+            max[column] = value;
+        }
+    }
+
+    /**
+     * @return false if no row can satisfy all of the conditions
+     */
+    public boolean mayMatch(List<Condition> conditions) {
+        for (int i = 0; i < conditions.size(); i++) {
+            if (!mayMatch(conditions.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean mayMatch(Condition condition) {
+        int column = condition.column;
+        if (column >= tracked.length || !tracked[column]) {
+            return true;
+        }
+        if (condition.operator == Condition.IS_NULL) {
+            return hasNull[column];
+        }
+        if (min[column] == null) {
+            //all null, so neither a comparison nor is not null can be satisfied
+            return false;
+        }
+        if (condition.operator == Condition.IS_NOT_NULL) {
+            return true;
+        }
+        if (condition.value.getClass() != min[column].getClass()) {
+            return true;
+        }
+        switch (condition.operator) {
+        case CompareCriteria.EQ:
+            return Constant.COMPARATOR.compare(condition.value, min[column]) >= 0
+                    && Constant.COMPARATOR.compare(condition.value, max[column]) <= 0;
+        case CompareCriteria.LT:
+            return Constant.COMPARATOR.compare(min[column], condition.value) < 0;
+        case CompareCriteria.LE:
+            return Constant.COMPARATOR.compare(min[column], condition.value) <= 0;
+        case CompareCriteria.GT:
+            return Constant.COMPARATOR.compare(max[column], condition.value) > 0;
+        case CompareCriteria.GE:
+            return Constant.COMPARATOR.compare(max[column], condition.value) >= 0;
+        default:
+            return true;
+        }
+    }
+
+}
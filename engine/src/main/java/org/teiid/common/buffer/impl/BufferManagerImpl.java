@@ -254,7 +254,8 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
                     if (old != null) {
                         synchronized (old) {
                             int oldRowCount = ((List)old.getObject()).size();
-                            if (!old.isPersistent() && (batch.size() > (oldRowCount>>2) && batch.size() < (oldRowCount<<1))) {
+                            if (!old.isPersistent() && (batch.size() > (oldRowCount>>2) && batch.size() < (oldRowCount<<1))
+                                    && (old.getObject() instanceof EncodedBatch) == (batch instanceof EncodedBatch)) {
                                 old.setObject(batch);
                                 return previous;
                             }
@@ -311,6 +312,9 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
         @Override
         public List<? extends List<?>> deserialize(ObjectInput ois)
                 throws IOException, ClassNotFoundException {
+            if (ois.readBoolean()) {
+                return EncodedBatch.readFrom(ois, types);
+            }
             List<? extends List<?>> batch = BatchSerializer.readBatch(ois, types);
             if (lobManager != null) {
                 for (int i = batch.size() - 1; i >= 0; i--) {
@@ -327,6 +331,12 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
         @Override
         public void serialize(List<? extends List<?>> obj,
                 ObjectOutput oos) throws IOException {
+            if (obj instanceof EncodedBatch) {
+                oos.writeBoolean(true);
+                ((EncodedBatch)obj).writeTo(oos, types);
+                return;
+            }
+            oos.writeBoolean(false);
             ResizingArrayList<?> list = null;
             if (obj instanceof ResizingArrayList<?>) {
                 list = (ResizingArrayList<?>)obj;
@@ -348,6 +358,9 @@ public class BufferManagerImpl implements BufferManager, ReplicatedObject<String
         }
 
         public int getSizeEstimate(List<? extends List<?>> obj) {
+            if (obj instanceof EncodedBatch) {
+                return (int) Math.max(1, ((EncodedBatch)obj).getSizeEstimate());
+            }
             return (int) Math.max(1, sizeUtility.getBatchSize(DataTypeManager.isValueCacheEnabled(), obj));
         }
 
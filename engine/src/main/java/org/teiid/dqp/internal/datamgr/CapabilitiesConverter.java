@@ -142,6 +142,7 @@ public class CapabilitiesConverter {
         tgtCaps.setCapabilitySupport(Capability.GEOGRAPHY_TYPE, srcCaps.supportsGeographyType());
         tgtCaps.setCapabilitySupport(Capability.PROCEDURE_PARAMETER_EXPRESSION, srcCaps.supportsProcedureParameterExpression());
         tgtCaps.setCapabilitySupport(Capability.QUERY_ONLY_FROM_RELATIONSHIP_JOIN, srcCaps.supportsOnlyRelationshipStyleJoins());
+        setSupports(connectorID, tgtCaps, Capability.DEPENDENT_JOIN_RANGE_FILTER, srcCaps.supportsDependentJoinRangeFilter(), Capability.CRITERIA_COMPARE_ORDERED);
         if (srcCaps.supportsPartialFiltering()) {
             //disable supports that could end up being not filterable
             tgtCaps.setCapabilitySupport(Capability.PARTIAL_FILTERS, true);
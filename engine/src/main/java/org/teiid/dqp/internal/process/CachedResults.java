@@ -55,6 +55,13 @@ public class CachedResults implements Serializable, Cachable {
         return this.uuid;
     }
 
+    /**
+     * Set the id used to distribute the results, which defaults to the id of the results buffer
+     */
+    void setId(String uuid) {
+        this.uuid = uuid;
+    }
+
     public TupleBuffer getResults() {
         return results;
     }
@@ -83,7 +90,7 @@ public class CachedResults implements Serializable, Cachable {
     @Override
     public boolean prepare(TupleBufferCache bufferManager) {
         Assertion.assertTrue(!this.results.isForwardOnly());
-        bufferManager.distributeTupleBuffer(this.results.getId(), results);
+        bufferManager.distributeTupleBuffer(this.uuid, results);
         return true;
     }
 
@@ -113,6 +120,18 @@ public class CachedResults implements Serializable, Cachable {
         return accessInfo;
     }
 
+    /**
+     * @return the estimated size in bytes of the results, which is the row count
+     * times the row size estimate of the buffer
+     */
+    public long getSizeEstimate() {
+        TupleBuffer buffer = this.results;
+        if (buffer == null) {
+            return 0;
+        }
+        return buffer.getRowCount() * buffer.getRowSizeEstimate();
+    }
+
     public int getRowLimit() {
         return rowLimit;
     }
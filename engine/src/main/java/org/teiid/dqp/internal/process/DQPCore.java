@@ -697,6 +697,9 @@ public class DQPCore implements DQP {
         PropertiesUtils.setBeanProperties(options, options.getProperties(), "org.teiid", true); //$NON-NLS-1$
 
         this.bufferManager.setOptions(options);
+        if (this.rsCache != null && options.isSemanticResultSetCache()) {
+            this.rsCache.setSemanticCache(new SemanticResultSetCache());
+        }
         //hack to set the max active plans
         this.bufferManager.setMaxActivePlans(this.maxActivePlans);
         try {
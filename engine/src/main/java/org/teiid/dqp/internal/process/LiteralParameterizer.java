@@ -0,0 +1,189 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.dqp.internal.process;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.resolver.util.ResolverUtil;
+import org.teiid.query.sql.LanguageObject;
+import org.teiid.query.sql.LanguageVisitor;
+import org.teiid.query.sql.lang.BetweenCriteria;
+import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.JoinPredicate;
+import org.teiid.query.sql.lang.Query;
+import org.teiid.query.sql.lang.SetCriteria;
+import org.teiid.query.sql.navigator.PreOrPostOrderNavigator;
+import org.teiid.query.sql.navigator.PreOrderNavigator;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.Reference;
+
+/**
+ * Replaces the literals compared against non-literal expressions in the criteria of a query with
+ * positional references, so that ad-hoc queries differing only by their literal values may share a
+ * cached plan.
+ * <br>
+ * Literals elsewhere, such as in the select or group by clauses, are left as is since they may need to
+ * match other parts of the query or may not have a context from which to determine their type.
+ * <br>
+ * As with a prepared statement, the plan is built without the values and is not re-planned for new values,
+ * so value dependent optimizations such as union branch pruning and statistics based estimates for the
+ * parameterized predicates are not applied.  A maxRows limit is still planned into the command and pushed to
+ * the sources, so it is part of the plan cache key.
+ */
+class LiteralParameterizer extends LanguageVisitor {
+
+    private List<Reference> references = new ArrayList<Reference>();
+    private List<Object> values = new ArrayList<Object>();
+    private List<String> types = new ArrayList<String>();
+
+    /**
+     * Replace the literals in the unresolved command
+     */
+    void parameterize(Command command) {
+        PreOrPostOrderNavigator.doVisit(command, new LanguageVisitor() {
+            @Override
+            public void visit(Query obj) {
+                replaceLiterals(obj.getCriteria());
+                replaceLiterals(obj.getHaving());
+            }
+
+            @Override
+            public void visit(JoinPredicate obj) {
+                for (Criteria crit : (List<Criteria>)obj.getJoinCriteria()) {
+                    replaceLiterals(crit);
+                }
+            }
+        }, PreOrPostOrderNavigator.PRE_ORDER, true);
+    }
+
+    private void replaceLiterals(LanguageObject obj) {
+        if (obj != null) {
+            //nested commands are handled by the deep navigation of the command
+            PreOrderNavigator.doVisit(obj, this);
+        }
+    }
+
+    @Override
+    public void visit(CompareCriteria obj) {
+        if (isLiteral(obj.getRightExpression()) && !(obj.getLeftExpression() instanceof Constant)) {
+            obj.setRightExpression(replace((Constant)obj.getRightExpression()));
+        } else if (isLiteral(obj.getLeftExpression()) && !(obj.getRightExpression() instanceof Constant)) {
+            obj.setLeftExpression(replace((Constant)obj.getLeftExpression()));
+        }
+    }
+
+    @Override
+    public void visit(SetCriteria obj) {
+        if (obj.getExpression() instanceof Constant) {
+            return;
+        }
+        for (Object value : obj.getValues()) {
+            if (!isLiteral((Expression)value)) {
+                return;
+            }
+        }
+        List<Expression> newValues = new ArrayList<Expression>(obj.getNumberOfValues());
+        for (Object value : obj.getValues()) {
+            newValues.add(replace((Constant)value));
+        }
+        obj.setValues(newValues);
+    }
+
+    @Override
+    public void visit(BetweenCriteria obj) {
+        if (obj.getExpression() instanceof Constant) {
+            return;
+        }
+        if (isLiteral(obj.getLowerExpression())) {
+            obj.setLowerExpression(replace((Constant)obj.getLowerExpression()));
+        }
+        if (isLiteral(obj.getUpperExpression())) {
+            obj.setUpperExpression(replace((Constant)obj.getUpperExpression()));
+        }
+    }
+
+    private static boolean isLiteral(Expression expr) {
+        if (!(expr instanceof Constant)) {
+            return false;
+        }
+        Constant constant = (Constant)expr;
+        Class<?> type = constant.getType();
+        return !constant.isNull() && !constant.isMultiValued() && !type.isArray() && !DataTypeManager.isLOB(type)
+                && type != DataTypeManager.DefaultDataClasses.OBJECT;
+    }
+
+    private Reference replace(Constant constant) {
+        Reference ref = new Reference(references.size());
+        references.add(ref);
+        values.add(constant.getValue());
+        types.add(DataTypeManager.getDataTypeName(constant.getType()));
+        return ref;
+    }
+
+    /**
+     * Check the types of the references after the command has been resolved.
+     * @return true if each reference will compare in the same way as the literal it replaced
+     */
+    boolean isResolvedAsLiterals(QueryMetadataInterface metadata) {
+        for (int i = 0; i < references.size(); i++) {
+            Class<?> type = references.get(i).getType();
+            if (type == null) {
+                return false;
+            }
+            String typeName = DataTypeManager.getDataTypeName(type);
+            String literalType = types.get(i);
+            if (typeName.equals(literalType)) {
+                continue;
+            }
+            if (literalType.equals(DataTypeManager.DefaultDataTypes.STRING)) {
+                //string literals are converted to the type of the other expression unless the comparison may be widened
+                if (metadata.widenComparisonToString()) {
+                    return false;
+                }
+                continue;
+            }
+            if (type == DataTypeManager.DefaultDataClasses.STRING || !ResolverUtil.canImplicitlyConvert(literalType, typeName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    List<Reference> getReferences() {
+        return references;
+    }
+
+    List<Object> getValues() {
+        return values;
+    }
+
+    /**
+     * @return the type names of the replaced literals
+     */
+    List<String> getTypes() {
+        return types;
+    }
+
+}
@@ -44,6 +44,7 @@ import org.teiid.core.types.TransformationException;
 import org.teiid.core.util.Assertion;
 import org.teiid.dqp.internal.datamgr.ConnectorManagerRepository;
 import org.teiid.dqp.internal.process.AuthorizationValidator.CommandType;
+import org.teiid.dqp.internal.process.SessionAwareCache.CacheID;
 import org.teiid.dqp.message.RequestID;
 import org.teiid.dqp.service.TransactionContext;
 import org.teiid.dqp.service.TransactionContext.Scope;
@@ -445,7 +446,33 @@ public class Request {
 
         getAnalysisRecord();
 
-        resolveCommand(command);
+        LiteralParameterizer parameterizer = null;
+        CacheID parameterizedId = null;
+        if (!prepared && isAutoParameterizable(command, references)) {
+            parameterizer = new LiteralParameterizer();
+            parameterizer.parameterize(command);
+            if (parameterizer.getReferences().isEmpty()) {
+                parameterizer = null;
+            } else {
+                parameterizedId = new CacheID(this.workContext, createParseInfo(this.requestMsg, this.workContext.getSession()), command.toString());
+                //the maxRows limit is planned into the command, so plans are only shared for the same limit
+                List<Object> keyParameters = new ArrayList<Object>(parameterizer.getTypes());
+                keyParameters.add(Math.max(0, requestMsg.getRowLimit()));
+                parameterizedId.setParameters(keyParameters);
+                if (useParameterizedPlan(parameterizedId, parameterizer)) {
+                    return;
+                }
+            }
+        }
+
+        if (parameterizer != null && !resolveParameterized(command, parameterizer)) {
+            LogManager.logDetail(LogConstants.CTX_DQP, requestId, "Literals cannot be parameterized, planning the command as given"); //$NON-NLS-1$
+            parameterizer = null;
+            command = parseCommand();
+            resolveCommand(command);
+        } else if (parameterizer == null) {
+            resolveCommand(command);
+        }
 
         checkReferences(references);
 
@@ -497,6 +524,63 @@ public class Request {
             }
         }
         LogManager.logDetail(LogConstants.CTX_DQP, new Object[] { QueryPlugin.Util.getString("BasicInterceptor.ProcessTree_for__4"), requestId, processPlan }); //$NON-NLS-1$
+
+        if (parameterizer != null) {
+            PreparedPlan prepPlan = new PreparedPlan();
+            prepPlan.setCommand(this.userCommand);
+            prepPlan.setReferences(parameterizer.getReferences());
+            prepPlan.setPlan(processPlan.clone(), this.context);
+            prepPlan.setAnalysisRecord(analysisRecord);
+            Determinism determinismLevel = this.context.getDeterminismLevel();
+            if (userCommand.getCacheHint() != null && userCommand.getCacheHint().getDeterminism() != null) {
+                determinismLevel = userCommand.getCacheHint().getDeterminism();
+            }
+            this.planCache.put(parameterizedId, determinismLevel, prepPlan, userCommand.getCacheHint() != null?userCommand.getCacheHint().getTtl():null);
+            PreparedStatementRequest.resolveParameterValues(parameterizer.getReferences(), parameterizer.getValues(), this.context, this.metadata);
+        }
+    }
+
+    /**
+     * Only plain queries, which would otherwise not use the plan cache, are parameterized
+     */
+    private boolean isAutoParameterizable(Command command, List<Reference> references) {
+        return this.options != null && this.options.isAutoParameterize() && this.planCache != null
+                && this.explainCommand == null && references.isEmpty() && requestMsg.getCommand() == null
+                && !requestMsg.isBatchedUpdate() && command.getType() == Command.TYPE_QUERY;
+    }
+
+    /**
+     * Use a cached plan for the parameterized command if one exists
+     * @return true if the plan was used
+     */
+    private boolean useParameterizedPlan(CacheID id, LiteralParameterizer parameterizer) throws TeiidComponentException, TeiidProcessingException {
+        PreparedPlan prepPlan = this.planCache.get(id);
+        if (prepPlan == null) {
+            return false;
+        }
+        if (validateAccess(requestMsg.getCommands(), prepPlan.getCommand(), CommandType.PREPARED)) {
+            LogManager.logDetail(LogConstants.CTX_DQP, requestId, "AuthorizationValidator indicates that the parameterized plan for command will not be used"); //$NON-NLS-1$
+            return false;
+        }
+        LogManager.logTrace(LogConstants.CTX_DQP, new Object[] { "Parameterized query exists in cache: ", id }); //$NON-NLS-1$
+        this.userCommand = prepPlan.getCommand();
+        this.analysisRecord = prepPlan.getAnalysisRecord();
+        this.processPlan = prepPlan.getPlan().clone();
+        //addedLimit is left unset so that the maxRows limit is also enforced on the results
+        PreparedStatementRequest.resolveParameterValues(prepPlan.getReferences(), parameterizer.getValues(), this.context, this.metadata);
+        return true;
+    }
+
+    /**
+     * @return true if the parameterized command resolved with the references typed as the literals they replaced
+     */
+    private boolean resolveParameterized(Command command, LiteralParameterizer parameterizer) throws TeiidComponentException {
+        try {
+            resolveCommand(command);
+        } catch (QueryResolverException e) {
+            return false;
+        }
+        return parameterizer.isResolvedAsLiterals(this.metadata);
     }
 
     private AnalysisRecord getAnalysisRecord() {
@@ -65,6 +65,7 @@ import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.BatchCollector;
 import org.teiid.query.processor.QueryProcessor;
 import org.teiid.query.processor.QueryProcessor.ExpiredTimeSliceException;
+import org.teiid.query.resolver.QueryResolver;
 import org.teiid.query.sql.lang.*;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
@@ -179,6 +180,7 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
     private AnalysisRecord analysisRecord;
     private TransactionContext transactionContext;
     TupleBuffer resultsBuffer;
+    private boolean derivedResults;
     private boolean returnsUpdateCount;
 
     /*
@@ -541,6 +543,8 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
                     } finally {
                         CommandContext.popThreadLocalContext();
                     }
+                } else if (this.derivedResults) {
+                    resultsBuffer.remove();
                 }
 
                 this.resultsBuffer = null;
@@ -645,6 +649,8 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
                             return;
                         }
                         LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Cached result command to be modified, will not use the cached results", cacheId); //$NON-NLS-1$
+                    } else if (useSemanticCache(rsCache, cacheId, pi)) {
+                        return;
                     }
                 } else {
                     LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Parameters are not serializable - cache cannot be used for", cacheId); //$NON-NLS-1$
@@ -786,6 +792,58 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
         request = null;
     }
 
+    /**
+     * Attempt to answer the request by filtering and projecting the cached results of a superset query.
+     * @return true if the results were derived from the cache
+     */
+    private boolean useSemanticCache(SessionAwareCache<CachedResults> rsCache, CacheID cacheId, ParseInfo pi) throws TeiidProcessingException, TeiidComponentException {
+        SemanticResultSetCache semanticCache = rsCache.getSemanticCache();
+        if (semanticCache == null || !semanticCache.hasEntries(cacheId.getVDBKey()) || !requestMsg.getParameterValues().isEmpty()
+                || requestMsg.isBatchedUpdate()) {
+            return false;
+        }
+        request.initMetadata();
+        Command command = null;
+        try {
+            command = QueryParser.getQueryParser().parseCommand(requestMsg.getCommandString(), pi);
+            QueryResolver.resolveCommand(command, request.metadata);
+        } catch (TeiidProcessingException e) {
+            LogManager.logDetail(LogConstants.CTX_DQP, e, requestID, "Could not resolve the command for semantic result set cache matching"); //$NON-NLS-1$
+            return false;
+        }
+        if (!(command instanceof Query)) {
+            return false;
+        }
+        Query query = (Query)command;
+        for (String sql : semanticCache.getCandidates(cacheId.getVDBKey(), query)) {
+            CacheID candidateId = new CacheID(this.dqpWorkContext, pi, sql);
+            CachedResults cr = rsCache.get(candidateId, false);
+            if (cr == null || cr.getRowLimit() != 0 || cr.getResults().isLobs()) {
+                continue;
+            }
+            Command cached = cr.getCommand(sql, request.metadata, pi);
+            if (!(cached instanceof Query)) {
+                continue;
+            }
+            Map<ElementSymbol, Integer> elementMap = SemanticResultSetCache.getContainmentMap((Query)cached, query, this.options.isRequireTeiidCollation());
+            if (elementMap == null) {
+                continue;
+            }
+            if (request.validateAccess(requestMsg.getCommands(), query, CommandType.CACHED)) {
+                LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Cached result command to be modified, will not use the cached results", candidateId); //$NON-NLS-1$
+                return false;
+            }
+            LogManager.logDetail(LogConstants.CTX_DQP, requestID, "Deriving results from result set cached results", candidateId); //$NON-NLS-1$
+            this.resultsBuffer = SemanticResultSetCache.deriveResults(cr.getResults(), query, elementMap, dqpCore.getBufferManager(), this.dqpWorkContext.getSessionId());
+            this.derivedResults = true;
+            this.originalCommand = query;
+            rsCache.recordHit();
+            doneProducingBatches();
+            return true;
+        }
+        return false;
+    }
+
     private void initTransactionState(TransactionContext tc) {
         transactionContext = tc;
         if (this.transactionContext != null && this.transactionContext.getTransactionType() != Scope.NONE) {
@@ -841,6 +899,11 @@ public class RequestWorkItem extends AbstractWorkItem implements PrioritizedRunn
             LogManager.logDetail(LogConstants.CTX_DQP, e, QueryPlugin.Util.getString("failed_to_cache")); //$NON-NLS-1$
         }
         dqpCore.getRsCache().put(cid, determinismLevel, cr, originalCommand.getCacheHint() != null?originalCommand.getCacheHint().getTtl():null);
+        SemanticResultSetCache semanticCache = dqpCore.getRsCache().getSemanticCache();
+        if (semanticCache != null && cr.getRowLimit() == 0 && !resultsBuffer.isLobs() && requestMsg.getParameterValues().isEmpty()
+                && SemanticResultSetCache.isCachable(originalCommand)) {
+            semanticCache.register(cid.getVDBKey(), (Query)originalCommand, requestMsg.getCommandString());
+        }
     }
 
     public SessionAwareCache<CachedResults> getRsCache() {
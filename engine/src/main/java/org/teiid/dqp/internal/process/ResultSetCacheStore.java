@@ -0,0 +1,481 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.dqp.internal.process;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.teiid.adminapi.impl.VDBMetaData;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleBufferCache;
+import org.teiid.core.TeiidRuntimeException;
+import org.teiid.core.util.PropertiesUtils;
+import org.teiid.dqp.internal.process.SessionAwareCache.CacheID;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.metadata.FunctionMethod.Determinism;
+import org.teiid.query.QueryPlugin;
+import org.teiid.query.ReplicatedObject;
+import org.teiid.query.metadata.DDLStringVisitor;
+import org.teiid.query.metadata.DatabaseUtil;
+import org.teiid.query.metadata.TransformationMetadata;
+import org.teiid.vdb.runtime.VDBKey;
+
+/**
+ * A local directory tier for the result set cache so that entries survive a restart.
+ * <br>
+ * Each vdb scoped or user scoped entry is written as an entry file, holding the {@link CacheID}, vdb fingerprint,
+ * determinism, {@link CachedResults} and expiration, and a batches file, holding the results in the same form used for
+ * replication.  The files are named by a digest of the {@link CacheID}, so that caching the same key again replaces them.
+ * <br>
+ * The entries are reattached to the cache when the vdb is deployed, but the results are only
+ * read back into the buffer manager when the entry is first restored by a cache hit.  Entries written for
+ * different vdb metadata are removed rather than reattached.
+ * <br>
+ * Expired entries and, once the directory exceeds the max size, the oldest entries are removed when entries are
+ * written or loaded.
+ */
+public class ResultSetCacheStore implements TupleBufferCache {
+
+    static final int VERSION = 2;
+    static final String ENTRY_SUFFIX = ".entry"; //$NON-NLS-1$
+    static final String BATCHES_SUFFIX = ".batches"; //$NON-NLS-1$
+    private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+    private static final String DIGEST = "SHA-256"; //$NON-NLS-1$
+
+    public static final long DEFAULT_MAX_DIRECTORY_SIZE = 1L << 30;
+
+    private static class PersistedEntry {
+        VDBKey vdbKey;
+        String uuid;
+        long expiration;
+        long size;
+
+        PersistedEntry(VDBKey vdbKey, String uuid, long expiration) {
+            this.vdbKey = vdbKey;
+            this.uuid = uuid;
+            this.expiration = expiration;
+        }
+    }
+
+    private File directory;
+    private TupleBufferCache tupleBufferCache;
+    private ReplicatedObject<String> bufferState;
+    private Executor executor;
+    private long maxDirectorySize = DEFAULT_MAX_DIRECTORY_SIZE;
+
+    private Map<VDBKey, String> fingerprints = new HashMap<VDBKey, String>();
+    //entries by name in write order, which may still be pending
+    private LinkedHashMap<String, PersistedEntry> entries = new LinkedHashMap<String, PersistedEntry>();
+    private Map<String, String> names = new HashMap<String, String>();
+    private long directorySize;
+
+    /**
+     * @param tupleBufferCache the cache that is checked before reading from the directory
+     * @param bufferState the buffer manager state used to write and read the results
+     */
+    public ResultSetCacheStore(File directory, TupleBufferCache tupleBufferCache, ReplicatedObject<String> bufferState) {
+        this.directory = directory;
+        this.tupleBufferCache = tupleBufferCache;
+        this.bufferState = bufferState;
+    }
+
+    /**
+     * Set the executor used to write the entries.  If null, the default, entries are written by the calling thread.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Set the max size in bytes of the persisted files, the oldest entries are removed once it is exceeded.
+     */
+    public synchronized void setMaxDirectorySize(long maxDirectorySize) {
+        this.maxDirectorySize = maxDirectorySize;
+    }
+
+    @Override
+    public TupleBuffer getTupleBuffer(String id) {
+        TupleBuffer result = this.tupleBufferCache.getTupleBuffer(id);
+        if (result != null) {
+            return result;
+        }
+        File batches = null;
+        synchronized (this) {
+            String name = this.names.get(id);
+            if (name == null) {
+                return null;
+            }
+            batches = new File(getDirectory(this.entries.get(name).vdbKey), name + BATCHES_SUFFIX);
+        }
+        try (InputStream in = new BufferedInputStream(new FileInputStream(batches))) {
+            this.bufferState.setState(id, in);
+        } catch (IOException | TeiidRuntimeException e) {
+            LogManager.logWarning(LogConstants.CTX_DQP, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31311, batches));
+            synchronized (this) {
+                String name = this.names.get(id);
+                if (name != null) {
+                    remove(name);
+                }
+            }
+            return null;
+        }
+        LogManager.logDetail(LogConstants.CTX_DQP, "Read persisted result set cache results", batches); //$NON-NLS-1$
+        return this.tupleBufferCache.getTupleBuffer(id);
+    }
+
+    @Override
+    public void distributeTupleBuffer(String uuid, TupleBuffer tb) {
+        this.tupleBufferCache.distributeTupleBuffer(uuid, tb);
+    }
+
+    /**
+     * Write the entry, which should already be prepared, so that the results are known to the buffer manager.
+     * Entries for a vdb that has not been loaded are not written.
+     * @param ttl the time to live in milliseconds or null
+     */
+    void write(CacheID id, Determinism determinism, CachedResults results, Long ttl) {
+        if (results.getResults() == null || results.getResults().isLobs()) {
+            return;
+        }
+        String fingerprint = null;
+        synchronized (this) {
+            fingerprint = this.fingerprints.get(id.getVDBKey());
+        }
+        if (fingerprint == null) {
+            return;
+        }
+        final PersistedEntry entry = new PersistedEntry(id.getVDBKey(), results.getId(), ttl == null ? -1 : System.currentTimeMillis() + ttl);
+        //the id is mutable, so the entry is serialized by the calling thread
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            out.writeInt(VERSION);
+            out.writeObject(id);
+            out.writeUTF(fingerprint);
+            out.writeObject(determinism);
+            out.writeObject(results);
+            out.writeLong(entry.expiration);
+        } catch (IOException e) {
+            LogManager.logWarning(LogConstants.CTX_DQP, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31310, id, getDirectory(id.getVDBKey())));
+            return;
+        }
+        final byte[] bytes = baos.toByteArray();
+        final String name = getName(id);
+        synchronized (this) {
+            if (!fingerprint.equals(this.fingerprints.get(id.getVDBKey()))) {
+                return;
+            }
+            remove(name);
+            this.entries.put(name, entry);
+            this.names.put(entry.uuid, name);
+        }
+        final String description = id.toString();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                write(description, bytes, name, entry);
+            }
+        };
+        if (this.executor != null) {
+            this.executor.execute(task);
+        } else {
+            task.run();
+        }
+    }
+
+    private void write(String description, byte[] bytes, String name, PersistedEntry entry) {
+        File dir = getDirectory(entry.vdbKey);
+        String uuid = entry.uuid;
+        File batches = new File(dir, uuid + BATCHES_SUFFIX + TEMP_SUFFIX);
+        File entryFile = new File(dir, uuid + ENTRY_SUFFIX + TEMP_SUFFIX);
+        try {
+            dir.mkdirs();
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(batches))) {
+                this.bufferState.getState(uuid, out);
+            }
+            if (batches.length() == 0) {
+                //the results are no longer held by the buffer manager
+                batches.delete();
+                synchronized (this) {
+                    if (this.entries.get(name) == entry) {
+                        remove(name);
+                    }
+                }
+                return;
+            }
+            try (OutputStream out = new FileOutputStream(entryFile)) {
+                out.write(bytes);
+            }
+            synchronized (this) {
+                if (this.entries.get(name) != entry) {
+                    //removed or replaced while writing
+                    batches.delete();
+                    entryFile.delete();
+                    return;
+                }
+                long size = batches.length() + entryFile.length();
+                //the entry is renamed last so that a partial write is never loaded
+                if (!batches.renameTo(new File(dir, name + BATCHES_SUFFIX)) || !entryFile.renameTo(new File(dir, name + ENTRY_SUFFIX))) {
+                    throw new IOException(name);
+                }
+                entry.size = size;
+                this.directorySize += size;
+                purge();
+            }
+            LogManager.logDetail(LogConstants.CTX_DQP, "Persisted result set cache entry", description); //$NON-NLS-1$
+        } catch (IOException | TeiidRuntimeException e) {
+            LogManager.logWarning(LogConstants.CTX_DQP, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31310, description, dir));
+            batches.delete();
+            entryFile.delete();
+            synchronized (this) {
+                if (this.entries.get(name) == entry) {
+                    remove(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reattach the persisted entries for the vdb to the cache.  Entries that have expired, that are for
+     * a different vdb version or metadata, or that cannot be read are removed.
+     * @param fingerprint identifies the vdb metadata, see {@link #getFingerprint(VDBMetaData)}
+     * @return the number of entries reattached
+     */
+    public synchronized int load(VDBKey vdbKey, String fingerprint, SessionAwareCache<CachedResults> cache) {
+        if (this.fingerprints.containsKey(vdbKey)) {
+            return 0;
+        }
+        this.fingerprints.put(vdbKey, fingerprint);
+        File dir = getDirectory(vdbKey);
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        //the oldest entries are the first to be removed
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                return Long.compare(f1.lastModified(), f2.lastModified());
+            }
+        });
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (File file : files) {
+            String name = file.getName();
+            if (name.endsWith(TEMP_SUFFIX)) {
+                file.delete();
+                continue;
+            }
+            if (!name.endsWith(ENTRY_SUFFIX)) {
+                if (name.endsWith(BATCHES_SUFFIX) && !new File(dir, name.substring(0, name.length() - BATCHES_SUFFIX.length()) + ENTRY_SUFFIX).exists()) {
+                    file.delete();
+                }
+                continue;
+            }
+            name = name.substring(0, name.length() - ENTRY_SUFFIX.length());
+            File batches = new File(dir, name + BATCHES_SUFFIX);
+            boolean valid = false;
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                if (in.readInt() == VERSION) {
+                    CacheID id = (CacheID)in.readObject();
+                    String entryFingerprint = in.readUTF();
+                    Determinism determinism = (Determinism)in.readObject();
+                    CachedResults results = (CachedResults)in.readObject();
+                    long expiration = in.readLong();
+                    Long ttl = expiration < 0 ? null : expiration - now;
+                    if (vdbKey.equals(id.getVDBKey()) && fingerprint.equals(entryFingerprint) && name.equals(getName(id))
+                            && determinism.compareTo(Determinism.SESSION_DETERMINISTIC) > 0
+                            && (ttl == null || ttl > 0) && batches.exists()) {
+                        cache.restore(id, results, ttl);
+                        PersistedEntry entry = new PersistedEntry(vdbKey, results.getId(), expiration);
+                        entry.size = file.length() + batches.length();
+                        this.entries.put(name, entry);
+                        this.names.put(entry.uuid, name);
+                        this.directorySize += entry.size;
+                        valid = true;
+                        count++;
+                    }
+                }
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                LogManager.logWarning(LogConstants.CTX_DQP, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31311, file));
+            }
+            if (!valid) {
+                delete(dir, name);
+            }
+        }
+        purge();
+        LogManager.logDetail(LogConstants.CTX_DQP, "Reattached", count, "persisted result set cache entries for", vdbKey); //$NON-NLS-1$ //$NON-NLS-2$
+        return count;
+    }
+
+    /**
+     * Remove the persisted entry if it still holds the results
+     */
+    synchronized void remove(CacheID id, CachedResults results) {
+        String name = getName(id);
+        PersistedEntry entry = this.entries.get(name);
+        if (entry != null && entry.uuid.equals(results.getId())) {
+            remove(name);
+        }
+    }
+
+    /**
+     * Remove all persisted entries for the vdb
+     */
+    public synchronized void clear(VDBKey vdbKey) {
+        this.fingerprints.remove(vdbKey);
+        for (Iterator<PersistedEntry> iter = this.entries.values().iterator(); iter.hasNext();) {
+            PersistedEntry entry = iter.next();
+            if (entry.vdbKey.equals(vdbKey)) {
+                iter.remove();
+                this.names.remove(entry.uuid);
+                this.directorySize -= entry.size;
+            }
+        }
+        File dir = getDirectory(vdbKey);
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    /**
+     * Remove all persisted entries
+     */
+    public synchronized void clearAll() {
+        this.fingerprints.clear();
+        this.entries.clear();
+        this.names.clear();
+        this.directorySize = 0;
+        File[] dirs = this.directory.listFiles();
+        if (dirs == null) {
+            return;
+        }
+        for (File dir : dirs) {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            dir.delete();
+        }
+    }
+
+    synchronized long getDirectorySize() {
+        return this.directorySize;
+    }
+
+    /**
+     * Remove the expired entries and then the oldest entries until the directory is within the max size
+     */
+    private void purge() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Map.Entry<String, PersistedEntry>> iter = this.entries.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry<String, PersistedEntry> entry = iter.next();
+            PersistedEntry value = entry.getValue();
+            if ((value.expiration >= 0 && value.expiration <= now)
+                    || (this.maxDirectorySize >= 0 && this.directorySize > this.maxDirectorySize && value.size > 0)) {
+                iter.remove();
+                removed(entry.getKey(), value);
+            }
+        }
+    }
+
+    private void remove(String name) {
+        PersistedEntry entry = this.entries.remove(name);
+        if (entry != null) {
+            removed(name, entry);
+        }
+    }
+
+    private void removed(String name, PersistedEntry entry) {
+        this.names.remove(entry.uuid);
+        this.directorySize -= entry.size;
+        delete(getDirectory(entry.vdbKey), name);
+    }
+
+    private static void delete(File dir, String name) {
+        new File(dir, name + ENTRY_SUFFIX).delete();
+        new File(dir, name + BATCHES_SUFFIX).delete();
+    }
+
+    /**
+     * The file name is a digest of the values that determine {@link CacheID} equality
+     */
+    static String getName(CacheID id) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            out.writeObject(id.getKeyValues());
+        } catch (IOException e) {
+            throw new TeiidRuntimeException(e);
+        }
+        return digest(baos.toByteArray());
+    }
+
+    /**
+     * @return a digest of the vdb and its metadata, so that entries are not reattached to a vdb
+     * deployed with different metadata under the same version
+     */
+    public static String getFingerprint(VDBMetaData vdb) {
+        TransformationMetadata metadata = vdb.getAttachment(TransformationMetadata.class);
+        String ddl = DDLStringVisitor.getDDLString(DatabaseUtil.convert(vdb, metadata.getMetadataStore()));
+        return digest(ddl.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String digest(byte[] bytes) {
+        try {
+            return PropertiesUtils.toHex(MessageDigest.getInstance(DIGEST).digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new TeiidRuntimeException(e);
+        }
+    }
+
+    /**
+     * Each vdb version has its own directory.  The name is only a hint, as the
+     * {@link VDBKey} of each entry is validated when it is loaded.
+     */
+    File getDirectory(VDBKey vdbKey) {
+        String name = (vdbKey.getName() + "_" + vdbKey.getVersion()).replaceAll("[^\\w.-]", "_"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        return new File(this.directory, name);
+    }
+
+}
@@ -0,0 +1,497 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.dqp.internal.process;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.LRUCache;
+import org.teiid.language.SortSpecification.NullOrdering;
+import org.teiid.query.eval.Evaluator;
+import org.teiid.query.processor.relational.SortUtility;
+import org.teiid.query.processor.relational.SortUtility.Mode;
+import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.NotCriteria;
+import org.teiid.query.sql.lang.OrderBy;
+import org.teiid.query.sql.lang.OrderByItem;
+import org.teiid.query.sql.lang.Query;
+import org.teiid.query.sql.lang.SetCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.util.SymbolMap;
+import org.teiid.query.sql.visitor.ElementCollectorVisitor;
+import org.teiid.vdb.runtime.VDBKey;
+
+/**
+ * Allows a result set cache miss to be answered from a cached superset.
+ * <br>
+ * The sql of cached simple queries is indexed by vdb and from clause.  A new query over the same
+ * from clause can be answered from a cached entry if each of the cached conjuncts is implied by the new
+ * criteria and every column it references is projected by the cached entry.  The results are then
+ * derived by filtering, projecting, and if needed sorting the cached {@link TupleBuffer}.
+ * <br>
+ * Since the derivation compares values in the engine, string comparisons are only used when the
+ * Teiid collation is required.
+ */
+public class SemanticResultSetCache {
+
+    static final int MAX_ENTRIES_PER_FROM = 16;
+    static final int MAX_FROMS = 64;
+
+    private Map<VDBKey, Map<String, LinkedHashSet<String>>> index = new HashMap<VDBKey, Map<String, LinkedHashSet<String>>>();
+
+    /**
+     * Register the sql of a cached result, newer entries replace the oldest once
+     * {@link #MAX_ENTRIES_PER_FROM} is reached.  The least recently used from clause is
+     * removed once there are more than {@link #MAX_FROMS} for the vdb.
+     */
+    public synchronized void register(VDBKey vdbKey, Query query, String sql) {
+        Map<String, LinkedHashSet<String>> froms = index.get(vdbKey);
+        if (froms == null) {
+            froms = new LRUCache<String, LinkedHashSet<String>>(MAX_FROMS);
+            index.put(vdbKey, froms);
+        }
+        String from = query.getFrom().toString();
+        LinkedHashSet<String> entries = froms.get(from);
+        if (entries == null) {
+            entries = new LinkedHashSet<String>();
+            froms.put(from, entries);
+        }
+        entries.remove(sql);
+        entries.add(sql);
+        if (entries.size() > MAX_ENTRIES_PER_FROM) {
+            Iterator<String> iter = entries.iterator();
+            iter.next();
+            iter.remove();
+        }
+    }
+
+    public synchronized boolean hasEntries(VDBKey vdbKey) {
+        return index.containsKey(vdbKey);
+    }
+
+    /**
+     * @return the sql of the cached entries over the same from clause, most recent first
+     */
+    public synchronized List<String> getCandidates(VDBKey vdbKey, Query query) {
+        Map<String, LinkedHashSet<String>> froms = index.get(vdbKey);
+        if (froms == null) {
+            return Collections.emptyList();
+        }
+        LinkedHashSet<String> entries = froms.get(query.getFrom().toString());
+        if (entries == null) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<String>(entries);
+        Collections.reverse(result);
+        return result;
+    }
+
+    public synchronized void clearForVDB(VDBKey vdbKey) {
+        index.remove(vdbKey);
+    }
+
+    public synchronized void clearAll() {
+        index.clear();
+    }
+
+    /**
+     * @return true if the command is a simple query whose results may be used to answer other queries
+     */
+    static boolean isCachable(Command command) {
+        if (!isSimpleQuery(command)) {
+            return false;
+        }
+        Query query = (Query)command;
+        return !query.getSelect().isDistinct() && getElements(query.getProjectedSymbols()) != null;
+    }
+
+    private static boolean isSimpleQuery(Command command) {
+        if (!(command instanceof Query)) {
+            return false;
+        }
+        Query query = (Query)command;
+        return query.getFrom() != null && query.getInto() == null && query.getGroupBy() == null
+                && query.getHaving() == null && query.getLimit() == null && query.getWith() == null
+                && query.getOption() == null;
+    }
+
+    private static List<ElementSymbol> getElements(List<Expression> projected) {
+        List<ElementSymbol> result = new ArrayList<ElementSymbol>(projected.size());
+        for (Expression ex : projected) {
+            ex = SymbolMap.getExpression(ex);
+            if (!(ex instanceof ElementSymbol)) {
+                return null;
+            }
+            result.add((ElementSymbol)ex);
+        }
+        return result;
+    }
+
+    /**
+     * Determine if the results of the query are contained by the results of the cached query.
+     * @param teiidCollation true if string values may be compared in the engine
+     * @return the map of the query elements to the cached result columns, or null if the query
+     * cannot be answered from the cached results
+     */
+    static Map<ElementSymbol, Integer> getContainmentMap(Query cached, Command command, boolean teiidCollation) {
+        if (!isCachable(cached) || !isSimpleQuery(command)) {
+            return null;
+        }
+        Query query = (Query)command;
+        if (!cached.getFrom().equals(query.getFrom())) {
+            return null;
+        }
+        Map<ElementSymbol, Integer> elementMap = new HashMap<ElementSymbol, Integer>();
+        List<ElementSymbol> cachedElements = getElements(cached.getProjectedSymbols());
+        for (int i = 0; i < cachedElements.size(); i++) {
+            if (!elementMap.containsKey(cachedElements.get(i))) {
+                elementMap.put(cachedElements.get(i), i);
+            }
+        }
+        List<ElementSymbol> elements = getElements(query.getProjectedSymbols());
+        if (elements == null || !elementMap.keySet().containsAll(elements)) {
+            return null;
+        }
+        if (query.getOrderBy() != null) {
+            for (OrderByItem item : query.getOrderBy().getOrderByItems()) {
+                if (item.isUnrelated() || (!teiidCollation && isString(item.getSymbol()))) {
+                    return null;
+                }
+            }
+        }
+        if (!teiidCollation && query.getSelect().isDistinct() && isString(elements)) {
+            return null;
+        }
+        Criteria crit = query.getCriteria();
+        if (crit != null) {
+            Collection<ElementSymbol> critElements = ElementCollectorVisitor.getElements(crit, true);
+            if (!isSimpleCriteria(crit) || !elementMap.keySet().containsAll(critElements) || (!teiidCollation && isString(critElements))) {
+                return null;
+            }
+        }
+        if (cached.getCriteria() == null) {
+            return elementMap;
+        }
+        if (!teiidCollation && isString(ElementCollectorVisitor.getElements(cached.getCriteria(), true))) {
+            return null;
+        }
+        List<Criteria> conjuncts = crit == null ? Collections.<Criteria>emptyList() : Criteria.separateCriteriaByAnd(crit);
+        for (Criteria cachedConjunct : Criteria.separateCriteriaByAnd(cached.getCriteria())) {
+            if (!isImplied(cachedConjunct, conjuncts)) {
+                return null;
+            }
+        }
+        return elementMap;
+    }
+
+    /**
+     * @return true if any of the expressions is a string type, which the source may compare with a different collation
+     */
+    private static boolean isString(Collection<? extends Expression> expressions) {
+        for (Expression ex : expressions) {
+            if (isString(ex)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isString(Expression ex) {
+        Class<?> type = ex.getType();
+        return type == DataTypeManager.DefaultDataClasses.STRING || type == DataTypeManager.DefaultDataClasses.CHAR
+                || type == DataTypeManager.DefaultDataClasses.CLOB;
+    }
+
+    /**
+     * Only criteria over elements and constants, which can be evaluated without a context, are supported.
+     */
+    private static boolean isSimpleCriteria(Criteria crit) {
+        if (crit instanceof CompoundCriteria) {
+            for (Criteria c : ((CompoundCriteria)crit).getCriteria()) {
+                if (!isSimpleCriteria(c)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (crit instanceof NotCriteria) {
+            return isSimpleCriteria(((NotCriteria)crit).getCriteria());
+        }
+        if (crit instanceof CompareCriteria) {
+            CompareCriteria cc = (CompareCriteria)crit;
+            return isSimpleExpression(cc.getLeftExpression()) && isSimpleExpression(cc.getRightExpression());
+        }
+        if (crit instanceof SetCriteria) {
+            SetCriteria sc = (SetCriteria)crit;
+            if (!(sc.getExpression() instanceof ElementSymbol)) {
+                return false;
+            }
+            for (Object value : sc.getValues()) {
+                if (!(value instanceof Constant)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (crit instanceof IsNullCriteria) {
+            return ((IsNullCriteria)crit).getExpression() instanceof ElementSymbol;
+        }
+        return false;
+    }
+
+    private static boolean isSimpleExpression(Expression ex) {
+        return ex instanceof ElementSymbol || (ex instanceof Constant && !((Constant)ex).isMultiValued());
+    }
+
+    /**
+     * @return true if the conjuncts imply the cached conjunct, which is conservatively determined by
+     * equality or by a single conjunct restricting the same element to a subset of the values
+     */
+    private static boolean isImplied(Criteria cachedConjunct, List<Criteria> conjuncts) {
+        if (conjuncts.contains(cachedConjunct)) {
+            return true;
+        }
+        if (!(cachedConjunct instanceof CompareCriteria)) {
+            if (!(cachedConjunct instanceof SetCriteria) || ((SetCriteria)cachedConjunct).isNegated()) {
+                return false;
+            }
+        }
+        for (Criteria conjunct : conjuncts) {
+            if (conjunct instanceof CompareCriteria) {
+                CompareCriteria cc = (CompareCriteria)conjunct;
+                Object value = getValue(cc, cachedConjunct);
+                if (value == null) {
+                    continue;
+                }
+                if (cc.getOperator() == CompareCriteria.EQ) {
+                    if (satisfies(value, cachedConjunct)) {
+                        return true;
+                    }
+                } else if (cachedConjunct instanceof CompareCriteria && impliesRange(cc.getOperator(), value, (CompareCriteria)cachedConjunct)) {
+                    return true;
+                }
+            } else if (conjunct instanceof SetCriteria) {
+                SetCriteria sc = (SetCriteria)conjunct;
+                if (sc.isNegated() || !sc.getExpression().equals(getExpression(cachedConjunct))) {
+                    continue;
+                }
+                boolean all = true;
+                for (Object ex : sc.getValues()) {
+                    Object value = ((Constant)ex).getValue();
+                    if (value != null && !satisfies(value, cachedConjunct)) {
+                        all = false;
+                        break;
+                    }
+                }
+                if (all) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static Expression getExpression(Criteria crit) {
+        if (crit instanceof CompareCriteria) {
+            return ((CompareCriteria)crit).getLeftExpression();
+        }
+        return ((SetCriteria)crit).getExpression();
+    }
+
+    /**
+     * @return the non-null constant value the element is compared to if it is the same element as the cached conjunct
+     */
+    private static Object getValue(CompareCriteria cc, Criteria cachedConjunct) {
+        if (!(cc.getLeftExpression() instanceof ElementSymbol) || !(cc.getRightExpression() instanceof Constant)
+                || !cc.getLeftExpression().equals(getExpression(cachedConjunct))) {
+            return null;
+        }
+        return ((Constant)cc.getRightExpression()).getValue();
+    }
+
+    /**
+     * @return true if the value satisfies the cached element comparison or set criteria
+     */
+    private static boolean satisfies(Object value, Criteria cachedConjunct) {
+        if (cachedConjunct instanceof SetCriteria) {
+            for (Object ex : ((SetCriteria)cachedConjunct).getValues()) {
+                if (!(ex instanceof Constant)) {
+                    return false;
+                }
+                Object other = ((Constant)ex).getValue();
+                if (other != null && other.getClass() == value.getClass() && Constant.COMPARATOR.compare(value, other) == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        CompareCriteria cc = (CompareCriteria)cachedConjunct;
+        if (!(cc.getRightExpression() instanceof Constant)) {
+            return false;
+        }
+        Object other = ((Constant)cc.getRightExpression()).getValue();
+        if (other == null || other.getClass() != value.getClass()) {
+            return false;
+        }
+        int compare = Constant.COMPARATOR.compare(value, other);
+        switch (cc.getOperator()) {
+        case CompareCriteria.EQ:
+            return compare == 0;
+        case CompareCriteria.NE:
+            return compare != 0;
+        case CompareCriteria.LT:
+            return compare < 0;
+        case CompareCriteria.LE:
+            return compare <= 0;
+        case CompareCriteria.GT:
+            return compare > 0;
+        case CompareCriteria.GE:
+            return compare >= 0;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the range of the operator and value is within the cached range bound
+     */
+    private static boolean impliesRange(int operator, Object value, CompareCriteria cachedConjunct) {
+        if (!(cachedConjunct.getRightExpression() instanceof Constant)) {
+            return false;
+        }
+        Object other = ((Constant)cachedConjunct.getRightExpression()).getValue();
+        if (other == null || other.getClass() != value.getClass()) {
+            return false;
+        }
+        boolean lower = operator == CompareCriteria.GT || operator == CompareCriteria.GE;
+        boolean upper = operator == CompareCriteria.LT || operator == CompareCriteria.LE;
+        int cachedOperator = cachedConjunct.getOperator();
+        int compare = Constant.COMPARATOR.compare(value, other);
+        if (lower && (cachedOperator == CompareCriteria.GT || cachedOperator == CompareCriteria.GE)) {
+            return compare > 0 || (compare == 0 && (operator == CompareCriteria.GT || cachedOperator == CompareCriteria.GE));
+        }
+        if (upper && (cachedOperator == CompareCriteria.LT || cachedOperator == CompareCriteria.LE)) {
+            return compare < 0 || (compare == 0 && (operator == CompareCriteria.LT || cachedOperator == CompareCriteria.LE));
+        }
+        return false;
+    }
+
+    /**
+     * Create the results of the query by filtering, projecting, and sorting the cached results.
+     */
+    static TupleBuffer deriveResults(TupleBuffer cached, Query query, Map<ElementSymbol, Integer> elementMap,
+            BufferManager bufferManager, String sessionId) throws TeiidComponentException, TeiidProcessingException {
+        List<Expression> projected = query.getProjectedSymbols();
+        List<ElementSymbol> elements = getElements(projected);
+        int[] indexes = new int[elements.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = elementMap.get(elements.get(i));
+        }
+        Criteria crit = query.getCriteria();
+        Evaluator evaluator = new Evaluator(elementMap, null, null);
+        TupleBuffer result = bufferManager.createTupleBuffer(projected, sessionId, TupleSourceType.FINAL);
+        boolean success = false;
+        TupleSource ts = cached.createIndexedTupleSource();
+        try {
+            List<?> tuple = null;
+            while ((tuple = ts.nextTuple()) != null) {
+                if (crit != null && !evaluator.evaluate(crit, tuple)) {
+                    continue;
+                }
+                List<Object> row = new ArrayList<Object>(indexes.length);
+                for (int index : indexes) {
+                    row.add(tuple.get(index));
+                }
+                result.addTuple(row);
+            }
+            result.close();
+            OrderBy orderBy = query.getOrderBy();
+            boolean distinct = query.getSelect().isDistinct();
+            if (orderBy != null || distinct) {
+                result = sort(result, projected, orderBy, distinct, bufferManager, sessionId);
+            }
+            success = true;
+            return result;
+        } finally {
+            ts.closeSource();
+            if (!success) {
+                result.remove();
+            }
+        }
+    }
+
+    private static TupleBuffer sort(TupleBuffer buffer, List<Expression> projected, OrderBy orderBy, boolean distinct,
+            BufferManager bufferManager, String sessionId) throws TeiidComponentException, TeiidProcessingException {
+        //distinct must consider all of the columns, not just the sort columns
+        LinkedHashMap<Integer, OrderByItem> positions = new LinkedHashMap<Integer, OrderByItem>();
+        if (orderBy != null) {
+            for (OrderByItem item : orderBy.getOrderByItems()) {
+                if (!positions.containsKey(item.getExpressionPosition())) {
+                    positions.put(item.getExpressionPosition(), item);
+                }
+            }
+        }
+        if (distinct) {
+            for (int i = 0; i < projected.size(); i++) {
+                if (!positions.containsKey(i)) {
+                    positions.put(i, null);
+                }
+            }
+        }
+        int[] cols = new int[positions.size()];
+        List<Boolean> sortTypes = new ArrayList<Boolean>(cols.length);
+        List<NullOrdering> nullOrderings = new ArrayList<NullOrdering>(cols.length);
+        int i = 0;
+        for (Map.Entry<Integer, OrderByItem> entry : positions.entrySet()) {
+            cols[i++] = entry.getKey();
+            OrderByItem item = entry.getValue();
+            sortTypes.add(item == null ? OrderBy.ASC : item.isAscending());
+            nullOrderings.add(item == null ? null : item.getNullOrdering());
+        }
+        Mode mode = Mode.SORT;
+        if (distinct) {
+            mode = orderBy == null ? Mode.DUP_REMOVE : Mode.DUP_REMOVE_SORT;
+        }
+        SortUtility sort = new SortUtility(buffer.createIndexedTupleSource(true), mode, bufferManager, sessionId, projected, sortTypes, nullOrderings, cols);
+        sort.setNonBlocking(true);
+        TupleBuffer result = sort.sort();
+        result.close();
+        return result;
+    }
+
+}
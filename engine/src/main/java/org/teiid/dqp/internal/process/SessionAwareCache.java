@@ -20,9 +20,11 @@ package org.teiid.dqp.internal.process;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.teiid.adminapi.Admin;
@@ -30,6 +32,7 @@ import org.teiid.adminapi.impl.CacheStatisticsMetadata;
 import org.teiid.cache.Cachable;
 import org.teiid.cache.Cache;
 import org.teiid.cache.CacheFactory;
+import org.teiid.cache.CacheStatisticsProvider;
 import org.teiid.common.buffer.TupleBufferCache;
 import org.teiid.core.util.Assertion;
 import org.teiid.core.util.EquivalenceUtil;
@@ -66,6 +69,8 @@ public class SessionAwareCache<T> {
     private AtomicInteger cachePuts = new AtomicInteger();
 
     private TupleBufferCache bufferManager;
+    private SemanticResultSetCache semanticCache;
+    private ResultSetCacheStore persistentStore;
 
     public SessionAwareCache (String cacheName, final CacheFactory cacheFactory, final Type type, int maxStaleness) {
         assert (cacheFactory != null);
@@ -89,9 +94,15 @@ public class SessionAwareCache<T> {
     }
 
     public T get(CacheID id){
-
         this.totalRequests.getAndIncrement();
+        return get(id, true);
+    }
 
+    /**
+     * Get the entry without counting the request
+     * @param recordHit if a hit should be recorded
+     */
+    T get(CacheID id, boolean recordHit){
         id.setSessionId(id.originalSessionId);
         T result = localCache.get(id);
 
@@ -122,6 +133,7 @@ public class SessionAwareCache<T> {
                     LogManager.logTrace(LogConstants.CTX_DQP, "Invalidating cache entry", id); //$NON-NLS-1$
                     if (id.getSessionId() == null) {
                         this.distributedCache.remove(id);
+                        removePersisted(id, result);
                     } else {
                         this.localCache.remove(id);
                     }
@@ -129,13 +141,19 @@ public class SessionAwareCache<T> {
                 }
             }
             LogManager.logTrace(LogConstants.CTX_DQP, "Cache hit for", id); //$NON-NLS-1$
-            cacheHit.getAndIncrement();
+            if (recordHit) {
+                cacheHit.getAndIncrement();
+            }
         } else {
             LogManager.logTrace(LogConstants.CTX_DQP, "Cache miss for", id); //$NON-NLS-1$
         }
         return result;
     }
 
+    void recordHit() {
+        cacheHit.getAndIncrement();
+    }
+
     public int getCacheHitCount() {
         return cacheHit.get();
     }
@@ -171,7 +189,15 @@ public class SessionAwareCache<T> {
         }
 
         LogManager.logTrace(LogConstants.CTX_DQP, "Removing from global/distributed cache", id); //$NON-NLS-1$
-        return this.distributedCache.remove(id);
+        T result = this.distributedCache.remove(id);
+        removePersisted(id, result);
+        return result;
+    }
+
+    private void removePersisted(CacheID id, T t) {
+        if (this.persistentStore != null && t instanceof CachedResults) {
+            this.persistentStore.remove(id, (CachedResults)t);
+        }
     }
 
     public void put(CacheID id, Determinism determinismLevel, T t, Long ttl){
@@ -204,16 +230,31 @@ public class SessionAwareCache<T> {
                 if (ttl != null && ttl == 0) {
                     return;
                 }
+                if (this.persistentStore != null && t instanceof CachedResults) {
+                    //persisted ids must not collide with the buffer ids used after a restart
+                    ((CachedResults)t).setId(UUID.randomUUID().toString());
+                }
                 insert = c.prepare(this.bufferManager);
             }
 
             if (insert) {
                 LogManager.logTrace(LogConstants.CTX_DQP, "Adding to global/distributed cache", id); //$NON-NLS-1$
                 this.distributedCache.put(id, t, ttl);
+                if (this.persistentStore != null && t instanceof CachedResults) {
+                    this.persistentStore.write(id, determinismLevel, (CachedResults)t, ttl);
+                }
             }
         }
     }
 
+    /**
+     * Add an entry that was persisted by the {@link ResultSetCacheStore}.  The id is already scoped.
+     */
+    void restore(CacheID id, T t, Long ttl) {
+        LogManager.logTrace(LogConstants.CTX_DQP, "Restoring to global/distributed cache", id); //$NON-NLS-1$
+        this.distributedCache.put(id, t, ttl);
+    }
+
     Long computeTtl(CacheID id, T t, Long ttl) {
         if (!(t instanceof Cachable) || type != Type.RESULTSET) {
             return ttl;
@@ -276,6 +317,12 @@ public class SessionAwareCache<T> {
     public void clearAll(){
         this.localCache.clear();
         this.distributedCache.clear();
+        if (this.semanticCache != null) {
+            this.semanticCache.clearAll();
+        }
+        if (this.persistentStore != null) {
+            this.persistentStore.clearAll();
+        }
         this.totalRequests.set(0);
         this.cacheHit.set(0);
         this.cachePuts.set(0);
@@ -289,6 +336,12 @@ public class SessionAwareCache<T> {
     public void clearForVDB(VDBKey vdbKey) {
         clearCache(this.localCache, vdbKey);
         clearCache(this.distributedCache, vdbKey);
+        if (this.semanticCache != null) {
+            this.semanticCache.clearForVDB(vdbKey);
+        }
+        if (this.persistentStore != null) {
+            this.persistentStore.clear(vdbKey);
+        }
     }
 
     private void clearCache(Cache<CacheID, T> cache, VDBKey vdbKey) {
@@ -367,6 +420,14 @@ public class SessionAwareCache<T> {
             return vdbInfo;
         }
 
+        /**
+         * @return the values that determine equality, which unlike the serialized form
+         * do not depend on the originating session
+         */
+        List<?> getKeyValues() {
+            return Arrays.asList(vdbInfo.getName(), vdbInfo.getVersion(), ansiIdentifiers, sql, userName, sessionId, parameters);
+        }
+
         public boolean equals(Object obj){
             if(obj == this) {
                 return true;
@@ -396,6 +457,30 @@ public class SessionAwareCache<T> {
         this.bufferManager = bufferManager;
     }
 
+    /**
+     * @return the index of entries that may answer other queries, or null if semantic matching is not enabled
+     */
+    public SemanticResultSetCache getSemanticCache() {
+        return semanticCache;
+    }
+
+    public void setSemanticCache(SemanticResultSetCache semanticCache) {
+        this.semanticCache = semanticCache;
+    }
+
+    public ResultSetCacheStore getPersistentStore() {
+        return persistentStore;
+    }
+
+    /**
+     * Set the persistent tier, which also becomes the {@link TupleBufferCache} so that
+     * persisted results are read back when restored.
+     */
+    public void setPersistentStore(ResultSetCacheStore persistentStore) {
+        this.persistentStore = persistentStore;
+        this.bufferManager = persistentStore;
+    }
+
     public void setModTime(long modTime) {
         this.modTime = modTime;
     }
@@ -421,6 +506,46 @@ public class SessionAwareCache<T> {
         stats.setHitRatio(getCacheHitRatio());
         stats.setTotalEntries(this.getTotalCacheEntries());
         stats.setRequestCount(this.getRequestCount());
+        stats.setEvictionCount(getEvictionCount());
+        stats.setSizeEstimate(getSizeEstimate());
         return stats;
     }
+
+    /**
+     * @return the number of evicted entries or -1 if not tracked by the caches
+     */
+    public long getEvictionCount() {
+        long result = -1;
+        for (Cache<CacheID, T> cache : getCaches()) {
+            if (cache instanceof CacheStatisticsProvider) {
+                result = Math.max(result, 0) + ((CacheStatisticsProvider)cache).getEvictionCount();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the estimated size in bytes of the entries or -1 if not tracked by the caches
+     */
+    public long getSizeEstimate() {
+        long result = -1;
+        for (Cache<CacheID, T> cache : getCaches()) {
+            if (cache instanceof CacheStatisticsProvider) {
+                long size = ((CacheStatisticsProvider)cache).getSizeEstimate();
+                if (size >= 0) {
+                    result = Math.max(result, 0) + size;
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<Cache<CacheID, T>> getCaches() {
+        List<Cache<CacheID, T>> caches = new ArrayList<Cache<CacheID, T>>(2);
+        caches.add(this.localCache);
+        if (this.distributedCache != this.localCache) {
+            caches.add(this.distributedCache);
+        }
+        return caches;
+    }
 }
@@ -0,0 +1,407 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.eval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.teiid.common.buffer.ColumnarBatch;
+import org.teiid.common.buffer.ColumnarBatch.Column;
+import org.teiid.common.buffer.ColumnarBatch.DictionaryColumn;
+import org.teiid.common.buffer.ColumnarBatch.DoubleColumn;
+import org.teiid.common.buffer.ColumnarBatch.IntColumn;
+import org.teiid.common.buffer.ColumnarBatch.LongColumn;
+import org.teiid.common.buffer.ColumnarBatch.ObjectColumn;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.SetCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.Expression;
+
+/**
+ * Evaluates simple criteria a column at a time against a {@link ColumnarBatch}.
+ * <br>
+ * Only element to constant predicates combined with AND/OR are supported.  Since there is
+ * no negation of a compound, unknown may be treated as false throughout.
+ * <br>
+ * Extracting a column from the row form costs about as much as a single row at a time test
+ * of that column, so an evaluator is only created when the extraction is shared by several
+ * tests of the same column, such as a range.
+ */
+public abstract class ColumnarEvaluator {
+
+    /**
+     * Create an evaluator for the given criteria
+     * @return the evaluator or null if the criteria cannot be evaluated by column or
+     * would not benefit from it
+     */
+    public static ColumnarEvaluator create(Criteria criteria, Map<? extends Expression, Integer> elementMap) {
+        ColumnarEvaluator result = build(criteria, elementMap);
+        if (result == null) {
+            return null;
+        }
+        Set<Expression> columns = new HashSet<Expression>();
+        if (countTests(criteria, columns) <= columns.size()) {
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of column tests performed per row, where an IN is a single test
+     */
+    private static int countTests(Criteria criteria, Set<Expression> columns) {
+        if (criteria instanceof CompoundCriteria) {
+            int tests = 0;
+            for (Criteria crit : ((CompoundCriteria)criteria).getCriteria()) {
+                tests += countTests(crit, columns);
+            }
+            return tests;
+        }
+        if (criteria instanceof IsNullCriteria) {
+            columns.add(((IsNullCriteria)criteria).getExpression());
+            return 1;
+        }
+        if (criteria instanceof CompareCriteria) {
+            columns.add(((CompareCriteria)criteria).getLeftExpression());
+            return 1;
+        }
+        SetCriteria set = (SetCriteria)criteria;
+        columns.add(set.getExpression());
+        return 1;
+    }
+
+    private static ColumnarEvaluator build(Criteria criteria, Map<? extends Expression, Integer> elementMap) {
+        if (criteria instanceof CompoundCriteria) {
+            CompoundCriteria compound = (CompoundCriteria)criteria;
+            List<ColumnarEvaluator> children = new ArrayList<ColumnarEvaluator>(compound.getCriteriaCount());
+            for (Criteria crit : compound.getCriteria()) {
+                ColumnarEvaluator child = build(crit, elementMap);
+                if (child == null) {
+                    return null;
+                }
+                children.add(child);
+            }
+            return new CompoundEvaluator(compound.getOperator() == CompoundCriteria.AND, children.toArray(new ColumnarEvaluator[children.size()]));
+        }
+        if (criteria instanceof IsNullCriteria) {
+            IsNullCriteria isNull = (IsNullCriteria)criteria;
+            Integer index = getIndex(isNull.getExpression(), elementMap);
+            if (index == null) {
+                return null;
+            }
+            return new IsNullEvaluator(index, isNull.getExpression().getType(), isNull.isNegated());
+        }
+        if (criteria instanceof CompareCriteria) {
+            CompareCriteria compare = (CompareCriteria)criteria;
+            Integer index = getIndex(compare.getLeftExpression(), elementMap);
+            if (index == null || !isSimpleConstant(compare.getRightExpression(), compare.getLeftExpression().getType())) {
+                return null;
+            }
+            Object value = ((Constant)compare.getRightExpression()).getValue();
+            if (value == null) {
+                return null;
+            }
+            return new CompareEvaluator(index, compare.getLeftExpression().getType(), compare.getOperator(), value);
+        }
+        if (criteria instanceof SetCriteria) {
+            SetCriteria set = (SetCriteria)criteria;
+            Integer index = getIndex(set.getExpression(), elementMap);
+            if (index == null) {
+                return null;
+            }
+            Class<?> type = set.getExpression().getType();
+            List<Object> values = new ArrayList<Object>(set.getNumberOfValues());
+            boolean hasNull = false;
+            for (Object expr : set.getValues()) {
+                if (!isSimpleConstant((Expression)expr, type)) {
+                    return null;
+                }
+                Object value = ((Constant)expr).getValue();
+                if (value == null) {
+                    hasNull = true;
+                } else {
+                    values.add(value);
+                }
+            }
+            //with a null value not in can only be false or unknown
+            return new SetEvaluator(index, type, values.toArray(), set.isNegated(), set.isNegated() && hasNull);
+        }
+        return null;
+    }
+
+    private static Integer getIndex(Expression expr, Map<? extends Expression, Integer> elementMap) {
+        if (!(expr instanceof ElementSymbol)) {
+            return null;
+        }
+        return elementMap.get(expr);
+    }
+
+    private static boolean isSimpleConstant(Expression expr, Class<?> type) {
+        if (!(expr instanceof Constant)) {
+            return false;
+        }
+        Constant constant = (Constant)expr;
+        return !constant.isMultiValued() && constant.getType() == type && !type.isArray()
+                && type != DataTypeManager.DefaultDataClasses.OBJECT;
+    }
+
+    /**
+     * Evaluate against all rows of the batch
+     * @return the selection vector, where unknown is false
+     */
+    public abstract boolean[] evaluate(ColumnarBatch batch);
+
+    static class CompoundEvaluator extends ColumnarEvaluator {
+        private boolean and;
+        private ColumnarEvaluator[] children;
+
+        CompoundEvaluator(boolean and, ColumnarEvaluator[] children) {
+            this.and = and;
+            this.children = children;
+        }
+
+        @Override
+        public boolean[] evaluate(ColumnarBatch batch) {
+            boolean[] result = children[0].evaluate(batch);
+            for (int i = 1; i < children.length; i++) {
+                boolean[] other = children[i].evaluate(batch);
+                for (int row = 0; row < result.length; row++) {
+                    result[row] = and?(result[row] && other[row]):(result[row] || other[row]);
+                }
+            }
+            return result;
+        }
+    }
+
+    static class IsNullEvaluator extends ColumnarEvaluator {
+        private int index;
+        private Class<?> type;
+        private boolean negated;
+
+        IsNullEvaluator(int index, Class<?> type, boolean negated) {
+            this.index = index;
+            this.type = type;
+            this.negated = negated;
+        }
+
+        @Override
+        public boolean[] evaluate(ColumnarBatch batch) {
+            Column column = batch.getColumn(index, type);
+            boolean[] result = new boolean[batch.getRowCount()];
+            for (int row = 0; row < result.length; row++) {
+                result[row] = column.isNull(row) ^ negated;
+            }
+            return result;
+        }
+    }
+
+    static class CompareEvaluator extends ColumnarEvaluator {
+        private int index;
+        private Class<?> type;
+        private int operator;
+        private Object value;
+
+        CompareEvaluator(int index, Class<?> type, int operator, Object value) {
+            this.index = index;
+            this.type = type;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        public boolean[] evaluate(ColumnarBatch batch) {
+            Column column = batch.getColumn(index, type);
+            boolean[] result = new boolean[batch.getRowCount()];
+            if (column instanceof IntColumn) {
+                int[] values = ((IntColumn)column).getValues();
+                int constant = ((Number)value).intValue();
+                for (int row = 0; row < result.length; row++) {
+                    result[row] = !column.isNull(row) && test(Integer.compare(values[row], constant));
+                }
+            } else if (column instanceof LongColumn) {
+                long[] values = ((LongColumn)column).getValues();
+                long constant = (Long)value;
+                for (int row = 0; row < result.length; row++) {
+                    result[row] = !column.isNull(row) && test(Long.compare(values[row], constant));
+                }
+            } else if (column instanceof DoubleColumn) {
+                double[] values = ((DoubleColumn)column).getValues();
+                double constant = ((Number)value).doubleValue();
+                for (int row = 0; row < result.length; row++) {
+                    result[row] = !column.isNull(row) && test(Double.compare(values[row], constant));
+                }
+            } else if (column instanceof DictionaryColumn) {
+                DictionaryColumn dictionaryColumn = (DictionaryColumn)column;
+                Object[] dictionary = dictionaryColumn.getDictionary();
+                boolean[] matches = new boolean[dictionary.length];
+                for (int i = 0; i < dictionary.length; i++) {
+                    matches[i] = Evaluator.compare(operator, dictionary[i], value);
+                }
+                int[] codes = dictionaryColumn.getCodes();
+                for (int row = 0; row < result.length; row++) {
+                    result[row] = codes[row] >= 0 && matches[codes[row]];
+                }
+            } else {
+                Object[] values = ((ObjectColumn)column).getValues();
+                for (int row = 0; row < result.length; row++) {
+                    result[row] = values[row] != null && Evaluator.compare(operator, values[row], value);
+                }
+            }
+            return result;
+        }
+
+        private boolean test(int compare) {
+            switch (operator) {
+            case CompareCriteria.EQ:
+                return compare == 0;
+            case CompareCriteria.NE:
+                return compare != 0;
+            case CompareCriteria.LT:
+                return compare < 0;
+            case CompareCriteria.LE:
+                return compare <= 0;
+            case CompareCriteria.GT:
+                return compare > 0;
+            case CompareCriteria.GE:
+                return compare >= 0;
+            default:
+                throw new AssertionError();
+            }
+        }
+    }
+
+    /**
+     * Probes the sorted values once per row, or once per dictionary entry
+     */
+    static class SetEvaluator extends ColumnarEvaluator {
+        private int index;
+        private Class<?> type;
+        private TreeSet<Object> values = new TreeSet<Object>(Constant.COMPARATOR);
+        private boolean negated;
+        private boolean alwaysFalse;
+        private int[] intValues;
+        private long[] longValues;
+        private double[] doubleValues;
+
+        SetEvaluator(int index, Class<?> type, Object[] values, boolean negated, boolean alwaysFalse) {
+            this.index = index;
+            this.type = type;
+            this.values.addAll(Arrays.asList(values));
+            this.negated = negated;
+            this.alwaysFalse = alwaysFalse;
+        }
+
+        @Override
+        public boolean[] evaluate(ColumnarBatch batch) {
+            boolean[] result = new boolean[batch.getRowCount()];
+            if (alwaysFalse) {
+                return result;
+            }
+            //null is only not in an empty list, otherwise the result is unknown
+            boolean nullResult = negated && values.isEmpty();
+            Column column = batch.getColumn(index, type);
+            if (column instanceof IntColumn) {
+                int[] rowValues = ((IntColumn)column).getValues();
+                int[] sorted = getIntValues();
+                for (int row = 0; row < result.length; row++) {
+                    result[row] = column.isNull(row) ? nullResult : (Arrays.binarySearch(sorted, rowValues[row]) >= 0) ^ negated;
+                }
+            } else if (column instanceof LongColumn) {
+                long[] rowValues = ((LongColumn)column).getValues();
+                long[] sorted = getLongValues();
+                for (int row = 0; row < result.length; row++) {
+                    result[row] = column.isNull(row) ? nullResult : (Arrays.binarySearch(sorted, rowValues[row]) >= 0) ^ negated;
+                }
+            } else if (column instanceof DoubleColumn) {
+                double[] rowValues = ((DoubleColumn)column).getValues();
+                double[] sorted = getDoubleValues();
+                for (int row = 0; row < result.length; row++) {
+                    result[row] = column.isNull(row) ? nullResult : (Arrays.binarySearch(sorted, rowValues[row]) >= 0) ^ negated;
+                }
+            } else if (column instanceof DictionaryColumn) {
+                DictionaryColumn dictionaryColumn = (DictionaryColumn)column;
+                Object[] dictionary = dictionaryColumn.getDictionary();
+                boolean[] matches = new boolean[dictionary.length];
+                for (int i = 0; i < dictionary.length; i++) {
+                    matches[i] = values.contains(dictionary[i]) ^ negated;
+                }
+                int[] codes = dictionaryColumn.getCodes();
+                for (int row = 0; row < result.length; row++) {
+                    result[row] = codes[row] < 0 ? nullResult : matches[codes[row]];
+                }
+            } else {
+                Object[] rowValues = ((ObjectColumn)column).getValues();
+                for (int row = 0; row < result.length; row++) {
+                    result[row] = rowValues[row] == null ? nullResult : values.contains(rowValues[row]) ^ negated;
+                }
+            }
+            return result;
+        }
+
+        private int[] getIntValues() {
+            if (intValues == null) {
+                int[] result = new int[values.size()];
+                int i = 0;
+                for (Object value : values) {
+                    result[i++] = ((Number)value).intValue();
+                }
+                Arrays.sort(result);
+                intValues = result;
+            }
+            return intValues;
+        }
+
+        private long[] getLongValues() {
+            if (longValues == null) {
+                long[] result = new long[values.size()];
+                int i = 0;
+                for (Object value : values) {
+                    result[i++] = ((Number)value).longValue();
+                }
+                Arrays.sort(result);
+                longValues = result;
+            }
+            return longValues;
+        }
+
+        private double[] getDoubleValues() {
+            if (doubleValues == null) {
+                double[] result = new double[values.size()];
+                int i = 0;
+                for (Object value : values) {
+                    result[i++] = ((Number)value).doubleValue();
+                }
+                Arrays.sort(result);
+                doubleValues = result;
+            }
+            return doubleValues;
+        }
+    }
+
+}
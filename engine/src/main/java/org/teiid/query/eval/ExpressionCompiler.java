@@ -0,0 +1,351 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.eval;
+
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.api.exception.query.ExpressionEvaluationException;
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.util.EquivalenceUtil;
+import org.teiid.metadata.FunctionMethod.PushDown;
+import org.teiid.query.QueryPlugin;
+import org.teiid.query.function.FunctionDescriptor;
+import org.teiid.query.function.FunctionLibrary;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.NotCriteria;
+import org.teiid.query.sql.symbol.CaseExpression;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.DerivedExpression;
+import org.teiid.query.sql.symbol.Expression;
+import org.teiid.query.sql.symbol.ExpressionSymbol;
+import org.teiid.query.sql.symbol.Function;
+import org.teiid.query.sql.symbol.SearchedCaseExpression;
+
+/**
+ * Compiles resolved expressions and criteria into a tree of specialized evaluation objects.
+ * <br>
+ * Type dispatch, element index lookups, and function resolution are performed once at compile time
+ * rather than per row.  Any construct that is not compiled, such as subqueries, xml/json functions,
+ * lookups, or pushdown functions, is delegated to the {@link Evaluator} passed at evaluation time,
+ * so results and errors are the same as interpreted evaluation.
+ * <br>
+ * Compiled forms hold no execution state and may be shared by all executions of a plan.
+ */
+public final class ExpressionCompiler {
+
+    public abstract static class CompiledExpression {
+        public abstract Object evaluate(Evaluator eval, List<?> tuple) throws ExpressionEvaluationException, BlockedException, TeiidComponentException;
+    }
+
+    public abstract static class CompiledCriteria extends CompiledExpression {
+        public abstract Boolean evaluateTVL(Evaluator eval, List<?> tuple) throws ExpressionEvaluationException, BlockedException, TeiidComponentException;
+
+        public boolean evaluateCriteria(Evaluator eval, List<?> tuple) throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+            return Boolean.TRUE.equals(evaluateTVL(eval, tuple));
+        }
+
+        /**
+         * As with the {@link Evaluator} a criteria used as an expression is two valued
+         */
+        @Override
+        public Object evaluate(Evaluator eval, List<?> tuple)
+                throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+            return evaluateCriteria(eval, tuple);
+        }
+    }
+
+    private Map<? extends Expression, Integer> elements;
+
+    private ExpressionCompiler(Map<? extends Expression, Integer> elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * Compile a top level criteria, equivalent to {@link Evaluator#evaluateTVL(Criteria, List)}
+     */
+    public static CompiledCriteria compile(Criteria criteria, Map<? extends Expression, Integer> elements) {
+        return new ExpressionCompiler(elements).compileCriteria(criteria);
+    }
+
+    /**
+     * Compile a top level expression, equivalent to {@link Evaluator#evaluate(Expression, List)}
+     */
+    public static CompiledExpression compile(Expression expression, Map<? extends Expression, Integer> elements) {
+        return wrap(expression, new ExpressionCompiler(elements).compileExpression(expression));
+    }
+
+    private CompiledCriteria compileCriteria(final Criteria criteria) {
+        if (criteria instanceof CompoundCriteria) {
+            List<Criteria> crits = ((CompoundCriteria)criteria).getCriteria();
+            final CompiledCriteria[] compiled = new CompiledCriteria[crits.size()];
+            for (int i = 0; i < compiled.length; i++) {
+                compiled[i] = compileCriteria(crits.get(i));
+            }
+            if (((CompoundCriteria)criteria).getOperator() == CompoundCriteria.AND) {
+                return new CompiledCriteria() {
+                    @Override
+                    public Boolean evaluateTVL(Evaluator eval, List<?> tuple)
+                            throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+                        Boolean result = Boolean.TRUE;
+                        for (CompiledCriteria crit : compiled) {
+                            Boolean value = crit.evaluateTVL(eval, tuple);
+                            if (value == null) {
+                                result = null;
+                            } else if (!value) {
+                                return Boolean.FALSE;
+                            }
+                        }
+                        return result;
+                    }
+                };
+            }
+            return new CompiledCriteria() {
+                @Override
+                public Boolean evaluateTVL(Evaluator eval, List<?> tuple)
+                        throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+                    Boolean result = Boolean.FALSE;
+                    for (CompiledCriteria crit : compiled) {
+                        Boolean value = crit.evaluateTVL(eval, tuple);
+                        if (value == null) {
+                            result = null;
+                        } else if (value) {
+                            return Boolean.TRUE;
+                        }
+                    }
+                    return result;
+                }
+            };
+        }
+        if (criteria instanceof NotCriteria) {
+            final CompiledCriteria compiled = compileCriteria(((NotCriteria)criteria).getCriteria());
+            return new CompiledCriteria() {
+                @Override
+                public Boolean evaluateTVL(Evaluator eval, List<?> tuple)
+                        throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+                    Boolean result = compiled.evaluateTVL(eval, tuple);
+                    if (result == null) {
+                        return null;
+                    }
+                    return !result;
+                }
+            };
+        }
+        if (criteria instanceof CompareCriteria) {
+            final CompareCriteria compare = (CompareCriteria)criteria;
+            final CompiledExpression left = wrap(compare.getLeftExpression(), compileExpression(compare.getLeftExpression()));
+            final CompiledExpression right = wrap(compare.getRightExpression(), compileExpression(compare.getRightExpression()));
+            final int operator = compare.getOperator();
+            return new CompiledCriteria() {
+                @Override
+                public Boolean evaluateTVL(Evaluator eval, List<?> tuple)
+                        throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+                    Object leftValue = null;
+                    try {
+                        leftValue = left.evaluate(eval, tuple);
+                    } catch(ExpressionEvaluationException e) {
+                         throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30312, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30312, "left", compare)); //$NON-NLS-1$
+                    }
+                    if (leftValue == null) {
+                        return null;
+                    }
+                    Object rightValue = null;
+                    try {
+                        rightValue = right.evaluate(eval, tuple);
+                    } catch(ExpressionEvaluationException e) {
+                         throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30312, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30312, "right", compare)); //$NON-NLS-1$
+                    }
+                    if (rightValue == null) {
+                        return null;
+                    }
+                    return Evaluator.compare(operator, leftValue, rightValue);
+                }
+            };
+        }
+        if (criteria instanceof IsNullCriteria) {
+            final IsNullCriteria isNull = (IsNullCriteria)criteria;
+            final CompiledExpression compiled = wrap(isNull.getExpression(), compileExpression(isNull.getExpression()));
+            final boolean negated = isNull.isNegated();
+            return new CompiledCriteria() {
+                @Override
+                public Boolean evaluateTVL(Evaluator eval, List<?> tuple)
+                        throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+                    Object value = null;
+                    try {
+                        value = compiled.evaluate(eval, tuple);
+                    } catch(ExpressionEvaluationException e) {
+                         throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30323, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30323, isNull));
+                    }
+                    return value == null ^ negated;
+                }
+            };
+        }
+        return new CompiledCriteria() {
+            @Override
+            public Boolean evaluateTVL(Evaluator eval, List<?> tuple)
+                    throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+                return eval.evaluateTVL(criteria, tuple);
+            }
+        };
+    }
+
+    private CompiledExpression compileExpression(final Expression expression) {
+        if (expression instanceof DerivedExpression) {
+            Integer index = elements != null?elements.get(expression):null;
+            if (index != null) {
+                final int i = index;
+                return new CompiledExpression() {
+                    @Override
+                    public Object evaluate(Evaluator eval, List<?> tuple) {
+                        return tuple.get(i);
+                    }
+                };
+            }
+            if (expression instanceof ExpressionSymbol) {
+                return compileExpression(((ExpressionSymbol)expression).getExpression());
+            }
+        } else if (expression instanceof Constant && !((Constant)expression).isMultiValued()) {
+            final Object value = ((Constant)expression).getValue();
+            return new CompiledExpression() {
+                @Override
+                public Object evaluate(Evaluator eval, List<?> tuple) {
+                    return value;
+                }
+            };
+        } else if (expression instanceof Criteria) {
+            return compileCriteria((Criteria)expression);
+        } else if (expression instanceof Function) {
+            CompiledExpression result = compileFunction((Function)expression);
+            if (result != null) {
+                return result;
+            }
+        } else if (expression instanceof CaseExpression) {
+            final CaseExpression caseExpr = (CaseExpression)expression;
+            final CompiledExpression expr = compileExpression(caseExpr.getExpression());
+            final CompiledExpression[] whens = new CompiledExpression[caseExpr.getWhenCount()];
+            final CompiledExpression[] thens = new CompiledExpression[whens.length];
+            for (int i = 0; i < whens.length; i++) {
+                whens[i] = compileExpression(caseExpr.getWhenExpression(i));
+                thens[i] = compileExpression(caseExpr.getThenExpression(i));
+            }
+            final CompiledExpression elseExpr = caseExpr.getElseExpression() != null?compileExpression(caseExpr.getElseExpression()):null;
+            return new CompiledExpression() {
+                @Override
+                public Object evaluate(Evaluator eval, List<?> tuple)
+                        throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+                    Object exprVal = expr.evaluate(eval, tuple);
+                    for (int i = 0; i < whens.length; i++) {
+                        if (EquivalenceUtil.areEqual(exprVal, whens[i].evaluate(eval, tuple))) {
+                            return thens[i].evaluate(eval, tuple);
+                        }
+                    }
+                    if (elseExpr != null) {
+                        return elseExpr.evaluate(eval, tuple);
+                    }
+                    return null;
+                }
+            };
+        } else if (expression instanceof SearchedCaseExpression) {
+            final SearchedCaseExpression caseExpr = (SearchedCaseExpression)expression;
+            final CompiledCriteria[] whens = new CompiledCriteria[caseExpr.getWhenCount()];
+            final CompiledExpression[] thens = new CompiledExpression[whens.length];
+            for (int i = 0; i < whens.length; i++) {
+                whens[i] = compileCriteria(caseExpr.getWhenCriteria(i));
+                thens[i] = compileExpression(caseExpr.getThenExpression(i));
+            }
+            final CompiledExpression elseExpr = caseExpr.getElseExpression() != null?compileExpression(caseExpr.getElseExpression()):null;
+            return new CompiledExpression() {
+                @Override
+                public Object evaluate(Evaluator eval, List<?> tuple)
+                        throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+                    for (int i = 0; i < whens.length; i++) {
+                        if (whens[i].evaluateCriteria(eval, tuple)) {
+                            return thens[i].evaluate(eval, tuple);
+                        }
+                    }
+                    if (elseExpr != null) {
+                        return elseExpr.evaluate(eval, tuple);
+                    }
+                    return null;
+                }
+            };
+        }
+        return new CompiledExpression() {
+            @Override
+            public Object evaluate(Evaluator eval, List<?> tuple)
+                    throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+                return eval.internalEvaluate(expression, tuple);
+            }
+        };
+    }
+
+    /**
+     * @return the compiled function or null if the function needs special handling by the {@link Evaluator}
+     */
+    private CompiledExpression compileFunction(final Function function) {
+        final FunctionDescriptor fd = function.getFunctionDescriptor();
+        if (fd == null || fd.getPushdown() == PushDown.MUST_PUSHDOWN || fd.getProcedure() != null
+                || function.getName().equalsIgnoreCase(FunctionLibrary.LOOKUP)) {
+            return null;
+        }
+        Expression[] args = function.getArgs();
+        final CompiledExpression[] compiled = new CompiledExpression[args.length];
+        for (int i = 0; i < args.length; i++) {
+            compiled[i] = compileExpression(args[i]);
+        }
+        final int start = fd.requiresContext()?1:0;
+        final boolean varArgArray = function.isCalledWithVarArgArrayParam();
+        return new CompiledExpression() {
+            @Override
+            public Object evaluate(Evaluator eval, List<?> tuple)
+                    throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+                Object[] values = new Object[compiled.length + start];
+                if (start == 1) {
+                    values[0] = eval.context;
+                }
+                for (int i = 0; i < compiled.length; i++) {
+                    values[i + start] = compiled[i].evaluate(eval, tuple);
+                }
+                return fd.invokeFunction(values, eval.context, null, varArgArray);
+            }
+        };
+    }
+
+    /**
+     * Add the same error context as {@link Evaluator#evaluate(Expression, List)}
+     */
+    private static CompiledExpression wrap(final Expression expression, final CompiledExpression compiled) {
+        return new CompiledExpression() {
+            @Override
+            public Object evaluate(Evaluator eval, List<?> tuple)
+                    throws ExpressionEvaluationException, BlockedException, TeiidComponentException {
+                try {
+                    return compiled.evaluate(eval, tuple);
+                } catch (ExpressionEvaluationException e) {
+                     throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID30328, e, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30328, new Object[] {expression, e.getMessage()}));
+                }
+            }
+        };
+    }
+
+}
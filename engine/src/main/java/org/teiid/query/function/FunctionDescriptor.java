@@ -19,9 +19,13 @@
 package org.teiid.query.function;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 
 import org.teiid.api.exception.query.FunctionExecutionException;
@@ -66,6 +70,10 @@ public class FunctionDescriptor implements Serializable, Cloneable {
     // the real VM descriptor for execution.
     private transient Method invocationMethod;
 
+    // The pre-linked form of the invocationMethod taking the target and the argument array,
+    // which avoids the reflective access and argument checks on each call
+    private transient MethodHandle invocationHandle;
+
     private ClassLoader classLoader;
 
     private Procedure procedure;
@@ -79,11 +87,32 @@ public class FunctionDescriptor implements Serializable, Cloneable {
         this.types = types;
         this.returnType = outputType;
         this.invocationMethod = invocationMethod;
+        this.invocationHandle = createInvocationHandle(invocationMethod);
         this.requiresContext = requiresContext;
         this.method = method;
         this.classLoader = classloader;
     }
 
+    /**
+     * Create a handle of the form (Object target, Object[] args)Object, or return null
+     * if the method is not accessible so that reflection will be used.
+     */
+    static MethodHandle createInvocationHandle(Method invocationMethod) {
+        if (invocationMethod == null) {
+            return null;
+        }
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflect(invocationMethod).asFixedArity();
+            if (Modifier.isStatic(invocationMethod.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            return handle.asSpreader(Object[].class, invocationMethod.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
     public Object newInstance() throws FunctionExecutionException {
         checkMethod();
         try {
@@ -276,7 +305,7 @@ public class FunctionDescriptor implements Serializable, Cloneable {
                 if (this.classLoader != null) {
                     Thread.currentThread().setContextClassLoader(this.classLoader);
                 }
-                result = invocationMethod.invoke(functionTarget, values);
+                result = invoke(functionTarget, values);
             } finally {
                 Thread.currentThread().setContextClassLoader(originalCL);
             }
@@ -298,6 +327,18 @@ public class FunctionDescriptor implements Serializable, Cloneable {
         }
     }
 
+    private Object invoke(Object functionTarget, Object[] values) throws InvocationTargetException, IllegalAccessException {
+        if (invocationHandle == null) {
+            return invocationMethod.invoke(functionTarget, values);
+        }
+        try {
+            return (Object)invocationHandle.invokeExact(functionTarget, values);
+        } catch (Throwable e) {
+            //treat the same as a reflective invocation failure
+            throw new InvocationTargetException(e);
+        }
+    }
+
     private void checkMethod() throws FunctionExecutionException {
         // If descriptor is missing invokable method, find this VM's descriptor
         // give name and types from fd
@@ -60,6 +60,8 @@ public class MaterializationMetadataRepository implements MetadataRepository {
 
     public static final String MATVIEW_POLLING_QUERY = "teiid_rel:MATVIEW_POLLING_QUERY"; //$NON-NLS-1$
 
+    public static final String MATVIEW_INCREMENTAL = "teiid_rel:MATVIEW_INCREMENTAL"; //$NON-NLS-1$
+
     public enum LoadStates {NEEDS_LOADING, LOADING, LOADED, FAILED_LOAD};
     public enum Scope {IMPORTED, FULL};
     public enum ErrorAction {THROW_EXCEPTION, IGNORE, WAIT}
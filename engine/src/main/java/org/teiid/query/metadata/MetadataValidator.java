@@ -58,6 +58,7 @@ import org.teiid.connector.DataPlugin;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.StringUtil;
 import org.teiid.dqp.internal.process.MetaDataProcessor;
 import org.teiid.language.SQLConstants;
 import org.teiid.logging.LogConstants;
@@ -236,6 +237,8 @@ public class MetadataValidator {
                     Set<String> names = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
                     validateConstraintNames(metadataValidator, report, model, t.getAllKeys(), names);
                     validateConstraintNames(metadataValidator, report, model, t.getFunctionBasedIndexes(), names);
+                    validateIncludedColumns(metadataValidator, report, model, t, t.getIndexes());
+                    validateIncludedColumns(metadataValidator, report, model, t, t.getFunctionBasedIndexes());
                 }
 
                 // procedure validation is handled in parsing routines.
@@ -250,6 +253,20 @@ public class MetadataValidator {
             }
         }
 
+        private void validateIncludedColumns(MetadataValidator metadataValidator, ValidatorReport report, ModelMetaData model, Table t, Collection<KeyRecord> indexes) {
+            for (KeyRecord record : indexes) {
+                String include = record.getProperty(KeyRecord.INCLUDE);
+                if (include == null) {
+                    continue;
+                }
+                for (String name : StringUtil.split(include, ",")) { //$NON-NLS-1$
+                    if (t.getColumnByName(name.trim()) == null) {
+                        metadataValidator.log(report, model, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31309, record.getFullName(), name.trim()), t);
+                    }
+                }
+            }
+        }
+
         private void validateConstraintNames(MetadataValidator metadataValidator, ValidatorReport report, ModelMetaData model, Collection<KeyRecord> keys, Set<String> names) {
             for (KeyRecord record : keys) {
                 if (record.getName() == null) {
@@ -807,6 +824,10 @@ public class MetadataValidator {
 
                     if (t.getColumns() != null && !t.getColumns().isEmpty()) {
                         determineDependencies(t, command);
+                        if (t.isMaterialized() && t.getMaterializedTable() == null
+                                && Boolean.valueOf(t.getProperty(MaterializationMetadataRepository.MATVIEW_INCREMENTAL, false))) {
+                            addIncrementalMatViewTriggers(model, report, t, command);
+                        }
                         if (t.getInsertPlan() != null && t.isInsertPlanEnabled()) {
                             validateUpdatePlan(model, report, metadata, t, t.getInsertPlan(), Command.TYPE_INSERT);
                         }
@@ -953,6 +974,135 @@ public class MetadataValidator {
         }
     }
 
+    /**
+     * Add after triggers to the physical table that determines the primary key of an incrementally
+     * maintained materialized view, so that changes to its rows refresh the affected view rows.
+     * The view is rejected if it depends upon other tables, as their changes cannot be mapped to view rows.
+     */
+    private void addIncrementalMatViewTriggers(ModelMetaData model, ValidatorReport report, Table t, QueryCommand command) {
+        KeyRecord pk = t.getPrimaryKey();
+        List<Column> keyColumns = null;
+        if (pk != null && command instanceof Query) {
+            keyColumns = getIncrementalKeyColumns(pk, command);
+        }
+        if (keyColumns == null) {
+            log(report, model, Severity.WARNING, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31306, t.getFullName()), t);
+            return;
+        }
+        Table base = (Table)keyColumns.get(0).getParent();
+        for (AbstractMetadataRecord record : t.getIncomingObjects()) {
+            if (record != base && !(record instanceof Column)) {
+                log(report, model, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31308, t.getFullName(), base.getFullName(), record.getFullName()), t);
+                return;
+            }
+        }
+        for (TriggerEvent event : TriggerEvent.values()) {
+            addIncrementalMatViewTrigger(t, base, keyColumns, event);
+        }
+    }
+
+    /**
+     * @return the physical columns projected as the primary key or null if the key is not
+     * directly from the columns of a single physical table that appears once in the query
+     */
+    private static List<Column> getIncrementalKeyColumns(KeyRecord pk, QueryCommand command) {
+        List<Expression> projected = command.getProjectedSymbols();
+        List<Column> keyColumns = new ArrayList<Column>(pk.getColumns().size());
+        for (Column c : pk.getColumns()) {
+            Expression ex = SymbolMap.getExpression(projected.get(c.getPosition() - 1));
+            if (!(ex instanceof ElementSymbol) || !(((ElementSymbol)ex).getMetadataID() instanceof Column)) {
+                return null;
+            }
+            Column baseColumn = (Column)((ElementSymbol)ex).getMetadataID();
+            if (!(baseColumn.getParent() instanceof Table) || !((Table)baseColumn.getParent()).isPhysical()
+                    || (!keyColumns.isEmpty() && keyColumns.get(0).getParent() != baseColumn.getParent())) {
+                return null;
+            }
+            keyColumns.add(baseColumn);
+        }
+        int occurrences = 0;
+        for (GroupSymbol group : GroupCollectorVisitor.getGroupsIgnoreInlineViews(command, false)) {
+            if (group.getMetadataID() == keyColumns.get(0).getParent()) {
+                occurrences++;
+            }
+        }
+        if (occurrences != 1) {
+            return null;
+        }
+        return keyColumns;
+    }
+
+    /**
+     * Get the physical columns that determine the primary key of a validated incrementally maintained view
+     */
+    public static List<Column> getIncrementalKeyColumns(Table view) {
+        List<Column> keyColumns = new ArrayList<Column>();
+        for (Column c : view.getPrimaryKey().getColumns()) {
+            for (AbstractMetadataRecord record : c.getIncomingObjects()) {
+                if (record instanceof Column) {
+                    keyColumns.add((Column)record);
+                    break;
+                }
+            }
+        }
+        return keyColumns;
+    }
+
+    private static void addIncrementalMatViewTrigger(Table t, Table st, List<Column> keyColumns, Table.TriggerEvent event) {
+        String name = "ON_"+st.getName()+"_"+event.name()+"_FOR_"+t.getName()+"_FOR_INCREMENTAL"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        StringBuilder plan = new StringBuilder("FOR EACH ROW\nBEGIN ATOMIC\n"); //$NON-NLS-1$
+        if (event != Table.TriggerEvent.INSERT) {
+            appendRefreshMatViewRow(plan, t, keyColumns, "OLD", null); //$NON-NLS-1$
+        }
+        if (event == Table.TriggerEvent.UPDATE) {
+            appendRefreshMatViewRow(plan, t, keyColumns, "NEW", "OLD"); //$NON-NLS-1$ //$NON-NLS-2$
+        } else if (event == Table.TriggerEvent.INSERT) {
+            appendRefreshMatViewRow(plan, t, keyColumns, "NEW", null); //$NON-NLS-1$
+        }
+        plan.append("END\n"); //$NON-NLS-1$
+        Trigger trigger = new Trigger();
+        trigger.setName(name);
+        trigger.setEvent(event);
+        trigger.setPlan(plan.toString());
+        trigger.setAfter(true);
+        trigger.setProperty(DDLStringVisitor.GENERATED, "true"); //$NON-NLS-1$
+        trigger.setProperty(MaterializationMetadataRepository.MATVIEW_INCREMENTAL, t.getFullName());
+        st.getTriggers().put(name, trigger);
+        LogManager.logDetail(LogConstants.CTX_MATVIEWS, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31307, st.getName(), t.getName()));
+    }
+
+    /**
+     * Refresh the view row for the non-null key of the given row.
+     * If unchanged is specified, the refresh only happens if the key differs from that row.
+     */
+    private static void appendRefreshMatViewRow(StringBuilder plan, Table t, List<Column> keyColumns, String row, String unchanged) {
+        plan.append("IF ("); //$NON-NLS-1$
+        for (int i = 0; i < keyColumns.size(); i++) {
+            if (i > 0) {
+                plan.append(" AND "); //$NON-NLS-1$
+            }
+            plan.append(row).append('.').append(SQLStringVisitor.escapeSinglePart(keyColumns.get(i).getName())).append(" IS NOT NULL"); //$NON-NLS-1$
+        }
+        if (unchanged != null) {
+            plan.append(" AND ("); //$NON-NLS-1$
+            for (int i = 0; i < keyColumns.size(); i++) {
+                if (i > 0) {
+                    plan.append(" OR "); //$NON-NLS-1$
+                }
+                String column = SQLStringVisitor.escapeSinglePart(keyColumns.get(i).getName());
+                plan.append(unchanged).append('.').append(column).append(" IS NULL OR "); //$NON-NLS-1$
+                plan.append(unchanged).append('.').append(column).append(" <> ").append(row).append('.').append(column); //$NON-NLS-1$
+            }
+            plan.append(')');
+        }
+        plan.append(")\nBEGIN\nEXECUTE SYSADMIN.refreshMatViewRow('"); //$NON-NLS-1$
+        plan.append(StringUtil.replaceAll(t.getFullName(), "'", "''")).append('\''); //$NON-NLS-1$ //$NON-NLS-2$
+        for (Column c : keyColumns) {
+            plan.append(", ").append(row).append('.').append(SQLStringVisitor.escapeSinglePart(c.getName())); //$NON-NLS-1$
+        }
+        plan.append(");\nEND\n"); //$NON-NLS-1$
+    }
+
     private static void determineDependencies(Command command, Column c, int index, LinkedHashSet<AbstractMetadataRecord> columnValues) {
         if (command instanceof Query || command instanceof StoredProcedure) {
             Expression ex = command.getProjectedSymbols().get(index);
@@ -372,7 +372,8 @@ public interface SourceCapabilities {
         GEOGRAPHY_TYPE,
         PROCEDURE_PARAMETER_EXPRESSION,
         MAX_QUERY_FROM_ONE_TO_MANY,
-        QUERY_ONLY_FROM_RELATIONSHIP_JOIN;
+        QUERY_ONLY_FROM_RELATIONSHIP_JOIN,
+        DEPENDENT_JOIN_RANGE_FILTER;
 
         private final String toString;
 
@@ -70,6 +70,7 @@ import org.teiid.query.processor.relational.DependentProcedureExecutionNode;
 import org.teiid.query.processor.relational.DupRemoveNode;
 import org.teiid.query.processor.relational.EnhancedSortMergeJoinStrategy;
 import org.teiid.query.processor.relational.GroupingNode;
+import org.teiid.query.processor.relational.HashJoinStrategy;
 import org.teiid.query.processor.relational.InsertPlanExecutionNode;
 import org.teiid.query.processor.relational.JoinNode;
 import org.teiid.query.processor.relational.JoinNode.JoinStrategyType;
@@ -351,6 +352,17 @@ public class PlanToProcessConverter {
                     List rightExpressions = (List) node.getProperty(NodeConstants.Info.RIGHT_EXPRESSIONS);
                     jnode.setJoinExpressions(leftExpressions, rightExpressions);
                     joinCrits = (List) node.getProperty(NodeConstants.Info.NON_EQUI_JOIN_CRITERIA);
+                } else if (stype == JoinStrategyType.HASH) {
+                    HashJoinStrategy hjStrategy = new HashJoinStrategy();
+                    if (node.hasBooleanProperty(Info.SINGLE_MATCH)) {
+                        Assertion.assertTrue(jtype == JoinType.JOIN_LEFT_OUTER);
+                        hjStrategy.singleMatch(true);
+                    }
+                    jnode.setJoinStrategy(hjStrategy);
+                    List leftExpressions = (List) node.getProperty(NodeConstants.Info.LEFT_EXPRESSIONS);
+                    List rightExpressions = (List) node.getProperty(NodeConstants.Info.RIGHT_EXPRESSIONS);
+                    jnode.setJoinExpressions(leftExpressions, rightExpressions);
+                    joinCrits = (List) node.getProperty(NodeConstants.Info.NON_EQUI_JOIN_CRITERIA);
                 } else if (stype == JoinStrategyType.NESTED_TABLE) {
                     NestedTableJoinStrategy ntjStrategy = new NestedTableJoinStrategy();
                     jnode.setJoinStrategy(ntjStrategy);
@@ -419,6 +431,7 @@ public class PlanToProcessConverter {
                                 depAccessNode.setMaxSetSize(CapabilitiesUtil.getMaxInCriteriaSize(modelID, metadata, capFinder));
                                 depAccessNode.setMaxPredicates(CapabilitiesUtil.getMaxDependentPredicates(modelID, metadata, capFinder));
                                 depAccessNode.setUseBindings(CapabilitiesUtil.supports(Capability.DEPENDENT_JOIN_BINDINGS, modelID, metadata, capFinder));
+                                depAccessNode.setRangeFilter(CapabilitiesUtil.supports(Capability.DEPENDENT_JOIN_RANGE_FILTER, modelID, metadata, capFinder));
                                 //TODO: allow the translator to drive this property
                                 //simplistic check of whether this query is complex to re-execute
                                 Query query = (Query)command;
@@ -604,6 +617,7 @@ public class PlanToProcessConverter {
             case NodeConstants.Types.GROUP:
                 GroupingNode gnode = new GroupingNode(getID());
                 gnode.setRollup(node.hasBooleanProperty(Info.ROLLUP));
+                gnode.setHashAggregate(node.hasBooleanProperty(Info.HASH_AGGREGATE));
                 SymbolMap groupingMap = (SymbolMap)node.getProperty(NodeConstants.Info.SYMBOL_MAP);
                 gnode.setOutputMapping(groupingMap);
                 gnode.setRemoveDuplicates(node.hasBooleanProperty(NodeConstants.Info.IS_DUP_REMOVAL));
@@ -0,0 +1,337 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.optimizer.relational.rules;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.teiid.api.exception.query.QueryMetadataException;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.types.TransformationException;
+import org.teiid.core.util.EquivalenceUtil;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.metadata.AbstractMetadataRecord;
+import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.metadata.TempMetadataID;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.symbol.Constant;
+
+/**
+ * The value distribution of a column, held as column extension properties so that it
+ * is persisted with the rest of the metadata and may be set with SYSADMIN.setProperty.
+ * <br>
+ * {@link #HISTOGRAM} is a list of equi-depth bucket bounds, where the first value is the minimum and each
+ * following value is the upper bound of a bucket holding an equal share of the non-null values.
+ * {@link #MOST_COMMON_VALUES} is a list of alternating values and their fraction of the non-null values.
+ * Values in both lists are in their string form separated by commas, where commas and backslashes within
+ * a value are escaped with a backslash.
+ * <br>
+ * The statistics are supplied by the source metadata, the DDL or SYSADMIN.setProperty, in the same way as
+ * the existing min, max and distinct value statistics, or are built from a sample of the column with
+ * SYSADMIN.analyzeColumn.
+ */
+public class ColumnHistogram {
+
+    public static final String HISTOGRAM = AbstractMetadataRecord.RELATIONAL_PREFIX + "HISTOGRAM"; //$NON-NLS-1$
+    public static final String MOST_COMMON_VALUES = AbstractMetadataRecord.RELATIONAL_PREFIX + "MOST_COMMON_VALUES"; //$NON-NLS-1$
+
+    public static final int DEFAULT_BUCKETS = 20;
+    public static final int DEFAULT_MOST_COMMON_VALUES = 10;
+
+    private static final String CACHE_KEY = "histogram"; //$NON-NLS-1$
+
+    private Class<?> type;
+    private String histogram;
+    private String mostCommon;
+    private List<Object> bounds = Collections.emptyList();
+    private List<Object> mostCommonValues = new ArrayList<Object>();
+    private List<Float> mostCommonFrequencies = new ArrayList<Float>();
+
+    /**
+     * Get the histogram for the column.  The parsed form is held in the metadata cache until the
+     * property values change.
+     * @return the histogram or null if there is none or it cannot be used for the type
+     */
+    public static ColumnHistogram getHistogram(Object elementId, Class<?> type, QueryMetadataInterface metadata) throws TeiidComponentException, QueryMetadataException {
+        if (!isComparable(type) || elementId instanceof TempMetadataID) {
+            return null;
+        }
+        String histogram = metadata.getExtensionProperty(elementId, HISTOGRAM, false);
+        String mostCommon = metadata.getExtensionProperty(elementId, MOST_COMMON_VALUES, false);
+        if (histogram == null && mostCommon == null) {
+            return null;
+        }
+        Object cached = metadata.getFromMetadataCache(elementId, CACHE_KEY);
+        if (cached instanceof ColumnHistogram) {
+            ColumnHistogram result = (ColumnHistogram)cached;
+            if (result.type == type && EquivalenceUtil.areEqual(histogram, result.histogram)
+                    && EquivalenceUtil.areEqual(mostCommon, result.mostCommon)) {
+                return result;
+            }
+        }
+        ColumnHistogram result = new ColumnHistogram();
+        try {
+            if (histogram != null) {
+                result.bounds = parse(histogram, type);
+            }
+            if (mostCommon != null) {
+                List<String> values = split(mostCommon);
+                for (int i = 0; i + 1 < values.size(); i += 2) {
+                    result.mostCommonValues.add(DataTypeManager.transformValue(values.get(i), type));
+                    result.mostCommonFrequencies.add(Float.valueOf(values.get(i + 1)));
+                }
+            }
+        } catch (TransformationException | NumberFormatException e) {
+            LogManager.logDetail(LogConstants.CTX_QUERY_PLANNER, e, "Ignoring invalid histogram for", elementId); //$NON-NLS-1$
+            return null;
+        }
+        result.type = type;
+        result.histogram = histogram;
+        result.mostCommon = mostCommon;
+        metadata.addToMetadataCache(elementId, CACHE_KEY, result);
+        return result;
+    }
+
+    private static boolean isComparable(Class<?> type) {
+        return type != null && !type.isArray() && !DataTypeManager.isNonComparable(DataTypeManager.getDataTypeName(type))
+                && type != DataTypeManager.DefaultDataClasses.OBJECT;
+    }
+
+    private static List<Object> parse(String value, Class<?> type) throws TransformationException {
+        List<String> strings = split(value);
+        List<Object> result = new ArrayList<Object>(strings.size());
+        for (String string : strings) {
+            result.add(DataTypeManager.transformValue(string, type));
+        }
+        return result;
+    }
+
+    /**
+     * @return the fraction of the non-null values equal to the value, or {@link NewCalculateCostUtil#UNKNOWN_VALUE}
+     * if it cannot be determined.  A value outside of the histogram is still estimated as a single distinct value,
+     * as the statistics may be stale.
+     */
+    public float getEqualitySelectivity(Object value, float ndv) {
+        int index = indexOf(mostCommonValues, value);
+        if (index >= 0) {
+            return mostCommonFrequencies.get(index);
+        }
+        if (bounds.size() > 1 && (Constant.COMPARATOR.compare(value, bounds.get(0)) < 0
+                || Constant.COMPARATOR.compare(value, bounds.get(bounds.size() - 1)) > 0)) {
+            return ndv > 0 ? 1 / ndv : 0;
+        }
+        if (ndv == NewCalculateCostUtil.UNKNOWN_VALUE || mostCommonValues.isEmpty()) {
+            return NewCalculateCostUtil.UNKNOWN_VALUE;
+        }
+        //spread what remains over the other values
+        float remaining = 1;
+        for (Float frequency : mostCommonFrequencies) {
+            remaining -= frequency;
+        }
+        return Math.max(0, remaining) / Math.max(1, ndv - mostCommonValues.size());
+    }
+
+    private static int indexOf(List<Object> values, Object value) {
+        for (int i = 0; i < values.size(); i++) {
+            if (Constant.COMPARATOR.compare(values.get(i), value) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the fraction of the non-null values satisfying the comparison, or {@link NewCalculateCostUtil#UNKNOWN_VALUE}
+     * if there is no histogram
+     */
+    public float getRangeSelectivity(int operator, Object value) {
+        if (bounds.size() < 2) {
+            return NewCalculateCostUtil.UNKNOWN_VALUE;
+        }
+        float below = getFractionBelow(value);
+        switch (operator) {
+        case CompareCriteria.LT:
+        case CompareCriteria.LE:
+            return below;
+        case CompareCriteria.GT:
+        case CompareCriteria.GE:
+            return 1 - below;
+        default:
+            return NewCalculateCostUtil.UNKNOWN_VALUE;
+        }
+    }
+
+    private float getFractionBelow(Object value) {
+        int buckets = bounds.size() - 1;
+        if (Constant.COMPARATOR.compare(value, bounds.get(0)) <= 0) {
+            return 0;
+        }
+        for (int i = 1; i <= buckets; i++) {
+            Object upper = bounds.get(i);
+            if (Constant.COMPARATOR.compare(value, upper) <= 0) {
+                return (i - 1 + interpolate(bounds.get(i - 1), upper, value)) / buckets;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * @return the position of the value within the bucket assuming a uniform distribution within the bucket
+     */
+    private static float interpolate(Object lower, Object upper, Object value) {
+        double l = 0;
+        double u = 0;
+        double v = 0;
+        if (value instanceof Number) {
+            l = ((Number)lower).doubleValue();
+            u = ((Number)upper).doubleValue();
+            v = ((Number)value).doubleValue();
+        } else if (value instanceof java.util.Date) {
+            l = ((java.util.Date)lower).getTime();
+            u = ((java.util.Date)upper).getTime();
+            v = ((java.util.Date)value).getTime();
+        } else {
+            return .5f;
+        }
+        if (u <= l) {
+            return 1;
+        }
+        return (float)Math.min(1, Math.max(0, (v - l) / (u - l)));
+    }
+
+    /**
+     * @return the fraction of the join pairs of the non-null values between the most common values
+     * of two columns, or {@link NewCalculateCostUtil#UNKNOWN_VALUE} if there are no common values
+     */
+    public float getJoinSelectivity(ColumnHistogram other) {
+        float result = 0;
+        boolean common = false;
+        for (int i = 0; i < mostCommonValues.size(); i++) {
+            int index = indexOf(other.mostCommonValues, mostCommonValues.get(i));
+            if (index >= 0) {
+                common = true;
+                result += mostCommonFrequencies.get(i) * other.mostCommonFrequencies.get(index);
+            }
+        }
+        return common?result:NewCalculateCostUtil.UNKNOWN_VALUE;
+    }
+
+    /**
+     * Build the property values from a sample of the column values.
+     * @param values the sampled values, which may contain nulls
+     * @param buckets the number of histogram buckets
+     * @param mostCommon the maximum number of most common values
+     * @return the {@link #HISTOGRAM} and {@link #MOST_COMMON_VALUES} values, which will be null if there are no
+     * non-null values or no values more common than average
+     */
+    public static String[] build(List<?> values, int buckets, int mostCommon) throws TransformationException {
+        List<Object> sorted = new ArrayList<Object>(values.size());
+        for (Object value : values) {
+            if (value != null) {
+                sorted.add(value);
+            }
+        }
+        String[] result = new String[2];
+        int n = sorted.size();
+        if (n == 0) {
+            return result;
+        }
+        Collections.sort(sorted, Constant.COMPARATOR);
+        List<String> bounds = new ArrayList<String>(buckets + 1);
+        for (int i = 0; i <= buckets; i++) {
+            bounds.add(toString(sorted.get((int)((long)i * (n - 1) / buckets))));
+        }
+        result[0] = join(bounds);
+        //count the runs of equal values
+        List<Object> runValues = new ArrayList<Object>();
+        List<Integer> runCounts = new ArrayList<Integer>();
+        for (int i = 0; i < n; i++) {
+            int start = i;
+            while (i + 1 < n && Constant.COMPARATOR.compare(sorted.get(i), sorted.get(i + 1)) == 0) {
+                i++;
+            }
+            runValues.add(sorted.get(start));
+            runCounts.add(i - start + 1);
+        }
+        float average = (float)n / runValues.size();
+        List<String> common = new ArrayList<String>();
+        while (common.size() / 2 < mostCommon) {
+            int max = -1;
+            for (int i = 0; i < runCounts.size(); i++) {
+                if (runCounts.get(i) > average && (max == -1 || runCounts.get(i) > runCounts.get(max))) {
+                    max = i;
+                }
+            }
+            if (max == -1) {
+                break;
+            }
+            common.add(toString(runValues.get(max)));
+            common.add(String.valueOf((float)runCounts.get(max) / n));
+            runCounts.set(max, 0);
+        }
+        if (!common.isEmpty()) {
+            result[1] = join(common);
+        }
+        return result;
+    }
+
+    private static String toString(Object value) throws TransformationException {
+        return (String)DataTypeManager.transformValue(value, DataTypeManager.DefaultDataClasses.STRING);
+    }
+
+    static String join(List<String> values) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                result.append(',');
+            }
+            String value = values.get(i);
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == ',' || c == '\\') {
+                    result.append('\\');
+                }
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    static List<String> split(String value) {
+        List<String> result = new ArrayList<String>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                current.append(value.charAt(++i));
+            } else if (c == ',') {
+                result.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        result.add(current.toString());
+        return result;
+    }
+
+}
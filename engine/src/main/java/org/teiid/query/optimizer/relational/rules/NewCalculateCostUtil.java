@@ -460,6 +460,13 @@ public class NewCalculateCostUtil {
                 baseCost = (childCost1 / leftNdv) * (childCost2 / rightNdv) * Math.min(leftNdv, rightNdv);
                 leftPercent = Math.min(leftNdv, rightNdv) / leftNdv;
                 rightPercent = Math.min(leftNdv, rightNdv) / rightNdv;
+                if (leftExpressions.size() == 1) {
+                    float selectivity = getJoinSelectivity(leftExpressions.get(0), rightExpressions.get(0), metadata);
+                    if (selectivity != UNKNOWN_VALUE) {
+                        //the ndv based estimate assumes a uniform distribution, which understates skewed values
+                        baseCost = Math.max(baseCost, childCost1 * childCost2 * selectivity);
+                    }
+                }
             } else {
                 nonEquiJoinCriteria = joinCriteria;
             }
@@ -1067,7 +1074,11 @@ public class NewCalculateCostUtil {
                     float ndv1 = getPredicateNDV(compCrit.getRightExpression(), currentNode, childCost, metadata);
                     ndv = (float) Math.sqrt(ndv * ndv1);
                 }
-                if (ndv > Math.sqrt(childCost)) {
+                float selectivity = getEqualitySelectivity(compCrit.getLeftExpression(), compCrit.getRightExpression(), metadata);
+                if (selectivity != UNKNOWN_VALUE) {
+                    //the statistics are approximate, so never estimate fewer than one row
+                    cost = Math.max(1, childCost * selectivity);
+                } else if (ndv > Math.sqrt(childCost)) {
                     //for larger ndv we want a smoother estimate
                     cost = (float) Math.sqrt(childCost - ndv);
                 } else {
@@ -1103,7 +1114,19 @@ public class NewCalculateCostUtil {
 
             float ndv = getPredicateNDV(setCriteria.getExpression(), currentNode, childCost, metadata);
 
-            if (ndv > Math.sqrt(childCost)) {
+            float selectivity = 0;
+            for (Object value : setCriteria.getValues()) {
+                float valueSelectivity = getEqualitySelectivity(setCriteria.getExpression(), (Expression)value, metadata);
+                if (valueSelectivity == UNKNOWN_VALUE) {
+                    selectivity = UNKNOWN_VALUE;
+                    break;
+                }
+                selectivity += valueSelectivity;
+            }
+
+            if (selectivity != UNKNOWN_VALUE) {
+                cost = Math.max(1, childCost * Math.min(1, selectivity));
+            } else if (ndv > Math.sqrt(childCost)) {
                 cost = (float) Math.sqrt(Math.max(1, childCost - ndv)) * setCriteria.getNumberOfValues();
             } else {
                 cost = childCost * setCriteria.getNumberOfValues() / ndv;
@@ -1239,6 +1262,17 @@ public class NewCalculateCostUtil {
         ElementSymbol element = (ElementSymbol)compCrit.getLeftExpression();
         Class<?> dataType = compCrit.getRightExpression().getType();
 
+        Constant rangeValue = (Constant)compCrit.getRightExpression();
+        if (rangeValue.getValue() != null && !rangeValue.isMultiValued() && dataType == element.getType()) {
+            ColumnHistogram histogram = ColumnHistogram.getHistogram(element.getMetadataID(), dataType, metadata);
+            if (histogram != null) {
+                float selectivity = histogram.getRangeSelectivity(compCrit.getOperator(), rangeValue.getValue());
+                if (selectivity != UNKNOWN_VALUE) {
+                    return Math.max(1, childCost * getNonNullFraction(element, metadata) * selectivity);
+                }
+            }
+        }
+
         String max = (String)metadata.getMaximumValue(element.getMetadataID());
         String min = (String)metadata.getMinimumValue(element.getMetadataID());
         if(max == null || min == null) {
@@ -1303,6 +1337,69 @@ public class NewCalculateCostUtil {
         return cost;
     }
 
+    /**
+     * @return the fraction of rows matching the value from the most common values and histogram
+     * of the column, excluding the null rows, or {@link #UNKNOWN_VALUE} if there is no histogram
+     */
+    private static float getEqualitySelectivity(Expression expr, Expression valueExpr, QueryMetadataInterface metadata) throws QueryMetadataException, TeiidComponentException {
+        if (!(expr instanceof ElementSymbol) || !(valueExpr instanceof Constant) || ((Constant)valueExpr).isMultiValued()) {
+            return UNKNOWN_VALUE;
+        }
+        Object value = ((Constant)valueExpr).getValue();
+        ElementSymbol element = (ElementSymbol)expr;
+        if (value == null || valueExpr.getType() != element.getType()) {
+            return UNKNOWN_VALUE;
+        }
+        ColumnHistogram histogram = ColumnHistogram.getHistogram(element.getMetadataID(), element.getType(), metadata);
+        if (histogram == null) {
+            return UNKNOWN_VALUE;
+        }
+        float selectivity = histogram.getEqualitySelectivity(value, metadata.getDistinctValues(element.getMetadataID()));
+        if (selectivity == UNKNOWN_VALUE) {
+            return UNKNOWN_VALUE;
+        }
+        return selectivity * getNonNullFraction(element, metadata);
+    }
+
+    /**
+     * @return the fraction of the cross product matched by the common most common values
+     * of the columns, or {@link #UNKNOWN_VALUE} if there is no histogram
+     */
+    private static float getJoinSelectivity(Expression left, Expression right, QueryMetadataInterface metadata) throws QueryMetadataException, TeiidComponentException {
+        if (!(left instanceof ElementSymbol) || !(right instanceof ElementSymbol) || left.getType() != right.getType()) {
+            return UNKNOWN_VALUE;
+        }
+        ColumnHistogram leftHistogram = ColumnHistogram.getHistogram(((ElementSymbol)left).getMetadataID(), left.getType(), metadata);
+        if (leftHistogram == null) {
+            return UNKNOWN_VALUE;
+        }
+        ColumnHistogram rightHistogram = ColumnHistogram.getHistogram(((ElementSymbol)right).getMetadataID(), right.getType(), metadata);
+        if (rightHistogram == null) {
+            return UNKNOWN_VALUE;
+        }
+        float selectivity = leftHistogram.getJoinSelectivity(rightHistogram);
+        if (selectivity == UNKNOWN_VALUE) {
+            return UNKNOWN_VALUE;
+        }
+        return selectivity * getNonNullFraction((ElementSymbol)left, metadata) * getNonNullFraction((ElementSymbol)right, metadata);
+    }
+
+    /**
+     * The histogram selectivities are of the non-null values, nulls never match
+     * @return the fraction of the rows of the column that are not null, or 1 if it is not known
+     */
+    private static float getNonNullFraction(ElementSymbol element, QueryMetadataInterface metadata) throws QueryMetadataException, TeiidComponentException {
+        float nullValues = metadata.getNullValues(element.getMetadataID());
+        if (nullValues == UNKNOWN_VALUE || element.getGroupSymbol() == null) {
+            return 1;
+        }
+        float cardinality = metadata.getCardinality(element.getGroupSymbol().getMetadataID());
+        if (cardinality == UNKNOWN_VALUE || cardinality <= 0) {
+            return 1;
+        }
+        return Math.max(0, 1 - nullValues / cardinality);
+    }
+
     static boolean usesKey(PlanNode planNode, Collection<? extends Expression> allElements, QueryMetadataInterface metadata) throws QueryMetadataException, TeiidComponentException {
         //TODO: key preserved joins should be marked
         return isSingleTable(planNode)
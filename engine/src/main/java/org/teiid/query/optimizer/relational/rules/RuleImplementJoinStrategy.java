@@ -30,6 +30,7 @@ import java.util.Set;
 import org.teiid.api.exception.query.QueryMetadataException;
 import org.teiid.api.exception.query.QueryPlannerException;
 import org.teiid.core.TeiidComponentException;
+import org.teiid.core.types.DataTypeManager;
 import org.teiid.query.analysis.AnalysisRecord;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TempMetadataAdapter;
@@ -210,7 +211,9 @@ public class RuleImplementJoinStrategy implements OptimizerRule {
             }
 
             boolean pushedRight = insertSort(joinNode.getLastChild(), rightExpressions, joinNode, metadata, capabilitiesFinder, pushRight, context);
-            if ((!pushedRight || !pushedLeft) && (joinType == JoinType.JOIN_INNER || (joinType == JoinType.JOIN_LEFT_OUTER && !pushedLeft))) {
+            if (useHashJoin(joinNode, joinType, context)) {
+                joinNode.setProperty(NodeConstants.Info.JOIN_STRATEGY, JoinStrategyType.HASH);
+            } else if ((!pushedRight || !pushedLeft) && (joinType == JoinType.JOIN_INNER || (joinType == JoinType.JOIN_LEFT_OUTER && !pushedLeft))) {
                 joinNode.setProperty(NodeConstants.Info.JOIN_STRATEGY, JoinStrategyType.ENHANCED_SORT);
             }
         }
@@ -218,6 +221,29 @@ public class RuleImplementJoinStrategy implements OptimizerRule {
         return plan;
     }
 
+    /**
+     * A hash join is used in place of a sort based join only when neither side has an
+     * existing ordering that can be used.
+     */
+    static boolean useHashJoin(PlanNode joinNode, JoinType joinType, CommandContext context) {
+        if (context == null || !context.getOptions().isHashJoin()) {
+            return false;
+        }
+        if (joinType != JoinType.JOIN_INNER && joinType != JoinType.JOIN_LEFT_OUTER) {
+            return false;
+        }
+        if (joinNode.getProperty(NodeConstants.Info.DEPENDENT_VALUE_SOURCE) != null
+                || joinNode.hasBooleanProperty(Info.IS_SEMI_DEP)) {
+            return false;
+        }
+        //hashing is not consistent with a collation based comparison
+        if (DataTypeManager.COLLATION_LOCALE != null) {
+            return false;
+        }
+        return joinNode.getProperty(NodeConstants.Info.SORT_LEFT) == SortOption.SORT
+                && joinNode.getProperty(NodeConstants.Info.SORT_RIGHT) == SortOption.SORT;
+    }
+
     /**
      * Insert a sort node under the merge join node.  If necessary, also insert a project
      * node to handle function evaluation.
@@ -84,6 +84,10 @@ import org.teiid.translator.ExecutionFactory.SupportedJoinCriteria;
 public class RulePlanJoins implements OptimizerRule {
 
     public static final int EXHAUSTIVE_SEARCH_GROUPS = 7;
+    /**
+     * The budget for the dynamic programming search in region scorings
+     */
+    public static final int DP_MAX_SCORES = 50000;
 
     /**
      * @see org.teiid.query.optimizer.relational.OptimizerRule#execute(org.teiid.query.optimizer.relational.plantree.PlanNode, org.teiid.query.metadata.QueryMetadataInterface, org.teiid.query.optimizer.capabilities.CapabilitiesFinder, org.teiid.query.optimizer.relational.RuleStack, org.teiid.query.analysis.AnalysisRecord, org.teiid.query.util.CommandContext)
@@ -665,6 +669,15 @@ public class RulePlanJoins implements OptimizerRule {
     Object[] findBestJoinOrder(JoinRegion region, QueryMetadataInterface metadata, CapabilitiesFinder capFinder, CommandContext context) throws QueryMetadataException, TeiidComponentException, QueryPlannerException {
         int regionCount = region.getJoinSourceNodes().size();
 
+        if (regionCount > EXHAUSTIVE_SEARCH_GROUPS && regionCount < Long.SIZE
+                && context != null && context.getOptions().isDpJoinEnumeration()) {
+            Object[] result = findBestJoinOrderDP(region, metadata, capFinder, context);
+            if (result != null) {
+                return result;
+            }
+            //fall back to the partially greedy search
+        }
+
         List<Integer> orderList = new ArrayList<Integer>(regionCount);
         for(int i=0; i<regionCount; i++) {
             orderList.add(new Integer(i));
@@ -744,6 +757,85 @@ public class RulePlanJoins implements OptimizerRule {
         return result;
     }
 
+    /**
+     * Search the left linear join orders with dynamic programming over the subsets of the region,
+     * retaining only the best scoring order for each subset.
+     * <br>
+     * Similar to DPccp a subset is only extended by the sources connected to it by join criteria, unless there are
+     * none, so that cross joins are not enumerated for connected regions.
+     * @return the best order or null if no order could be found within {@link #DP_MAX_SCORES}
+     */
+    Object[] findBestJoinOrderDP(JoinRegion region, QueryMetadataInterface metadata, CapabilitiesFinder capFinder, CommandContext context) throws QueryMetadataException, TeiidComponentException, QueryPlannerException {
+        List<PlanNode> sources = new ArrayList<PlanNode>(region.getJoinSourceNodes().keySet());
+        int regionCount = sources.size();
+        long all = (1l << regionCount) - 1;
+
+        long[] connected = new long[regionCount];
+        for (PlanNode critNode : region.getCriteriaNodes()) {
+            long critSources = 0;
+            for (int i = 0; i < regionCount; i++) {
+                if (!Collections.disjoint(sources.get(i).getGroups(), critNode.getGroups())) {
+                    critSources |= 1l << i;
+                }
+            }
+            for (int i = 0; i < regionCount; i++) {
+                if ((critSources & (1l << i)) != 0) {
+                    connected[i] |= critSources & ~(1l << i);
+                }
+            }
+        }
+
+        //the best order for each subset of the current size
+        Map<Long, Object[]> bestOrders = new HashMap<Long, Object[]>();
+        bestOrders.put(0l, new Object[0]);
+        int scores = 0;
+
+        for (int size = 0; size < regionCount; size++) {
+            Map<Long, Object[]> orders = new HashMap<Long, Object[]>();
+            Map<Long, Double> orderScores = new HashMap<Long, Double>();
+            boolean partial = size + 1 < regionCount;
+            for (Map.Entry<Long, Object[]> entry : bestOrders.entrySet()) {
+                long subset = entry.getKey();
+                long candidates = 0;
+                for (int i = 0; i < regionCount; i++) {
+                    if ((subset & (1l << i)) != 0) {
+                        candidates |= connected[i];
+                    }
+                }
+                candidates &= ~subset;
+                if (candidates == 0) {
+                    candidates = all & ~subset;
+                }
+                for (int i = 0; i < regionCount; i++) {
+                    if ((candidates & (1l << i)) == 0) {
+                        continue;
+                    }
+                    if (++scores > DP_MAX_SCORES) {
+                        return null;
+                    }
+                    Object[] order = Arrays.copyOf(entry.getValue(), size + 1);
+                    order[size] = i;
+                    double score = region.scoreRegion(order, 0, metadata, capFinder, context, partial);
+                    if (score == Double.MAX_VALUE) {
+                        continue;
+                    }
+                    Long next = subset | (1l << i);
+                    Double existing = orderScores.get(next);
+                    if (existing == null || score < existing) {
+                        orders.put(next, order);
+                        orderScores.put(next, score);
+                    }
+                }
+            }
+            if (orders.isEmpty()) {
+                return null;
+            }
+            bestOrders = orders;
+        }
+
+        return bestOrders.get(all);
+    }
+
     /**
      * @see java.lang.Object#toString()
      */
@@ -25,6 +25,7 @@ import java.util.List;
 import org.teiid.api.exception.query.QueryMetadataException;
 import org.teiid.api.exception.query.QueryPlannerException;
 import org.teiid.core.TeiidComponentException;
+import org.teiid.core.types.DataTypeManager;
 import org.teiid.query.analysis.AnalysisRecord;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.optimizer.capabilities.CapabilitiesFinder;
@@ -56,6 +57,11 @@ import org.teiid.query.util.CommandContext;
  */
 public class RulePlanSorts implements OptimizerRule {
 
+    /**
+     * The minimum expected ratio of input rows to groups for hash aggregation to be used
+     */
+    static final int HASH_AGGREGATE_REDUCTION = 4;
+
     @Override
     public PlanNode execute(PlanNode plan, QueryMetadataInterface metadata,
             CapabilitiesFinder capabilitiesFinder, RuleStack rules,
@@ -166,12 +172,16 @@ public class RulePlanSorts implements OptimizerRule {
                     }
                 }
             }
+            if (!node.hasBooleanProperty(NodeConstants.Info.IS_DUP_REMOVAL) && useHashAggregate(node, metadata, context)) {
+                node.setProperty(NodeConstants.Info.HASH_AGGREGATE, true);
+            }
             //TODO: check the join interesting order
             parentBlocking = true;
             break;
         case NodeConstants.Types.JOIN:
             if (node.getProperty(NodeConstants.Info.JOIN_STRATEGY) == JoinStrategyType.NESTED_LOOP
-                    || node.getProperty(NodeConstants.Info.JOIN_STRATEGY) == JoinStrategyType.NESTED_TABLE) {
+                    || node.getProperty(NodeConstants.Info.JOIN_STRATEGY) == JoinStrategyType.NESTED_TABLE
+                    || node.getProperty(NodeConstants.Info.JOIN_STRATEGY) == JoinStrategyType.HASH) {
                 break;
             }
             /*
@@ -213,6 +223,29 @@ public class RulePlanSorts implements OptimizerRule {
         return root;
     }
 
+    /**
+     * Determine if the grouping should be performed with a hash table rather than by sorting.
+     * The output is unordered, so this is not used if a parent sort has been merged into the grouping.
+     * The estimated number of groups must be known and significantly less than the input
+     * cardinality for the hash table to be worthwhile.
+     */
+    static boolean useHashAggregate(PlanNode node, QueryMetadataInterface metadata, CommandContext context) throws QueryMetadataException, TeiidComponentException {
+        if (context == null || !context.getOptions().isHashAggregate()
+                || node.hasBooleanProperty(Info.ROLLUP)
+                || node.getProperty(Info.SORT_ORDER) != null
+                || DataTypeManager.COLLATION_LOCALE != null) {
+            return false;
+        }
+        List<Expression> groupCols = (List<Expression>)node.getProperty(Info.GROUP_COLS);
+        PlanNode child = node.getFirstChild();
+        float childCardinality = NewCalculateCostUtil.computeCostForTree(child, metadata);
+        if (childCardinality == NewCalculateCostUtil.UNKNOWN_VALUE) {
+            return false;
+        }
+        float ndv = NewCalculateCostUtil.getNDVEstimate(child, metadata, childCardinality, groupCols, false);
+        return ndv != NewCalculateCostUtil.UNKNOWN_VALUE && ndv * HASH_AGGREGATE_REDUCTION <= childCardinality;
+    }
+
     static PlanNode checkForProjectOptimization(PlanNode node, PlanNode root,
             QueryMetadataInterface metadata, CapabilitiesFinder capFinder, AnalysisRecord record, CommandContext context) throws QueryMetadataException, TeiidComponentException, QueryPlannerException {
         PlanNode projectNode = node.getFirstChild();
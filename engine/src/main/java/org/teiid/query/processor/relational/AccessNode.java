@@ -42,6 +42,7 @@ import org.teiid.language.SQLConstants.NonReserved;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.eval.Evaluator;
 import org.teiid.query.metadata.QueryMetadataInterface;
+import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.optimizer.relational.RowBasedSecurityHelper;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.ProcessorPlan;
@@ -276,6 +277,17 @@ public class AccessNode extends SubqueryAwareRelationalNode {
         } while (!processCommandsIndividually() && hasNextCommand() && this.tupleSources.size() < Math.max(Math.min(MAX_CONCURRENT, this.getContext().getUserRequestSourceConcurrency()), this.getContext().getUserRequestSourceConcurrency()/2));
     }
 
+    /**
+     * Once opened a plain access node only reads from its source tuple sources.  Dependent, shared,
+     * multi-source and temp table access is excluded as it shares state with the rest of the plan.
+     */
+    @Override
+    boolean isIndependent() {
+        return open && getClass() == AccessNode.class && info == null
+                && !multiSource && command instanceof QueryCommand
+                && !TempMetadataAdapter.TEMP_MODEL.getName().equals(modelName);
+    }
+
     public boolean isShouldEvaluate() {
         return shouldEvaluate;
     }
@@ -341,6 +353,23 @@ public class AccessNode extends SubqueryAwareRelationalNode {
         return projection;
     }
 
+    /**
+     * @return the output column index for the given position in the select of the command, or -1
+     * if the position is not projected
+     */
+    int getOutputIndex(int position) {
+        if (shouldEvaluate || projection == null || projection.length == 0) {
+            //the output matches the select, or the original select when the command is minimized per execution
+            return position;
+        }
+        for (int i = 0; i < projection.length; i++) {
+            if (projection[i] instanceof Integer && (Integer)projection[i] == position) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     static void rewriteAndEvaluate(Command atomicCommand, Evaluator eval, CommandContext context, QueryMetadataInterface metadata)
             throws TeiidProcessingException, TeiidComponentException {
         try {
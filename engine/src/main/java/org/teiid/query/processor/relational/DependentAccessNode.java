@@ -18,7 +18,10 @@
 
 package org.teiid.query.processor.relational;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.core.TeiidComponentException;
@@ -28,6 +31,7 @@ import org.teiid.query.sql.lang.Command;
 import org.teiid.query.sql.lang.Criteria;
 import org.teiid.query.sql.lang.Query;
 import org.teiid.query.sql.lang.QueryCommand;
+import org.teiid.query.sql.symbol.Expression;
 
 
 /**
@@ -53,6 +57,9 @@ public class DependentAccessNode extends AccessNode {
     private Command rewrittenCommand;
     private boolean useBindings;
     private boolean complexQuery;
+    private boolean rangeFilter;
+    private int[] filterIndexes;
+    private RuntimeJoinFilter[] filters;
 
     public DependentAccessNode(int nodeID) {
         super(nodeID);
@@ -75,6 +82,8 @@ public class DependentAccessNode extends AccessNode {
         dependentCrit = null;
         sort = true;
         rewrittenCommand = null;
+        filterIndexes = null;
+        filters = null;
     }
 
     @Override
@@ -107,6 +116,7 @@ public class DependentAccessNode extends AccessNode {
         clonedNode.pushdown = this.pushdown;
         clonedNode.useBindings = this.useBindings;
         clonedNode.complexQuery = this.complexQuery;
+        clonedNode.rangeFilter = this.rangeFilter;
         super.copyTo(clonedNode);
         return clonedNode;
     }
@@ -149,10 +159,14 @@ public class DependentAccessNode extends AccessNode {
                 this.criteriaProcessor.setPushdown(pushdown);
                 this.criteriaProcessor.setUseBindings(useBindings);
                 this.criteriaProcessor.setComplexQuery(complexQuery);
+                this.criteriaProcessor.setRangeFilter(rangeFilter);
             }
 
             if (this.dependentCrit == null) {
                 dependentCrit = criteriaProcessor.prepareCriteria();
+                if (this.filters == null) {
+                    initRuntimeFilters();
+                }
             }
 
             query.setCriteria(dependentCrit);
@@ -178,6 +192,40 @@ public class DependentAccessNode extends AccessNode {
         return result;
     }
 
+    /**
+     * Determine the runtime filters that can be applied to the rows returned by the source
+     */
+    private void initRuntimeFilters() {
+        Map<Expression, RuntimeJoinFilter> runtimeFilters = criteriaProcessor.getRuntimeFilters();
+        List<? extends Expression> elements = getElements();
+        int count = 0;
+        filterIndexes = new int[runtimeFilters.size()];
+        filters = new RuntimeJoinFilter[runtimeFilters.size()];
+        for (Map.Entry<Expression, RuntimeJoinFilter> entry : runtimeFilters.entrySet()) {
+            int index = elements.indexOf(entry.getKey());
+            if (index != -1) {
+                filterIndexes[count] = index;
+                filters[count++] = entry.getValue();
+            }
+        }
+        if (count < filters.length) {
+            filterIndexes = Arrays.copyOf(filterIndexes, count);
+            filters = Arrays.copyOf(filters, count);
+        }
+    }
+
+    @Override
+    protected void addBatchRow(List<?> row) {
+        if (filters != null) {
+            for (int i = 0; i < filters.length; i++) {
+                if (!filters[i].mightContain(row.get(filterIndexes[i]))) {
+                    return;
+                }
+            }
+        }
+        super.addBatchRow(row);
+    }
+
     private void declineSort() {
         RelationalNode parent = this.getParent();
         RelationalNode child = this;
@@ -237,4 +285,8 @@ public class DependentAccessNode extends AccessNode {
         this.complexQuery = complexQuery;
     }
 
+    public void setRangeFilter(boolean rangeFilter) {
+        this.rangeFilter = rangeFilter;
+    }
+
 }
\ No newline at end of file
@@ -27,6 +27,7 @@ import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.optimizer.relational.rules.NewCalculateCostUtil;
 import org.teiid.query.processor.relational.SortUtility.Mode;
@@ -71,6 +72,10 @@ public class DependentCriteriaProcessor {
 
         SetCriteria existingSet;
 
+        Class<?> filterType;
+
+        RuntimeJoinFilter filter;
+
     }
 
     class TupleState {
@@ -122,20 +127,58 @@ public class DependentCriteriaProcessor {
                 } else {
                     dvs = originalVs;
                 }
+                boolean overEstimate = isOverEstimate(originalVs, dvs.getTupleBuffer().getRowCount());
+                if (overEstimate && LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+                    LogManager.logDetail(LogConstants.CTX_DQP, "Not performing dependent join using source", valueSource, "since the", dvs.getTupleBuffer().getRowCount(), "rows greatly exceed the estimate", originalVs.getEstimatedRowCount()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                }
                 for (SetState setState : dependentSetStates) {
                     setState.valueIterator = dvs.getValueIterator(setState.valueExpression);
                     long distinctCount = dvs.getTupleBuffer().getRowCount();
+                    if (overEstimate) {
+                        if (!setState.overMax) {
+                            setState.overMax = true;
+                            createFilter(setState, distinctCount);
+                        }
+                        continue;
+                    }
                     if (setState.maxNdv <= 0 || setState.maxNdv >= distinctCount) {
                         continue;
                     }
                     if (!setState.overMax && distinctCount > setState.maxNdv) {
                         LogManager.logWarning(LogConstants.CTX_DQP, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID30011, valueSource, setState.valueExpression, setState.maxNdv));
                         setState.overMax = true;
+                        createFilter(setState, distinctCount);
                     }
                 }
             }
         }
 
+        private void createFilter(SetState setState, long distinctCount) throws TeiidComponentException {
+            if (setState.filterType != null) {
+                //rather than a full scan, filter with what we can
+                TupleSourceValueIterator iter = dvs.getValueIterator(setState.valueExpression);
+                try {
+                    setState.filter = RuntimeJoinFilter.create(iter, distinctCount, setState.filterType);
+                } finally {
+                    iter.close();
+                }
+            }
+        }
+
+        /**
+         * An adaptive checkpoint for when the independent side was poorly estimated, such as
+         * for a source without cardinality statistics.  If the values would require more than a single
+         * source query, then the dependent join is no longer expected to be beneficial.
+         */
+        private boolean isOverEstimate(DependentValueSource vs, long rowCount) {
+            Number estimate = vs.getEstimatedRowCount();
+            if (estimate == null || estimate.floatValue() == NewCalculateCostUtil.UNKNOWN_VALUE || pushdown || maxSetSize <= 0) {
+                return false;
+            }
+            return rowCount > (long)maxSetSize * Math.max(1, maxPredicates)
+                    && rowCount > ADAPTIVE_ESTIMATE_FACTOR * Math.max(1f, estimate.floatValue());
+        }
+
         public void close() {
             if (this.sortUtility != null) {
                 this.sortUtility.remove();
@@ -155,6 +198,8 @@ public class DependentCriteriaProcessor {
 
     }
 
+    static final int ADAPTIVE_ESTIMATE_FACTOR = 10;
+
     private static final int SORT = 2;
     private static final int SET_PROCESSING = 3;
 
@@ -165,6 +210,7 @@ public class DependentCriteriaProcessor {
     private boolean pushdown;
     private boolean useBindings;
     private boolean complexQuery;
+    private boolean rangeFilter;
 
     //initialization state
     private List<Criteria> queryCriteria;
@@ -249,6 +295,9 @@ public class DependentCriteriaProcessor {
                 }
                 ts.getDepedentSetStates().add(state);
                 state.maxNdv = dsc.getMaxNdv();
+                if (!dsc.hasMultipleAttributes() && dsc.getExpression().getType() == dsc.getValueExpression().getType()) {
+                    state.filterType = dsc.getExpression().getType();
+                }
             }
         }
     }
@@ -296,7 +345,8 @@ public class DependentCriteriaProcessor {
                 List<Criteria> newCriteria = new ArrayList<Criteria>();
                 long params = 0;
                 int sets = 0;
-                for (Criteria criteria : queryCriteria) {
+                for (int i = 0; i < queryCriteria.size(); i++) {
+                    Criteria criteria = queryCriteria.get(i);
                     if (!(criteria instanceof DependentSetCriteria)) {
                         newCriteria.add(criteria);
                         continue;
@@ -310,7 +360,12 @@ public class DependentCriteriaProcessor {
                             || (dsc.getMakeDepOptions() != null
                                     && dsc.getMakeDepOptions().getMax() != null
                                     && dvs.getTupleBuffer().getRowCount() > dsc.getMakeDepOptions().getMax())) {
-                        continue; // don't try to pushdown
+                        // don't try to pushdown
+                        Criteria range = getRangeCriteria(dsc, setStates.get(i));
+                        if (range != QueryRewriter.TRUE_CRITERIA) {
+                            newCriteria.add(range);
+                        }
+                        continue;
                     }
                     int cols = 1;
                     if (dsc.getExpression() instanceof Array) {
@@ -490,7 +545,7 @@ public class DependentCriteriaProcessor {
         if (state.overMax) {
             DependentValueSource originalVs = (DependentValueSource)dependentNode.getContext().getVariableContext().getGlobalValue(((DependentSetCriteria)crit).getContextSymbol());
             originalVs.setUnused(true);
-            return QueryRewriter.TRUE_CRITERIA;
+            return getRangeCriteria(crit, state);
         }
         if (state.replacement.isEmpty()) {
             // No values - return criteria that is always false
@@ -535,6 +590,36 @@ public class DependentCriteriaProcessor {
         return new CompoundCriteria(CompoundCriteria.OR, orCrits);
     }
 
+    /**
+     * @return the range of the runtime filter as criteria or TRUE_CRITERIA if there is no range or it cannot be pushed
+     */
+    private Criteria getRangeCriteria(AbstractSetCriteria crit, SetState state) {
+        if (!rangeFilter || state.filter == null || state.filter.getMin() == null) {
+            return QueryRewriter.TRUE_CRITERIA;
+        }
+        Constant min = newConstant(state.filter.getMin(), crit.getExpression());
+        if (state.filter.getMin().equals(state.filter.getMax())) {
+            return new CompareCriteria(crit.getExpression(), CompareCriteria.EQ, min);
+        }
+        Constant max = newConstant(state.filter.getMax(), crit.getExpression());
+        return new CompoundCriteria(CompoundCriteria.AND, new CompareCriteria(crit.getExpression(), CompareCriteria.GE, min),
+                new CompareCriteria(crit.getExpression(), CompareCriteria.LE, max));
+    }
+
+    /**
+     * @return the runtime filters by dependent expression for the sets that could not be sent as values
+     */
+    public Map<Expression, RuntimeJoinFilter> getRuntimeFilters() {
+        Map<Expression, RuntimeJoinFilter> result = new LinkedHashMap<Expression, RuntimeJoinFilter>();
+        for (Map.Entry<Integer, SetState> entry : setStates.entrySet()) {
+            RuntimeJoinFilter filter = entry.getValue().filter;
+            if (filter != null) {
+                result.put(((AbstractSetCriteria)queryCriteria.get(entry.getKey())).getExpression(), filter);
+            }
+        }
+        return result;
+    }
+
     private Constant newConstant(Object val, Expression ex) {
         Constant c;
         if (ex != null) {
@@ -563,4 +648,8 @@ public class DependentCriteriaProcessor {
         this.complexQuery = complexQuery;
     }
 
+    public void setRangeFilter(boolean rangeFilter) {
+        this.rangeFilter = rangeFilter;
+    }
+
 }
@@ -49,6 +49,7 @@ public class DependentValueSource implements
     private Map<Expression, Set<Object>> cachedSets;
     private boolean unused; //TODO: use this value instead of the context
     private boolean distinct;
+    private Number estimatedRowCount;
 
     public DependentValueSource(TupleBuffer tb) {
         this(tb, tb.getSchema());
@@ -169,6 +170,18 @@ public class DependentValueSource implements
         this.distinct = distinct;
     }
 
+    /**
+     * @return the planning estimate of the independent rows or null if the
+     * estimate should not be checked against the actual rows
+     */
+    public Number getEstimatedRowCount() {
+        return estimatedRowCount;
+    }
+
+    public void setEstimatedRowCount(Number estimatedRowCount) {
+        this.estimatedRowCount = estimatedRowCount;
+    }
+
     public List<? extends Expression> getSchema() {
         return schema;
     }
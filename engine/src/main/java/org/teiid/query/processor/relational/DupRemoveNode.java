@@ -24,12 +24,23 @@ import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.STree;
 import org.teiid.common.buffer.STree.InsertMode;
 import org.teiid.common.buffer.TupleBatch;
+import org.teiid.common.buffer.TupleSource;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
 
+/**
+ * Streaming duplicate removal that emits the first occurrence of each row.
+ * <br>
+ * By default seen rows are tracked in an {@link STree}.  With the hash dup remove option
+ * a {@link TupleHashTable} is used instead - rows that cannot be tracked within the memory
+ * reservation are spilled and emitted, if unique, after the input is exhausted.
+ */
 public class DupRemoveNode extends RelationalNode {
 
     private STree stree = null;
+    private TupleHashTable table;
+    private TupleSource spilledSource;
     private TupleBatch batch;
     private int counter;
 
@@ -40,6 +51,8 @@ public class DupRemoveNode extends RelationalNode {
     public void reset() {
         super.reset();
         stree = null;
+        table = null;
+        spilledSource = null;
         counter = 0;
         batch = null;
     }
@@ -48,12 +61,36 @@ public class DupRemoveNode extends RelationalNode {
     public void open() throws TeiidComponentException, TeiidProcessingException {
         super.open();
 
-        stree = getBufferManager().createSTree(this.getElements(), this.getConnectionID(), this.getElements().size());
+        if (getContext().getOptions().isHashDupRemove() && DataTypeManager.COLLATION_LOCALE == null) {
+            table = new TupleHashTable(this.getElements().size(), this.getElements(), this.getElements(),
+                    getBufferManager(), this.getConnectionID(), this.getBatchSize());
+        } else {
+            stree = getBufferManager().createSTree(this.getElements(), this.getConnectionID(), this.getElements().size());
+        }
     }
 
     public TupleBatch nextBatchDirect()
         throws BlockedException, TeiidComponentException, TeiidProcessingException {
         while (true) {
+            if (spilledSource != null) {
+                //process a pass over spilled rows
+                List<?> tuple = null;
+                while ((tuple = spilledSource.nextTuple()) != null) {
+                    if (addUnique(tuple)) {
+                        this.addBatchRow(tuple);
+                        if (this.isBatchFull()) {
+                            return pullBatch();
+                        }
+                    }
+                }
+                spilledSource = table.nextPass();
+                if (spilledSource == null) {
+                    terminateBatches();
+                    return pullBatch();
+                }
+                continue;
+            }
+
             if (batch == null) {
                 batch = this.getChildren()[0].nextBatch();
             }
@@ -61,8 +98,7 @@ public class DupRemoveNode extends RelationalNode {
             List<List<?>> tuples = batch.getTuples();
             for (;counter < tuples.size(); counter++) {
                 List<?> tuple = tuples.get(counter);
-                List<?> existing = stree.insert(tuple, InsertMode.NEW, -1);
-                if (existing != null) {
+                if (!addUnique(tuple)) {
                     continue;
                 }
                 this.addBatchRow(tuple);
@@ -71,6 +107,12 @@ public class DupRemoveNode extends RelationalNode {
                 }
             }
             if (batch.getTerminationFlag()) {
+                if (table != null) {
+                    spilledSource = table.nextPass();
+                    if (spilledSource != null) {
+                        continue;
+                    }
+                }
                 terminateBatches();
                 return pullBatch();
             }
@@ -79,10 +121,35 @@ public class DupRemoveNode extends RelationalNode {
         }
     }
 
+    /**
+     * @return true if the tuple has not been seen and should be output.  Adding the same tuple
+     * again will return false.
+     */
+    private boolean addUnique(List<?> tuple) throws TeiidComponentException {
+        if (stree != null) {
+            List<?> existing = stree.insert(tuple, InsertMode.NEW, -1);
+            return existing == null;
+        }
+        int hash = table.hash(tuple);
+        int slot = table.find(tuple, hash);
+        if (slot >= 0) {
+            return false;
+        }
+        if (table.reserve()) {
+            table.add(slot, hash, tuple);
+            return true;
+        }
+        table.spill(tuple, hash);
+        return false;
+    }
+
     public void closeDirect() {
         if (stree != null) {
             stree.remove();
         }
+        if (table != null) {
+            table.remove();
+        }
     }
 
     public Object clone(){
@@ -0,0 +1,188 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.TeiidRuntimeException;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * The producer side of an exchange.  Processes a branch of the plan on a request worker thread,
+ * separate from the thread processing the rest of the plan, into a forward only {@link TupleBuffer}.
+ * <br>
+ * At most {@link #MAX_PENDING_BATCHES} unread batches are produced ahead of the consumer.
+ * If the branch blocks the work is ended, and the branch is then polled by the consumer thread
+ * until it produces again, so that a blocked branch does not repeatedly occupy a worker.
+ */
+class ExchangeSource {
+
+    static final int MAX_PENDING_BATCHES = 2;
+
+    private RelationalNode node;
+    private TupleBuffer buffer;
+    private long readRow = 1;
+    private boolean done;
+    private boolean blocked;
+    private Future<Void> future;
+
+    ExchangeSource(RelationalNode node, BufferManager bufferManager, String connectionId) throws TeiidComponentException {
+        this.node = node;
+        this.buffer = bufferManager.createTupleBuffer(node.getElements(), connectionId, TupleSourceType.PROCESSOR);
+        this.buffer.setForwardOnly(true);
+    }
+
+    /**
+     * Start work for the branch if it is not already running and there is room in the buffer.
+     * Should only be called from the consumer thread.
+     */
+    void schedule(final CommandContext context) throws TeiidComponentException, TeiidProcessingException {
+        if (future != null) {
+            if (!future.isDone()) {
+                return;
+            }
+            waitForWork();
+        }
+        if (!hasCapacity()) {
+            return;
+        }
+        if (blocked) {
+            try {
+                addBatch(node.nextBatch());
+            } catch (BlockedException e) {
+                return;
+            }
+            blocked = false;
+            if (!hasCapacity()) {
+                return;
+            }
+        }
+        future = context.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                CommandContext.pushThreadLocalContext(context);
+                try {
+                    while (hasCapacity()) {
+                        TupleBatch batch = null;
+                        try {
+                            batch = node.nextBatch();
+                        } catch (BlockedException e) {
+                            blocked = true;
+                            break;
+                        }
+                        addBatch(batch);
+                    }
+                } finally {
+                    CommandContext.popThreadLocalContext();
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @return true if work for the branch has been submitted and not yet collected.
+     * Should only be called from the consumer thread.
+     */
+    boolean isRunning() {
+        return future != null;
+    }
+
+    private synchronized boolean hasCapacity() {
+        return !done && buffer.getRowCount() - readRow + 1 < (long)MAX_PENDING_BATCHES * buffer.getBatchSize();
+    }
+
+    private synchronized void addBatch(TupleBatch batch) throws TeiidComponentException {
+        List<List<?>> tuples = batch.getTuples();
+        for (int i = 0; i < tuples.size(); i++) {
+            buffer.addTuple(tuples.get(i));
+        }
+        if (batch.getTerminationFlag()) {
+            done = true;
+        }
+    }
+
+    /**
+     * @return the next batch of available rows or null if none are available
+     */
+    synchronized TupleBatch nextBatch() throws TeiidComponentException {
+        if (readRow > buffer.getRowCount()) {
+            return null;
+        }
+        TupleBatch batch = buffer.getBatch(readRow);
+        readRow = batch.getEndRow() + 1;
+        return batch;
+    }
+
+    /**
+     * @return true if the branch has terminated and all rows have been read
+     */
+    synchronized boolean isDone() {
+        return done && readRow > buffer.getRowCount();
+    }
+
+    private void waitForWork() throws TeiidComponentException, TeiidProcessingException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TeiidComponentException) {
+                throw (TeiidComponentException) e.getCause();
+            }
+            if (e.getCause() instanceof TeiidProcessingException) {
+                throw (TeiidProcessingException) e.getCause();
+            }
+            if (e.getCause() instanceof TeiidRuntimeException) {
+                throw (TeiidRuntimeException) e.getCause();
+            }
+            throw new TeiidRuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.interrupted();
+            throw new TeiidRuntimeException(e);
+        } finally {
+            future = null;
+        }
+    }
+
+    /**
+     * Wait for any running work, since the branch cannot be closed concurrently, and remove the buffer
+     */
+    void close() {
+        if (future != null) {
+            try {
+                waitForWork();
+            } catch (TeiidComponentException | TeiidProcessingException | TeiidRuntimeException e) {
+                LogManager.logDetail(LogConstants.CTX_DQP, e, "Exception from exchange work during close"); //$NON-NLS-1$
+            }
+        }
+        buffer.remove();
+    }
+
+}
@@ -134,11 +134,16 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
     private TupleSource groupSortTupleSource;
     private int[] projection;
 
+    // Group hash
+    private boolean hashAggregate;
+    private TupleHashTable groupTable;
+
     private static final int COLLECTION = 1;
     private static final int SORT = 2;
     private static final int GROUP = 3;
     private static final int GROUP_SORT = 4;
     private static final int GROUP_SORT_OUTPUT = 5;
+    private static final int GROUP_HASH = 6;
     private int[] indexes;
     private boolean rollup;
     private HashMap<Integer, Integer> indexMap;
@@ -404,6 +409,10 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
             groupSortPhase();
         }
 
+        if (this.phase == GROUP_HASH) {
+            groupHashPhase();
+        }
+
         if (this.phase == GROUP_SORT_OUTPUT) {
             return groupSortOutputPhase();
         }
@@ -501,6 +510,14 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
                         schema.add(es);
                     }
 
+                    if (this.hashAggregate) {
+                        this.groupTable = new TupleHashTable(orderBy.size(), schema, new ArrayList<Expression>(collectedExpressions.keySet()),
+                                getBufferManager(), getConnectionID(), getBatchSize());
+                        this.groupSortTupleSource = this.getGroupSortTupleSource();
+                        this.phase = GROUP_HASH;
+                        return;
+                    }
+
                     tree = this.getBufferManager().createSTree(schema, this.getConnectionID(), orderBy.size());
                     //non-default order needs to update the comparator
                     tree.getComparator().setNullOrdering(nullOrdering);
@@ -527,32 +544,62 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         List<?> tuple = null;
         while ((tuple = groupSortTupleSource.nextTuple()) != null) {
             List<?> current = tree.find(tuple);
+            List<Object> accumulated = accumulate(tuple, current);
+            tree.insert(accumulated, current != null?InsertMode.UPDATE:InsertMode.NEW, -1);
+        }
+        this.groupSortTupleSource.closeSource();
+        this.groupSortTupleSource = tree.getTupleSource(true);
+        this.phase = GROUP_SORT_OUTPUT;
+    }
 
-            boolean update = false;
-            List<Object> accumulated = new ArrayList<Object>();
-            //not all collected expressions are needed for the key
-            for (int i = 0; i < orderBy.size(); i++) {
-                accumulated.add(tuple.get(i));
-            }
+    /**
+     * Create the group key and accumulator state tuple with the given input tuple applied
+     * @param current the existing state tuple or null if this is a new group
+     */
+    private List<Object> accumulate(List<?> tuple, List<?> current)
+            throws TeiidComponentException, TeiidProcessingException {
+        List<Object> accumulated = new ArrayList<Object>();
+        //not all collected expressions are needed for the key
+        for (int i = 0; i < orderBy.size(); i++) {
+            accumulated.add(tuple.get(i));
+        }
+        int index = orderBy.size();
+        for (int i = 0; i < this.groupSortfunctions.length; i++) {
+            AggregateFunction aggregateFunction = this.groupSortfunctions[i];
             if (current != null) {
-                update = true;
+                aggregateFunction.setState(current, index);
+            } else {
+                aggregateFunction.reset();
             }
-            int index = orderBy.size();
-            for (int i = 0; i < this.groupSortfunctions.length; i++) {
-                AggregateFunction aggregateFunction = this.groupSortfunctions[i];
-                if (update) {
-                    aggregateFunction.setState(current, index);
-                } else {
-                    aggregateFunction.reset();
-                }
-                index+=this.accumulatorStateCount[i];
-                aggregateFunction.addInput(tuple, getContext());
-                aggregateFunction.getState(accumulated);
+            index+=this.accumulatorStateCount[i];
+            aggregateFunction.addInput(tuple, getContext());
+            aggregateFunction.getState(accumulated);
+        }
+        return accumulated;
+    }
+
+    /**
+     * Process the input and store the partial accumulator values in the {@link TupleHashTable}.
+     * Once the table can no longer grow within the reserved memory, input rows for new groups
+     * are spilled and processed by a subsequent pass.
+     * @throws TeiidComponentException
+     * @throws TeiidProcessingException
+     */
+    private void groupHashPhase() throws TeiidComponentException, TeiidProcessingException {
+        List<?> tuple = null;
+        while ((tuple = groupSortTupleSource.nextTuple()) != null) {
+            int hash = groupTable.hash(tuple);
+            int slot = groupTable.find(tuple, hash);
+            if (slot >= 0) {
+                groupTable.set(slot, accumulate(tuple, groupTable.get(slot)));
+            } else if (groupTable.reserve()) {
+                groupTable.add(slot, hash, accumulate(tuple, null));
+            } else {
+                groupTable.spill(tuple, hash);
             }
-            tree.insert(accumulated, update?InsertMode.UPDATE:InsertMode.NEW, -1);
         }
         this.groupSortTupleSource.closeSource();
-        this.groupSortTupleSource = tree.getTupleSource(true);
+        this.groupSortTupleSource = groupTable.getTupleSource();
         this.phase = GROUP_SORT_OUTPUT;
     }
 
@@ -568,22 +615,30 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         List<?> tuple = null;
         int size = orderBy.size();
         List<Object> vals = Arrays.asList(new Object[size + groupSortfunctions.length]);
-        while ((tuple = groupSortTupleSource.nextTuple()) != null) {
-            for (int i = 0; i < size; i++) {
-                vals.set(i, tuple.get(i));
-            }
-            int index = size;
-            for (int i = 0; i < this.groupSortfunctions.length; i++) {
-                AggregateFunction aggregateFunction = this.groupSortfunctions[i];
-                aggregateFunction.setState(tuple, index);
-                index+=this.accumulatorStateCount[i];
-                vals.set(size + i, aggregateFunction.getResult(getContext()));
+        while (true) {
+            while ((tuple = groupSortTupleSource.nextTuple()) != null) {
+                for (int i = 0; i < size; i++) {
+                    vals.set(i, tuple.get(i));
+                }
+                int index = size;
+                for (int i = 0; i < this.groupSortfunctions.length; i++) {
+                    AggregateFunction aggregateFunction = this.groupSortfunctions[i];
+                    aggregateFunction.setState(tuple, index);
+                    index+=this.accumulatorStateCount[i];
+                    vals.set(size + i, aggregateFunction.getResult(getContext()));
+                }
+                List<?> result = RelationalNode.projectTuple(projection, vals);
+                addBatchRow(result);
+                if (isBatchFull()) {
+                    return pullBatch();
+                }
             }
-            List<?> result = RelationalNode.projectTuple(projection, vals);
-            addBatchRow(result);
-            if (isBatchFull()) {
-                return pullBatch();
+            //process any spilled groups
+            if (this.groupTable == null || (this.groupSortTupleSource = this.groupTable.nextPass()) == null) {
+                break;
             }
+            this.phase = GROUP_HASH;
+            groupHashPhase();
         }
         terminateBatches();
         return pullBatch();
@@ -713,6 +768,10 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
             this.tree.remove();
             this.tree = null;
         }
+        if (this.groupTable != null) {
+            this.groupTable.remove();
+            this.groupTable = null;
+        }
     }
 
     protected void getNodeString(StringBuffer str) {
@@ -730,6 +789,7 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         clonedNode.outputMapping = outputMapping;
         clonedNode.orderBy = orderBy;
         clonedNode.rollup = rollup;
+        clonedNode.hashAggregate = hashAggregate;
         return clonedNode;
     }
 
@@ -756,6 +816,9 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         if (rollup) {
             props.addProperty(PROP_ROLLUP, Boolean.TRUE.toString());
         }
+        if (hashAggregate) {
+            props.addProperty(PROP_HASH_AGGREGATE, Boolean.TRUE.toString());
+        }
         return props;
     }
 
@@ -763,4 +826,8 @@ public class GroupingNode extends SubqueryAwareRelationalNode {
         this.rollup = rollup;
     }
 
+    public void setHashAggregate(boolean hashAggregate) {
+        this.hashAggregate = hashAggregate;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,443 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.teiid.api.exception.query.ExpressionEvaluationException;
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
+import org.teiid.query.QueryPlugin;
+import org.teiid.query.function.FunctionMethods;
+import org.teiid.query.processor.relational.SourceState.ImplicitBuffer;
+import org.teiid.query.sql.lang.JoinType;
+
+/**
+ * Hash join for unsorted equi-joins.  Supports inner and left outer joins.
+ *
+ * The smaller side (always the right side for a left outer join) is fully buffered
+ * and loaded into an in-memory hash table, the other side is then streamed against it.
+ *
+ * If the buffer manager cannot reserve enough space for the build side, both sides are
+ * hash partitioned into {@link TupleBuffer}s (grace partitioning) and each pair of
+ * partitions is joined in turn.
+ *
+ * Key equality follows the same rules as {@link MergeJoinStrategy#compareTuples(List, List, int[], int[], boolean, boolean)}
+ * so null join values never match.
+ */
+public class HashJoinStrategy extends JoinStrategy {
+
+    /**
+     * Rough per row cost of the hash table entry, key and bucket list
+     */
+    static final int ENTRY_OVERHEAD = 64;
+
+    /**
+     * Wraps a tuple so that it may be used as a hash key against the given key indexes
+     */
+    static final class HashKey {
+        private final List<?> tuple;
+        private final int[] indexes;
+        private final int hash;
+
+        HashKey(List<?> tuple, int[] indexes, int hash) {
+            this.tuple = tuple;
+            this.indexes = indexes;
+            this.hash = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof HashKey)) {
+                return false;
+            }
+            HashKey other = (HashKey)obj;
+            return hash == other.hash && MergeJoinStrategy.compareTuples(tuple, other.tuple, indexes, other.indexes, false, false) == 0;
+        }
+    }
+
+    private SourceState buildSource;
+    private SourceState probeSource;
+
+    private Map<HashKey, List<List<?>>> table;
+    private long tableReserved;
+
+    //grace partitioning state
+    private TupleBuffer[] buildPartitions;
+    private TupleBuffer[] probePartitions;
+    private boolean probePartitioned;
+    private int partition = -1;
+
+    //probe state
+    private TupleSource probeTs;
+    private List<?> currentTuple;
+    private List<List<?>> matches;
+    private int matchIndex;
+    private boolean matched;
+    private boolean done;
+
+    private boolean singleMatch;
+
+    @Override
+    public HashJoinStrategy clone() {
+        return new HashJoinStrategy().singleMatch(singleMatch);
+    }
+
+    @Override
+    public void close() {
+        if (joinNode == null) {
+            return;
+        }
+        releaseTable();
+        removePartitions(buildPartitions);
+        removePartitions(probePartitions);
+        buildPartitions = null;
+        probePartitions = null;
+        probeTs = null;
+        currentTuple = null;
+        matches = null;
+        super.close();
+    }
+
+    private void removePartitions(TupleBuffer[] partitions) {
+        if (partitions == null) {
+            return;
+        }
+        for (TupleBuffer tb : partitions) {
+            if (tb != null) {
+                tb.remove();
+            }
+        }
+    }
+
+    private void releaseTable() {
+        this.table = null;
+        if (tableReserved > 0) {
+            joinNode.getBufferManager().releaseBuffers((int)tableReserved);
+            this.reserved -= tableReserved;
+            tableReserved = 0;
+        }
+    }
+
+    @Override
+    protected void loadLeft() throws TeiidComponentException,
+            TeiidProcessingException {
+        if (this.joinNode.isDependent()) {
+            this.leftSource.getTupleBuffer();
+        }
+    }
+
+    @Override
+    protected void loadRight() throws TeiidComponentException,
+            TeiidProcessingException {
+        if (this.buildSource == null) {
+            if (this.joinNode.getJoinType() == JoinType.JOIN_LEFT_OUTER) {
+                this.buildSource = this.rightSource;
+            } else {
+                //determine the smaller side in an incremental fashion as to avoid a full buffer of the larger side
+                long size = this.joinNode.getBatchSize();
+                while (true) {
+                    if (this.leftSource.rowCountLE(size)) {
+                        this.buildSource = this.leftSource;
+                        break;
+                    }
+                    if (this.rightSource.rowCountLE(size)) {
+                        this.buildSource = this.rightSource;
+                        break;
+                    }
+                    size = Math.min(Long.MAX_VALUE/2, size*2);
+                }
+            }
+            this.probeSource = this.buildSource == this.leftSource ? this.rightSource : this.leftSource;
+            this.probeSource.setImplicitBuffer(ImplicitBuffer.NONE);
+        }
+        if (this.table != null || this.buildPartitions != null) {
+            return;
+        }
+        TupleBuffer buffer = this.buildSource.getTupleBuffer();
+        BufferManager bm = this.joinNode.getBufferManager();
+        long needed = buffer.getRowCount() * (long)(getRowSizeEstimate(buffer) + ENTRY_OVERHEAD);
+        if (needed <= bm.getMaxProcessingSize()) {
+            reserveTable((int)needed, BufferReserveMode.FORCE);
+            this.table = buildTable(buffer);
+            return;
+        }
+        reserveTable((int)Math.min(needed, Integer.MAX_VALUE), BufferReserveMode.NO_WAIT);
+        if (tableReserved >= needed) {
+            this.table = buildTable(buffer);
+            return;
+        }
+        //not enough space for the build side, use grace partitioning instead
+        releaseTable();
+        long available = Math.max(bm.getMaxProcessingSize(), 1);
+        int maxPartitions = Math.max(2, bm.getMaxProcessingSize()/Math.max(1, bm.getSchemaSize(this.probeSource.getSource().getElements())));
+        int partitionCount = (int)Math.max(2, Math.min(maxPartitions, needed/available + 1));
+        if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+            LogManager.logDetail(LogConstants.CTX_DQP, "hash join using", partitionCount, "partitions", this.joinNode.getID()); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        this.buildPartitions = createPartitions(this.buildSource, partitionCount);
+        this.probePartitions = createPartitions(this.probeSource, partitionCount);
+        TupleSource ts = buffer.createIndexedTupleSource();
+        int[] indexes = this.buildSource.getExpressionIndexes();
+        List<?> tuple = null;
+        while ((tuple = ts.nextTuple()) != null) {
+            if (hasNullKey(tuple, indexes)) {
+                continue;
+            }
+            this.buildPartitions[getPartition(hash(tuple, indexes), partitionCount)].addTuple(tuple);
+        }
+        ts.closeSource();
+        for (TupleBuffer tb : this.buildPartitions) {
+            tb.close();
+        }
+    }
+
+    private void reserveTable(int count, BufferReserveMode mode) {
+        int result = this.joinNode.getBufferManager().reserveBuffers(count, mode);
+        this.tableReserved += result;
+        this.reserved += result;
+    }
+
+    private int getRowSizeEstimate(TupleBuffer buffer) {
+        int estimate = buffer.getRowSizeEstimate();
+        if (estimate > 0) {
+            return estimate;
+        }
+        List elements = buffer.getSchema();
+        BufferManager bm = this.joinNode.getBufferManager();
+        return Math.max(1, bm.getSchemaSize(elements)/bm.getProcessorBatchSize(elements));
+    }
+
+    private TupleBuffer[] createPartitions(SourceState state, int count) throws TeiidComponentException {
+        TupleBuffer[] result = new TupleBuffer[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = state.createSourceTupleBuffer();
+            result[i].setForwardOnly(true);
+        }
+        return result;
+    }
+
+    private Map<HashKey, List<List<?>>> buildTable(TupleBuffer buffer) throws TeiidComponentException, TeiidProcessingException {
+        TupleSource ts = buffer.createIndexedTupleSource();
+        int[] indexes = this.buildSource.getExpressionIndexes();
+        Map<HashKey, List<List<?>>> result = new HashMap<HashKey, List<List<?>>>((int)Math.min(1 << 20, buffer.getRowCount() * 4 / 3 + 1));
+        List<?> tuple = null;
+        while ((tuple = ts.nextTuple()) != null) {
+            if (hasNullKey(tuple, indexes)) {
+                continue;
+            }
+            HashKey key = new HashKey(tuple, indexes, hash(tuple, indexes));
+            List<List<?>> bucket = result.get(key);
+            if (bucket == null) {
+                bucket = new ArrayList<List<?>>(2);
+                result.put(key, bucket);
+            }
+            bucket.add(tuple);
+        }
+        ts.closeSource();
+        return result;
+    }
+
+    /**
+     * Move to the next build table.  Returns false if there is no more work.
+     */
+    private boolean nextPartition() throws TeiidComponentException, TeiidProcessingException {
+        if (this.buildPartitions == null) {
+            if (this.probeTs != null) {
+                return false;
+            }
+            this.probeTs = this.probeSource.getIterator();
+            return true;
+        }
+        if (!this.probePartitioned) {
+            TupleSource ts = this.probeSource.getIterator();
+            int[] indexes = this.probeSource.getExpressionIndexes();
+            List<?> tuple = null;
+            while ((tuple = ts.nextTuple()) != null) {
+                int index = 0;
+                //null keys are kept so that outer values may still be produced
+                if (!hasNullKey(tuple, indexes)) {
+                    index = getPartition(hash(tuple, indexes), this.probePartitions.length);
+                }
+                this.probePartitions[index].addTuple(tuple);
+            }
+            for (TupleBuffer tb : this.probePartitions) {
+                tb.close();
+            }
+            this.probePartitioned = true;
+        }
+        if (this.partition >= 0) {
+            this.buildPartitions[this.partition] = null;
+            this.probePartitions[this.partition].remove();
+            this.probePartitions[this.partition] = null;
+        }
+        releaseTable();
+        if (++this.partition >= this.buildPartitions.length) {
+            return false;
+        }
+        TupleBuffer build = this.buildPartitions[this.partition];
+        reserveTable((int)Math.min(Integer.MAX_VALUE, build.getRowCount() * (long)(getRowSizeEstimate(build) + ENTRY_OVERHEAD)), BufferReserveMode.FORCE);
+        this.table = buildTable(build);
+        build.remove();
+        this.probeTs = this.probePartitions[this.partition].createIndexedTupleSource(true);
+        return true;
+    }
+
+    @Override
+    protected void process() throws TeiidComponentException,
+            TeiidProcessingException {
+        if (this.done) {
+            return;
+        }
+        if (this.probeTs == null && !nextPartition()) {
+            this.done = true;
+            return;
+        }
+        boolean buildLeft = this.buildSource == this.leftSource;
+        int[] probeIndexes = this.probeSource.getExpressionIndexes();
+        while (true) {
+            if (this.currentTuple == null) {
+                this.currentTuple = this.probeTs.nextTuple();
+                if (this.currentTuple == null) {
+                    if (this.buildPartitions != null) {
+                        this.probeTs.closeSource();
+                    }
+                    if (!nextPartition()) {
+                        this.done = true;
+                        releaseTable();
+                        return;
+                    }
+                    continue;
+                }
+                this.matched = false;
+                this.matchIndex = 0;
+                this.matches = null;
+                if (!hasNullKey(this.currentTuple, probeIndexes)) {
+                    this.matches = this.table.get(new HashKey(this.currentTuple, probeIndexes, hash(this.currentTuple, probeIndexes)));
+                }
+            }
+            if (this.matches != null) {
+                while (this.matchIndex < this.matches.size()) {
+                    List<?> buildTuple = this.matches.get(this.matchIndex);
+                    List outputTuple = buildLeft?outputTuple(buildTuple, this.currentTuple):outputTuple(this.currentTuple, buildTuple);
+                    boolean match = this.joinNode.matchesCriteria(outputTuple);
+                    this.matchIndex++;
+                    if (match) {
+                        if (singleMatch && matched) {
+                            throw new ExpressionEvaluationException(QueryPlugin.Event.TEIID31293, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31293));
+                        }
+                        this.matched = true;
+                        this.joinNode.addBatchRow(outputTuple);
+                    }
+                }
+            }
+            List<?> tuple = this.currentTuple;
+            this.currentTuple = null;
+            if (!this.matched && this.joinNode.getJoinType() == JoinType.JOIN_LEFT_OUTER) {
+                this.joinNode.addBatchRow(outputTuple(tuple, this.rightSource.getOuterVals()));
+            }
+        }
+    }
+
+    static boolean hasNullKey(List<?> tuple, int[] indexes) {
+        for (int i : indexes) {
+            if (tuple.get(i) == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compute a hash consistent with the {@link org.teiid.query.sql.symbol.Constant#COMPARATOR}
+     */
+    static int hash(List<?> tuple, int[] indexes) {
+        int result = 1;
+        for (int i : indexes) {
+            result = 31 * result + hashValue(tuple.get(i));
+        }
+        return result;
+    }
+
+    static int hashValue(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            if (DataTypeManager.PAD_SPACE) {
+                return FunctionMethods.rightTrim((String)value, ' ', false).hashCode();
+            }
+        } else if (value instanceof BigDecimal) {
+            BigDecimal bd = (BigDecimal)value;
+            if (bd.signum() == 0) {
+                return 0;
+            }
+            return bd.stripTrailingZeros().hashCode();
+        }
+        return value.hashCode();
+    }
+
+    static int getPartition(int hash, int count) {
+        //rehash so that partitioning is independent of the table bucket selection
+        int h = hash * 0x9E3779B9;
+        return ((h ^ (h >>> 16)) & Integer.MAX_VALUE) % count;
+    }
+
+    public HashJoinStrategy singleMatch(boolean b) {
+        this.singleMatch = b;
+        return this;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("HASH JOIN"); //$NON-NLS-1$
+        if (buildPartitions != null) {
+            sb.append(" RAN WITH ").append(buildPartitions.length).append(" PARTITIONS"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        if (singleMatch) {
+            sb.append(" subquery"); //$NON-NLS-1$
+        }
+        return sb.toString();
+    }
+
+}
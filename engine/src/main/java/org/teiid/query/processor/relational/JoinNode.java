@@ -54,7 +54,8 @@ public class JoinNode extends SubqueryAwareRelationalNode {
         MERGE,
         ENHANCED_SORT,
         NESTED_LOOP,
-        NESTED_TABLE
+        NESTED_TABLE,
+        HASH
     }
 
     private enum State { LOAD_LEFT, LOAD_RIGHT, EXECUTE }
@@ -219,6 +220,7 @@ public class JoinNode extends SubqueryAwareRelationalNode {
                     //the tuplebuffer may be from a lower node, so pass in the schema
                     dvs = new DependentValueSource(buffer, this.joinStrategy.rightSource.getSource().getElements());
                     dvs.setDistinct(this.joinStrategy.rightSource.isExpresssionDistinct());
+                    setEstimatedRowCount(this.joinStrategy.rightSource);
                     this.getContext().getVariableContext().setGlobalValue(this.dependentValueSource, dvs);
                 }
                 if (this.joinType != JoinType.JOIN_FULL_OUTER || this.getJoinCriteria() == null) {
@@ -231,6 +233,7 @@ public class JoinNode extends SubqueryAwareRelationalNode {
                     //the tuplebuffer may be from a lower node, so pass in the schema
                     dvs = new DependentValueSource(buffer, this.joinStrategy.leftSource.getSource().getElements());
                     dvs.setDistinct(this.joinStrategy.leftSource.isExpresssionDistinct());
+                    setEstimatedRowCount(this.joinStrategy.leftSource);
                     this.getContext().getVariableContext().setGlobalValue(this.dependentValueSource, dvs);
                 }
                 state = State.LOAD_RIGHT;
@@ -275,6 +278,16 @@ public class JoinNode extends SubqueryAwareRelationalNode {
         return pullBatch();
     }
 
+    /**
+     * When adaptive, provide the estimate of the independent side so that the dependent side may
+     * check it against the actual rows
+     */
+    private void setEstimatedRowCount(SourceState independent) {
+        if (getContext().getOptions().isAdaptiveDependentJoins()) {
+            dvs.setEstimatedRowCount(independent.getSource().getEstimateNodeCardinality());
+        }
+    }
+
     private void prefetch(SourceState toFetch, SourceState other) throws TeiidComponentException,
             TeiidProcessingException {
         toFetch.prefetch(Math.max(1L, other.getIncrementalRowCount(false)/other.getSource().getBatchSize())*toFetch.getSource().getBatchSize());
@@ -128,6 +128,13 @@ public class ListNestedSortComparator<T extends Comparable<? super T>> implement
         this.nullOrdering = nullOrdering;
     }
 
+    /**
+     * @return true if the given sort column is in ascending order
+     */
+    public boolean isAscending(int index) {
+        return orderTypes != null?orderTypes.get(index):this.ascendingOrder;
+    }
+
     /**
      * Compares its two arguments for order.  Returns a negative integer,
      * zero, or a positive integer as the first argument is less than,
@@ -26,6 +26,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.client.plan.PlanNode;
@@ -35,6 +36,8 @@ import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.eval.ExpressionCompiler;
+import org.teiid.query.eval.ExpressionCompiler.CompiledExpression;
 import org.teiid.query.sql.LanguageObject;
 import org.teiid.query.sql.symbol.AliasSymbol;
 import org.teiid.query.sql.symbol.Expression;
@@ -53,6 +56,10 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
     private List<Expression> expressions;
     private int[] projectionIndexes;
 
+    // The compiled expressions are shared by all clones of the plan
+    private AtomicReference<CompiledExpression[]> compiledExpressions = new AtomicReference<CompiledExpression[]>();
+    private CompiledExpression[] compiled;
+
     // Saved state when blocked on evaluating a row - must be reset
     private TupleBatch currentBatch;
     private int currentRow = 1;
@@ -70,6 +77,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
 
         currentBatch = null;
         currentRow = 1;
+        compiled = null;
     }
 
     /**
@@ -90,6 +98,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
         for (Expression ses : this.selectSymbols) {
             this.expressions.add(SymbolMap.getExpression(ses));
         }
+        this.compiledExpressions = new AtomicReference<CompiledExpression[]>();
     }
 
     @Override
@@ -102,6 +111,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
         List<? extends Expression> childElements = getChildren()[0].getElements();
         // Create element lookup map for evaluating project expressions
         this.elementMap = createLookupMap(childElements);
+        this.compiledExpressions = new AtomicReference<CompiledExpression[]>();
 
         // Check whether project needed at all - this occurs if:
         // 1. outputMap == null (see previous block)
@@ -132,6 +142,23 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
         }
     }
 
+    @Override
+    public void open() throws TeiidComponentException, TeiidProcessingException {
+        super.open();
+        if (needsProject && getContext().getOptions().isCompileExpressions()) {
+            compiled = compiledExpressions.get();
+            if (compiled == null) {
+                compiled = new CompiledExpression[expressions.size()];
+                for (int i = 0; i < compiled.length; i++) {
+                    if (projectionIndexes[i] == -1) {
+                        compiled[i] = ExpressionCompiler.compile(expressions.get(i), elementMap);
+                    }
+                }
+                compiledExpressions.set(compiled);
+            }
+        }
+    }
+
     public TupleBatch nextBatchDirect()
         throws BlockedException, TeiidComponentException, TeiidProcessingException {
 
@@ -186,6 +213,8 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
         int index = this.projectionIndexes[projectionIndex];
         if(index != -1) {
             tuple.add(values.get(index));
+        } else if (compiled != null) {
+            tuple.add(compiled[projectionIndex].evaluate(getEvaluator(this.elementMap), values));
         } else {
             tuple.add(getEvaluator(this.elementMap).evaluate(symbol, values));
         }
@@ -209,6 +238,7 @@ public class ProjectNode extends SubqueryAwareRelationalNode {
         target.elementMap = elementMap;
         target.expressions = expressions;
         target.projectionIndexes = projectionIndexes;
+        target.compiledExpressions = compiledExpressions;
     }
 
     public PlanNode getDescriptionProperties() {
@@ -603,6 +603,15 @@ public abstract class RelationalNode implements Cloneable, BatchProducer {
         return processingState;
     }
 
+    /**
+     * Return true if the opened node may be processed by a thread other than the one processing
+     * the rest of the plan.  The node must not share mutable state, such as the {@link CommandContext}
+     * and its variables, with the rest of the plan.
+     */
+    boolean isIndependent() {
+        return false;
+    }
+
     /**
      * Return true if the node provides a final buffer via getBuffer
      */
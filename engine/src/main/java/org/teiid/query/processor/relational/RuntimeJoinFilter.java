@@ -0,0 +1,156 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.util.ValueIterator;
+
+/**
+ * A filter built from the independent values of a dependent join for when the values
+ * are too many to be sent as sets.
+ * <br>
+ * The Bloom filter is applied in the engine to the dependent side rows and the min/max range
+ * may be pushed to the source.  Both admit false positives, so the join must still be performed.
+ */
+class RuntimeJoinFilter {
+
+    static final int BITS_PER_VALUE = 10;
+    static final int HASH_FUNCTIONS = 7;
+    static final int MAX_BITS = 1 << 26;
+
+    private long[] bits;
+    private int numBits;
+    private Comparable<Object> min;
+    private Comparable<Object> max;
+
+    /**
+     * Create a filter over the non-null values
+     * @param expectedCount the expected number of values
+     * @param type the type of the values, which determines if a range and/or Bloom filter is possible
+     * @return the filter or null if neither a range or Bloom filter is possible
+     */
+    static RuntimeJoinFilter create(ValueIterator values, long expectedCount, Class<?> type) throws TeiidComponentException {
+        boolean range = isRangeType(type);
+        boolean bloom = DataTypeManager.isHashable(type) && type != DataTypeManager.DefaultDataClasses.OBJECT;
+        if (!range && !bloom) {
+            return null;
+        }
+        RuntimeJoinFilter filter = new RuntimeJoinFilter();
+        if (bloom) {
+            filter.numBits = (int)Math.max(64, Math.min(MAX_BITS, expectedCount * BITS_PER_VALUE));
+            filter.bits = new long[(filter.numBits + 63) >>> 6];
+        }
+        while (values.hasNext()) {
+            Object value = values.next();
+            if (value == null) {
+                continue;
+            }
+            if (range) {
+                Comparable<Object> comparable = (Comparable<Object>)value;
+                if (filter.min == null || comparable.compareTo(filter.min) < 0) {
+                    filter.min = comparable;
+                }
+                if (filter.max == null || comparable.compareTo(filter.max) > 0) {
+                    filter.max = comparable;
+                }
+            }
+            if (bloom) {
+                filter.add(value);
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Only types where the source ordering is expected to match the engine ordering
+     * may be used for ranges, which excludes strings and floating point values.
+     */
+    static boolean isRangeType(Class<?> type) {
+        return type == DataTypeManager.DefaultDataClasses.INTEGER
+                || type == DataTypeManager.DefaultDataClasses.LONG
+                || type == DataTypeManager.DefaultDataClasses.SHORT
+                || type == DataTypeManager.DefaultDataClasses.BYTE
+                || type == DataTypeManager.DefaultDataClasses.BIG_INTEGER
+                || type == DataTypeManager.DefaultDataClasses.BIG_DECIMAL
+                || type == DataTypeManager.DefaultDataClasses.DATE
+                || type == DataTypeManager.DefaultDataClasses.TIME
+                || type == DataTypeManager.DefaultDataClasses.TIMESTAMP;
+    }
+
+    private void add(Object value) {
+        long hash = hash(value);
+        int h1 = (int)hash;
+        int h2 = (int)(hash >>> 32);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+            bits[bit >>> 6] |= 1l << bit;
+        }
+    }
+
+    /**
+     * @return false if the value cannot match any of the filter values
+     */
+    boolean mightContain(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (min != null && (min.compareTo(value) > 0 || max.compareTo(value) < 0)) {
+            return false;
+        }
+        if (bits == null) {
+            return true;
+        }
+        long hash = hash(value);
+        int h1 = (int)hash;
+        int h2 = (int)(hash >>> 32);
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+            if ((bits[bit >>> 6] & (1l << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * spread the hashCode with the murmur3 finalizer
+     */
+    private static long hash(Object value) {
+        long h = value.hashCode();
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdl;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53l;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * @return the minimum value or null if there is no range
+     */
+    Object getMin() {
+        return min;
+    }
+
+    Object getMax() {
+        return max;
+    }
+
+}
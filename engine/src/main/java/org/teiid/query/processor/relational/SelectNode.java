@@ -24,14 +24,19 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.teiid.client.plan.PlanNode;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.query.analysis.AnalysisRecord;
+import org.teiid.query.eval.ColumnarEvaluator;
+import org.teiid.query.eval.ExpressionCompiler;
+import org.teiid.query.eval.ExpressionCompiler.CompiledCriteria;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.rewriter.QueryRewriter;
 import org.teiid.query.sql.LanguageObject;
@@ -53,6 +58,14 @@ public class SelectNode extends SubqueryAwareRelationalNode {
 
     private boolean noRows;
 
+    // Set if the criteria can be evaluated a batch at a time
+    private ColumnarEvaluator columnarEvaluator;
+    private boolean[] selection;
+
+    // The compiled criteria is shared by all clones of the plan
+    private AtomicReference<CompiledCriteria> compiledCriteria = new AtomicReference<CompiledCriteria>();
+    private CompiledCriteria compiled;
+
     // State if blocked on evaluating a criteria
     private TupleBatch currentBatch;
     private int currentRow = 1;
@@ -72,10 +85,14 @@ public class SelectNode extends SubqueryAwareRelationalNode {
         currentRow = 1;
         noRows = false;
         preEvalCriteria = null;
+        columnarEvaluator = null;
+        selection = null;
+        compiled = null;
     }
 
     public void setCriteria(Criteria criteria) {
         this.criteria = criteria;
+        this.compiledCriteria = new AtomicReference<CompiledCriteria>();
     }
 
     public Criteria getCriteria() { // made public to support change in ProcedurePlanner
@@ -110,12 +127,23 @@ public class SelectNode extends SubqueryAwareRelationalNode {
 
         if(currentBatch == null) {
             currentBatch = this.getChildren()[0].nextBatch();
+            if (columnarEvaluator != null) {
+                selection = columnarEvaluator.evaluate(new ColumnarBatch(currentBatch.getTuples(), this.getChildren()[0].getElements().size()));
+            }
         }
 
         while (currentRow <= currentBatch.getEndRow() && !isBatchFull()) {
             List<?> tuple = currentBatch.getTuple(currentRow);
 
-            if(getEvaluator(this.elementMap).evaluate(this.preEvalCriteria!=null?preEvalCriteria:criteria, tuple)) {
+            boolean selected;
+            if (selection != null) {
+                selected = selection[(int)(currentRow - currentBatch.getBeginRow())];
+            } else if (compiled != null) {
+                selected = compiled.evaluateCriteria(getEvaluator(this.elementMap), tuple);
+            } else {
+                selected = getEvaluator(this.elementMap).evaluate(this.preEvalCriteria!=null?preEvalCriteria:criteria, tuple);
+            }
+            if(selected) {
                 addBatchRow(projectTuple(this.projectionIndexes, tuple));
             }
             currentRow++;
@@ -126,6 +154,7 @@ public class SelectNode extends SubqueryAwareRelationalNode {
                 terminateBatches();
             }
             currentBatch = null;
+            selection = null;
         }
 
         return pullBatch();
@@ -149,6 +178,7 @@ public class SelectNode extends SubqueryAwareRelationalNode {
         target.projectionIndexes = projectionIndexes;
         target.projectedExpressions = projectedExpressions;
         target.shouldEvaluate = shouldEvaluate;
+        target.compiledCriteria = compiledCriteria;
     }
 
     public PlanNode getDescriptionProperties() {
@@ -176,6 +206,16 @@ public class SelectNode extends SubqueryAwareRelationalNode {
                 return;
             }
         }
+        if (getContext().getOptions().isColumnarProcessing()) {
+            columnarEvaluator = ColumnarEvaluator.create(preEvalCriteria!=null?preEvalCriteria:criteria, elementMap);
+        }
+        if (columnarEvaluator == null && preEvalCriteria == null && getContext().getOptions().isCompileExpressions()) {
+            compiled = compiledCriteria.get();
+            if (compiled == null) {
+                compiled = ExpressionCompiler.compile(criteria, elementMap);
+                compiledCriteria.set(compiled);
+            }
+        }
         super.open();
     }
 
@@ -108,26 +108,6 @@ public class SortUtility {
         DUP_REMOVE_SORT
     }
 
-    /**
-     * state holder for the merge algorithm
-     */
-    private class SortedSublist implements Comparable<SortedSublist> {
-        List<?> tuple;
-        int index;
-        TupleBufferTupleSource its;
-
-        @Override
-        public int compareTo(SortedSublist o) {
-            //reverse the comparison, so that removal of the lowest is a low cost operation
-            return -comparator.compare(this.tuple, o.tuple);
-        }
-
-        @Override
-        public String toString() {
-            return index + " " + tuple; //$NON-NLS-1$
-        }
-    }
-
     //constructor state
     private TupleSource source;
     private Mode mode;
@@ -394,17 +374,22 @@ public class SortUtility {
         }
     }
 
-    private void workAsync(final int rowLimit, CommandContext cc) throws BlockedException {
+    private void workAsync(final int rowLimit, final CommandContext cc) throws BlockedException {
         future = cc.submit(new Callable<Void>() {
             @Override
             public Void call() throws Exception {
-                synchronized (SortUtility.this) {
-                    if (phase == INITIAL_SORT) {
-                        sortWorking(rowLimit);
-                    }
-                    if (phase == MERGE) {
-                        doMerge(rowLimit);
+                CommandContext.pushThreadLocalContext(cc);
+                try {
+                    synchronized (SortUtility.this) {
+                        if (phase == INITIAL_SORT) {
+                            sortWorking(rowLimit);
+                        }
+                        if (phase == MERGE) {
+                            doMerge(rowLimit);
+                        }
                     }
+                } finally {
+                    CommandContext.popThreadLocalContext();
                 }
                 return null;
             }
@@ -570,10 +555,6 @@ public class SortUtility {
 
         try {
             while(this.activeTupleBuffers.size() > 1) {
-                ArrayList<SortedSublist> sublists = new ArrayList<SortedSublist>(activeTupleBuffers.size());
-
-                TupleBuffer merged = createTupleBuffer();
-
                 desiredSpace = activeTupleBuffers.size() * (long)schemaSize;
                 if (desiredSpace < reserved) {
                     bufferManager.releaseBuffers(reserved - (int)desiredSpace);
@@ -584,36 +565,24 @@ public class SortUtility {
                 if (LogManager.isMessageToBeRecorded(org.teiid.logging.LogConstants.CTX_DQP, MessageLevel.TRACE)) {
                     LogManager.logTrace(org.teiid.logging.LogConstants.CTX_DQP, "Merging", maxSortIndex, "sublists out of", activeTupleBuffers.size()); //$NON-NLS-1$ //$NON-NLS-2$
                 }
-                // initialize the sublists with the min value
-                for(int i = 0; i<maxSortIndex; i++) {
-                     TupleBuffer activeID = activeTupleBuffers.get(i);
-                     SortedSublist sortedSublist = new SortedSublist();
-                    sortedSublist.its = activeID.createIndexedTupleSource();
-                    sortedSublist.its.setNoBlocking(true);
-                    sortedSublist.index = i;
-                    incrementWorkingTuple(sublists, sortedSublist);
-                }
-
-                boolean checkLimit = maxSortIndex == activeTupleBuffers.size() && rowLimit > -1;
-
-                // iteratively process the lowest tuple
-                while (sublists.size() > 0) {
-                    SortedSublist sortedSublist = sublists.remove(sublists.size() - 1);
-                    merged.addTuple(sortedSublist.tuple);
-                    incrementWorkingTuple(sublists, sortedSublist);
 
-                    if (checkLimit && merged.getRowCount() == rowLimit) {
-                        //early exit for row limit
-                        break;
+                if (maxSortIndex < activeTupleBuffers.size() && this.bufferManager.getOptions().isParallelSort()) {
+                    CommandContext cc = CommandContext.getThreadLocalContext();
+                    if (cc != null) {
+                        mergeParallel(maxSortIndex, cc);
+                        continue;
                     }
                 }
 
+                boolean checkLimit = maxSortIndex >= activeTupleBuffers.size() && rowLimit > -1;
+                List<TupleBuffer> toMerge = activeTupleBuffers.subList(0, Math.min(maxSortIndex, activeTupleBuffers.size()));
+                TupleBuffer merged = merge(toMerge, checkLimit?rowLimit:-1);
+
                 // Remove merged sublists
-                for(int i=0; i<maxSortIndex; i++) {
-                    TupleBuffer id = activeTupleBuffers.remove(0);
+                for (TupleBuffer id : toMerge) {
                     id.remove();
                 }
-                merged.saveBatch();
+                toMerge.clear();
                 this.activeTupleBuffers.add(merged);
             }
         } finally {
@@ -621,23 +590,200 @@ public class SortUtility {
         }
     }
 
-    private void incrementWorkingTuple(ArrayList<SortedSublist> subLists, SortedSublist sortedSublist) throws TeiidComponentException, TeiidProcessingException {
-        while (true) {
-            sortedSublist.tuple = null;
-            sortedSublist.tuple = sortedSublist.its.nextTuple();
-            if (sortedSublist.tuple == null) {
-                return; // done with this sublist
+    /**
+     * Merge independent groups of sublists concurrently, which is only possible when the
+     * current pass requires more than one group.  Each group beyond the first requires its own
+     * reservation, so the number of concurrent groups is limited by what can be reserved without waiting
+     * and by the user request source concurrency.
+     * <br>
+     * The groups are submitted as request work so that the engine thread limits apply.  Since the
+     * calling thread waits, a group whose work has not started is cancelled and merged by the calling thread.
+     */
+    private void mergeParallel(int maxSortIndex, CommandContext cc) throws TeiidComponentException, TeiidProcessingException {
+        int groups = Math.min(activeTupleBuffers.size() / maxSortIndex, Math.max(1, cc.getUserRequestSourceConcurrency()));
+        int groupSize = maxSortIndex * schemaSize;
+        int additional = 0;
+        for (int i = 1; i < groups; i++) {
+            int result = bufferManager.reserveBuffers(groupSize, BufferReserveMode.NO_WAIT);
+            additional += result;
+            if (result < groupSize) {
+                groups = i;
+                break;
             }
-            int index = Collections.binarySearch(subLists, sortedSublist);
-            if (index < 0) {
-                subLists.add(-index - 1, sortedSublist);
-                return;
+        }
+        List<Future<TupleBuffer>> futures = new ArrayList<Future<TupleBuffer>>(groups);
+        List<TupleBuffer> merged = new ArrayList<TupleBuffer>(groups);
+        try {
+            for (int i = 0; i < groups; i++) {
+                final List<TupleBuffer> group = activeTupleBuffers.subList(i * maxSortIndex, (i + 1) * maxSortIndex);
+                if (i == groups - 1) {
+                    //the calling thread does the last group
+                    merged.add(merge(group, -1));
+                    break;
+                }
+                futures.add(cc.submit(new Callable<TupleBuffer>() {
+                    @Override
+                    public TupleBuffer call() throws Exception {
+                        return merge(group, -1);
+                    }
+                }));
             }
-            if (mode == Mode.SORT) {
-                subLists.add(index, sortedSublist);
-                return;
+            for (int i = 0; i < futures.size(); i++) {
+                Future<TupleBuffer> future = futures.get(i);
+                if (future.cancel(false)) {
+                    merged.add(i, merge(activeTupleBuffers.subList(i * maxSortIndex, (i + 1) * maxSortIndex), -1));
+                } else {
+                    merged.add(i, getMergeResult(future));
+                }
+            }
+        } catch (TeiidComponentException | TeiidProcessingException | RuntimeException e) {
+            for (Future<TupleBuffer> future : futures) {
+                if (future.isCancelled()) {
+                    continue;
+                }
+                try {
+                    TupleBuffer tb = future.get();
+                    if (!merged.contains(tb)) {
+                        tb.remove();
+                    }
+                } catch (InterruptedException | ExecutionException e1) {
+                    //already failed
+                }
+            }
+            for (TupleBuffer tb : merged) {
+                tb.remove();
+            }
+            throw e;
+        } finally {
+            bufferManager.releaseBuffers(additional);
+        }
+        // Remove merged sublists, preserving the relative order of the results
+        List<TupleBuffer> toRemove = activeTupleBuffers.subList(0, groups * maxSortIndex);
+        for (TupleBuffer id : toRemove) {
+            id.remove();
+        }
+        toRemove.clear();
+        this.activeTupleBuffers.addAll(merged);
+    }
+
+    private TupleBuffer getMergeResult(Future<TupleBuffer> future) throws TeiidComponentException, TeiidProcessingException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TeiidComponentException) {
+                throw (TeiidComponentException) e.getCause();
+            }
+            if (e.getCause() instanceof TeiidProcessingException) {
+                throw (TeiidProcessingException) e.getCause();
+            }
+            if (e.getCause() instanceof TeiidRuntimeException) {
+                throw (TeiidRuntimeException) e.getCause();
+            }
+            throw new TeiidRuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.interrupted();
+            throw new TeiidRuntimeException(e);
+        }
+    }
+
+    /**
+     * Merge the sublists into a new buffer using a loser tree, which requires log(k) comparisons per row.
+     * Ties are broken by sublist index so that the merge is stable.
+     */
+    private TupleBuffer merge(List<TupleBuffer> sublists, int rowLimit) throws TeiidComponentException, TeiidProcessingException {
+        TupleBuffer merged = createTupleBuffer();
+        boolean success = false;
+        try {
+            int k = sublists.size();
+            TupleBufferTupleSource[] sources = new TupleBufferTupleSource[k];
+            List<?>[] heads = new List<?>[k];
+            for (int i = 0; i < k; i++) {
+                sources[i] = sublists.get(i).createIndexedTupleSource();
+                sources[i].setNoBlocking(true);
+                heads[i] = sources[i].nextTuple();
+            }
+            int[] tree = buildLoserTree(heads);
+            List<?> last = null;
+            while (true) {
+                int winner = tree[0];
+                List<?> tuple = heads[winner];
+                if (tuple == null) {
+                    break;
+                }
+                if (last == null || comparator.compare(last, tuple) != 0 || mode == Mode.SORT) {
+                    merged.addTuple(tuple);
+                    last = tuple;
+                    if (rowLimit > -1 && merged.getRowCount() == rowLimit) {
+                        //early exit for row limit
+                        break;
+                    }
+                }
+                heads[winner] = sources[winner].nextTuple();
+                replay(tree, heads, winner);
             }
+            merged.saveBatch();
+            success = true;
+            return merged;
+        } finally {
+            if (!success) {
+                merged.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the loser tree where position 0 holds the winner and
+     * positions 1 to k - 1 hold the loser of the match at that node
+     */
+    private int[] buildLoserTree(List<?>[] heads) {
+        int k = heads.length;
+        int[] tree = new int[k];
+        int[] winners = new int[k << 1];
+        for (int i = 0; i < k; i++) {
+            winners[k + i] = i;
+        }
+        for (int t = k - 1; t > 0; t--) {
+            int left = winners[t << 1];
+            int right = winners[(t << 1) + 1];
+            if (precedes(heads, left, right)) {
+                winners[t] = left;
+                tree[t] = right;
+            } else {
+                winners[t] = right;
+                tree[t] = left;
+            }
+        }
+        tree[0] = winners[1];
+        return tree;
+    }
+
+    /**
+     * Replay the matches on the path from the leaf of the given sublist to the root
+     */
+    private void replay(int[] tree, List<?>[] heads, int index) {
+        int k = heads.length;
+        for (int t = (index + k) >> 1; t > 0; t >>= 1) {
+            if (precedes(heads, tree[t], index)) {
+                int loser = index;
+                index = tree[t];
+                tree[t] = loser;
+            }
+        }
+        tree[0] = index;
+    }
+
+    /**
+     * Exhausted sublists sort last
+     */
+    private boolean precedes(List<?>[] heads, int i, int j) {
+        if (heads[i] == null) {
+            return false;
+        }
+        if (heads[j] == null) {
+            return true;
         }
+        int c = comparator.compare(heads[i], heads[j]);
+        return c < 0 || (c == 0 && i < j);
     }
 
     public boolean isDistinct() {
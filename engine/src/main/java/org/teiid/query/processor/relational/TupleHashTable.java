@@ -0,0 +1,306 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.BufferReserveMode;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.logging.LogConstants;
+import org.teiid.logging.LogManager;
+import org.teiid.logging.MessageLevel;
+import org.teiid.query.sql.symbol.Expression;
+
+/**
+ * An open addressing (linear probe) hash table of tuples keyed by a prefix of their values.
+ * <br>
+ * The table grows only within a buffer reservation.  The first reservation is forced so that
+ * each pass makes progress, after that the caller is expected to {@link #spill(List, int)} tuples
+ * for new keys.  Spilled tuples are hash partitioned into {@link TupleBuffer}s which are
+ * returned one at a time by {@link #nextPass()} to be processed against the cleared table.
+ * Since a key is either fully processed in the table or fully spilled during a pass, each
+ * key is seen by exactly one pass.
+ */
+class TupleHashTable {
+
+    private static final float LOAD_FACTOR = .75f;
+
+    /**
+     * Rough per entry cost of the table slot and the entry list
+     */
+    private static final int ENTRY_OVERHEAD = 48;
+
+    /**
+     * The number of partitions used each time the table overflows
+     */
+    static final int PARTITIONS = 8;
+
+    private int[] keyIndexes;
+    private int[] hashes;
+    private List<?>[] entries;
+    private int size;
+
+    private BufferManager bufferManager;
+    private String connectionId;
+    private List<? extends Expression> spillSchema;
+    private int reserveSize;
+    private int entrySize;
+    private int capacity;
+    private int reserved;
+    private boolean full;
+
+    private int level;
+    private TupleBuffer[] partitions;
+    private TupleBuffer partitionSource;
+    private LinkedList<TupleBuffer> pending = new LinkedList<TupleBuffer>();
+
+    /**
+     * @param keyCount the number of leading values that form the key
+     * @param entrySchema the schema of the entries held in the table, used for the size estimate
+     * @param spillSchema the schema of the spilled tuples
+     * @param batchSize the initial sizing and reservation increment in entries
+     */
+    TupleHashTable(int keyCount, List<? extends Expression> entrySchema, List<? extends Expression> spillSchema,
+            BufferManager bufferManager, String connectionId, int batchSize) {
+        this.keyIndexes = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            this.keyIndexes[i] = i;
+        }
+        int initialCapacity = Integer.highestOneBit(Math.max(16, batchSize) - 1) << 1;
+        this.hashes = new int[initialCapacity];
+        this.entries = new List<?>[initialCapacity];
+        this.bufferManager = bufferManager;
+        this.connectionId = connectionId;
+        this.spillSchema = spillSchema;
+        this.entrySize = bufferManager.getSchemaSize(entrySchema)/Math.max(1, bufferManager.getProcessorBatchSize(entrySchema)) + ENTRY_OVERHEAD;
+        this.reserveSize = entrySize * Math.max(1, batchSize);
+    }
+
+    int hash(List<?> tuple) {
+        return HashJoinStrategy.hash(tuple, keyIndexes);
+    }
+
+    /**
+     * @return the slot of the entry with the same key or the negative (-slot - 1) of the insertion point
+     */
+    int find(List<?> tuple, int hash) {
+        int mask = entries.length - 1;
+        int slot = spread(hash) & mask;
+        while (true) {
+            List<?> entry = entries[slot];
+            if (entry == null) {
+                return -slot - 1;
+            }
+            if (hashes[slot] == hash && MergeJoinStrategy.compareTuples(tuple, entry, keyIndexes, keyIndexes, true, false) == 0) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    List<?> get(int slot) {
+        return entries[slot];
+    }
+
+    void set(int slot, List<?> entry) {
+        entries[slot] = entry;
+    }
+
+    /**
+     * Ensure there is reserved space for another entry.
+     * @return false if the table cannot grow and new keys should be spilled
+     */
+    boolean reserve() {
+        if (size < capacity) {
+            return true;
+        }
+        if (full) {
+            return false;
+        }
+        int toReserve = Math.max(reserveSize, Math.min(reserved, bufferManager.getMaxProcessingSize()));
+        int result = bufferManager.reserveBuffers(toReserve, reserved == 0?BufferReserveMode.FORCE:BufferReserveMode.NO_WAIT);
+        reserved += result;
+        capacity = reserved / entrySize;
+        if (result < toReserve) {
+            full = true;
+        }
+        return size < capacity;
+    }
+
+    /**
+     * Add a new entry at the insertion point returned by {@link #find(List, int)}.
+     * Should only be called after a successful {@link #reserve()}
+     */
+    void add(int insertionPoint, int hash, List<?> entry) {
+        int slot = -insertionPoint - 1;
+        hashes[slot] = hash;
+        entries[slot] = entry;
+        if (++size > entries.length * LOAD_FACTOR) {
+            grow();
+        }
+    }
+
+    private void grow() {
+        int[] oldHashes = hashes;
+        List<?>[] oldEntries = entries;
+        hashes = new int[oldEntries.length << 1];
+        entries = new List<?>[oldEntries.length << 1];
+        int mask = entries.length - 1;
+        for (int i = 0; i < oldEntries.length; i++) {
+            if (oldEntries[i] == null) {
+                continue;
+            }
+            int slot = spread(oldHashes[i]) & mask;
+            while (entries[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = oldHashes[i];
+            entries[slot] = oldEntries[i];
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Write the tuple for a key not in the table to a partition for a later pass
+     */
+    void spill(List<?> tuple, int hash) throws TeiidComponentException {
+        if (this.partitions == null) {
+            if (LogManager.isMessageToBeRecorded(LogConstants.CTX_DQP, MessageLevel.DETAIL)) {
+                LogManager.logDetail(LogConstants.CTX_DQP, "hash table spilling after", size, "entries at pass", level); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            this.partitions = new TupleBuffer[PARTITIONS];
+            for (int i = 0; i < PARTITIONS; i++) {
+                this.partitions[i] = bufferManager.createTupleBuffer(spillSchema, connectionId, TupleSourceType.PROCESSOR);
+                this.partitions[i].setForwardOnly(true);
+            }
+        }
+        this.partitions[getPartition(hash, level, PARTITIONS)].addTuple(tuple);
+    }
+
+    /**
+     * Select a partition using a hash function seeded by the pass, so that the
+     * tuples of a spilled partition are redistributed if it spills again
+     */
+    static int getPartition(int hash, int level, int count) {
+        int h = hash ^ (level * 0x85ebca6b);
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return (int)(((h & 0xffffffffL) * count) >>> 32);
+    }
+
+    /**
+     * A {@link TupleSource} over the current entries in slot order
+     */
+    TupleSource getTupleSource() {
+        return new TupleSource() {
+            int slot;
+
+            @Override
+            public List<?> nextTuple() {
+                while (slot < entries.length) {
+                    List<?> entry = entries[slot++];
+                    if (entry != null) {
+                        return entry;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public void closeSource() {
+
+            }
+        };
+    }
+
+    /**
+     * Complete the current pass, clear the table, and start the next pass over a spilled partition
+     * @return the source of the next partition or null if there are no more passes
+     * @throws TeiidComponentException
+     */
+    TupleSource nextPass() throws TeiidComponentException {
+        if (this.partitionSource != null) {
+            this.partitionSource.remove();
+            this.partitionSource = null;
+        }
+        if (this.partitions != null) {
+            for (TupleBuffer partition : this.partitions) {
+                if (partition.getRowCount() == 0) {
+                    partition.remove();
+                    continue;
+                }
+                partition.close();
+                this.pending.add(partition);
+            }
+            this.partitions = null;
+        }
+        if (this.pending.isEmpty()) {
+            return null;
+        }
+        Arrays.fill(entries, null);
+        this.size = 0;
+        this.full = false;
+        this.level++;
+        this.partitionSource = this.pending.removeFirst();
+        return this.partitionSource.createIndexedTupleSource();
+    }
+
+    /**
+     * Release the reservation and remove all partitions
+     */
+    void remove() {
+        this.entries = null;
+        this.hashes = null;
+        if (this.reserved > 0) {
+            this.bufferManager.releaseBuffers(this.reserved);
+            this.reserved = 0;
+        }
+        if (this.partitions != null) {
+            for (TupleBuffer partition : this.partitions) {
+                partition.remove();
+            }
+            this.partitions = null;
+        }
+        if (this.partitionSource != null) {
+            this.partitionSource.remove();
+            this.partitionSource = null;
+        }
+        for (TupleBuffer partition : this.pending) {
+            partition.remove();
+        }
+        this.pending.clear();
+    }
+
+}
@@ -27,6 +27,9 @@ import org.teiid.common.buffer.TupleBatch;
 import org.teiid.common.buffer.impl.BufferManagerImpl;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.dqp.internal.process.DQPWorkContext;
+import org.teiid.dqp.service.TransactionContext;
+import org.teiid.dqp.service.TransactionContext.Scope;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.util.CommandContext;
 
@@ -41,6 +44,9 @@ public class UnionAllNode extends RelationalNode {
     private int reserved;
     private int schemaSize;
 
+    // Set if the children are processed in parallel
+    private ExchangeSource[] exchanges;
+
     public UnionAllNode(int nodeID) {
         super(nodeID);
     }
@@ -51,6 +57,7 @@ public class UnionAllNode extends RelationalNode {
         sourceDone = null;
         sourceOpen = null;
         outputRow = 1;
+        exchanges = null;
     }
 
     @Override
@@ -128,6 +135,52 @@ public class UnionAllNode extends RelationalNode {
 
         // Open the children
         super.open();
+
+        if (getChildCount() > 1 && getContext().getOptions().isParallelUnion() && isParallelAllowed()) {
+            createExchanges();
+        }
+    }
+
+    /**
+     * Source work must stay on the request thread if it is transactional, if the calling
+     * thread is used, or if source queries are not executed concurrently.
+     */
+    private boolean isParallelAllowed() {
+        CommandContext context = getContext();
+        if (context.getUserRequestSourceConcurrency() <= 1) {
+            return false;
+        }
+        TransactionContext tc = context.getTransactionContext();
+        if (tc != null && tc.getTransactionType() != Scope.NONE) {
+            return false;
+        }
+        DQPWorkContext workContext = context.getDQPWorkContext();
+        return workContext == null || !workContext.useCallingThread();
+    }
+
+    /**
+     * Only the independent branches, see {@link RelationalNode#isIndependent()}, are processed in parallel.
+     * The others, such as dependent joins or procedures, are processed by the request thread.
+     */
+    private void createExchanges() throws TeiidComponentException {
+        RelationalNode[] children = getChildren();
+        int independent = 0;
+        for (int i = 0; i < getChildCount(); i++) {
+            if (children[i].isIndependent()) {
+                independent++;
+            }
+        }
+        if (independent < 2) {
+            return;
+        }
+        exchanges = new ExchangeSource[getChildCount()];
+        for (int i = 0; i < exchanges.length; i++) {
+            if (children[i].isIndependent()) {
+                //the branch may produce ahead of the consumer
+                reserved += getBufferManager().reserveBuffers(schemaSize * ExchangeSource.MAX_PENDING_BATCHES, BufferReserveMode.FORCE);
+                exchanges[i] = new ExchangeSource(children[i], getBufferManager(), getConnectionID());
+            }
+        }
     }
 
     public TupleBatch nextBatchDirect()
@@ -135,6 +188,9 @@ public class UnionAllNode extends RelationalNode {
         CommandContext context = getContext();
         boolean old = context.setParallel(true);
         try {
+            if (exchanges != null) {
+                return nextBatchExchange();
+            }
             return nextBatchDirectInternal();
         } finally {
             context.setParallel(old);
@@ -236,8 +292,96 @@ public class UnionAllNode extends RelationalNode {
         return outputBatch;
     }
 
+    /**
+     * Gather the batches produced by the branches running in parallel, the
+     * remaining branches are processed directly.  At most the user request source concurrency
+     * of branches are scheduled at a time.
+     */
+    private TupleBatch nextBatchExchange()
+        throws BlockedException, TeiidComponentException, TeiidProcessingException {
+        TupleBatch batch = null;
+        boolean active = false;
+        //collect the completed work first, so that only the work still in progress is counted
+        int running = 0;
+        for (ExchangeSource source : exchanges) {
+            if (source != null && source.isRunning()) {
+                source.schedule(getContext());
+                if (source.isRunning()) {
+                    running++;
+                }
+            }
+        }
+        for (int i = 0; i < exchanges.length; i++) {
+            if (sourceDone[i]) {
+                continue;
+            }
+            ExchangeSource source = exchanges[i];
+            if (source == null) {
+                if (batch == null) {
+                    try {
+                        batch = getChildren()[i].nextBatch();
+                        if (batch.getTerminationFlag()) {
+                            sourceDone[i] = true;
+                            releaseBranch(schemaSize);
+                            continue;
+                        }
+                    } catch (BlockedException e) {
+                        // no problem - try the next one
+                    }
+                }
+                active = true;
+                continue;
+            }
+            if (batch == null) {
+                batch = source.nextBatch();
+            }
+            if (!source.isRunning() && running < getContext().getUserRequestSourceConcurrency()) {
+                source.schedule(getContext());
+                if (source.isRunning()) {
+                    running++;
+                }
+            }
+            if (source.isDone()) {
+                sourceDone[i] = true;
+                releaseBranch(schemaSize * (1 + ExchangeSource.MAX_PENDING_BATCHES));
+            } else {
+                active = true;
+            }
+        }
+        if (batch == null) {
+            if (active) {
+                throw BlockedException.block(getContext().getRequestId(), "Blocking on parallel union source.", getID()); //$NON-NLS-1$
+            }
+            batch = new TupleBatch(outputRow, Collections.EMPTY_LIST);
+        } else {
+            batch = new TupleBatch(outputRow, batch.getTuples());
+        }
+        batch.setTerminationFlag(!active);
+        outputRow += batch.getRowCount();
+        return batch;
+    }
+
+    /**
+     * Release what was reserved for a finished branch
+     */
+    private void releaseBranch(int size) {
+        size = Math.min(size, reserved);
+        if (size > 0) {
+            getBufferManager().releaseBuffers(size);
+            reserved -= size;
+        }
+    }
+
     @Override
     public void closeDirect() {
+        if (exchanges != null) {
+            for (ExchangeSource source : exchanges) {
+                if (source != null) {
+                    source.close();
+                }
+            }
+            exchanges = null;
+        }
         if (reserved > 0) {
             getBufferManager().releaseBuffers(reserved);
             reserved = 0;
@@ -0,0 +1,275 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.teiid.common.buffer.BufferManager;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.core.TeiidProcessingException;
+import org.teiid.query.function.FunctionMethods;
+import org.teiid.query.function.aggregate.AggregateFunction;
+import org.teiid.query.function.aggregate.Avg;
+import org.teiid.query.function.aggregate.Count;
+import org.teiid.query.function.aggregate.CountBig;
+import org.teiid.query.function.aggregate.Max;
+import org.teiid.query.function.aggregate.Min;
+import org.teiid.query.function.aggregate.Sum;
+import org.teiid.query.sql.symbol.AggregateSymbol;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.util.CommandContext;
+
+/**
+ * A segment tree over a partition of sorted rows for aggregates whose states may be combined,
+ * so that a frame is computed from O(log n) precomputed states rather than from each of its rows.
+ * <br>
+ * The leaves are blocks of {@link #LEAF_SIZE} rows.  Each level of the tree is held in a
+ * {@link TupleBuffer} of aggregate states, where node j of level k covers the blocks
+ * [j*2^k, (j+1)*2^k), so that the tree for a large partition is managed by the {@link BufferManager}.
+ */
+class WindowFrameTree {
+
+    static final int LEAF_SIZE = 16;
+
+    private enum Combine {
+        ADD,
+        MIN,
+        MAX
+    }
+
+    private List<AggregateFunction> aggs;
+    private Combine[] combine;
+    private List<ElementSymbol> schema = new ArrayList<ElementSymbol>();
+    private BufferManager bufferManager;
+    private String connectionId;
+    private CommandContext context;
+
+    private TupleBuffer sorted;
+    private long partitionStart;
+    private List<TupleBuffer> levels = new ArrayList<TupleBuffer>();
+
+    WindowFrameTree(List<AggregateFunction> aggs, BufferManager bufferManager, String connectionId, CommandContext context) {
+        this.aggs = aggs;
+        this.bufferManager = bufferManager;
+        this.connectionId = connectionId;
+        this.context = context;
+        List<Combine> combines = new ArrayList<Combine>();
+        for (AggregateFunction agg : aggs) {
+            for (Class<?> type : agg.getStateTypes()) {
+                ElementSymbol es = new ElementSymbol(String.valueOf(schema.size()));
+                es.setType(type);
+                schema.add(es);
+                if (agg instanceof Min) {
+                    combines.add(Combine.MIN);
+                } else if (agg instanceof Max) {
+                    combines.add(Combine.MAX);
+                } else {
+                    combines.add(Combine.ADD);
+                }
+            }
+        }
+        this.combine = combines.toArray(new Combine[combines.size()]);
+    }
+
+    /**
+     * @return true if the accumulator state for the function can be combined
+     */
+    static boolean isDecomposable(AggregateSymbol function, AggregateFunction agg) {
+        switch (function.getAggregateFunction()) {
+        case COUNT:
+        case COUNT_BIG:
+        case SUM:
+        case AVG:
+        case MIN:
+        case MAX:
+            //exclude distinct and ordered aggregates, which are wrapped by a SortingFilter
+            Class<?> clazz = agg.getClass();
+            return clazz == Count.class || clazz == CountBig.class || clazz == Sum.class
+                    || clazz == Avg.class || clazz == Min.class || clazz == Max.class;
+        default:
+            return false;
+        }
+    }
+
+    boolean isBuilt() {
+        return !levels.isEmpty();
+    }
+
+    /**
+     * Build the tree over the rows [start, end] of the sorted buffer
+     */
+    void build(TupleBuffer sortedRows, long start, long end) throws TeiidComponentException, TeiidProcessingException {
+        remove();
+        this.sorted = sortedRows;
+        this.partitionStart = start;
+        TupleBuffer level = createLevel();
+        for (long blockStart = start; blockStart <= end; blockStart += LEAF_SIZE) {
+            level.addTuple(getRowsState(blockStart, Math.min(end, blockStart + LEAF_SIZE - 1)));
+        }
+        level.close();
+        while (level.getRowCount() > 1) {
+            TupleBuffer parent = createLevel();
+            for (long i = 1; i <= level.getRowCount(); i += 2) {
+                List<Object> state = new ArrayList<Object>(level.getBatch(i).getTuple(i));
+                if (i + 1 <= level.getRowCount()) {
+                    combine(state, level.getBatch(i + 1).getTuple(i + 1));
+                }
+                parent.addTuple(state);
+            }
+            parent.close();
+            level = parent;
+        }
+    }
+
+    private TupleBuffer createLevel() throws TeiidComponentException {
+        TupleBuffer level = bufferManager.createTupleBuffer(schema, connectionId, TupleSourceType.PROCESSOR);
+        levels.add(level);
+        return level;
+    }
+
+    /**
+     * Set the state of the accumulators to that of the frame [start, end],
+     * which must be within the partition
+     */
+    void setFrameState(long start, long end) throws TeiidComponentException, TeiidProcessingException {
+        long first = start - partitionStart;
+        long last = end - partitionStart;
+        long l = first / LEAF_SIZE;
+        long r = (last + 1) / LEAF_SIZE;
+        List<Object> state = null;
+        if (l >= r) {
+            state = getRowsState(start, end);
+        } else {
+            //the rows in the partial blocks at either end
+            long partialEnd = Math.min(end, partitionStart + (l + 1) * LEAF_SIZE - 1);
+            if (first % LEAF_SIZE != 0) {
+                state = getRowsState(start, partialEnd);
+                l++;
+            }
+            if ((last + 1) % LEAF_SIZE != 0) {
+                List<Object> rightState = getRowsState(partitionStart + r * LEAF_SIZE, end);
+                if (state == null) {
+                    state = rightState;
+                } else {
+                    combine(state, rightState);
+                }
+            }
+            //the largest nodes covering the whole blocks [l, r)
+            for (int k = 0; l < r; k++, l >>= 1, r >>= 1) {
+                TupleBuffer level = levels.get(k);
+                if ((l & 1) == 1) {
+                    state = combine(state, level.getBatch(l + 1).getTuple(l + 1));
+                    l++;
+                }
+                if ((r & 1) == 1) {
+                    r--;
+                    state = combine(state, level.getBatch(r + 1).getTuple(r + 1));
+                }
+            }
+        }
+        int index = 0;
+        for (AggregateFunction agg : aggs) {
+            agg.reset();
+            index = setState(agg, state, index);
+        }
+    }
+
+    private int setState(AggregateFunction agg, List<Object> state, int index) {
+        agg.setState(state, index);
+        //setState does not consistently return the next index
+        return index + agg.getStateTypes().size();
+    }
+
+    private List<Object> getRowsState(long start, long end) throws TeiidComponentException, TeiidProcessingException {
+        for (AggregateFunction agg : aggs) {
+            agg.reset();
+        }
+        for (long i = start; i <= end; i++) {
+            List<?> tuple = sorted.getBatch(i).getTuple(i);
+            for (AggregateFunction agg : aggs) {
+                agg.addInput(tuple, context);
+            }
+        }
+        List<Object> state = new ArrayList<Object>(schema.size());
+        for (AggregateFunction agg : aggs) {
+            agg.getState(state);
+        }
+        return state;
+    }
+
+    private List<Object> combine(List<Object> state, List<?> other) throws TeiidProcessingException {
+        if (state == null) {
+            return new ArrayList<Object>(other);
+        }
+        for (int i = 0; i < combine.length; i++) {
+            Object value = state.get(i);
+            Object otherValue = other.get(i);
+            if (otherValue == null) {
+                continue;
+            }
+            if (value == null) {
+                state.set(i, otherValue);
+                continue;
+            }
+            switch (combine[i]) {
+            case MIN:
+                if (Constant.COMPARATOR.compare(otherValue, value) < 0) {
+                    state.set(i, otherValue);
+                }
+                break;
+            case MAX:
+                if (Constant.COMPARATOR.compare(otherValue, value) > 0) {
+                    state.set(i, otherValue);
+                }
+                break;
+            case ADD:
+                state.set(i, add(value, otherValue));
+                break;
+            }
+        }
+        return state;
+    }
+
+    private static Object add(Object value, Object otherValue) throws TeiidProcessingException {
+        if (value instanceof Integer) {
+            return FunctionMethods.plus((Integer)value, (Integer)otherValue);
+        }
+        if (value instanceof Long) {
+            return FunctionMethods.plus((Long)value, (Long)otherValue);
+        }
+        if (value instanceof Double) {
+            return (Double)value + (Double)otherValue;
+        }
+        return ((BigDecimal)value).add((BigDecimal)otherValue);
+    }
+
+    void remove() {
+        for (TupleBuffer level : levels) {
+            level.remove();
+        }
+        levels.clear();
+        sorted = null;
+    }
+
+}
@@ -57,6 +57,7 @@ import org.teiid.query.processor.relational.SortUtility.Mode;
 import org.teiid.query.sql.LanguageObject;
 import org.teiid.query.sql.lang.OrderBy;
 import org.teiid.query.sql.lang.OrderByItem;
+import org.teiid.query.sql.lang.Query;
 import org.teiid.query.sql.symbol.AggregateSymbol;
 import org.teiid.query.sql.symbol.AggregateSymbol.Type;
 import org.teiid.query.sql.symbol.ElementSymbol;
@@ -77,7 +78,8 @@ public class WindowFunctionProjectNode extends SubqueryAwareRelationalNode {
     private enum Phase {
         COLLECT,
         PROCESS,
-        OUTPUT
+        OUTPUT,
+        STREAM
     }
 
     private static class WindowFunctionInfo {
@@ -157,6 +159,16 @@ public class WindowFunctionProjectNode extends SubqueryAwareRelationalNode {
     private STree[] partitionMapping;
     private STree[] valueMapping;
     private IndexedTupleSource outputTs;
+    private WindowFrameTree frameTree;
+
+    //streaming state
+    private List<AggregateFunction> streamingAggs;
+    private List<List<?>> peers;
+    private List<List<?>> outputPeers;
+    private int outputPeerIndex;
+    private Object[] peerValues;
+    private List<?> lastRow;
+    private boolean inputDone;
 
     public WindowFunctionProjectNode(int nodeId) {
         super(nodeId);
@@ -174,6 +186,14 @@ public class WindowFunctionProjectNode extends SubqueryAwareRelationalNode {
         this.partitionMapping = null;
         this.valueMapping = null;
         this.outputTs = null;
+        this.frameTree = null;
+        this.streamingAggs = null;
+        this.peers = null;
+        this.outputPeers = null;
+        this.outputPeerIndex = 0;
+        this.peerValues = null;
+        this.lastRow = null;
+        this.inputDone = false;
     }
 
     @Override
@@ -186,6 +206,10 @@ public class WindowFunctionProjectNode extends SubqueryAwareRelationalNode {
         partitionMapping = null;
         removeMappings(valueMapping);
         valueMapping = null;
+        if (frameTree != null) {
+            frameTree.remove();
+            frameTree = null;
+        }
     }
 
     private void removeMappings(STree[] mappings) {
@@ -315,6 +339,14 @@ public class WindowFunctionProjectNode extends SubqueryAwareRelationalNode {
     protected TupleBatch nextBatchDirect() throws BlockedException,
             TeiidComponentException, TeiidProcessingException {
 
+        if (phase == Phase.COLLECT && inputTs == null && isStreamable()) {
+            phase = Phase.STREAM;
+        }
+
+        if (phase == Phase.STREAM) {
+            return streamResults();
+        }
+
         if (phase == Phase.COLLECT) {
             saveInput();
             phase = Phase.PROCESS;
@@ -435,6 +467,218 @@ public class WindowFunctionProjectNode extends SubqueryAwareRelationalNode {
         return this.pullBatch();
     }
 
+    /**
+     * Streaming is possible when there is a single window specification computed with the rolling
+     * strategy and the input is already sorted by the partitioning and ordering.  Only the current
+     * partition aggregate state and peer rows are then held.
+     */
+    private boolean isStreamable() {
+        if (!getContext().getOptions().isStreamingWindowFunctions() || windows.size() != 1) {
+            return false;
+        }
+        WindowSpecificationInfo info = windows.values().iterator().next();
+        if (info.emptyOrdering || info.sortIndexes.isEmpty()
+                || info.processEachFrame() || info.isUnboundedFollowing()) {
+            return false;
+        }
+        for (WindowFunctionInfo wfi : info.functions) {
+            Type type = wfi.function.getFunction().getAggregateFunction();
+            if (wfi.primaryFunction != null || type == Type.LEAD || type == Type.LAG) {
+                return false;
+            }
+        }
+        return isInputSorted(info);
+    }
+
+    /**
+     * Determine if the input is known to be sorted by a SortNode or a pushed order by
+     * such that the partitions are contiguous and ordered as the window specification requires.
+     * <br>
+     * A pushed order by is only trusted when it cannot differ from the engine comparison, that is
+     * when no string values are sorted, since the source collation may differ, and the null ordering
+     * of each ordering item is explicit.
+     */
+    private boolean isInputSorted(WindowSpecificationInfo info) {
+        RelationalNode child = this.getChildren()[0];
+        while ((child instanceof SelectNode || child instanceof LimitNode) && child.getChildCount() == 1) {
+            child = child.getChildren()[0];
+        }
+        List<? extends Expression> sortedElements = child.getElements();
+        List<OrderByItem> items = null;
+        List<Integer> itemIndexes = new ArrayList<Integer>();
+        boolean pushed = false;
+        if (child instanceof SortNode) {
+            if (((SortNode)child).getMode() == Mode.DUP_REMOVE) {
+                return false;
+            }
+            items = ((SortNode)child).getSortElements();
+            for (OrderByItem item : items) {
+                itemIndexes.add(sortedElements.indexOf(item.getSymbol()));
+            }
+        } else if (child instanceof AccessNode && !(child instanceof DependentAccessNode) && child.getChildCount() == 0
+                && ((AccessNode)child).getCommand() instanceof Query) {
+            AccessNode accessNode = (AccessNode)child;
+            Query query = (Query)accessNode.getCommand();
+            if (query.getOrderBy() == null) {
+                return false;
+            }
+            items = query.getOrderBy().getOrderByItems();
+            for (OrderByItem item : items) {
+                Class<?> type = item.getSymbol().getType();
+                if (type == DataTypeManager.DefaultDataClasses.STRING
+                        || type == DataTypeManager.DefaultDataClasses.CHAR
+                        || type == DataTypeManager.DefaultDataClasses.CLOB
+                        || type == DataTypeManager.DefaultDataClasses.OBJECT) {
+                    return false;
+                }
+                int index = accessNode.getOutputIndex(item.getExpressionPosition());
+                itemIndexes.add(index < sortedElements.size() ? index : -1);
+            }
+            pushed = true;
+        } else {
+            return false;
+        }
+        List<Expression> collectedExpressions = new ArrayList<Expression>(expressionIndexes.keySet());
+        int partitionCount = info.groupIndexes.size();
+        if (items.size() < partitionCount + info.sortIndexes.size()) {
+            return false;
+        }
+        //the partitioning may be in any order and direction
+        List<Integer> partitionIndexes = new ArrayList<Integer>(partitionCount);
+        for (Integer index : info.groupIndexes) {
+            int partitionIndex = sortedElements.indexOf(collectedExpressions.get(index));
+            if (partitionIndex == -1) {
+                return false;
+            }
+            partitionIndexes.add(partitionIndex);
+        }
+        for (int i = 0; i < partitionCount; i++) {
+            if (!partitionIndexes.remove(itemIndexes.get(i))) {
+                return false;
+            }
+        }
+        for (int i = 0; i < info.sortIndexes.size(); i++) {
+            OrderByItem item = items.get(partitionCount + i);
+            int index = sortedElements.indexOf(collectedExpressions.get(info.sortIndexes.get(i)));
+            boolean ascending = info.orderType.get(partitionCount + i);
+            NullOrdering nullOrdering = info.nullOrderings.get(partitionCount + i);
+            if (pushed) {
+                //the source default may differ, so compare with the effective engine null ordering
+                if (nullOrdering == null) {
+                    nullOrdering = ascending ? NullOrdering.FIRST : NullOrdering.LAST;
+                }
+                if (item.getNullOrdering() == null) {
+                    return false;
+                }
+            }
+            if (index == -1 || index != itemIndexes.get(partitionCount + i)
+                    || item.isAscending() != ascending
+                    || item.getNullOrdering() != nullOrdering) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compute the window functions as the input is read, outputting each set of peer rows
+     * once its values are known.
+     */
+    private TupleBatch streamResults() throws TeiidComponentException, TeiidProcessingException {
+        WindowSpecificationInfo info = windows.values().iterator().next();
+        if (inputTs == null) {
+            inputTs = createInputTupleSource();
+            streamingAggs = new ArrayList<AggregateFunction>(info.functions.size());
+            for (WindowFunctionInfo wfi : info.functions) {
+                streamingAggs.add(GroupingNode.initAccumulator(wfi.function.getFunction(), this, expressionIndexes));
+            }
+            peers = new ArrayList<List<?>>();
+            outputPeers = new ArrayList<List<?>>();
+        }
+        int[] partitionIndexes = toArray(info.groupIndexes);
+        int[] orderIndexes = toArray(info.sortIndexes);
+        while (true) {
+            //output the completed peers a batch at a time
+            while (outputPeerIndex < outputPeers.size()) {
+                if (this.isBatchFull()) {
+                    return pullBatch();
+                }
+                outputPeer(info, outputPeers.get(outputPeerIndex++));
+            }
+            outputPeers.clear();
+            outputPeerIndex = 0;
+            if (inputDone) {
+                break;
+            }
+            List<?> tuple = inputTs.nextTuple();
+            if (tuple == null) {
+                inputDone = true;
+                if (!peers.isEmpty()) {
+                    completePeers(true);
+                }
+                continue;
+            }
+            if (lastRow != null) {
+                boolean samePartition = GroupingNode.sameGroup(partitionIndexes, tuple, lastRow) == -1;
+                if (!samePartition || (info.windowFrame != null && info.windowFrame.getMode() == FrameMode.ROWS)
+                        || GroupingNode.sameGroup(orderIndexes, tuple, lastRow) != -1) {
+                    completePeers(samePartition);
+                }
+            }
+            for (AggregateFunction function : streamingAggs) {
+                function.addInput(tuple, getContext());
+            }
+            peers.add(tuple);
+            lastRow = tuple;
+        }
+        inputTs.closeSource();
+        terminateBatches();
+        return pullBatch();
+    }
+
+    private static int[] toArray(List<Integer> indexes) {
+        if (indexes.isEmpty()) {
+            return null;
+        }
+        int[] result = new int[indexes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = indexes.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Compute the values for the current peers, which become the peers to output
+     */
+    private void completePeers(boolean samePartition) throws TeiidComponentException, TeiidProcessingException {
+        peerValues = new Object[streamingAggs.size()];
+        for (int i = 0; i < peerValues.length; i++) {
+            AggregateFunction function = streamingAggs.get(i);
+            peerValues[i] = function.getResult(getContext());
+            if (!samePartition) {
+                function.reset();
+            }
+        }
+        List<List<?>> completed = peers;
+        peers = outputPeers;
+        outputPeers = completed;
+    }
+
+    private void outputPeer(WindowSpecificationInfo info, List<?> tuple) {
+        int size = getElements().size();
+        ArrayList<Object> outputRow = new ArrayList<Object>(size);
+        for (int i = 0; i < size; i++) {
+            outputRow.add(null);
+        }
+        for (int[] entry : passThrough) {
+            outputRow.set(entry[0], tuple.get(entry[1]));
+        }
+        for (int i = 0; i < peerValues.length; i++) {
+            outputRow.set(info.functions.get(i).outputIndex, peerValues[i]);
+        }
+        this.addBatchRow(outputRow);
+    }
+
     /**
      * Build the results by maintaining indexes that map
      * rowid->partitionid and partitionid->values
@@ -554,6 +798,23 @@ public class WindowFunctionProjectNode extends SubqueryAwareRelationalNode {
         Long startPartition = null;
         Long endPartition = null;
 
+        //decomposable functions are computed from a segment tree over the partition, rather than over each row of a large frame
+        List<AggregateFunction> rowAggs = new ArrayList<AggregateFunction>(aggs.size());
+        List<AggregateFunction> treeAggs = new ArrayList<AggregateFunction>(aggs.size());
+        for (int i = 0; i < aggs.size(); i++) {
+            AggregateFunction agg = aggs.get(i);
+            if (WindowFrameTree.isDecomposable(info.functions.get(i).function.getFunction(), agg)) {
+                treeAggs.add(agg);
+            } else {
+                rowAggs.add(agg);
+            }
+        }
+        if (!treeAggs.isEmpty()) {
+            frameTree = new WindowFrameTree(treeAggs, getBufferManager(), getConnectionID(), getContext());
+        } else {
+            rowAggs = aggs;
+        }
+
         while (specificationTs.hasNext()) {
             long currentIndex = specificationTs.getCurrentIndex();
             List<?> tuple = specificationTs.nextTuple();
@@ -565,6 +826,9 @@ public class WindowFunctionProjectNode extends SubqueryAwareRelationalNode {
                     endPartition = null;
                     lastRow = null;
                     groupId++;
+                    if (frameTree != null) {
+                        frameTree.remove();
+                    }
                 } else if (info.windowFrame.getMode() == FrameMode.ROWS
                         || GroupingNode.sameGroup(orderIndexes, tuple, lastRow) != -1) {
                     groupId++;
@@ -637,19 +901,33 @@ public class WindowFunctionProjectNode extends SubqueryAwareRelationalNode {
 
             //compute the aggregates
 
-            for (long i = start; i <= end; i++) {
-                List<?> frameTuple = sorted.getBatch(i).getTuple(i);
-                for (AggregateFunction function : aggs) {
-                    if (function instanceof NthValue) {
-                        ((NthValue) function).addInput(frameTuple, getContext(), start, end, sorted);
-                    } else {
-                        function.addInput(frameTuple, getContext());
+            List<AggregateFunction> frameAggs = aggs;
+            if (frameTree != null && end - start >= 2 * WindowFrameTree.LEAF_SIZE) {
+                if (!frameTree.isBuilt()) {
+                    frameTree.build(sorted, startPartition, endPartition);
+                }
+                frameTree.setFrameState(start, end);
+                frameAggs = rowAggs;
+            }
+
+            if (!frameAggs.isEmpty()) {
+                for (long i = start; i <= end; i++) {
+                    List<?> frameTuple = sorted.getBatch(i).getTuple(i);
+                    for (AggregateFunction function : frameAggs) {
+                        if (function instanceof NthValue) {
+                            ((NthValue) function).addInput(frameTuple, getContext(), start, end, sorted);
+                        } else {
+                            function.addInput(frameTuple, getContext());
+                        }
                     }
                 }
             }
 
             saveValues(specIndex, aggs, groupId, false);
         }
+        if (frameTree != null) {
+            frameTree.remove();
+        }
     }
 
     private void saveValues(int specIndex,
@@ -706,20 +984,7 @@ public class WindowFunctionProjectNode extends SubqueryAwareRelationalNode {
             throws TeiidComponentException, TeiidProcessingException {
         if (inputTs == null) {
             List<Expression> collectedExpressions = new ArrayList<Expression>(expressionIndexes.keySet());
-            Evaluator eval = new Evaluator(elementMap, getDataManager(), getContext());
-            final RelationalNode sourceNode = this.getChildren()[0];
-            inputTs = new ProjectingTupleSource(sourceNode, eval, collectedExpressions, elementMap) {
-                int index = 0;
-                @Override
-                public List<Object> nextTuple() throws TeiidComponentException,
-                        TeiidProcessingException {
-                    List<Object> tuple = super.nextTuple();
-                    if (tuple != null) {
-                        tuple.add(index++);
-                    }
-                    return tuple;
-                }
-            };
+            inputTs = createInputTupleSource();
             List<ElementSymbol> schema = new ArrayList<ElementSymbol>(collectedExpressions.size() + 1);
             int index = 0;
             for (Expression ex : collectedExpressions) {
@@ -743,6 +1008,27 @@ public class WindowFunctionProjectNode extends SubqueryAwareRelationalNode {
         inputTs = null;
     }
 
+    /**
+     * Create a source of the input with the collected expressions evaluated and a row id added
+     */
+    private TupleSource createInputTupleSource() {
+        List<Expression> collectedExpressions = new ArrayList<Expression>(expressionIndexes.keySet());
+        Evaluator eval = new Evaluator(elementMap, getDataManager(), getContext());
+        final RelationalNode sourceNode = this.getChildren()[0];
+        return new ProjectingTupleSource(sourceNode, eval, collectedExpressions, elementMap) {
+            int index = 0;
+            @Override
+            public List<Object> nextTuple() throws TeiidComponentException,
+                    TeiidProcessingException {
+                List<Object> tuple = super.nextTuple();
+                if (tuple != null) {
+                    tuple.add(index++);
+                }
+                return tuple;
+            }
+        };
+    }
+
     @Override
     public void initialize(CommandContext context, BufferManager bufferManager,
             ProcessorDataManager dataMgr) {
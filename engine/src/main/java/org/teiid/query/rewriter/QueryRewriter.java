@@ -32,6 +32,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -64,12 +65,16 @@ import org.teiid.language.WindowFrame.BoundMode;
 import org.teiid.language.WindowFrame.FrameMode;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
+import org.teiid.metadata.Column;
+import org.teiid.metadata.Table;
+import org.teiid.metadata.Trigger;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.eval.Evaluator;
 import org.teiid.query.function.FunctionDescriptor;
 import org.teiid.query.function.FunctionLibrary;
 import org.teiid.query.function.FunctionMethods;
 import org.teiid.query.metadata.MaterializationMetadataRepository;
+import org.teiid.query.metadata.MetadataValidator;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
@@ -204,6 +209,7 @@ public class QueryRewriter {
     private static final Constant FALSE_CONSTANT = new Constant(false);
 
     private static final String WRITE_THROUGH = "write-through"; //$NON-NLS-1$
+    private static final String INCREMENTAL = "incremental"; //$NON-NLS-1$
 
     private static final Constant ZERO_CONSTANT = new Constant(0, DataTypeManager.DefaultDataClasses.INTEGER);
     public static final CompareCriteria TRUE_CRITERIA = new ImmutableCompareCriteria(new Constant(1, DataTypeManager.DefaultDataClasses.INTEGER), CompareCriteria.EQ, new Constant(1, DataTypeManager.DefaultDataClasses.INTEGER));
@@ -3039,6 +3045,10 @@ public class QueryRewriter {
         if (c != null) {
             return c;
         }
+        c = rewriteForIncrementalMaintenance(insert);
+        if (c != null) {
+            return c;
+        }
         UpdateInfo info = insert.getUpdateInfo();
         if (info != null && info.isInherentInsert()) {
             //TODO: update error messages
@@ -3297,6 +3307,159 @@ public class QueryRewriter {
         return rewriteCommand(command, false);
     }
 
+    /**
+     * Rewrite dml against a physical table that determines the key of incrementally maintained
+     * materialized views so that the affected view rows are refreshed after the change.
+     */
+    private Command rewriteForIncrementalMaintenance(ProcedureContainer command)
+            throws TeiidComponentException, QueryMetadataException,
+            QueryResolverException, TeiidProcessingException {
+        if (processing
+                || command.hasTag(INCREMENTAL)
+                || !(command.getGroup().getMetadataID() instanceof Table)) {
+            return null;
+        }
+        Table table = (Table)command.getGroup().getMetadataID();
+        Map<String, List<Column>> views = new LinkedHashMap<String, List<Column>>();
+        for (Trigger trigger : table.getTriggers().values()) {
+            String viewName = trigger.getProperty(MaterializationMetadataRepository.MATVIEW_INCREMENTAL, false);
+            if (viewName != null && !views.containsKey(viewName)) {
+                views.put(viewName, MetadataValidator.getIncrementalKeyColumns((Table)metadata.getGroupID(viewName)));
+            }
+        }
+        if (views.isEmpty()) {
+            return null;
+        }
+
+        //block
+        //insert into #temp the inserted rows or the keys of the rows to be changed
+        //dml - mark as incremental
+        //loop on (select distinct key from #temp) - for each view
+        //  refreshMatViewRow ...
+        //end
+
+        Set<Column> keyColumns = new LinkedHashSet<Column>();
+        for (List<Column> columns : views.values()) {
+            keyColumns.addAll(columns);
+        }
+        //views that must be fully refreshed as the changed keys cannot be determined
+        Set<String> refresh = new HashSet<String>();
+
+        Block block = new Block();
+        block.setAtomic(true);
+
+        GroupSymbol temp = new GroupSymbol("#temp"); //$NON-NLS-1$
+        if (context.getGroups().contains(temp.getName())) {
+            temp = RulePlaceAccess.recontextSymbol(temp, context.getGroups());
+            temp.setDefinition(null);
+        }
+        Insert changes = new Insert();
+        changes.setGroup(temp);
+        if (command instanceof Insert) {
+            Insert insert = (Insert)command;
+            if (insert.getQueryExpression() != null) {
+                changes.setQueryExpression(insert.getQueryExpression());
+            } else {
+                changes.setValues(insert.getValues());
+            }
+            Set<Object> ids = new HashSet<Object>();
+            for (ElementSymbol es : insert.getVariables()) {
+                changes.addVariable(new ElementSymbol(es.getShortName()));
+                ids.add(es.getMetadataID());
+            }
+            for (Map.Entry<String, List<Column>> entry : views.entrySet()) {
+                if (!ids.containsAll(entry.getValue())
+                        || (insert.isUpsert() && (table.getPrimaryKey() == null || !table.getPrimaryKey().getColumns().containsAll(entry.getValue())))) {
+                    //an upsert could change the view key of an existing row
+                    refresh.add(entry.getKey());
+                }
+            }
+        } else {
+            Criteria crit = ((FilteredCommand)command).getCriteria();
+            if (crit == null) {
+                //affects the whole table
+                refresh.addAll(views.keySet());
+            }
+            if (command instanceof Update) {
+                for (SetClause sc : ((Update)command).getChangeList().getClauses()) {
+                    for (Map.Entry<String, List<Column>> entry : views.entrySet()) {
+                        if (entry.getValue().contains(sc.getSymbol().getMetadataID())) {
+                            refresh.add(entry.getKey());
+                        }
+                    }
+                }
+            }
+            Select select = new Select();
+            for (Column c : keyColumns) {
+                select.addSymbol(new ElementSymbol(c.getName()));
+                changes.addVariable(new ElementSymbol(c.getName()));
+            }
+            Query keys = new Query();
+            keys.setSelect(select);
+            keys.setFrom(new From(Arrays.asList(new UnaryFromClause(command.getGroup().clone()))));
+            if (crit != null) {
+                keys.setCriteria((Criteria) crit.clone());
+            }
+            changes.setQueryExpression(keys);
+        }
+        if (refresh.size() < views.size()) {
+            block.addStatement(new CommandStatement(changes));
+            if (command instanceof Insert) {
+                //the inserted rows are read back from #temp
+                Insert insert = (Insert)command;
+                Query q = new Query();
+                q.setSelect(new Select(Arrays.asList(new MultipleElementSymbol())));
+                q.setFrom(new From(Arrays.asList(new UnaryFromClause(temp.clone()))));
+                insert.getValues().clear();
+                insert.setQueryExpression(q);
+            }
+        }
+
+        command.addTag(INCREMENTAL);
+        block.addStatement(new CommandStatement(command));
+        ElementSymbol rowCount = new ElementSymbol(ProcedureReservedWords.ROWCOUNT);
+        ElementSymbol val = new ElementSymbol("val"); //$NON-NLS-1$
+        DeclareStatement ds = new DeclareStatement(val, DataTypeManager.DefaultDataTypes.INTEGER, rowCount);
+        block.addStatement(ds);
+
+        for (Map.Entry<String, List<Column>> entry : views.entrySet()) {
+            StoredProcedure sp = new StoredProcedure();
+            sp.setParameter(new SPParameter(1, new Constant(entry.getKey())));
+            if (refresh.contains(entry.getKey())) {
+                sp.setProcedureName("SYSAdmin.refreshMatView"); //$NON-NLS-1$
+                sp.setParameter(new SPParameter(2, new Constant(false)));
+                block.addStatement(new CommandStatement(sp));
+                continue;
+            }
+            sp.setProcedureName("SYSAdmin.refreshMatViewRow"); //$NON-NLS-1$
+            Select select = new Select();
+            select.setDistinct(true);
+            List<Criteria> notNull = new ArrayList<Criteria>();
+            int index = 2;
+            for (Column c : entry.getValue()) {
+                select.addSymbol(new ElementSymbol(c.getName()));
+                IsNullCriteria isNull = new IsNullCriteria(new ElementSymbol(c.getName()));
+                isNull.setNegated(true);
+                notNull.add(isNull);
+                sp.setParameter(new SPParameter(index++, new ElementSymbol(c.getName(), new GroupSymbol("x")))); //$NON-NLS-1$
+            }
+            Query keys = new Query();
+            keys.setSelect(select);
+            keys.setFrom(new From(Arrays.asList(new UnaryFromClause(temp.clone()))));
+            keys.setCriteria(Criteria.combineCriteria(notNull));
+            Block b = new Block();
+            b.addStatement(new CommandStatement(sp));
+            block.addStatement(new LoopStatement(b, keys, "x")); //$NON-NLS-1$
+        }
+
+        Query result = new Query();
+        result.setSelect(new Select(Arrays.asList(val)));
+        block.addStatement(new CommandStatement(result));
+        CreateProcedureCommand procedure = new CreateProcedureCommand(block);
+        QueryResolver.resolveCommand(procedure, metadata);
+        return rewriteCommand(procedure, false);
+    }
+
     public static Command rewriteAsUpsertProcedure(Insert insert, QueryMetadataInterface metadata, CommandContext context)
             throws TeiidComponentException, QueryMetadataException,
             QueryValidatorException, QueryResolverException,
@@ -3457,6 +3620,10 @@ public class QueryRewriter {
         if (c != null) {
             return c;
         }
+        c = rewriteForIncrementalMaintenance(update);
+        if (c != null) {
+            return c;
+        }
         UpdateInfo info = update.getUpdateInfo();
         if (info != null && info.isInherentUpdate()) {
             if (!info.getUnionBranches().isEmpty()) {
@@ -3654,6 +3821,10 @@ public class QueryRewriter {
         if (c != null) {
             return c;
         }
+        c = rewriteForIncrementalMaintenance(delete);
+        if (c != null) {
+            return c;
+        }
         UpdateInfo info = delete.getUpdateInfo();
         if (info != null && info.isInherentDelete()) {
             if (!info.getUnionBranches().isEmpty()) {
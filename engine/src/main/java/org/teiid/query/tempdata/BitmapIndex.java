@@ -0,0 +1,303 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.tempdata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
+
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.core.TeiidComponentException;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.SetCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.Expression;
+
+/**
+ * Bitmap indexes over the low cardinality columns of a {@link TempTable}.  As the indexes are tied to the
+ * row ordinals, they are dropped by any modification of the table and rebuilt on demand.
+ * <br>
+ * Each row is identified by its ordinal in primary key order.  Criteria on the indexed columns
+ * are evaluated by intersecting or unioning the bitmaps of the matching values, so that only the
+ * primary keys of the resulting ordinals need to be looked up.
+ */
+class BitmapIndex {
+
+    /**
+     * Columns with more distinct values are not indexed
+     */
+    static final int MAX_DISTINCT_VALUES = 1 << 12;
+
+    private static class ColumnIndex {
+        private Class<?> type;
+        private TreeMap<Object, RoaringBitmap> values = new TreeMap<Object, RoaringBitmap>(Constant.COMPARATOR);
+        private RoaringBitmap nulls = new RoaringBitmap();
+    }
+
+    private Map<Integer, ColumnIndex> columns = new HashMap<Integer, ColumnIndex>();
+    private int keyLength;
+    private TupleBuffer keys;
+    private int rowCount;
+    private int readers;
+    private boolean dropped;
+
+    /**
+     * @param keys the buffer to hold the primary keys, or null if the primary key is a row id matching the ordinal
+     */
+    BitmapIndex(int[] indexes, List<? extends Expression> tableColumns, int keyLength, TupleBuffer keys) {
+        for (int index : indexes) {
+            ColumnIndex column = new ColumnIndex();
+            column.type = tableColumns.get(index).getType();
+            this.columns.put(index, column);
+        }
+        this.keyLength = keyLength;
+        this.keys = keys;
+    }
+
+    /**
+     * Add the next row in primary key order
+     */
+    void addTuple(List<?> tuple) throws TeiidComponentException {
+        int ordinal = rowCount++;
+        for (Map.Entry<Integer, ColumnIndex> entry : columns.entrySet()) {
+            ColumnIndex column = entry.getValue();
+            Object value = tuple.get(entry.getKey());
+            if (value == null) {
+                column.nulls.add(ordinal);
+                continue;
+            }
+            RoaringBitmap bitmap = column.values.get(value);
+            if (bitmap == null) {
+                bitmap = new RoaringBitmap();
+                column.values.put(value, bitmap);
+            }
+            bitmap.add(ordinal);
+        }
+        if (keys != null) {
+            keys.addTuple(new ArrayList<Object>(tuple.subList(0, keyLength)));
+        }
+        if ((ordinal & 0xff) == 0) {
+            removeHighCardinalityColumns();
+        }
+    }
+
+    /**
+     * Called once all rows have been added
+     * @return true if any of the columns are indexed
+     */
+    boolean close() throws TeiidComponentException {
+        removeHighCardinalityColumns();
+        if (keys != null) {
+            keys.close();
+        }
+        return !columns.isEmpty();
+    }
+
+    private void removeHighCardinalityColumns() {
+        columns.values().removeIf(column -> column.values.size() > MAX_DISTINCT_VALUES);
+    }
+
+    boolean isIndexed(int index) {
+        return columns.containsKey(index);
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Get the bitmap of rows that may satisfy the criteria
+     * @return the bitmap or null if the criteria cannot be evaluated against the indexes
+     */
+    RoaringBitmap evaluate(Criteria crit, Map<Expression, Integer> columnMap) {
+        if (crit instanceof CompoundCriteria) {
+            CompoundCriteria cc = (CompoundCriteria)crit;
+            boolean and = cc.getOperator() == CompoundCriteria.AND;
+            RoaringBitmap result = null;
+            for (Criteria c : cc.getCriteria()) {
+                RoaringBitmap bitmap = evaluate(c, columnMap);
+                if (bitmap == null) {
+                    if (!and) {
+                        return null;
+                    }
+                    //the other predicates are applied to the rows that are read
+                    continue;
+                }
+                if (result == null) {
+                    result = bitmap;
+                } else {
+                    result = and ? result.and(bitmap) : result.or(bitmap);
+                }
+            }
+            return result;
+        }
+        if (crit instanceof CompareCriteria) {
+            CompareCriteria cc = (CompareCriteria)crit;
+            if (cc.getOperator() != CompareCriteria.EQ || !(cc.getRightExpression() instanceof Constant)) {
+                return null;
+            }
+            ColumnIndex column = getColumnIndex(cc.getLeftExpression(), columnMap);
+            Constant constant = (Constant)cc.getRightExpression();
+            if (column == null) {
+                return null;
+            }
+            if (constant.isMultiValued()) {
+                return getBitmap(column, (List<?>)constant.getValue());
+            }
+            return getBitmap(column, Arrays.asList(constant.getValue()));
+        }
+        if (crit instanceof SetCriteria) {
+            SetCriteria sc = (SetCriteria)crit;
+            ColumnIndex column = getColumnIndex(sc.getExpression(), columnMap);
+            if (column == null || sc.isNegated()) {
+                return null;
+            }
+            List<Object> values = new ArrayList<Object>(sc.getValues().size());
+            for (Object ex : sc.getValues()) {
+                if (!(ex instanceof Constant)) {
+                    return null;
+                }
+                values.add(((Constant)ex).getValue());
+            }
+            return getBitmap(column, values);
+        }
+        if (crit instanceof IsNullCriteria) {
+            IsNullCriteria inc = (IsNullCriteria)crit;
+            ColumnIndex column = getColumnIndex(inc.getExpression(), columnMap);
+            if (column == null || inc.isNegated()) {
+                return null;
+            }
+            return column.nulls;
+        }
+        return null;
+    }
+
+    private ColumnIndex getColumnIndex(Expression ex, Map<Expression, Integer> columnMap) {
+        Integer index = columnMap.get(ex);
+        if (index == null) {
+            return null;
+        }
+        return columns.get(index);
+    }
+
+    /**
+     * Get the union of the bitmaps for the values, which comparison excludes nulls.
+     */
+    private RoaringBitmap getBitmap(ColumnIndex column, List<?> values) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            if (value.getClass() != column.type) {
+                return null;
+            }
+            RoaringBitmap bitmap = column.values.get(value);
+            if (bitmap != null) {
+                result = result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Mark the index as no longer valid for the table.  The keys are removed once there are no open reads.
+     */
+    synchronized void drop() {
+        dropped = true;
+        if (readers == 0) {
+            removeKeys();
+        }
+    }
+
+    synchronized boolean isDropped() {
+        return dropped;
+    }
+
+    synchronized TupleBuffer getKeys() {
+        return keys;
+    }
+
+    private synchronized void release() {
+        if (--readers == 0 && dropped) {
+            removeKeys();
+        }
+    }
+
+    private void removeKeys() {
+        if (keys != null) {
+            keys.remove();
+            keys = null;
+        }
+    }
+
+    /**
+     * Create a source of the primary keys for the rows in the bitmap, in primary key order.
+     * A read that is abandoned before it is exhausted or closed leaves the keys of a dropped index
+     * to be cleaned up with its garbage collection.
+     * @return the source or null if the index has been dropped
+     */
+    synchronized TupleSource createKeyTupleSource(RoaringBitmap rows) {
+        if (dropped) {
+            return null;
+        }
+        readers++;
+        final TupleBuffer keyBuffer = keys;
+        final PrimitiveIterator.OfInt iter = rows.iterator();
+        return new TupleSource() {
+            private TupleBatch batch;
+            private boolean closed;
+
+            @Override
+            public List<?> nextTuple() throws TeiidComponentException {
+                if (!iter.hasNext()) {
+                    closeSource();
+                    return null;
+                }
+                int ordinal = iter.nextInt();
+                if (keyBuffer == null) {
+                    return Arrays.asList((long)ordinal);
+                }
+                long row = ordinal + 1l;
+                if (batch == null || !batch.containsRow(row)) {
+                    batch = keyBuffer.getBatch(row);
+                }
+                return batch.getTuple(row);
+            }
+
+            @Override
+            public void closeSource() {
+                if (!closed) {
+                    closed = true;
+                    release();
+                }
+            }
+        };
+    }
+
+}
@@ -28,6 +28,7 @@ import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -44,6 +45,7 @@ import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.StringUtil;
 import org.teiid.dqp.internal.process.RequestWorkItem;
 import org.teiid.dqp.message.RequestID;
 import org.teiid.language.SQLConstants;
@@ -402,6 +404,10 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
         if (updatableString != null) {
             hint.setUpdatable(Boolean.valueOf(updatableString));
         }
+        if (Boolean.valueOf(metadata.getExtensionProperty(viewId, MaterializationMetadataRepository.MATVIEW_INCREMENTAL, false))) {
+            //incremental maintenance refreshes rows by key
+            hint.setUpdatable(true);
+        }
         String scope = metadata.getExtensionProperty(viewId, MaterializationMetadataRepository.MATVIEW_SCOPE, false);
         if (scope != null) {
             hint.setScope(scope);
@@ -514,6 +520,48 @@ public class GlobalTableStoreImpl implements GlobalTableStore, ReplicatedObject<
         return pkColumns;
     }
 
+    /**
+     * Return a list of ElementSymbols for the non-key columns included with the given index
+     * @see KeyRecord#INCLUDE
+     */
+    public static List<ElementSymbol> resolveIncludedColumns(QueryMetadataInterface metadata, List<ElementSymbol> allColumns, Object index) {
+        if (index instanceof TempMetadataID) {
+            index = ((TempMetadataID)index).getOriginalMetadataID();
+        }
+        if (!(index instanceof KeyRecord)) {
+            return Collections.emptyList();
+        }
+        String include = metadata.getExtensionProperty(index, KeyRecord.INCLUDE, false);
+        if (include == null) {
+            return Collections.emptyList();
+        }
+        List<ElementSymbol> includedColumns = new ArrayList<ElementSymbol>();
+        for (String name : StringUtil.split(include, ",")) { //$NON-NLS-1$
+            name = name.trim();
+            for (ElementSymbol column : allColumns) {
+                if (column.getShortName().equalsIgnoreCase(name)) {
+                    includedColumns.add(column);
+                    break;
+                }
+            }
+        }
+        return includedColumns;
+    }
+
+    /**
+     * Return a list of ElementSymbols for the columns that should have a bitmap index
+     * @see Column#BITMAP_INDEX
+     */
+    public static List<ElementSymbol> resolveBitmapIndexColumns(QueryMetadataInterface metadata, List<ElementSymbol> allColumns) {
+        List<ElementSymbol> bitmapColumns = new ArrayList<ElementSymbol>();
+        for (ElementSymbol column : allColumns) {
+            if (Boolean.valueOf(metadata.getExtensionProperty(column.getMetadataID(), Column.BITMAP_INDEX, false))) {
+                bitmapColumns.add(column);
+            }
+        }
+        return bitmapColumns;
+    }
+
     //begin replication methods
 
     @Override
@@ -0,0 +1,372 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.tempdata;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A compressed bitmap of non-negative ints in the style of roaring bitmaps.
+ * <br>
+ * Values are partitioned by their high 16 bits into containers holding the low 16 bits
+ * either as a sorted array, when sparse, or as a bitmap, when dense.
+ * Results of {@link #and(RoaringBitmap)} and {@link #or(RoaringBitmap)} are new bitmaps,
+ * so a bitmap is safe to share once it is built.
+ */
+final class RoaringBitmap {
+
+    static final int ARRAY_MAX = 4096;
+
+    private abstract static class Container {
+
+        abstract int getCardinality();
+
+        abstract Container add(char value);
+
+        abstract boolean contains(char value);
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        /**
+         * @return the least value greater than or equal to from, or -1 if there is none
+         */
+        abstract int next(int from);
+
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer(int capacity) {
+            this.values = new char[capacity];
+        }
+
+        @Override
+        int getCardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            ArrayContainer result = new ArrayContainer(Math.min(cardinality, other.getCardinality()));
+            if (other instanceof BitmapContainer) {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result.values[result.cardinality++] = values[i];
+                    }
+                }
+                return result;
+            }
+            ArrayContainer array = (ArrayContainer)other;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality && j < array.cardinality) {
+                if (values[i] < array.values[j]) {
+                    i++;
+                } else if (values[i] > array.values[j]) {
+                    j++;
+                } else {
+                    result.values[result.cardinality++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.or(this);
+            }
+            ArrayContainer array = (ArrayContainer)other;
+            if (cardinality + array.cardinality > ARRAY_MAX) {
+                return toBitmap().or(other);
+            }
+            ArrayContainer result = new ArrayContainer(cardinality + array.cardinality);
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                    result.values[result.cardinality++] = values[i++];
+                } else if (i == cardinality || values[i] > array.values[j]) {
+                    result.values[result.cardinality++] = array.values[j++];
+                } else {
+                    result.values[result.cardinality++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        int next(int from) {
+            int index = Arrays.binarySearch(values, 0, cardinality, (char)from);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            if (index == cardinality) {
+                return -1;
+            }
+            return values[index];
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer result = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                result.add(values[i]);
+            }
+            return result;
+        }
+
+    }
+
+    private static final class BitmapContainer extends Container {
+        private long[] words = new long[1 << 10];
+        private int cardinality;
+
+        @Override
+        int getCardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long word = words[value >>> 6];
+            long updated = word | (1l << value);
+            if (updated != word) {
+                words[value >>> 6] = updated;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1l << value)) != 0;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            BitmapContainer bitmap = (BitmapContainer)other;
+            BitmapContainer result = new BitmapContainer();
+            for (int i = 0; i < words.length; i++) {
+                result.words[i] = words[i] & bitmap.words[i];
+                result.cardinality += Long.bitCount(result.words[i]);
+            }
+            if (result.cardinality > ARRAY_MAX) {
+                return result;
+            }
+            ArrayContainer array = new ArrayContainer(result.cardinality);
+            for (int value = result.next(0); value >= 0; value = result.next(value + 1)) {
+                array.values[array.cardinality++] = (char)value;
+            }
+            return array;
+        }
+
+        @Override
+        Container or(Container other) {
+            BitmapContainer result = new BitmapContainer();
+            System.arraycopy(words, 0, result.words, 0, words.length);
+            result.cardinality = cardinality;
+            if (other instanceof ArrayContainer) {
+                ArrayContainer array = (ArrayContainer)other;
+                for (int i = 0; i < array.cardinality; i++) {
+                    result.add(array.values[i]);
+                }
+                return result;
+            }
+            BitmapContainer bitmap = (BitmapContainer)other;
+            result.cardinality = 0;
+            for (int i = 0; i < words.length; i++) {
+                result.words[i] |= bitmap.words[i];
+                result.cardinality += Long.bitCount(result.words[i]);
+            }
+            return result;
+        }
+
+        @Override
+        int next(int from) {
+            int index = from >>> 6;
+            if (index >= words.length) {
+                return -1;
+            }
+            long word = words[index] & (-1l << from);
+            while (word == 0) {
+                if (++index == words.length) {
+                    return -1;
+                }
+                word = words[index];
+            }
+            return (index << 6) + Long.numberOfTrailingZeros(word);
+        }
+
+    }
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    /**
+     * Add the value, which is expected but not required to be greater than the previously added values.
+     */
+    void add(int value) {
+        char key = (char)(value >>> 16);
+        int index = size - 1;
+        if (index < 0 || keys[index] != key) {
+            index = Arrays.binarySearch(keys, 0, size, key);
+            if (index < 0) {
+                index = -index - 1;
+                insert(index, key, new ArrayContainer(4));
+            }
+        }
+        containers[index] = containers[index].add((char)value);
+    }
+
+    boolean contains(int value) {
+        int index = Arrays.binarySearch(keys, 0, size, (char)(value >>> 16));
+        return index >= 0 && containers[index].contains((char)value);
+    }
+
+    private void insert(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void append(char key, Container container) {
+        if (container.getCardinality() > 0) {
+            insert(size, key, container);
+        }
+    }
+
+    long getCardinality() {
+        long result = 0;
+        for (int i = 0; i < size; i++) {
+            result += containers[i].getCardinality();
+        }
+        return result;
+    }
+
+    RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.append(keys[i], containers[i].and(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                //containers are not modified after the bitmap is built, so they may be shared
+                result.append(keys[i], containers[i]);
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], other.containers[j]);
+                j++;
+            } else {
+                result.append(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return an iterator over the values in ascending order
+     */
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index;
+            private int next = size > 0 ? containers[0].next(0) : -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                int result = (keys[index] << 16) | next;
+                next = next == Character.MAX_VALUE ? -1 : containers[index].next(next + 1);
+                while (next < 0 && ++index < size) {
+                    next = containers[index].next(0);
+                }
+                return result;
+            }
+        };
+    }
+
+}
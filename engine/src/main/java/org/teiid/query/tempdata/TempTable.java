@@ -38,6 +38,7 @@ import org.teiid.common.buffer.TupleBrowser;
 import org.teiid.common.buffer.TupleBuffer;
 import org.teiid.common.buffer.TupleBuffer.TupleBufferTupleSource;
 import org.teiid.common.buffer.TupleSource;
+import org.teiid.common.buffer.ZoneMap;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidException;
 import org.teiid.core.TeiidProcessingException;
@@ -55,8 +56,10 @@ import org.teiid.query.processor.relational.SortUtility.Mode;
 import org.teiid.query.sql.lang.CacheHint;
 import org.teiid.query.sql.lang.CompareCriteria;
 import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
 import org.teiid.query.sql.lang.OrderBy;
 import org.teiid.query.sql.lang.SetClauseList;
+import org.teiid.query.sql.lang.SetCriteria;
 import org.teiid.query.sql.symbol.AggregateSymbol;
 import org.teiid.query.sql.symbol.Array;
 import org.teiid.query.sql.symbol.Constant;
@@ -326,6 +329,8 @@ public class TempTable implements Cloneable, SearchableTable {
                     }
                 } finally {
                     bm.releaseBuffers(reserved);
+                    snapshot = null;
+                    dropBitmapIndex();
                     lock.writeLock().unlock();
                     close();
                 }
@@ -360,6 +365,17 @@ public class TempTable implements Cloneable, SearchableTable {
     }
     private static AtomicLong ID_GENERATOR = new AtomicLong();
 
+    /**
+     * The maximum number of indexes created implicitly from the query criteria
+     */
+    static final int MAX_IMPLICIT_INDEXES = 4;
+
+    /**
+     * Precedes the index count in the serialized form when an index has included columns,
+     * so that the prior form is still written and read otherwise
+     */
+    private static final int INCLUDED_COLUMNS_VERSION = -1;
+
     private Long id = ID_GENERATOR.getAndIncrement();
     private STree tree;
     private AtomicLong rowId;
@@ -382,6 +398,18 @@ public class TempTable implements Cloneable, SearchableTable {
     private AtomicInteger activeReaders = new AtomicInteger();
 
     private boolean allowImplicitIndexing;
+    private int implicitIndexes;
+
+    /**
+     * A read only copy of the table as of the last completed update, which is shared by readers
+     * when {@link org.teiid.query.util.Options#isTempTableSnapshotReads()}
+     */
+    private volatile TempTable snapshot;
+    private volatile BitmapIndex bitmapIndex;
+    private volatile BitmapIndex droppedBitmapIndex;
+    private List<ElementSymbol> bitmapIndexColumns;
+    private Object bitmapIndexLock = new Object();
+    private AtomicInteger snapshotReaders = new AtomicInteger();
 
     TempTable(TempMetadataID tid, BufferManager bm, List<ElementSymbol> columns, int primaryKeyLength, String sessionID) {
         this.tid = tid;
@@ -454,6 +482,13 @@ public class TempTable implements Cloneable, SearchableTable {
             }
             clone.tree = tree.clone();
             clone.activeReaders = new AtomicInteger();
+            clone.snapshot = null;
+            clone.snapshotReaders = new AtomicInteger();
+            if (clone.indexTables != null) {
+                for (TempTable indexClone : clone.indexTables.values()) {
+                    indexClone.snapshotReaders = clone.snapshotReaders;
+                }
+            }
             return clone;
         } catch (CloneNotSupportedException e) {
              throw new TeiidRuntimeException(e);
@@ -466,36 +501,77 @@ public class TempTable implements Cloneable, SearchableTable {
         return activeReaders;
     }
 
-    void addIndex(List<ElementSymbol> indexColumns, boolean unique) throws TeiidComponentException, TeiidProcessingException {
+    /**
+     * Allow the pages shared with a discarded clone to be updated in place,
+     * unless they are also shared with a snapshot
+     */
+    void clearClonedFlags() {
+        lock.writeLock().lock();
+        try {
+            if (snapshot == null && snapshotReaders.get() == 0) {
+                tree.clearClonedFlags();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    TempTable addIndex(List<ElementSymbol> indexColumns, boolean unique) throws TeiidComponentException, TeiidProcessingException {
+        return addIndex(indexColumns, Collections.<ElementSymbol>emptyList(), unique);
+    }
+
+    /**
+     * Add a secondary index that also stores the included columns, so that queries
+     * referencing only the index, included, and primary key columns may be answered
+     * from the index alone.
+     * @return the index for the columns or null if they are the primary key
+     */
+    TempTable addIndex(List<ElementSymbol> indexColumns, List<ElementSymbol> includedColumns, boolean unique) throws TeiidComponentException, TeiidProcessingException {
         List<ElementSymbol> keyColumns = columns.subList(0, tree.getKeyLength());
-        if (keyColumns.equals(indexColumns) || (indexTables != null && indexTables.containsKey(indexColumns))) {
-            return;
+        if (keyColumns.equals(indexColumns)) {
+            return null;
         }
-        TempTable indexTable = createIndexTable(indexColumns, unique);
+        if (indexTables != null) {
+            TempTable existing = indexTables.get(indexColumns);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        TempTable indexTable = createIndexTable(indexColumns, includedColumns, unique);
         //TODO: ordered insert optimization
         TupleSource ts = createTupleSource(indexTable.getColumns(), null, null);
         indexTable.insert(ts, indexTable.getColumns(), false, false, null);
         indexTable.getTree().compact();
+        this.snapshot = null;
+        return indexTable;
     }
 
     private TempTable createIndexTable(List<ElementSymbol> indexColumns,
-            boolean unique) {
+            List<ElementSymbol> includedColumns, boolean unique) {
         List<ElementSymbol> allColumns = new ArrayList<ElementSymbol>(indexColumns);
         for (ElementSymbol elementSymbol : columns.subList(0, tree.getKeyLength())) {
             if (allColumns.indexOf(elementSymbol) < 0) {
                 allColumns.add(elementSymbol);
             }
         }
-        TempTable indexTable = new TempTable(new TempMetadataID("idx", Collections.EMPTY_LIST), this.bm, allColumns, allColumns.size(), this.sessionID); //$NON-NLS-1$
+        int keyLength = allColumns.size();
+        //included columns are stored as values of the index
+        for (ElementSymbol elementSymbol : includedColumns) {
+            if (allColumns.indexOf(elementSymbol) < 0) {
+                allColumns.add(elementSymbol);
+            }
+        }
+        TempTable indexTable = new TempTable(new TempMetadataID("idx", Collections.EMPTY_LIST), this.bm, allColumns, keyLength, this.sessionID); //$NON-NLS-1$
         indexTable.setPreferMemory(this.tree.isPreferMemory());
         indexTable.lock = this.lock;
+        indexTable.snapshotReaders = this.snapshotReaders;
         if (unique) {
             indexTable.uniqueColIndex = indexColumns.size();
         }
         if (indexTables == null) {
             indexTables = new LinkedHashMap<List<ElementSymbol>, TempTable>();
-            indexTables.put(indexColumns, indexTable);
         }
+        indexTables.put(indexColumns, indexTable);
         indexTable.setUpdatable(this.updatable);
         return indexTable;
     }
@@ -505,6 +581,9 @@ public class TempTable implements Cloneable, SearchableTable {
     }
 
     public TupleSource createTupleSource(final List<? extends Expression> projectedCols, final Criteria condition, OrderBy orderBy) throws TeiidComponentException, TeiidProcessingException {
+        if (updatable && bm.getOptions().isTempTableSnapshotReads()) {
+            return createSnapshotTupleSource(projectedCols, condition, orderBy);
+        }
         //special handling for count(*)
         boolean agg = false;
         for (Expression singleElementSymbol : projectedCols) {
@@ -522,7 +601,7 @@ public class TempTable implements Cloneable, SearchableTable {
         }
         IndexInfo primary = new IndexInfo(this, projectedCols, condition, orderBy, true);
         IndexInfo ii = primary;
-        if ((indexTables != null || (!this.updatable && allowImplicitIndexing && condition != null && this.getRowCount() > 2*this.getTree().getPageSize(true))) && (condition != null || orderBy != null) && ii.valueSet.size() != 1) {
+        if ((indexTables != null || bitmapIndexColumns != null || (!this.updatable && allowImplicitIndexing && condition != null && this.getRowCount() > 2*this.getTree().getPageSize(true))) && (condition != null || orderBy != null) && ii.valueSet.size() != 1) {
             LogManager.logDetail(LogConstants.CTX_DQP, "Considering indexes on table", this, "for query", projectedCols, condition, orderBy); //$NON-NLS-1$ //$NON-NLS-2$
             long rowCost = this.tree.getRowCount();
             long bestCost = estimateCost(orderBy, ii, rowCost);
@@ -536,10 +615,32 @@ public class TempTable implements Cloneable, SearchableTable {
                     }
                 }
             }
+            BitmapIndex bitmaps = condition != null ? getCurrentBitmapIndex(condition, rowCost, bestCost) : null;
+            if (bitmaps != null) {
+                RoaringBitmap rows = bitmaps.evaluate(condition, columnMap);
+                TupleSource keys = null;
+                if (rows != null) {
+                    long cost = estimateBitmapCost(rows.getCardinality(), rowCost);
+                    if (cost < bestCost) {
+                        //null if the index was concurrently dropped
+                        keys = bitmaps.createKeyTupleSource(rows);
+                    }
+                }
+                if (keys != null) {
+                    LogManager.logDetail(LogConstants.CTX_DQP, "Choose bitmap indexes with", rows.getCardinality(), "matching rows"); //$NON-NLS-1$ //$NON-NLS-2$
+                    primary.valueTs = keys;
+                    if (primary.ordering != null && primary.ordering != OrderBy.ASC) {
+                        //the keys are in ascending order
+                        primary.ordering = null;
+                    }
+                    return createTupleSource(projectedCols, condition, orderBy, primary, agg);
+                }
+            }
             if (ii == primary && allowImplicitIndexing) {
                 //TODO: detect if it should be covering
-                if (createImplicitIndexIfNeeded(condition)) {
-                    IndexInfo secondary = new IndexInfo(this.indexTables.values().iterator().next(), projectedCols, condition, orderBy, false);
+                TempTable implicit = createImplicitIndexIfNeeded(condition);
+                if (implicit != null) {
+                    IndexInfo secondary = new IndexInfo(implicit, projectedCols, condition, orderBy, false);
                     LogManager.logDetail(LogConstants.CTX_DQP, "Created an implicit index ", secondary.table); //$NON-NLS-1$
                     long cost = estimateCost(orderBy, secondary, rowCost);
                     if (cost < bestCost) {
@@ -574,7 +675,72 @@ public class TempTable implements Cloneable, SearchableTable {
         return createTupleSource(projectedCols, condition, orderBy, ii, agg);
     }
 
-    private boolean createImplicitIndexIfNeeded(final Criteria condition) throws TeiidComponentException, TeiidProcessingException {
+    /**
+     * Read from a snapshot rather than holding the read lock and materializing the results.
+     * The snapshot shares the pages of the table, which copies a page on its first update after the
+     * snapshot is taken.  Once a snapshot is no longer referenced by the table or a reader, the pages
+     * only it references are cleaned up with the garbage collection of the snapshot.
+     */
+    private TupleSource createSnapshotTupleSource(
+            final List<? extends Expression> projectedCols,
+            final Criteria condition, OrderBy orderBy)
+            throws TeiidComponentException, TeiidProcessingException {
+        final AtomicInteger readers = this.snapshotReaders;
+        //register first so that a concurrent remove will not release the pages
+        readers.incrementAndGet();
+        boolean success = false;
+        try {
+            final TupleSource ts = getSnapshot().createTupleSource(projectedCols, condition, orderBy);
+            success = true;
+            return new TupleSource() {
+                private boolean closed;
+
+                @Override
+                public List<?> nextTuple() throws TeiidComponentException,
+                        TeiidProcessingException {
+                    return ts.nextTuple();
+                }
+
+                @Override
+                public void closeSource() {
+                    ts.closeSource();
+                    if (!closed) {
+                        closed = true;
+                        readers.decrementAndGet();
+                    }
+                }
+            };
+        } finally {
+            if (!success) {
+                readers.decrementAndGet();
+            }
+        }
+    }
+
+    private TempTable getSnapshot() {
+        TempTable result = this.snapshot;
+        if (result != null) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            result = this.snapshot;
+            if (result == null) {
+                result = clone();
+                result.setUpdatable(false);
+                result.allowImplicitIndexing = false;
+                this.snapshot = result;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the new index or null if one was not created
+     */
+    TempTable createImplicitIndexIfNeeded(final Criteria condition) throws TeiidComponentException, TeiidProcessingException {
         int operator = CompareCriteria.EQ;
         LinkedHashSet<ElementSymbol> symbols = null;
         for (Criteria c : Criteria.separateCriteriaByAnd(condition)) {
@@ -612,11 +778,23 @@ public class TempTable implements Cloneable, SearchableTable {
             }
         }
         if (symbols != null && !symbols.isEmpty()) {
+            if (implicitIndexes >= MAX_IMPLICIT_INDEXES) {
+                LogManager.logDetail(LogConstants.CTX_DQP, "Not creating an implicit index as the limit has been reached for", tid); //$NON-NLS-1$
+                return null;
+            }
+            List<ElementSymbol> indexColumns = new ArrayList<>(symbols);
+            if (indexTables != null && indexTables.containsKey(indexColumns)) {
+                //already considered
+                return null;
+            }
             //TODO: order by ndv
-            this.addIndex(new ArrayList<>(symbols), false);
-            return true;
+            TempTable result = this.addIndex(indexColumns, false);
+            if (result != null) {
+                implicitIndexes++;
+            }
+            return result;
         }
-        return false;
+        return null;
     }
 
     private TupleSource createTupleSource(
@@ -624,6 +802,9 @@ public class TempTable implements Cloneable, SearchableTable {
             final Criteria condition, OrderBy orderBy, IndexInfo ii, boolean agg)
             throws TeiidComponentException, TeiidProcessingException {
         TupleBrowser browser = ii.createTupleBrowser(bm.getOptions().getDefaultNullOrder(), true);
+        if (tree.isColumnar() && condition != null) {
+            browser.setPageConditions(getPageConditions(condition));
+        }
         TupleSource ts = new QueryTupleSource(browser, columnMap, agg?getColumns():projectedCols, condition);
 
         boolean usingQueryTupleSource = false;
@@ -666,6 +847,63 @@ public class TempTable implements Cloneable, SearchableTable {
         }
     }
 
+    /**
+     * Get the conditions implied by the criteria that may be checked against the
+     * {@link ZoneMap}s of the pages.
+     */
+    private List<ZoneMap.Condition> getPageConditions(Criteria condition) {
+        List<ZoneMap.Condition> result = new ArrayList<ZoneMap.Condition>();
+        for (Criteria crit : Criteria.separateCriteriaByAnd(condition)) {
+            if (crit instanceof CompareCriteria) {
+                CompareCriteria cc = (CompareCriteria)crit;
+                Integer index = columnMap.get(cc.getLeftExpression());
+                if (index == null || cc.getOperator() == CompareCriteria.NE || !(cc.getRightExpression() instanceof Constant)) {
+                    continue;
+                }
+                Constant value = (Constant)cc.getRightExpression();
+                if (value.getValue() != null && !value.isMultiValued()) {
+                    result.add(new ZoneMap.Condition(index, cc.getOperator(), value.getValue()));
+                }
+            } else if (crit instanceof IsNullCriteria) {
+                IsNullCriteria inc = (IsNullCriteria)crit;
+                Integer index = columnMap.get(inc.getExpression());
+                if (index != null) {
+                    result.add(new ZoneMap.Condition(index, inc.isNegated()?ZoneMap.Condition.IS_NOT_NULL:ZoneMap.Condition.IS_NULL, null));
+                }
+            } else if (crit instanceof SetCriteria) {
+                SetCriteria sc = (SetCriteria)crit;
+                Integer index = columnMap.get(sc.getExpression());
+                if (index == null || sc.isNegated()) {
+                    continue;
+                }
+                //restrict to the range of the values
+                Object min = null;
+                Object max = null;
+                for (Object ex : sc.getValues()) {
+                    if (!(ex instanceof Constant) || ((Constant)ex).getValue() == null) {
+                        min = null;
+                        break;
+                    }
+                    Object value = ((Constant)ex).getValue();
+                    if (min == null || Constant.COMPARATOR.compare(value, min) < 0) {
+                        min = value;
+                    }
+                    if (max == null || Constant.COMPARATOR.compare(value, max) > 0) {
+                        max = value;
+                    }
+                }
+                if (min != null) {
+                    result.add(new ZoneMap.Condition(index, CompareCriteria.GE, min));
+                    result.add(new ZoneMap.Condition(index, CompareCriteria.LE, max));
+                }
+            }
+        }
+        if (result.isEmpty()) {
+            return null;
+        }
+        return result;
+    }
+
     /**
      * TODO: this could easily use statistics - the tree level 1 would be an ideal place
      * to compute them, since it minimizes page loads, and is a random sample.
@@ -716,15 +954,32 @@ public class TempTable implements Cloneable, SearchableTable {
     }
 
     public long truncate(boolean force) {
-        this.tid.getTableData().dataModified(tree.getRowCount());
-        return tree.truncate(force);
+        lock.writeLock().lock();
+        try {
+            this.tid.getTableData().dataModified(tree.getRowCount());
+            this.snapshot = null;
+            dropBitmapIndex();
+            //shared pages must be left for the open snapshots
+            return tree.truncate(force && snapshotReaders.get() == 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public void remove() {
         lock.writeLock().lock();
         try {
             tid.getTableData().removed();
-            tree.remove();
+            this.snapshot = null;
+            this.bitmapIndexColumns = null;
+            dropBitmapIndex();
+            this.droppedBitmapIndex = null;
+            if (snapshotReaders.get() == 0) {
+                tree.remove();
+            } else {
+                //the storage will be cleaned up once the open snapshots are no longer referenced
+                tree.truncate(false);
+            }
             if (this.indexTables != null) {
                 for (TempTable indexTable : this.indexTables.values()) {
                     indexTable.remove();
@@ -930,6 +1185,16 @@ public class TempTable implements Cloneable, SearchableTable {
             if (this.indexTables == null) {
                 oos.writeInt(0);
             } else {
+                boolean included = false;
+                for (TempTable index : this.indexTables.values()) {
+                    if (index.columns.size() > index.tree.getKeyLength()) {
+                        included = true;
+                        break;
+                    }
+                }
+                if (included) {
+                    oos.writeInt(INCLUDED_COLUMNS_VERSION);
+                }
                 oos.writeInt(this.indexTables.size());
                 for (Map.Entry<List<ElementSymbol>, TempTable> entry : this.indexTables.entrySet()) {
                     oos.writeBoolean(entry.getValue().uniqueColIndex > 0);
@@ -937,6 +1202,14 @@ public class TempTable implements Cloneable, SearchableTable {
                     for (ElementSymbol es : entry.getKey()) {
                         oos.writeInt(this.columnMap.get(es));
                     }
+                    if (included) {
+                        List<ElementSymbol> indexColumns = entry.getValue().columns;
+                        List<ElementSymbol> includedColumns = indexColumns.subList(entry.getValue().tree.getKeyLength(), indexColumns.size());
+                        oos.writeInt(includedColumns.size());
+                        for (ElementSymbol es : includedColumns) {
+                            oos.writeInt(this.columnMap.get(es));
+                        }
+                    }
                     entry.getValue().writeTo(oos);
                 }
             }
@@ -948,6 +1221,11 @@ public class TempTable implements Cloneable, SearchableTable {
     void readFrom(ObjectInputStream ois) throws TeiidComponentException, IOException, ClassNotFoundException {
         this.tree.readValuesFrom(ois);
         int numIdx = ois.readInt();
+        boolean included = false;
+        if (numIdx == INCLUDED_COLUMNS_VERSION) {
+            included = true;
+            numIdx = ois.readInt();
+        }
         for (int i = 0; i < numIdx; i++) {
             boolean unique = ois.readBoolean();
             int numCols = ois.readInt();
@@ -956,7 +1234,12 @@ public class TempTable implements Cloneable, SearchableTable {
                 int colIndex = ois.readInt();
                 indexColumns.add(this.columns.get(colIndex));
             }
-            TempTable tt = this.createIndexTable(indexColumns, unique);
+            int numIncluded = included ? ois.readInt() : 0;
+            ArrayList<ElementSymbol> includedColumns = new ArrayList<ElementSymbol>(numIncluded);
+            for (int j = 0; j < numIncluded; j++) {
+                includedColumns.add(this.columns.get(ois.readInt()));
+            }
+            TempTable tt = this.createIndexTable(indexColumns, includedColumns, unique);
             tt.readFrom(ois);
         }
     }
@@ -988,6 +1271,8 @@ public class TempTable implements Cloneable, SearchableTable {
             tid.getTableData().dataModified(1);
             return result;
         } finally {
+            snapshot = null;
+            dropBitmapIndex();
             lock.writeLock().unlock();
         }
     }
@@ -998,6 +1283,117 @@ public class TempTable implements Cloneable, SearchableTable {
         }
     }
 
+    /**
+     * Add bitmap indexes on the given columns.  As the bitmaps are tied to the row ordinals, they are
+     * dropped if the table is modified and rebuilt by the next read that is estimated to use them.
+     * Columns with more than {@link BitmapIndex#MAX_DISTINCT_VALUES} values are not indexed.
+     */
+    void addBitmapIndex(List<ElementSymbol> indexColumns) throws TeiidComponentException, TeiidProcessingException {
+        this.bitmapIndexColumns = indexColumns;
+        buildBitmapIndex();
+    }
+
+    /**
+     * Get the bitmap index, rebuilding it if it has been dropped by a modification.
+     * <br>
+     * The matches of the dropped index, scaled to the current row count, are used to estimate
+     * the cost so that the index is only rebuilt if it would be chosen over the best cost.
+     */
+    private BitmapIndex getCurrentBitmapIndex(Criteria condition, long rowCost, long bestCost) throws TeiidComponentException, TeiidProcessingException {
+        BitmapIndex result = this.bitmapIndex;
+        if ((result == null || result.isDropped()) && this.bitmapIndexColumns != null) {
+            BitmapIndex stale = this.droppedBitmapIndex;
+            if (stale != null && stale.getRowCount() > 0) {
+                RoaringBitmap rows = stale.evaluate(condition, columnMap);
+                if (rows == null) {
+                    return null;
+                }
+                long matches = (long)Math.ceil((double)rows.getCardinality() * rowCost / stale.getRowCount());
+                if (estimateBitmapCost(matches, rowCost) >= bestCost) {
+                    LogManager.logDetail(LogConstants.CTX_DQP, "Not rebuilding the bitmap indexes on table", this.tid, "for an estimated", matches, "matching rows"); //$NON-NLS-1$ //$NON-NLS-2$
+                    return null;
+                }
+            }
+            LogManager.logDetail(LogConstants.CTX_DQP, "Rebuilding the bitmap indexes on table", this.tid); //$NON-NLS-1$
+            buildBitmapIndex();
+            result = this.bitmapIndex;
+        }
+        return result;
+    }
+
+    /**
+     * The cost of the primary lookup of each match
+     */
+    private static long estimateBitmapCost(long matches, long rowCost) {
+        return matches + matches * (64 - Long.numberOfLeadingZeros(rowCost - 1));
+    }
+
+    private void dropBitmapIndex() {
+        BitmapIndex index = this.bitmapIndex;
+        if (index != null) {
+            this.bitmapIndex = null;
+            index.drop();
+            //the bitmaps are retained as statistics for the rebuild decision
+            this.droppedBitmapIndex = index;
+        }
+    }
+
+    private void buildBitmapIndex() throws TeiidComponentException, TeiidProcessingException {
+        List<ElementSymbol> indexColumns = this.bitmapIndexColumns;
+        if (indexColumns == null) {
+            return;
+        }
+        //held until the index is set, so that a modification cannot make it stale
+        lock.readLock().lock();
+        try {
+            if (tree.getRowCount() > Integer.MAX_VALUE) {
+                this.bitmapIndexColumns = null;
+                return;
+            }
+            int[] indexes = RelationalNode.getProjectionIndexes(columnMap, indexColumns);
+            TupleBuffer keys = null;
+            if (rowId == null || rowId.get() != tree.getRowCount()) {
+                keys = bm.createTupleBuffer(columns.subList(0, tree.getKeyLength()), sessionID, TupleSourceType.PROCESSOR);
+            }
+            BitmapIndex index = new BitmapIndex(indexes, columns, tree.getKeyLength(), keys);
+            TupleBrowser browser = new TupleBrowser(tree, null, null, OrderBy.ASC, true);
+            List<?> next = null;
+            while ((next = browser.nextTuple()) != null) {
+                index.addTuple(next);
+            }
+            if (!index.close()) {
+                //none of the columns are low cardinality
+                this.bitmapIndexColumns = null;
+                index.drop();
+                return;
+            }
+            //only the monitor is taken here, as the read lock may already be held by an open read
+            synchronized (bitmapIndexLock) {
+                BitmapIndex current = this.bitmapIndex;
+                if (current != null && !current.isDropped()) {
+                    //concurrently rebuilt
+                    index.drop();
+                } else {
+                    this.bitmapIndex = index;
+                    this.droppedBitmapIndex = null;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    BitmapIndex getBitmapIndex() {
+        return bitmapIndex;
+    }
+
+    /**
+     * Store the table by column, see {@link STree#setColumnar(boolean)}
+     */
+    void setColumnar(boolean columnar) throws TeiidComponentException {
+        this.tree.setColumnar(columnar);
+    }
+
     void setPreferMemory(boolean preferMemory) {
         this.tree.setPreferMemory(preferMemory);
     }
@@ -28,6 +28,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 
+import org.teiid.adminapi.impl.ModelMetaData;
 import org.teiid.adminapi.impl.SessionMetadata;
 import org.teiid.adminapi.impl.VDBMetaData;
 import org.teiid.api.exception.query.ExpressionEvaluationException;
@@ -59,16 +60,20 @@ import org.teiid.language.SQLConstants;
 import org.teiid.language.SQLConstants.Reserved;
 import org.teiid.logging.LogConstants;
 import org.teiid.logging.LogManager;
+import org.teiid.metadata.Column;
 import org.teiid.metadata.FunctionMethod.Determinism;
+import org.teiid.metadata.MetadataRepository;
 import org.teiid.query.QueryPlugin;
 import org.teiid.query.eval.Evaluator;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
 import org.teiid.query.optimizer.relational.RelationalPlanner;
+import org.teiid.query.optimizer.relational.rules.ColumnHistogram;
 import org.teiid.query.parser.ParseInfo;
 import org.teiid.query.processor.BatchCollector;
 import org.teiid.query.processor.CollectionTupleSource;
+import org.teiid.query.processor.DdlPlan.SetPropertyProcessor;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.QueryProcessor;
 import org.teiid.query.processor.RegisterRequestParameter;
@@ -125,6 +130,7 @@ public class TempTableDataManager implements ProcessorDataManager {
     private static final String REFRESHMATVIEWROW = ".refreshmatviewrow"; //$NON-NLS-1$
     private static final String REFRESHMATVIEWROWS = ".refreshmatviewrows"; //$NON-NLS-1$
     private static final String REFRESHMATVIEW = ".refreshmatview"; //$NON-NLS-1$
+    private static final String ANALYZECOLUMN = ".analyzecolumn"; //$NON-NLS-1$
     public static final String CODE_PREFIX = "#CODE_"; //$NON-NLS-1$
     private static String REFRESH_SQL = SQLConstants.Reserved.CALL + ' ' + CoreConstants.SYSTEM_ADMIN_MODEL + REFRESHMATVIEW + "(?, ?)"; //$NON-NLS-1$
 
@@ -404,10 +410,85 @@ public class TempTableDataManager implements ProcessorDataManager {
 
             return updateMatviewRows(context, metadata, groupID, globalStore,
                     matViewName, ids, params);
+        } else if (StringUtil.endsWithIgnoreCase(proc.getProcedureCallableName(), ANALYZECOLUMN)) {
+            String tableName = (String)((Constant)proc.getParameter(2).getExpression()).getValue();
+            String columnName = (String)((Constant)proc.getParameter(3).getExpression()).getValue();
+            int sampleSize = (Integer)((Constant)proc.getParameter(4).getExpression()).getValue();
+            if (sampleSize < 1) {
+                throw new QueryProcessingException(QueryPlugin.Event.TEIID31313, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31313, sampleSize));
+            }
+            Object elementID = null;
+            try {
+                elementID = metadata.getElementID(metadata.getFullName(metadata.getGroupID(tableName)) + ElementSymbol.SEPARATOR + columnName);
+            } catch (QueryMetadataException e) {
+                 throw new TeiidProcessingException(QueryPlugin.Event.TEIID30552, e);
+            }
+            return analyzeColumn(context, metadata, elementID, sampleSize);
         }
         return null;
     }
 
+    /**
+     * Build the histogram and most common values of the column from the first sampleSize rows
+     * and set them as properties in the same way as SYSADMIN.setProperty
+     */
+    private TupleSource analyzeColumn(final CommandContext context,
+            final QueryMetadataInterface metadata, final Object elementID, int sampleSize)
+            throws TeiidComponentException, TeiidProcessingException {
+        final String columnName = metadata.getFullName(elementID);
+        String typeName = metadata.getElementRuntimeTypeName(elementID);
+        if (!(elementID instanceof Column) || DataTypeManager.isNonComparable(typeName)
+                || DataTypeManager.getDataTypeClass(typeName).isArray() || DataTypeManager.DefaultDataTypes.OBJECT.equals(typeName)) {
+            throw new QueryProcessingException(QueryPlugin.Event.TEIID31312, QueryPlugin.Util.gs(QueryPlugin.Event.TEIID31312, columnName, typeName));
+        }
+        final Column column = (Column)elementID;
+        final VDBMetaData vdb = context.getVdb();
+        final String schemaName = column.getParent().getParent().getName();
+        if (vdb.getImportedModels().contains(schemaName)) {
+            throw new TeiidProcessingException(QueryPlugin.Event.TEIID31098, QueryPlugin.Util.getString("ValidationVisitor.invalid_alter", column.getUUID())); //$NON-NLS-1$
+        }
+        String groupName = metadata.getFullName(metadata.getGroupIDForElementID(elementID));
+        final String sampleSql = Reserved.SELECT + ' ' + columnName + ' ' + Reserved.FROM + ' ' + groupName + ' ' + Reserved.LIMIT + ' ' + sampleSize;
+        final String recursionGroup = groupName.toUpperCase();
+
+        return new ProxyTupleSource() {
+            private QueryProcessor qp;
+            private TupleSource ts;
+            private List<Object> values = new ArrayList<Object>();
+
+            @Override
+            protected TupleSource createTupleSource()
+                    throws TeiidComponentException,
+                    TeiidProcessingException {
+                if (qp == null) {
+                    qp = context.getQueryProcessorFactory().createQueryProcessor(sampleSql, recursionGroup, context);
+                    ts = new BatchCollector.BatchProducerTupleSource(qp);
+                }
+                List<?> tuple = null;
+                while ((tuple = ts.nextTuple()) != null) {
+                    values.add(tuple.get(0));
+                }
+                qp.closeProcessing();
+                qp = null;
+                String[] properties = ColumnHistogram.build(values, ColumnHistogram.DEFAULT_BUCKETS, ColumnHistogram.DEFAULT_MOST_COMMON_VALUES);
+                ModelMetaData model = vdb.getModel(schemaName);
+                SetPropertyProcessor processor = new SetPropertyProcessor(model != null ? model.getAttachment(MetadataRepository.class) : null, eventDistributor);
+                processor.setProperty(vdb, column, ColumnHistogram.HISTOGRAM, properties[0]);
+                processor.setProperty(vdb, column, ColumnHistogram.MOST_COMMON_VALUES, properties[1]);
+                LogManager.logDetail(LogConstants.CTX_DQP, "Analyzed", values.size(), "sampled values of", columnName); //$NON-NLS-1$ //$NON-NLS-2$
+                return CollectionTupleSource.createUpdateCountTupleSource(values.size());
+            }
+
+            @Override
+            public void closeSource() {
+                super.closeSource();
+                if (qp != null) {
+                    qp.closeProcessing();
+                }
+            }
+        };
+    }
+
     private TupleSource updateMatviewRows(final CommandContext context,
             final QueryMetadataInterface metadata, final Object groupID,
             final GlobalTableStore globalStore, final String matViewName,
@@ -742,12 +823,19 @@ public class TempTableDataManager implements ProcessorDataManager {
                     //TODO: could pre-process indexes to remove overlap
                     for (Object index : metadata.getIndexesInGroup(group.getMetadataID())) {
                         List<ElementSymbol> columns = GlobalTableStoreImpl.resolveIndex(metadata, allColumns, index);
-                        table.addIndex(columns, false);
+                        table.addIndex(columns, GlobalTableStoreImpl.resolveIncludedColumns(metadata, allColumns, index), false);
                     }
                     for (Object key : metadata.getUniqueKeysInGroup(group.getMetadataID())) {
                         List<ElementSymbol> columns = GlobalTableStoreImpl.resolveIndex(metadata, allColumns, key);
                         table.addIndex(columns, true);
                     }
+                    List<ElementSymbol> bitmapColumns = GlobalTableStoreImpl.resolveBitmapIndexColumns(metadata, allColumns);
+                    if (!bitmapColumns.isEmpty()) {
+                        table.addBitmapIndex(bitmapColumns);
+                    }
+                    if (bufferManager.getOptions().isColumnarMatViews()) {
+                        table.setColumnar(true);
+                    }
                     CacheHint hint = table.getCacheHint();
                     if (hint != null && table.getPkLength() > 0) {
                         table.setUpdatable(hint.isUpdatable(false));
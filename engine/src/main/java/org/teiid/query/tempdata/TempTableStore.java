@@ -314,7 +314,7 @@ public class TempTableStore {
                 current.retainAll(tables.values());
                 for (TempTable table : current) {
                     table.getActive().set(0);
-                    table.getTree().clearClonedFlags();
+                    table.clearClonedFlags();
                 }
             }
             for (TransactionCallback callback : callbacks) {
@@ -39,6 +39,20 @@ public class Options {
     public static final String MAX_SESSION_BUFFER_SIZE_ESTIMATE = "org.teiid.maxSessionBufferSizeEstimate"; //$NON-NLS-1$
     public static final String TRACING_WITH_ACTIVE_SPAN_ONLY = "org.teiid.tracingWithActiveSpanOnly"; //$NON-NLS-1$
     public static final String ENFORCE_SINGLE_MAX_BUFFER_SIZE_ESTIMATE = "org.teiid.enforceSingleMaxBufferSizeEstimate"; //$NON-NLS-1$
+    public static final String HASH_JOIN = "org.teiid.hashJoin"; //$NON-NLS-1$
+    public static final String HASH_AGGREGATE = "org.teiid.hashAggregate"; //$NON-NLS-1$
+    public static final String HASH_DUP_REMOVE = "org.teiid.hashDupRemove"; //$NON-NLS-1$
+    public static final String COLUMNAR_PROCESSING = "org.teiid.columnarProcessing"; //$NON-NLS-1$
+    public static final String COMPILE_EXPRESSIONS = "org.teiid.compileExpressions"; //$NON-NLS-1$
+    public static final String PARALLEL_UNION = "org.teiid.parallelUnion"; //$NON-NLS-1$
+    public static final String PARALLEL_SORT = "org.teiid.parallelSort"; //$NON-NLS-1$
+    public static final String STREAMING_WINDOW_FUNCTIONS = "org.teiid.streamingWindowFunctions"; //$NON-NLS-1$
+    public static final String ADAPTIVE_DEPENDENT_JOINS = "org.teiid.adaptiveDependentJoins"; //$NON-NLS-1$
+    public static final String DP_JOIN_ENUMERATION = "org.teiid.dpJoinEnumeration"; //$NON-NLS-1$
+    public static final String AUTO_PARAMETERIZE = "org.teiid.autoParameterize"; //$NON-NLS-1$
+    public static final String TEMP_TABLE_SNAPSHOT_READS = "org.teiid.tempTableSnapshotReads"; //$NON-NLS-1$
+    public static final String COLUMNAR_MAT_VIEWS = "org.teiid.columnarMatViews"; //$NON-NLS-1$
+    public static final String SEMANTIC_RESULT_SET_CACHE = "org.teiid.semanticResultSetCache"; //$NON-NLS-1$
 
     private Properties properties;
     private boolean subqueryUnnestDefault = false;
@@ -54,6 +68,20 @@ public class Options {
     private boolean tracingWithActiveSpanOnly = true;
     private boolean enforceSingleMaxBufferSizeEstimate = false;
     private boolean relativeXPath = true;
+    private boolean hashJoin;
+    private boolean hashAggregate;
+    private boolean hashDupRemove;
+    private boolean columnarProcessing;
+    private boolean compileExpressions;
+    private boolean parallelUnion;
+    private boolean parallelSort;
+    private boolean streamingWindowFunctions;
+    private boolean adaptiveDependentJoins;
+    private boolean dpJoinEnumeration;
+    private boolean autoParameterize;
+    private boolean tempTableSnapshotReads;
+    private boolean columnarMatViews;
+    private boolean semanticResultSetCache;
 
     public Properties getProperties() {
         return properties;
@@ -238,4 +266,186 @@ public class Options {
         return this;
     }
 
+    public boolean isHashJoin() {
+        return hashJoin;
+    }
+
+    public void setHashJoin(boolean hashJoin) {
+        this.hashJoin = hashJoin;
+    }
+
+    public Options hashJoin(boolean b) {
+        this.hashJoin = b;
+        return this;
+    }
+
+    public boolean isHashAggregate() {
+        return hashAggregate;
+    }
+
+    public void setHashAggregate(boolean hashAggregate) {
+        this.hashAggregate = hashAggregate;
+    }
+
+    public Options hashAggregate(boolean b) {
+        this.hashAggregate = b;
+        return this;
+    }
+
+    public boolean isHashDupRemove() {
+        return hashDupRemove;
+    }
+
+    public void setHashDupRemove(boolean hashDupRemove) {
+        this.hashDupRemove = hashDupRemove;
+    }
+
+    public Options hashDupRemove(boolean b) {
+        this.hashDupRemove = b;
+        return this;
+    }
+
+    public boolean isColumnarProcessing() {
+        return columnarProcessing;
+    }
+
+    public void setColumnarProcessing(boolean columnarProcessing) {
+        this.columnarProcessing = columnarProcessing;
+    }
+
+    public Options columnarProcessing(boolean b) {
+        this.columnarProcessing = b;
+        return this;
+    }
+
+    public boolean isCompileExpressions() {
+        return compileExpressions;
+    }
+
+    public void setCompileExpressions(boolean compileExpressions) {
+        this.compileExpressions = compileExpressions;
+    }
+
+    public Options compileExpressions(boolean b) {
+        this.compileExpressions = b;
+        return this;
+    }
+
+    public boolean isParallelUnion() {
+        return parallelUnion;
+    }
+
+    public void setParallelUnion(boolean parallelUnion) {
+        this.parallelUnion = parallelUnion;
+    }
+
+    public Options parallelUnion(boolean b) {
+        this.parallelUnion = b;
+        return this;
+    }
+
+    public boolean isParallelSort() {
+        return parallelSort;
+    }
+
+    public void setParallelSort(boolean parallelSort) {
+        this.parallelSort = parallelSort;
+    }
+
+    public Options parallelSort(boolean b) {
+        this.parallelSort = b;
+        return this;
+    }
+
+    public boolean isStreamingWindowFunctions() {
+        return streamingWindowFunctions;
+    }
+
+    public void setStreamingWindowFunctions(boolean streamingWindowFunctions) {
+        this.streamingWindowFunctions = streamingWindowFunctions;
+    }
+
+    public Options streamingWindowFunctions(boolean b) {
+        this.streamingWindowFunctions = b;
+        return this;
+    }
+
+    public boolean isAdaptiveDependentJoins() {
+        return adaptiveDependentJoins;
+    }
+
+    public void setAdaptiveDependentJoins(boolean adaptiveDependentJoins) {
+        this.adaptiveDependentJoins = adaptiveDependentJoins;
+    }
+
+    public Options adaptiveDependentJoins(boolean b) {
+        this.adaptiveDependentJoins = b;
+        return this;
+    }
+
+    public boolean isDpJoinEnumeration() {
+        return dpJoinEnumeration;
+    }
+
+    public void setDpJoinEnumeration(boolean dpJoinEnumeration) {
+        this.dpJoinEnumeration = dpJoinEnumeration;
+    }
+
+    public Options dpJoinEnumeration(boolean b) {
+        this.dpJoinEnumeration = b;
+        return this;
+    }
+
+    public boolean isAutoParameterize() {
+        return autoParameterize;
+    }
+
+    public void setAutoParameterize(boolean autoParameterize) {
+        this.autoParameterize = autoParameterize;
+    }
+
+    public Options autoParameterize(boolean b) {
+        this.autoParameterize = b;
+        return this;
+    }
+
+    public boolean isTempTableSnapshotReads() {
+        return tempTableSnapshotReads;
+    }
+
+    public void setTempTableSnapshotReads(boolean tempTableSnapshotReads) {
+        this.tempTableSnapshotReads = tempTableSnapshotReads;
+    }
+
+    public Options tempTableSnapshotReads(boolean b) {
+        this.tempTableSnapshotReads = b;
+        return this;
+    }
+
+    public boolean isColumnarMatViews() {
+        return columnarMatViews;
+    }
+
+    public void setColumnarMatViews(boolean columnarMatViews) {
+        this.columnarMatViews = columnarMatViews;
+    }
+
+    public Options columnarMatViews(boolean b) {
+        this.columnarMatViews = b;
+        return this;
+    }
+
+    public boolean isSemanticResultSetCache() {
+        return semanticResultSetCache;
+    }
+
+    public void setSemanticResultSetCache(boolean semanticResultSetCache) {
+        this.semanticResultSetCache = semanticResultSetCache;
+    }
+
+    public Options semanticResultSetCache(boolean b) {
+        this.semanticResultSetCache = b;
+        return this;
+    }
+
 }
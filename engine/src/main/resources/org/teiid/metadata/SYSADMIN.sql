@@ -633,3 +633,6 @@ CREATE FOREIGN PROCEDURE cancelRequest(OUT cancelled boolean NOT NULL RESULT, IN
 CREATE FOREIGN PROCEDURE terminateTransaction(IN sessionid string NOT NULL);
 
 CREATE FOREIGN PROCEDURE schemaSources(IN schemaName string NOT NULL) RETURNS TABLE (name string, resource string);
+
+CREATE FOREIGN PROCEDURE analyzeColumn(OUT RowsSampled integer NOT NULL RESULT, IN tableName string NOT NULL, IN columnName string NOT NULL, IN sampleSize integer NOT NULL DEFAULT 10000)
+OPTIONS (UPDATECOUNT 0);
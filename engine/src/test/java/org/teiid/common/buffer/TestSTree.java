@@ -20,9 +20,11 @@ package org.teiid.common.buffer;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 import org.teiid.common.buffer.STree.InsertMode;
@@ -31,6 +33,7 @@ import org.teiid.common.buffer.impl.BufferManagerImpl;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.query.processor.CollectionTupleSource;
+import org.teiid.query.sql.lang.CompareCriteria;
 import org.teiid.query.sql.symbol.ElementSymbol;
 
 @SuppressWarnings({"nls", "unchecked"})
@@ -202,4 +205,108 @@ public class TestSTree {
         assertEquals(Integer.valueOf(0), tb.getValueCount());
     }
 
+    @Test public void testPrimitiveKey() throws Exception {
+        BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+        bm.setProcessorBatchSize(16);
+
+        ElementSymbol e1 = new ElementSymbol("x");
+        e1.setType(Long.class);
+        ElementSymbol e2 = new ElementSymbol("y");
+        e2.setType(String.class);
+        List<ElementSymbol> elements = Arrays.asList(e1, e2);
+        STree map = bm.createSTree(elements, "1", 1);
+        assertTrue(map.isPrimitiveKey());
+
+        List<Long> keys = new ArrayList<Long>();
+        for (long i = 0; i < 10000; i++) {
+            keys.add(i * 2 - 5000);
+        }
+        Collections.shuffle(keys, new Random(1));
+        for (Long key : keys) {
+            assertNull(map.insert(Arrays.asList(key, String.valueOf(key)), InsertMode.NEW, -1));
+        }
+        assertNull(map.insert(Arrays.asList(null, "null"), InsertMode.NEW, -1));
+        assertTrue(map.getComparator().isDistinct());
+        assertNotNull(map.insert(Arrays.asList(keys.get(0), "dup"), InsertMode.NEW, -1));
+        assertFalse(map.getComparator().isDistinct());
+
+        for (Long key : keys) {
+            assertEquals(String.valueOf(key), map.find(Arrays.asList(key)).get(1));
+            assertNull(map.find(Arrays.asList(key + 1)));
+        }
+        assertEquals("null", map.find(Arrays.asList((Object)null)).get(1));
+
+        for (int i = 0; i < keys.size(); i += 2) {
+            assertNotNull(map.remove(Arrays.asList(keys.get(i))));
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i % 2 != 0, map.find(Arrays.asList(keys.get(i))) != null);
+        }
+        assertEquals(keys.size() / 2 + 1, map.getRowCount());
+
+        //descending keys use the comparator
+        map.getComparator().setOrderTypes(Arrays.asList(Boolean.FALSE));
+        assertFalse(map.isPrimitiveKey());
+    }
+
+    @Test public void testColumnar() throws Exception {
+        BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+        bm.setProcessorBatchSize(32);
+        bm.setMaxReserveKB(0);//force all to disk
+        BufferFrontedFileStoreCache fsc =(BufferFrontedFileStoreCache)bm.getCache();
+        fsc.setMemoryBufferSpace(1 << 19);
+        fsc.initialize();
+        bm.initialize();
+
+        ElementSymbol e1 = new ElementSymbol("x");
+        e1.setType(Integer.class);
+        ElementSymbol e2 = new ElementSymbol("y");
+        e2.setType(String.class);
+        ElementSymbol e3 = new ElementSymbol("z");
+        e3.setType(Long.class);
+        ElementSymbol e4 = new ElementSymbol("b");
+        e4.setType(Boolean.class);
+        ElementSymbol e5 = new ElementSymbol("r");
+        e5.setType(Integer.class);
+        List<ElementSymbol> elements = Arrays.asList(e1, e2, e3, e4, e5);
+        STree map = bm.createSTree(elements, "1", 1);
+
+        int size = 10000;
+        for (int i = 0; i < size; i++) {
+            assertNull(map.insert(columnarRow(i), InsertMode.ORDERED, size));
+        }
+        map.setColumnar(true);
+        assertTrue(map.isColumnar());
+
+        TupleBrowser tb = new TupleBrowser(map, null, null, true, true);
+        for (int i = 0; i < size; i++) {
+            assertEquals(columnarRow(i), tb.nextTuple());
+        }
+        assertNull(tb.nextTuple());
+        assertEquals(columnarRow(5000), map.find(Arrays.asList(5000)));
+
+        //pages that cannot match are skipped
+        tb = new TupleBrowser(map, null, null, true, true);
+        tb.setPageConditions(Arrays.asList(new ZoneMap.Condition(0, CompareCriteria.GE, 9990)));
+        int count = 0;
+        List<?> last = null;
+        for (List<?> next = tb.nextTuple(); next != null; next = tb.nextTuple()) {
+            count++;
+            last = next;
+        }
+        assertTrue(count >= 10 && count < size);
+        assertEquals(columnarRow(size - 1), last);
+
+        //modified pages are copied
+        assertNotNull(map.insert(Arrays.asList(5000, "x", 1L, null, 1), InsertMode.UPDATE, -1));
+        assertEquals(Arrays.asList(5000, "x", 1L, null, 1), map.find(Arrays.asList(5000)));
+        assertNotNull(map.remove(Arrays.asList(10)));
+        assertNull(map.find(Arrays.asList(10)));
+        assertEquals(size - 1, map.getRowCount());
+    }
+
+    private static List<?> columnarRow(int i) {
+        return Arrays.asList(i, "v" + (i % 10), i * 1000000000L, i % 3 == 0?null:i % 2 == 0, i / 1000);
+    }
+
 }
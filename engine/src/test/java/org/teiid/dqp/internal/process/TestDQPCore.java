@@ -46,10 +46,14 @@ import org.teiid.dqp.service.FakeBufferService;
 import org.teiid.query.optimizer.TestOptimizer;
 import org.teiid.query.optimizer.capabilities.BasicSourceCapabilities;
 import org.teiid.query.optimizer.capabilities.SourceCapabilities.Capability;
+import org.teiid.query.parser.QueryParser;
+import org.teiid.query.sql.lang.Query;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.translator.SourceSystemFunctions;
+import org.teiid.vdb.runtime.VDBKey;
 
 import java.sql.ResultSet;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.concurrent.*;
@@ -689,6 +693,85 @@ public class TestDQPCore {
         assertEquals(1, this.core.getRsCache().getCacheHitCount());
     }
 
+    @Test public void testSemanticRsCache() throws Exception {
+        this.core.getRsCache().setSemanticCache(new SemanticResultSetCache());
+        this.core.getBufferManager().getOptions().requireTeiidCollation(true);
+        agds.setUseIntCounter(true);
+        String userName = "1"; //$NON-NLS-1$
+        int sessionid = 1; //$NON-NLS-1$
+        RequestMessage reqMsg = exampleRequestMessage("select IntKey, StringKey FROM BQT1.SmallA where IntKey >= 2"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        ResultsMessage rm = execute(userName, sessionid, reqMsg);
+        assertNull(rm.getException());
+        int executeCount = agds.getExecuteCount().get();
+
+        //narrower range and fewer columns
+        reqMsg = exampleRequestMessage("select IntKey as x FROM BQT1.SmallA where IntKey > 5 order by x desc"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(Arrays.asList(Arrays.asList(9), Arrays.asList(8), Arrays.asList(7), Arrays.asList(6)), rm.getResultsList());
+        assertEquals(executeCount, agds.getExecuteCount().get());
+        assertEquals(1, this.core.getRsCache().getCacheHitCount());
+
+        reqMsg = exampleRequestMessage("select distinct StringKey FROM BQT1.SmallA where IntKey in (3, 4) and IntKey >= 2"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(1, rm.getResultsList().size());
+        assertEquals(executeCount, agds.getExecuteCount().get());
+        assertEquals(2, this.core.getRsCache().getCacheHitCount());
+
+        //not contained
+        reqMsg = exampleRequestMessage("select IntKey FROM BQT1.SmallA where IntKey > 1"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertNull(rm.getException());
+        assertEquals(executeCount + 1, agds.getExecuteCount().get());
+        assertEquals(2, this.core.getRsCache().getCacheHitCount());
+    }
+
+    @Test public void testSemanticRsCacheStringCollation() throws Exception {
+        this.core.getRsCache().setSemanticCache(new SemanticResultSetCache());
+        agds.setUseIntCounter(true);
+        String userName = "1"; //$NON-NLS-1$
+        int sessionid = 1; //$NON-NLS-1$
+        RequestMessage reqMsg = exampleRequestMessage("select IntKey, StringKey FROM BQT1.SmallA where IntKey >= 2"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        ResultsMessage rm = execute(userName, sessionid, reqMsg);
+        assertNull(rm.getException());
+        int executeCount = agds.getExecuteCount().get();
+
+        //the source may compare strings differently
+        reqMsg = exampleRequestMessage("select IntKey FROM BQT1.SmallA where IntKey > 5 and StringKey = '6'"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertNull(rm.getException());
+        assertEquals(executeCount + 1, agds.getExecuteCount().get());
+
+        reqMsg = exampleRequestMessage("select IntKey, StringKey FROM BQT1.SmallA where IntKey > 5 order by StringKey"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertNull(rm.getException());
+        assertEquals(executeCount + 2, agds.getExecuteCount().get());
+
+        reqMsg = exampleRequestMessage("select IntKey FROM BQT1.SmallA where IntKey > 5 order by IntKey"); //$NON-NLS-1$
+        reqMsg.setUseResultSetCache(true);
+        rm = execute(userName, sessionid, reqMsg);
+        assertEquals(Arrays.asList(Arrays.asList(6), Arrays.asList(7), Arrays.asList(8), Arrays.asList(9)), rm.getResultsList());
+        assertEquals(executeCount + 2, agds.getExecuteCount().get());
+        assertEquals(1, this.core.getRsCache().getCacheHitCount());
+    }
+
+    @Test public void testSemanticRsCacheBounds() throws Exception {
+        SemanticResultSetCache cache = new SemanticResultSetCache();
+        VDBKey vdbKey = new VDBKey("x", 1); //$NON-NLS-1$
+        for (int i = 0; i <= SemanticResultSetCache.MAX_FROMS; i++) {
+            String sql = "select e1 from t" + i; //$NON-NLS-1$
+            cache.register(vdbKey, (Query)QueryParser.getQueryParser().parseCommand(sql), sql);
+        }
+        assertTrue(cache.getCandidates(vdbKey, (Query)QueryParser.getQueryParser().parseCommand("select e2 from t0")).isEmpty()); //$NON-NLS-1$
+        assertEquals(1, cache.getCandidates(vdbKey, (Query)QueryParser.getQueryParser().parseCommand("select e2 from t1")).size()); //$NON-NLS-1$
+    }
+
     @Test public void testLobConcurrency() throws Exception {
         RequestMessage reqMsg = exampleRequestMessage("select to_bytes(stringkey, 'utf-8') FROM BQT1.SmallA");
         reqMsg.setTxnAutoWrapMode(RequestMessage.TXN_WRAP_OFF);
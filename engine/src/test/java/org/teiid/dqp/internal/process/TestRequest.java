@@ -36,14 +36,17 @@ import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.FakeDataManager;
 import org.teiid.query.resolver.QueryResolver;
 import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.visitor.ReferenceCollectorVisitor;
 import org.teiid.query.tempdata.TempTableStore;
 import org.teiid.query.tempdata.TempTableStore.TransactionMode;
 import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.Options;
 
 import java.util.ArrayList;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 @SuppressWarnings("nls")
 public class TestRequest {
@@ -165,4 +168,69 @@ public class TestRequest {
 
         helpProcessMessage(message, cache, workContext);
     }
+
+    @Test public void testAutoParameterize() throws Exception {
+        QueryMetadataInterface metadata = RealMetadataFactory.example1Cached();
+        SessionAwareCache<PreparedPlan> cache = new SessionAwareCache<PreparedPlan>("preparedplan", DefaultCacheFactory.INSTANCE, SessionAwareCache.Type.PREPAREDPLAN, 0);
+        DQPWorkContext workContext = RealMetadataFactory.buildWorkContext(metadata, RealMetadataFactory.example1VDB());
+
+        helpProcessParameterized("SELECT e1 FROM pm1.g1 WHERE e2 = 1 AND e1 IN ('a', 'b')", cache, workContext);
+        assertEquals(0, cache.getCacheHitCount());
+
+        //only the literal values differ
+        Request request = helpProcessParameterized("SELECT e1 FROM pm1.g1 WHERE e2 = 2 AND e1 IN ('c', 'd')", cache, workContext);
+        assertEquals(1, cache.getCacheHitCount());
+        assertEquals(2, request.context.getVariableContext().getGlobalValue("$param/pos0"));
+        assertEquals("d", request.context.getVariableContext().getGlobalValue("$param/pos2"));
+
+        //the decimal cannot be compared as an integer, so it is planned as given
+        request = helpProcessParameterized("SELECT e1 FROM pm1.g1 WHERE e2 = 2.5 AND e1 IN ('c', 'd')", cache, workContext);
+        assertEquals(1, cache.getCacheHitCount());
+        assertTrue(ReferenceCollectorVisitor.getReferences(request.userCommand).isEmpty());
+    }
+
+    @Test public void testAutoParameterizeRowLimit() throws Exception {
+        QueryMetadataInterface metadata = RealMetadataFactory.example1Cached();
+        SessionAwareCache<PreparedPlan> cache = new SessionAwareCache<PreparedPlan>("preparedplan", DefaultCacheFactory.INSTANCE, SessionAwareCache.Type.PREPAREDPLAN, 0);
+        DQPWorkContext workContext = RealMetadataFactory.buildWorkContext(metadata, RealMetadataFactory.example1VDB());
+
+        RequestMessage message = new RequestMessage("SELECT e1 FROM pm1.g1 WHERE e2 = 1");
+        message.setRowLimit(10);
+        Request request = helpProcessParameterized(message, cache, workContext);
+        //the limit is still planned into the command
+        assertTrue(request.addedLimit);
+        assertEquals(0, cache.getCacheHitCount());
+
+        message = new RequestMessage("SELECT e1 FROM pm1.g1 WHERE e2 = 2");
+        message.setRowLimit(10);
+        helpProcessParameterized(message, cache, workContext);
+        assertEquals(1, cache.getCacheHitCount());
+
+        //a different limit needs its own plan
+        message = new RequestMessage("SELECT e1 FROM pm1.g1 WHERE e2 = 3");
+        message.setRowLimit(5);
+        request = helpProcessParameterized(message, cache, workContext);
+        assertTrue(request.addedLimit);
+        assertEquals(1, cache.getCacheHitCount());
+    }
+
+    private Request helpProcessParameterized(String sql, SessionAwareCache<PreparedPlan> cache, DQPWorkContext workContext) throws TeiidComponentException,
+            TeiidProcessingException {
+        return helpProcessParameterized(new RequestMessage(sql), cache, workContext);
+    }
+
+    private Request helpProcessParameterized(RequestMessage message, SessionAwareCache<PreparedPlan> cache, DQPWorkContext workContext) throws TeiidComponentException,
+            TeiidProcessingException {
+        Request request = new Request();
+        ConnectorManagerRepository repo = Mockito.mock(ConnectorManagerRepository.class);
+        workContext.getVDB().addAttachment(ConnectorManagerRepository.class, repo);
+        Mockito.when(repo.getConnectorManager(Mockito.anyString())).thenReturn(new AutoGenDataService());
+
+        request.initialize(message, Mockito.mock(BufferManager.class),
+                new FakeDataManager(), new FakeTransactionService(), TEMP_TABLE_STORE, workContext, cache);
+        request.setOptions(new Options().autoParameterize(true));
+        request.setAuthorizationValidator(new DefaultAuthorizationValidator());
+        request.processRequest();
+        return request;
+    }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.dqp.internal.process;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.teiid.cache.DefaultCacheFactory;
+import org.teiid.common.buffer.BufferManager.TupleSourceType;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.core.util.FileUtils;
+import org.teiid.core.util.UnitTestUtil;
+import org.teiid.dqp.internal.process.SessionAwareCache.CacheID;
+import org.teiid.metadata.FunctionMethod.Determinism;
+import org.teiid.query.parser.ParseInfo;
+import org.teiid.query.processor.FakeProcessorPlan;
+import org.teiid.query.processor.ProcessorPlan;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.CommandContext;
+import org.teiid.vdb.runtime.VDBKey;
+
+@SuppressWarnings({"nls"})
+public class TestResultSetCacheStore {
+
+    private File dir;
+    private DQPWorkContext context;
+    private String fingerprint;
+
+    @Before public void setUp() {
+        dir = UnitTestUtil.getTestScratchFile("rscache");
+        FileUtils.removeDirectoryAndChildren(dir);
+        context = RealMetadataFactory.buildWorkContext(RealMetadataFactory.exampleBQTCached());
+        fingerprint = ResultSetCacheStore.getFingerprint(context.getVDB());
+    }
+
+    private SessionAwareCache<CachedResults> createCache(BufferManagerImpl bm) {
+        SessionAwareCache<CachedResults> cache = new SessionAwareCache<CachedResults>("resultset", DefaultCacheFactory.INSTANCE, SessionAwareCache.Type.RESULTSET, 0);
+        cache.setTupleBufferCache(bm);
+        cache.setPersistentStore(new ResultSetCacheStore(dir, bm, bm));
+        return cache;
+    }
+
+    private CachedResults createResults(BufferManagerImpl bm, int rows) throws Exception {
+        ElementSymbol x = new ElementSymbol("x");
+        x.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        List<ElementSymbol> schema = Arrays.asList(x);
+        TupleBuffer tb = bm.createTupleBuffer(schema, "x", TupleSourceType.FINAL);
+        for (int i = 0; i < rows; i++) {
+            tb.addTuple(Arrays.asList(i));
+        }
+        tb.close();
+        CachedResults results = new CachedResults();
+        ProcessorPlan plan = new FakeProcessorPlan(0);
+        plan.setContext(new CommandContext());
+        results.setResults(tb, plan);
+        return results;
+    }
+
+    @Test public void testRestart() throws Exception {
+        BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+        SessionAwareCache<CachedResults> cache = createCache(bm);
+        CacheID id = new CacheID(context, new ParseInfo(), "select x from y");
+        VDBKey vdbKey = id.getVDBKey();
+        assertEquals(0, cache.getPersistentStore().load(vdbKey, fingerprint, cache));
+        CachedResults results = createResults(bm, 2000);
+        cache.put(id, Determinism.VDB_DETERMINISTIC, results, null);
+        //session scoped entries are not persisted
+        cache.put(new CacheID(context, new ParseInfo(), "select x from z"), Determinism.SESSION_DETERMINISTIC, createResults(bm, 1), null);
+        //expired entries are not restored
+        cache.put(new CacheID(context, new ParseInfo(), "select x from w"), Determinism.VDB_DETERMINISTIC, createResults(bm, 1), 1L);
+        Thread.sleep(10);
+
+        //simulate a restart
+        BufferManagerImpl bm2 = BufferManagerFactory.createBufferManager();
+        SessionAwareCache<CachedResults> cache2 = createCache(bm2);
+        assertEquals(1, cache2.getPersistentStore().load(vdbKey, fingerprint, cache2));
+        assertEquals(0, cache2.getPersistentStore().load(vdbKey, fingerprint, cache2));
+        //the results are read only when needed
+        assertNull(bm2.getTupleBuffer(results.getId()));
+
+        CachedResults restored = cache2.get(new CacheID(context, new ParseInfo(), "select x from y"));
+        assertNotNull(restored);
+        TupleBuffer tb = restored.getResults();
+        assertEquals(2000, tb.getRowCount());
+        assertEquals(Arrays.asList(1999), tb.getBatch(2000).getTuple(2000));
+        assertNull(cache2.get(new CacheID(context, new ParseInfo(), "select x from z")));
+
+        //a different version does not see the entries
+        BufferManagerImpl bm3 = BufferManagerFactory.createBufferManager();
+        SessionAwareCache<CachedResults> cache3 = createCache(bm3);
+        assertEquals(0, cache3.getPersistentStore().load(new VDBKey(vdbKey.getName(), "2"), fingerprint, cache3));
+
+        cache2.clearForVDB(vdbKey);
+        assertEquals(0, cache3.getPersistentStore().load(vdbKey, fingerprint, cache3));
+    }
+
+    @Test public void testDifferentMetadata() throws Exception {
+        BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+        SessionAwareCache<CachedResults> cache = createCache(bm);
+        CacheID id = new CacheID(context, new ParseInfo(), "select x from y");
+        VDBKey vdbKey = id.getVDBKey();
+        cache.getPersistentStore().load(vdbKey, fingerprint, cache);
+        cache.put(id, Determinism.VDB_DETERMINISTIC, createResults(bm, 10), null);
+
+        //the same version redeployed with different metadata
+        SessionAwareCache<CachedResults> cache2 = createCache(BufferManagerFactory.createBufferManager());
+        assertEquals(0, cache2.getPersistentStore().load(vdbKey, "other", cache2));
+        assertEquals(0, cache2.getPersistentStore().getDirectory(vdbKey).list().length);
+    }
+
+    @Test public void testReplaceAndRemove() throws Exception {
+        BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+        SessionAwareCache<CachedResults> cache = createCache(bm);
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        cache.getPersistentStore().setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        VDBKey vdbKey = new CacheID(context, new ParseInfo(), "select x from y").getVDBKey();
+        File vdbDir = cache.getPersistentStore().getDirectory(vdbKey);
+        cache.getPersistentStore().load(vdbKey, fingerprint, cache);
+
+        //the write does not happen on the calling thread
+        cache.put(new CacheID(context, new ParseInfo(), "select x from y"), Determinism.VDB_DETERMINISTIC, createResults(bm, 10), null);
+        assertFalse(vdbDir.exists());
+        //a replaced pending write is not persisted
+        cache.put(new CacheID(context, new ParseInfo(), "select x from y"), Determinism.VDB_DETERMINISTIC, createResults(bm, 20), null);
+        for (Runnable r : tasks) {
+            r.run();
+        }
+        tasks.clear();
+        assertEquals(2, vdbDir.list().length);
+
+        //caching the same key again overwrites the files
+        cache.put(new CacheID(context, new ParseInfo(), "select x from y"), Determinism.VDB_DETERMINISTIC, createResults(bm, 30), null);
+        tasks.get(0).run();
+        tasks.clear();
+        assertEquals(2, vdbDir.list().length);
+
+        cache.remove(new CacheID(context, new ParseInfo(), "select x from y"), Determinism.VDB_DETERMINISTIC);
+        assertEquals(0, vdbDir.list().length);
+        assertEquals(0, cache.getPersistentStore().getDirectorySize());
+    }
+
+    @Test public void testMaxDirectorySize() throws Exception {
+        BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+        SessionAwareCache<CachedResults> cache = createCache(bm);
+        ResultSetCacheStore store = cache.getPersistentStore();
+        VDBKey vdbKey = new CacheID(context, new ParseInfo(), "select x from y").getVDBKey();
+        File vdbDir = store.getDirectory(vdbKey);
+        store.load(vdbKey, fingerprint, cache);
+
+        //expired entries are removed on the next write
+        cache.put(new CacheID(context, new ParseInfo(), "select x from w"), Determinism.VDB_DETERMINISTIC, createResults(bm, 100), 1L);
+        Thread.sleep(10);
+        cache.put(new CacheID(context, new ParseInfo(), "select x from y"), Determinism.VDB_DETERMINISTIC, createResults(bm, 100), null);
+        assertEquals(2, vdbDir.list().length);
+        long size = store.getDirectorySize();
+
+        //the oldest entries are removed once the max is exceeded
+        store.setMaxDirectorySize(size * 3 / 2);
+        cache.put(new CacheID(context, new ParseInfo(), "select x from z"), Determinism.VDB_DETERMINISTIC, createResults(bm, 100), null);
+        assertEquals(2, vdbDir.list().length);
+        assertTrue(store.getDirectorySize() <= size * 3 / 2);
+        assertNotNull(cache.get(new CacheID(context, new ParseInfo(), "select x from y")));
+
+        //the remaining entry is the one reattached
+        SessionAwareCache<CachedResults> cache2 = createCache(BufferManagerFactory.createBufferManager());
+        assertEquals(1, cache2.getPersistentStore().load(vdbKey, fingerprint, cache2));
+        assertNull(cache2.get(new CacheID(context, new ParseInfo(), "select x from y")));
+        assertNotNull(cache2.get(new CacheID(context, new ParseInfo(), "select x from z")));
+    }
+
+}
@@ -20,6 +20,7 @@ package org.teiid.query.function;
 
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.teiid.api.exception.query.FunctionExecutionException;
 import org.teiid.core.TeiidRuntimeException;
 import org.teiid.core.types.BinaryType;
 import org.teiid.core.types.DataTypeManager;
@@ -72,6 +73,10 @@ public class TestFunctionTree {
         return new String(bytes);
     }
 
+    public static int divide(int x, int y) {
+        return x / y;
+    }
+
     @Test public void testLoadErrors() {
         FunctionMethod method = new FunctionMethod(
                 "dummy", null, null, PushDown.CAN_PUSHDOWN, null, "noMethod",  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -172,6 +177,25 @@ public class TestFunctionTree {
         assertEquals(hello, fd.invokeFunction(new Object[] {new BinaryType(hello.getBytes())}, null, null));
     }
 
+    @Test public void testPrimitiveArgs() throws Exception {
+        FunctionMethod method = new FunctionMethod(
+                "dummy", null, null, PushDown.CANNOT_PUSHDOWN, TestFunctionTree.class.getName(), "divide",  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                 Arrays.asList(new FunctionParameter("x", DataTypeManager.DefaultDataTypes.INTEGER), new FunctionParameter("y", DataTypeManager.DefaultDataTypes.INTEGER)), //$NON-NLS-1$ //$NON-NLS-2$
+                 new FunctionParameter("output", DataTypeManager.DefaultDataTypes.INTEGER), //$NON-NLS-1$
+                 true, Determinism.DETERMINISTIC);
+        FunctionTree sys = RealMetadataFactory.SFM.getSystemFunctions();
+        FunctionLibrary fl = new FunctionLibrary(sys, new FunctionTree("foo", new UDFSource(Arrays.asList(method)), true));
+        FunctionDescriptor fd = fl.findFunction("dummy", new Class<?>[] {DataTypeManager.DefaultDataClasses.INTEGER, DataTypeManager.DefaultDataClasses.INTEGER});
+        assertEquals(2, fd.invokeFunction(new Object[] {4, 2}, null, null));
+        assertNull(fd.invokeFunction(new Object[] {4, null}, null, null));
+        try {
+            fd.invokeFunction(new Object[] {4, 0}, null, null);
+            fail();
+        } catch (FunctionExecutionException e) {
+            assertTrue(e.getCause() instanceof ArithmeticException);
+        }
+    }
+
     @Test public void testMultiPartName() throws Exception {
         FunctionMethod method = new FunctionMethod(
                 "x.y.dummy", null, null, PushDown.CANNOT_PUSHDOWN, TestFunctionTree.class.getName(), "toString",  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -406,6 +406,38 @@ public class TestMetadataValidator {
         assertEquals("G1", store.getSchema("vm1").getTable("G2").getMaterializedTable().getName());
     }
 
+    @Test
+    public void testIncrementalMaterializationValidate() throws Exception {
+        String ddl = "CREATE FOREIGN TABLE G1(e1 integer primary key, e2 varchar);";
+        String ddl2 = "CREATE VIEW G2 (e1 integer primary key, e2 varchar) OPTIONS (MATERIALIZED 'true', \"teiid_rel:MATVIEW_INCREMENTAL\" true) AS SELECT e1, e2 FROM pm1.G1";
+
+        buildModel("pm1", true, this.vdb, this.store, ddl);
+        buildModel("vm1", false, this.vdb, this.store, ddl2);
+
+        buildTransformationMetadata();
+
+        ValidatorReport report = new MetadataValidator().validate(this.vdb, this.store);
+        assertFalse(printError(report), report.hasItems());
+        assertEquals(3, store.getSchema("pm1").getTable("G1").getTriggers().size());
+    }
+
+    @Test
+    public void testIncrementalMaterializationJoinValidate() throws Exception {
+        String ddl = "CREATE FOREIGN TABLE G1(e1 integer primary key, e2 varchar); CREATE FOREIGN TABLE G3(e1 integer primary key, e3 varchar);";
+        String ddl2 = "CREATE VIEW G2 (e1 integer primary key, e3 varchar) OPTIONS (MATERIALIZED 'true', \"teiid_rel:MATVIEW_INCREMENTAL\" true) AS SELECT G1.e1, G3.e3 FROM pm1.G1, pm1.G3 WHERE G1.e2 = G3.e3";
+
+        buildModel("pm1", true, this.vdb, this.store, ddl);
+        buildModel("vm1", false, this.vdb, this.store, ddl2);
+
+        buildTransformationMetadata();
+
+        ValidatorReport report = new MetadataValidator().validate(this.vdb, this.store);
+        //changes to G3 cannot be mapped to view rows
+        assertTrue(printError(report), report.hasItems());
+        assertTrue(store.getSchema("pm1").getTable("G1").getTriggers().isEmpty());
+        assertTrue(store.getSchema("pm1").getTable("G3").getTriggers().isEmpty());
+    }
+
     @Test
     public void testExternalMaterializationValidateColumns() throws Exception {
         String ddl = "CREATE FOREIGN TABLE G1(e2 varchar);"
@@ -666,6 +698,16 @@ public class TestMetadataValidator {
         assertTrue(printError(report), report.hasItems());
     }
 
+    @Test public void testIndexIncludedColumns() throws Exception {
+        buildModel("phy1", true, this.vdb, this.store, "CREATE FOREIGN TABLE t1 ( col1 string, col2 integer, col3 integer, index (col1) options (\"teiid_rel:include\" 'col2, col4') )");
+
+        buildTransformationMetadata();
+
+        ValidatorReport report = new MetadataValidator().validate(this.vdb, this.store);
+        assertTrue(printError(report), report.hasItems());
+        assertTrue(printError(report), printError(report).contains("col4"));
+    }
+
     @Test public void testResolvingOrder() throws Exception {
         buildModel("phy1", true, this.vdb, this.store, "CREATE FOREIGN TABLE t1 ( col1 string, col2 integer ) options (updatable true); CREATE view a as select * from t1;");
 
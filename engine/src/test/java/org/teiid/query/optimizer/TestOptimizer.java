@@ -66,6 +66,7 @@ import org.teiid.query.processor.relational.DependentAccessNode;
 import org.teiid.query.processor.relational.DupRemoveNode;
 import org.teiid.query.processor.relational.EnhancedSortMergeJoinStrategy;
 import org.teiid.query.processor.relational.GroupingNode;
+import org.teiid.query.processor.relational.HashJoinStrategy;
 import org.teiid.query.processor.relational.JoinNode;
 import org.teiid.query.processor.relational.JoinStrategy;
 import org.teiid.query.processor.relational.MergeJoinStrategy;
@@ -402,6 +403,8 @@ public class TestOptimizer {
                 }
             } else if (strategy instanceof NestedTableJoinStrategy) {
                 updateCounts(NestedTableJoinStrategy.class, counts, types);
+            } else if (strategy instanceof HashJoinStrategy) {
+                updateCounts(HashJoinStrategy.class, counts, types);
             }
             if (((JoinNode)relationalNode).isDependent()) {
                 updateCounts(DependentJoin.class, counts, types);
@@ -20,15 +20,23 @@ package org.teiid.query.optimizer;
 
 import static org.teiid.query.optimizer.TestOptimizer.*;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.Test;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.optimizer.capabilities.BasicSourceCapabilities;
 import org.teiid.query.optimizer.capabilities.FakeCapabilitiesFinder;
 import org.teiid.query.optimizer.capabilities.SourceCapabilities.Capability;
+import org.teiid.query.processor.HardcodedDataManager;
 import org.teiid.query.processor.ProcessorPlan;
+import org.teiid.query.processor.TestProcessor;
 import org.teiid.query.processor.relational.EnhancedSortMergeJoinStrategy;
+import org.teiid.query.processor.relational.HashJoinStrategy;
 import org.teiid.query.unittest.RealMetadataFactory;
+import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 @SuppressWarnings("nls")
 public class TestPartitionedJoinPlanning {
@@ -71,5 +79,25 @@ public class TestPartitionedJoinPlanning {
         checkNodeTypes(plan, new int[] {1}, new Class[] {EnhancedSortMergeJoinStrategy.class});
     }
 
+    @Test public void testUseHashJoin() throws Exception {
+        String sql = "SELECT pm1.g1.e1, pm1.g2.e2 FROM pm1.g1, pm1.g2 WHERE pm1.g1.e1 = pm1.g2.e1";//$NON-NLS-1$
+
+        FakeCapabilitiesFinder capFinder = new FakeCapabilitiesFinder();
+        BasicSourceCapabilities caps = new BasicSourceCapabilities();
+        caps.setCapabilitySupport(Capability.CRITERIA_COMPARE_EQ, true);
+        capFinder.addCapabilities("pm1", caps); //$NON-NLS-1$
+
+        QueryMetadataInterface metadata = RealMetadataFactory.example1Cached();
+        CommandContext cc = new CommandContext();
+        cc.setOptions(new Options().hashJoin(true));
+
+        ProcessorPlan plan = getPlan(helpGetCommand(sql, metadata), metadata, capFinder, null, true, cc);
+        checkNodeTypes(plan, new int[] {1, 0}, new Class[] {HashJoinStrategy.class, EnhancedSortMergeJoinStrategy.class});
+
+        HardcodedDataManager hdm = new HardcodedDataManager();
+        hdm.addData("SELECT pm1.g1.e1 FROM pm1.g1", new List<?>[] {Arrays.asList("a"), Arrays.asList("b"), Arrays.asList((String)null)});
+        hdm.addData("SELECT pm1.g2.e1, pm1.g2.e2 FROM pm1.g2", new List<?>[] {Arrays.asList("b", 1), Arrays.asList("c", 2), Arrays.asList(null, 3)});
+        TestProcessor.helpProcess(plan, cc, hdm, new List<?>[] {Arrays.asList("b", 1)});
+    }
 
 }
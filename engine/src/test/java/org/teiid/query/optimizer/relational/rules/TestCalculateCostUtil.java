@@ -19,6 +19,9 @@
 package org.teiid.query.optimizer.relational.rules;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
@@ -28,6 +31,7 @@ import org.junit.Test;
 import org.teiid.api.exception.query.QueryMetadataException;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
+import org.teiid.core.types.DataTypeManager;
 import org.teiid.metadata.Column;
 import org.teiid.query.metadata.QueryMetadataInterface;
 import org.teiid.query.metadata.TransformationMetadata;
@@ -567,6 +571,93 @@ public class TestCalculateCostUtil {
         helpTestEstimateCost(critString, 100, 33, metadata);
     }
 
+    @Test public void testEstimateCostOfCriteriaMostCommonValues() throws Exception {
+        TransformationMetadata metadata = RealMetadataFactory.example1();
+        Column e2 = metadata.getElementID("pm1.g1.e2"); //$NON-NLS-1$
+        e2.setDistinctValues(10);
+        e2.setProperty(ColumnHistogram.MOST_COMMON_VALUES, "1,.5,2,.1"); //$NON-NLS-1$
+
+        helpTestEstimateCost("pm1.g1.e2 = 1", 1000, 500, metadata); //$NON-NLS-1$
+        //the remaining .4 is spread over the other 8 values
+        helpTestEstimateCost("pm1.g1.e2 = 7", 1000, 50, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e2 in (1, 2)", 1000, 600, metadata); //$NON-NLS-1$
+    }
+
+    @Test public void testEstimateCostOfCriteriaHistogram() throws Exception {
+        TransformationMetadata metadata = RealMetadataFactory.example1();
+        Column e2 = metadata.getElementID("pm1.g1.e2"); //$NON-NLS-1$
+        e2.setMinimumValue("0"); //$NON-NLS-1$
+        e2.setMaximumValue("1000"); //$NON-NLS-1$
+        e2.setProperty(ColumnHistogram.HISTOGRAM, "0,10,20,30,1000"); //$NON-NLS-1$
+
+        //min/max alone would estimate 20
+        helpTestEstimateCost("pm1.g1.e2 < 20", 1000, 500, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e2 > 515", 1000, 125, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e2 = 2000", 1000, 1, metadata); //$NON-NLS-1$
+        //a value outside of the histogram is still treated as one of the distinct values
+        e2.setDistinctValues(100);
+        helpTestEstimateCost("pm1.g1.e2 = 2000", 1000, 10, metadata); //$NON-NLS-1$
+    }
+
+    @Test public void testHistogramCache() throws Exception {
+        TransformationMetadata metadata = RealMetadataFactory.example1();
+        Column e2 = metadata.getElementID("pm1.g1.e2"); //$NON-NLS-1$
+        e2.setProperty(ColumnHistogram.HISTOGRAM, "0,10,20,30,1000"); //$NON-NLS-1$
+
+        ColumnHistogram histogram = ColumnHistogram.getHistogram(e2, DataTypeManager.DefaultDataClasses.INTEGER, metadata);
+        assertSame(histogram, ColumnHistogram.getHistogram(e2, DataTypeManager.DefaultDataClasses.INTEGER, metadata));
+
+        //a new value is parsed again
+        e2.setProperty(ColumnHistogram.HISTOGRAM, "0,1000"); //$NON-NLS-1$
+        assertNotSame(histogram, ColumnHistogram.getHistogram(e2, DataTypeManager.DefaultDataClasses.INTEGER, metadata));
+        helpTestEstimateCost("pm1.g1.e2 < 500", 1000, 500, metadata); //$NON-NLS-1$
+    }
+
+    @Test public void testEstimateCostOfCriteriaHistogramNulls() throws Exception {
+        TransformationMetadata metadata = RealMetadataFactory.example1();
+        metadata.getGroupID("pm1.g1").setCardinality(1000); //$NON-NLS-1$
+        Column e2 = metadata.getElementID("pm1.g1.e2"); //$NON-NLS-1$
+        e2.setNullValues(500);
+        e2.setDistinctValues(10);
+        e2.setProperty(ColumnHistogram.HISTOGRAM, "0,10,20,30,1000"); //$NON-NLS-1$
+
+        //the statistics only describe the half of the rows that are not null
+        helpTestEstimateCost("pm1.g1.e2 < 20", 1000, 250, metadata); //$NON-NLS-1$
+        e2.setProperty(ColumnHistogram.MOST_COMMON_VALUES, "1,.5,2,.1"); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e2 = 1", 1000, 250, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e2 in (1, 2)", 1000, 300, metadata); //$NON-NLS-1$
+    }
+
+    @Test public void testBuildHistogram() throws Exception {
+        String[] result = ColumnHistogram.build(Arrays.asList(1, 3, 1, null, 5, 1, 2, 4, 1), 2, 2);
+        assertEquals("1,1,5", result[0]); //$NON-NLS-1$
+        assertEquals("1,0.5", result[1]); //$NON-NLS-1$
+
+        //no nulls and no values more common than average
+        result = ColumnHistogram.build(Arrays.asList(null, null), 2, 2);
+        assertNull(result[0]);
+        assertNull(result[1]);
+        result = ColumnHistogram.build(Arrays.asList(4, 1, 3, 2), 4, 2);
+        assertEquals("1,1,2,3,4", result[0]); //$NON-NLS-1$
+        assertNull(result[1]);
+
+        //the built values are read back
+        TransformationMetadata metadata = RealMetadataFactory.example1();
+        Column e2 = metadata.getElementID("pm1.g1.e2"); //$NON-NLS-1$
+        result = ColumnHistogram.build(Arrays.asList(1, 3, 1, null, 5, 1, 2, 4, 1), 2, 2);
+        e2.setProperty(ColumnHistogram.HISTOGRAM, result[0]);
+        e2.setProperty(ColumnHistogram.MOST_COMMON_VALUES, result[1]);
+        e2.setDistinctValues(5);
+        helpTestEstimateCost("pm1.g1.e2 = 1", 1000, 500, metadata); //$NON-NLS-1$
+        helpTestEstimateCost("pm1.g1.e2 < 3", 1000, 750, metadata); //$NON-NLS-1$
+    }
+
+    @Test public void testSplitHistogram() throws Exception {
+        String joined = ColumnHistogram.join(Arrays.asList("a,b", "c\\")); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals("a\\,b,c\\\\", joined); //$NON-NLS-1$
+        assertEquals(Arrays.asList("a,b", "c\\"), ColumnHistogram.split(joined)); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
     /**
      *  Time Criteria - case using valid max and min time strings.
      */
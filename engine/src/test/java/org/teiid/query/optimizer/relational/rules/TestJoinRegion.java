@@ -19,6 +19,8 @@
 package org.teiid.query.optimizer.relational.rules;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 
 import org.teiid.query.optimizer.relational.plantree.NodeConstants;
@@ -26,7 +28,12 @@ import org.teiid.query.optimizer.relational.plantree.NodeFactory;
 import org.teiid.query.optimizer.relational.plantree.PlanNode;
 import org.teiid.query.optimizer.relational.rules.JoinRegion;
 import org.teiid.query.optimizer.relational.rules.RulePlanJoins;
+import org.teiid.query.sql.lang.CompareCriteria;
 import org.teiid.query.sql.lang.JoinType;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.sql.symbol.GroupSymbol;
+import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 
 import junit.framework.TestCase;
@@ -114,4 +121,39 @@ public class TestJoinRegion extends TestCase {
         assertEquals(NodeConstants.Types.ACCESS, region.getJoinRoot().getType());
     }
 
+    /**
+     * A chain of sources with non-equi join criteria of fixed selectivity, so that scoring does not need metadata
+     */
+    public void testDynamicProgrammingJoinOrder() throws Exception {
+        JoinRegion region = new JoinRegion();
+        int count = RulePlanJoins.EXHAUSTIVE_SEARCH_GROUPS + 5;
+        List<GroupSymbol> groups = new ArrayList<GroupSymbol>();
+        for (int i = 0; i < count; i++) {
+            PlanNode accessNode = NodeFactory.getNewNode(NodeConstants.Types.ACCESS);
+            GroupSymbol group = new GroupSymbol("g" + i); //$NON-NLS-1$
+            groups.add(group);
+            accessNode.addGroup(group);
+            accessNode.setProperty(NodeConstants.Info.EST_CARDINALITY, new Float((i * 7919) % 1000 + 10));
+            region.addJoinSourceNode(accessNode);
+        }
+        for (int i = 0; i + 1 < count; i++) {
+            PlanNode critNode = NodeFactory.getNewNode(NodeConstants.Types.SELECT);
+            critNode.addGroup(groups.get(i));
+            critNode.addGroup(groups.get(i + 1));
+            critNode.setProperty(NodeConstants.Info.SELECT_CRITERIA, new CompareCriteria(new ElementSymbol("e", groups.get(i)), CompareCriteria.LT, new ElementSymbol("e", groups.get(i + 1)))); //$NON-NLS-1$ //$NON-NLS-2$
+            critNode.setProperty(NodeConstants.Info.EST_SELECTIVITY, new Float(.01 * (i % 3 + 1)));
+            region.getCriteriaNodes().add(critNode);
+        }
+
+        CommandContext cc = new CommandContext();
+        RulePlanJoins rule = new RulePlanJoins();
+        Object[] heuristic = rule.findBestJoinOrder(region, null, null, cc);
+        cc.setOptions(new Options().dpJoinEnumeration(true));
+        Object[] dp = rule.findBestJoinOrder(region, null, null, cc);
+
+        assertEquals(count, dp.length);
+        assertEquals(count, new HashSet<Object>(Arrays.asList(dp)).size());
+        assertTrue(region.scoreRegion(dp, 0, null, null, cc, false) < region.scoreRegion(heuristic, 0, null, null, cc, false));
+    }
+
 }
@@ -1632,5 +1632,32 @@ public class TestAggregateProcessing {
         helpProcess(plan, TestProcessor.createCommandContext(), dataManager, expected);
     }
 
-}
+    @Test public void testHashAggregate() throws Exception {
+        String sql = "SELECT e1, count(*), max(e2) FROM pm1.g1 GROUP BY e1"; //$NON-NLS-1$
+
+        TransformationMetadata metadata = RealMetadataFactory.example1();
+        RealMetadataFactory.setCardinality("pm1.g1", 1000, metadata);
+        metadata.getElementID("pm1.g1.e1").setDistinctValues(10);
+
+        CommandContext cc = TestProcessor.createCommandContext();
+        cc.setOptions(new Options().hashAggregate(true));
+        CapabilitiesFinder capFinder = new DefaultCapabilitiesFinder(new BasicSourceCapabilities());
+
+        ProcessorPlan plan = TestProcessor.helpGetPlan(helpParse(sql), metadata, capFinder, cc);
+        assertTrue(plan.getDescriptionProperties().toString().contains("Hash Aggregate"));
 
+        HardcodedDataManager hdm = new HardcodedDataManager();
+        hdm.addData("SELECT g_0.e1, g_0.e2 FROM pm1.g1 AS g_0", Arrays.asList("a", 1), Arrays.asList("a", 3), Arrays.asList("a", null));
+        helpProcess(plan, cc, hdm, new List[] {Arrays.asList("a", 3, 3)});
+
+        //the ordering is expected from the grouping, so hashing cannot be used
+        plan = TestProcessor.helpGetPlan(helpParse(sql + " ORDER BY e1"), metadata, capFinder, cc); //$NON-NLS-1$
+        assertFalse(plan.getDescriptionProperties().toString().contains("Hash Aggregate"));
+
+        //without a significant reduction the sort based grouping is used
+        metadata.getElementID("pm1.g1.e1").setDistinctValues(500);
+        plan = TestProcessor.helpGetPlan(helpParse(sql), metadata, capFinder, cc);
+        assertFalse(plan.getDescriptionProperties().toString().contains("Hash Aggregate"));
+    }
+
+}
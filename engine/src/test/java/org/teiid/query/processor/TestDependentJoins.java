@@ -61,6 +61,7 @@ import org.teiid.query.sql.lang.Query;
 import org.teiid.query.sql.lang.SetCriteria;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 import org.teiid.translator.ExecutionFactory.NullOrder;
 
 @SuppressWarnings({"rawtypes", "unchecked", "nls"})
@@ -956,6 +957,14 @@ public class TestDependentJoins {
                 new HashSet<String>(dataManager.getQueries()));
     }
 
+    @Test public void testDependentJoinBackoffRangeFilter() throws Exception {
+        FakeDataManager dataManager = helpTestBackoff(true, 1, 1000, true);
+
+        //the string key cannot be sent as a range, but the integer key can
+        assertEquals(new HashSet<String>(Arrays.asList("SELECT pm6.g1.e1, pm6.g1.e2 FROM pm6.g1 WHERE (pm6.g1.e2 >= 0) AND (pm6.g1.e2 <= 2) ORDER BY pm6.g1.e1, pm6.g1.e2", "SELECT pm1.g1.e1, pm1.g1.e2 FROM pm1.g1")),
+                new HashSet<String>(dataManager.getQueries()));
+    }
+
     @Test public void testDependentJoinBackoff1() throws Exception {
         FakeDataManager dataManager = helpTestBackoff(false, 1, 1000);
 
@@ -973,6 +982,49 @@ public class TestDependentJoins {
         assertEquals(4, new HashSet<String>(dataManager.getQueries()).size());
     }
 
+    @Test public void testAdaptiveDependentJoinBackoff() throws Exception {
+        String sql = "SELECT pm1.g1.e1 FROM pm1.g1, pm6.g1 WHERE pm1.g1.e1=pm6.g1.e1 and pm1.g1.e2=pm6.g1.e2"; //$NON-NLS-1$
+
+        //the independent side is estimated at 1 row, but returns many more
+        FakeDataManager dataManager = new FakeDataManager();
+        List<?>[] independent = new List<?>[20];
+        for (int i = 0; i < independent.length; i++) {
+            independent[i] = Arrays.asList(String.valueOf((char)('a' + i)), i, Boolean.FALSE, 0.0);
+        }
+        dataManager.registerTuples(RealMetadataFactory.example1Cached(), "pm1.g1", independent);
+        dataManager.registerTuples(RealMetadataFactory.example1Cached(), "pm6.g1", new List<?>[] {
+                Arrays.asList("b", 1), Arrays.asList("d", 3), Arrays.asList("e", 1)});
+
+        TransformationMetadata fakeMetadata = RealMetadataFactory.example1();
+        RealMetadataFactory.setCardinality("pm1.g1", 1, fakeMetadata);
+        RealMetadataFactory.setCardinality("pm6.g1", 1000, fakeMetadata);
+
+        FakeCapabilitiesFinder capFinder = new FakeCapabilitiesFinder();
+        BasicSourceCapabilities depcaps = new BasicSourceCapabilities();
+        depcaps.setCapabilitySupport(Capability.CRITERIA_IN, true);
+        depcaps.setSourceProperty(Capability.MAX_IN_CRITERIA_SIZE, 1);
+        depcaps.setCapabilitySupport(Capability.QUERY_ORDERBY, true);
+
+        BasicSourceCapabilities caps = new BasicSourceCapabilities();
+        caps.setCapabilitySupport(Capability.CRITERIA_IN, true);
+
+        capFinder.addCapabilities("pm1", caps); //$NON-NLS-1$
+        capFinder.addCapabilities("pm6", depcaps); //$NON-NLS-1$
+
+        ProcessorPlan plan = TestOptimizer.helpPlan(sql, fakeMetadata, new String[] {
+                "SELECT pm6.g1.e1, pm6.g1.e2 FROM pm6.g1 WHERE (pm6.g1.e1 IN (<dependent values>)) AND (pm6.g1.e2 IN (<dependent values>)) ORDER BY pm6.g1.e1, pm6.g1.e2",
+                "SELECT pm1.g1.e1, pm1.g1.e2 FROM pm1.g1"
+        }, capFinder, ComparisonMode.EXACT_COMMAND_STRING);
+
+        CommandContext cc = createCommandContext();
+        cc.setOptions(new Options().adaptiveDependentJoins(true));
+        helpProcess(plan, cc, dataManager, new List<?>[] {Arrays.asList("b"), Arrays.asList("d")});
+
+        //rather than a query per value, the dependent side was read once
+        assertEquals(new HashSet<String>(Arrays.asList("SELECT pm6.g1.e1, pm6.g1.e2 FROM pm6.g1 ORDER BY pm6.g1.e1, pm6.g1.e2", "SELECT pm1.g1.e1, pm1.g1.e2 FROM pm1.g1")),
+                new HashSet<String>(dataManager.getQueries()));
+    }
+
     @Test public void testIssue1899() throws Exception {
         String sql = "SELECT pm1.g1.e1 FROM pm1.g1, pm3.g1 WHERE pm1.g1.e1=pm3.g1.e1"; //$NON-NLS-1$
 
@@ -1016,6 +1068,12 @@ public class TestDependentJoins {
     private FakeDataManager helpTestBackoff(boolean setNdv, int smallCardinality, int largeCardinality) throws Exception,
             QueryMetadataException, TeiidComponentException,
             TeiidProcessingException {
+        return helpTestBackoff(setNdv, smallCardinality, largeCardinality, false);
+    }
+
+    private FakeDataManager helpTestBackoff(boolean setNdv, int smallCardinality, int largeCardinality, boolean rangeFilter) throws Exception,
+            QueryMetadataException, TeiidComponentException,
+            TeiidProcessingException {
         // Create query
         String sql = "SELECT pm1.g1.e1 FROM pm1.g1, pm6.g1 WHERE pm1.g1.e1=pm6.g1.e1 and pm1.g1.e2=pm6.g1.e2"; //$NON-NLS-1$
 
@@ -1041,6 +1099,7 @@ public class TestDependentJoins {
         depcaps.setCapabilitySupport(Capability.CRITERIA_IN, true);
         depcaps.setSourceProperty(Capability.MAX_IN_CRITERIA_SIZE, 1);
         depcaps.setCapabilitySupport(Capability.QUERY_ORDERBY, true);
+        depcaps.setCapabilitySupport(Capability.DEPENDENT_JOIN_RANGE_FILTER, rangeFilter);
 
         BasicSourceCapabilities caps = new BasicSourceCapabilities();
         caps.setCapabilitySupport(Capability.CRITERIA_IN, true);
@@ -1749,4 +1808,33 @@ public class TestDependentJoins {
                     "SELECT g_0.e1 AS c_0 FROM pm1.g1 AS g_0 ORDER BY c_0"}, new DefaultCapabilitiesFinder(caps), ComparisonMode.EXACT_COMMAND_STRING); //$NON-NLS-1$
     }
 
+    @Test public void testParallelUnionWithDependentJoinAndProcedure() throws Exception {
+        //only the plain access branches are processed in parallel
+        String sql = "select e1 from (select pm1.g1.e1 from /*+ makedep */ pm1.g1, pm2.g1 where pm1.g1.e1 = pm2.g1.e1 " //$NON-NLS-1$
+                + "union all select e1 from (exec pm1.sq1()) as x union all select e1 from pm1.g1 union all select e1 from pm2.g1) as y order by e1"; //$NON-NLS-1$
+
+        QueryMetadataInterface metadata = RealMetadataFactory.example1Cached();
+        FakeDataManager dataManager = new FakeDataManager();
+        dataManager.registerTuples(metadata, "pm1.g1", new List<?>[] { //$NON-NLS-1$
+                Arrays.asList("a", 0, Boolean.FALSE, 2.0), //$NON-NLS-1$
+                Arrays.asList("b", 1, Boolean.TRUE, null), //$NON-NLS-1$
+                Arrays.asList("c", 2, Boolean.FALSE, 0.0)}); //$NON-NLS-1$
+        dataManager.registerTuples(metadata, "pm2.g1", new List<?>[] { //$NON-NLS-1$
+                Arrays.asList("b", 0, Boolean.FALSE, 2.0), //$NON-NLS-1$
+                Arrays.asList("c", 1, Boolean.TRUE, null), //$NON-NLS-1$
+                Arrays.asList("d", 2, Boolean.FALSE, 0.0)}); //$NON-NLS-1$
+
+        ProcessorPlan plan = TestProcessor.helpGetPlan(sql, metadata);
+        assertTrue(plan.toString(), plan.toString().contains("DependentAccessNode")); //$NON-NLS-1$
+
+        CommandContext cc = createCommandContext();
+        cc.setOptions(new Options().parallelUnion(true));
+        cc.setUserRequestSourceConcurrency(4);
+        helpProcess(plan, cc, dataManager, new List<?>[] {
+                Arrays.asList("a"), Arrays.asList("a"), //$NON-NLS-1$ //$NON-NLS-2$
+                Arrays.asList("b"), Arrays.asList("b"), Arrays.asList("b"), Arrays.asList("b"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                Arrays.asList("c"), Arrays.asList("c"), Arrays.asList("c"), Arrays.asList("c"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                Arrays.asList("d")}); //$NON-NLS-1$
+    }
+
 }
@@ -34,12 +34,23 @@ import org.teiid.core.TeiidProcessingException;
 import org.teiid.dqp.internal.process.CachedResults;
 import org.teiid.dqp.internal.process.QueryProcessorFactoryImpl;
 import org.teiid.dqp.internal.process.SessionAwareCache;
+import org.teiid.metadata.MetadataFactory;
+import org.teiid.metadata.MetadataStore;
+import org.teiid.query.metadata.CompositeMetadataStore;
+import org.teiid.query.metadata.MetadataValidator;
+import org.teiid.query.metadata.SystemMetadata;
 import org.teiid.query.metadata.TempMetadataAdapter;
 import org.teiid.query.metadata.TempMetadataID;
 import org.teiid.query.metadata.TransformationMetadata;
 import org.teiid.query.optimizer.capabilities.CapabilitiesFinder;
 import org.teiid.query.optimizer.capabilities.DefaultCapabilitiesFinder;
 import org.teiid.query.optimizer.relational.RelationalPlanner;
+import org.teiid.query.parser.QueryParser;
+import org.teiid.query.parser.TestDDLParser;
+import org.teiid.query.resolver.QueryResolver;
+import org.teiid.query.rewriter.QueryRewriter;
+import org.teiid.query.sql.lang.Command;
+import org.teiid.query.sql.proc.CreateProcedureCommand;
 import org.teiid.query.tempdata.GlobalTableStoreImpl;
 import org.teiid.query.tempdata.GlobalTableStoreImpl.MatTableInfo;
 import org.teiid.query.tempdata.TempTableDataManager;
@@ -47,6 +58,7 @@ import org.teiid.query.tempdata.TempTableStore;
 import org.teiid.query.tempdata.TempTableStore.TransactionMode;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.validator.ValidatorReport;
 
 @SuppressWarnings({"nls", "unchecked"})
 public class TestMaterialization {
@@ -180,4 +192,55 @@ public class TestMaterialization {
         assertEquals("SELECT MatView.VGroup2a.*, ucase(x) FROM MatView.VGroup2a option nocache MatView.VGroup2a", id.getQueryNode().getQuery());
     }
 
+    private String rewriteIncremental(String sql) throws Exception {
+        MetadataFactory mf = TestDDLParser.helpParse("CREATE FOREIGN TABLE t (k integer primary key, g string, v integer) OPTIONS (updatable true); "
+                + "CREATE VIEW v1 (g string primary key, s long, c integer) "
+                + "OPTIONS (MATERIALIZED true, \"teiid_rel:MATVIEW_INCREMENTAL\" true) AS select g, sum(v), count(*) from t group by g;", "m");
+        MetadataStore store = mf.asMetadataStore();
+        CompositeMetadataStore cms = new CompositeMetadataStore(Arrays.asList(store, SystemMetadata.getInstance().getSystemStore()));
+        TransformationMetadata tm = RealMetadataFactory.createTransformationMetadata(cms, "vdb");
+        ValidatorReport report = new MetadataValidator().validate(tm.getVdbMetaData(), store);
+        assertFalse(report.getFailureMessage(), report.hasItems());
+        Command command = QueryParser.getQueryParser().parseCommand(sql);
+        QueryResolver.resolveCommand(command, tm);
+        command = QueryRewriter.rewrite(command, tm, new CommandContext());
+        assertTrue(command instanceof CreateProcedureCommand);
+        return command.toString();
+    }
+
+    @Test public void testIncrementalAggregateInsert() throws Exception {
+        String sql = rewriteIncremental("insert into t (k, g, v) values (1, 'a', 2)");
+        //the inserted rows are captured to refresh just the affected groups
+        assertTrue(sql, sql.contains("FROM #temp"));
+        assertTrue(sql, sql.contains("SYSAdmin.refreshMatViewRow("));
+        assertFalse(sql, sql.contains("SYSAdmin.refreshMatView("));
+    }
+
+    @Test public void testIncrementalAggregateDelete() throws Exception {
+        String sql = rewriteIncremental("delete from t where k = 1");
+        assertTrue(sql, sql.contains("SYSAdmin.refreshMatViewRow("));
+        assertFalse(sql, sql.contains("SYSAdmin.refreshMatView("));
+    }
+
+    @Test public void testIncrementalInsertWithoutKeyRefresh() throws Exception {
+        String sql = rewriteIncremental("insert into t (k, v) values (1, 2)");
+        //the group cannot be determined, so no #temp is created and the values are inserted directly
+        assertFalse(sql, sql.contains("#temp"));
+        assertTrue(sql, sql.contains("VALUES (1, 2)"));
+        assertTrue(sql, sql.contains("SYSAdmin.refreshMatView("));
+    }
+
+    @Test public void testIncrementalUpsertRefresh() throws Exception {
+        String sql = rewriteIncremental("upsert into t (k, g, v) values (1, 'a', 2)");
+        //an upsert may move an existing row to a different group
+        assertFalse(sql, sql.contains("#temp"));
+        assertTrue(sql, sql.contains("SYSAdmin.refreshMatView("));
+    }
+
+    @Test public void testIncrementalKeyUpdateRefresh() throws Exception {
+        String sql = rewriteIncremental("update t set g = 'b' where k = 1");
+        assertFalse(sql, sql.contains("#temp"));
+        assertTrue(sql, sql.contains("SYSAdmin.refreshMatView("));
+    }
+
 }
@@ -49,6 +49,7 @@ import org.teiid.query.processor.relational.WindowFunctionProjectNode;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 import org.teiid.translator.ExecutionFactory.NullOrder;
 
 @SuppressWarnings({"nls", "unchecked"})
@@ -292,6 +293,95 @@ public class TestWindowFunctions {
         helpProcess(plan, dataManager, expected);
     }
 
+    @Test public void testStreamingCountDuplicates() throws Exception {
+        String sql = "select e1, count(e1) over (order by e1) as c from pm1.g1 order by e1";
+
+        List<?>[] expected = new List[] {
+                Arrays.asList("a", 2),
+                Arrays.asList("a", 2),
+                Arrays.asList("b", 3),
+        };
+
+        HardcodedDataManager dataManager = new HardcodedDataManager();
+        dataManager.addData("SELECT g_0.e1 AS c_0 FROM pm1.g1 AS g_0 ORDER BY c_0", new List[] {Arrays.asList("a"), Arrays.asList("a"), Arrays.asList("b")});
+        ProcessorPlan plan = helpGetPlan(sql, RealMetadataFactory.example1Cached(), TestOptimizer.getGenericFinder());
+
+        CommandContext cc = createCommandContext();
+        cc.setOptions(new Options().streamingWindowFunctions(true));
+        helpProcess(plan, cc, dataManager, expected);
+    }
+
+    @Test public void testStreamingPartitioned() throws Exception {
+        String sql = "select e1, e2, rank() over (partition by e1 order by e2) as r, sum(e2) over (partition by e1 order by e2) as s from pm1.g1 order by e1, e2";
+
+        List<?>[] expected = new List[] {
+                Arrays.asList("a", 1, 1, 2L),
+                Arrays.asList("a", 1, 1, 2L),
+                Arrays.asList("a", 3, 3, 5L),
+                Arrays.asList("b", 2, 1, 2L),
+        };
+
+        HardcodedDataManager dataManager = new HardcodedDataManager();
+        dataManager.addData("SELECT g_0.e1 AS c_0, g_0.e2 AS c_1 FROM pm1.g1 AS g_0 ORDER BY c_0, c_1", new List[] {Arrays.asList("a", 1), Arrays.asList("a", 1), Arrays.asList("a", 3), Arrays.asList("b", 2)});
+        ProcessorPlan plan = helpGetPlan(sql, RealMetadataFactory.example1Cached(), TestOptimizer.getGenericFinder());
+
+        CommandContext cc = createCommandContext();
+        cc.setOptions(new Options().streamingWindowFunctions(true));
+        helpProcess(plan, cc, dataManager, expected);
+    }
+
+    @Test public void testStreamingSourceCollation() throws Exception {
+        String sql = "select e1, e2, count(e2) over (partition by e1 order by e2) as c from pm1.g1 order by e1, e2";
+
+        //the source sorts case insensitively, so its order cannot be used to stream
+        List<?>[] expected = new List[] {
+                Arrays.asList("a", 1, 1),
+                Arrays.asList("b", 1, 1),
+                Arrays.asList("B", 2, 1),
+                Arrays.asList("b", 3, 2),
+        };
+
+        HardcodedDataManager dataManager = new HardcodedDataManager();
+        dataManager.addData("SELECT g_0.e1 AS c_0, g_0.e2 AS c_1 FROM pm1.g1 AS g_0 ORDER BY c_0, c_1", new List[] {Arrays.asList("a", 1), Arrays.asList("b", 1), Arrays.asList("B", 2), Arrays.asList("b", 3)});
+        ProcessorPlan plan = helpGetPlan(sql, RealMetadataFactory.example1Cached(), TestOptimizer.getGenericFinder());
+
+        CommandContext cc = createCommandContext();
+        cc.setOptions(new Options().streamingWindowFunctions(true));
+        helpProcess(plan, cc, dataManager, expected);
+    }
+
+    @Test public void testStreamingPeersSpanBatches() throws Exception {
+        String sql = "select e2, count(e2) over (order by e2) as c from pm1.g1 order by e2";
+
+        List<?>[] expected = new List[] {
+                Arrays.asList(1, 5),
+                Arrays.asList(1, 5),
+                Arrays.asList(1, 5),
+                Arrays.asList(1, 5),
+                Arrays.asList(1, 5),
+                Arrays.asList(2, 6),
+        };
+
+        QueryMetadataInterface metadata = RealMetadataFactory.example1Cached();
+        FakeDataManager dataManager = new FakeDataManager();
+        dataManager.registerTuples(metadata, "pm1.g1", new List<?>[] {
+                Arrays.asList("a", 1, Boolean.FALSE, 1.0),
+                Arrays.asList("b", 2, Boolean.FALSE, 1.0),
+                Arrays.asList("c", 1, Boolean.FALSE, 1.0),
+                Arrays.asList("d", 1, Boolean.FALSE, 1.0),
+                Arrays.asList("e", 1, Boolean.FALSE, 1.0),
+                Arrays.asList("f", 1, Boolean.FALSE, 1.0)});
+        //the input is sorted by the engine
+        BasicSourceCapabilities caps = getTypicalCapabilities();
+        caps.setCapabilitySupport(Capability.QUERY_ORDERBY, false);
+        ProcessorPlan plan = helpGetPlan(sql, metadata, new DefaultCapabilitiesFinder(caps));
+
+        CommandContext cc = createCommandContext();
+        cc.setProcessorBatchSize(2);
+        cc.setOptions(new Options().streamingWindowFunctions(true));
+        helpProcess(plan, cc, dataManager, expected);
+    }
+
     @Test public void testEmptyOver() throws Exception {
         String sql = "select e1, max(e1) over () as c from pm1.g1";
 
@@ -1228,6 +1318,37 @@ public class TestWindowFunctions {
         helpProcess(plan, dataManager, expected);
     }
 
+    @Test public void testRowsLargeFrame() throws Exception {
+        String sql = "select e2, sum(e2) over (partition by e1 order by e2 ROWS BETWEEN 20 PRECEDING AND 20 FOLLOWING) s, "
+                + "avg(e2) over (partition by e1 order by e2 ROWS BETWEEN 20 PRECEDING AND 20 FOLLOWING) a, "
+                + "min(e2) over (partition by e1 order by e2 ROWS BETWEEN 20 PRECEDING AND 20 FOLLOWING) mn, "
+                + "max(e2) over (partition by e1 order by e2 ROWS BETWEEN 20 PRECEDING AND 20 FOLLOWING) mx, "
+                + "count(e2) over (partition by e1 order by e2 ROWS BETWEEN 20 PRECEDING AND 20 FOLLOWING) c from pm1.g1";
+
+        int rows = 100;
+        List<?>[] data = new List[rows];
+        List<?>[] expected = new List[rows];
+        for (int i = 0; i < rows; i++) {
+            data[i] = Arrays.asList(i%2==0?"a":"b", i, null, null);
+            //partitions are the even and odd values, so the frame is i +- 40 with the same parity
+            int min = Math.max(i - 40, i%2);
+            int max = Math.min(i + 40, rows - 2 + i%2);
+            long sum = 0;
+            int count = 0;
+            for (int j = min; j <= max; j+=2) {
+                sum += j;
+                count++;
+            }
+            expected[i] = Arrays.asList(i, sum, (double)sum/count, min, max, count);
+        }
+
+        FakeDataManager dataManager = new FakeDataManager();
+        dataManager.registerTuples(RealMetadataFactory.example1Cached(), "pm1.g1", data);
+        ProcessorPlan plan = helpGetPlan(sql, RealMetadataFactory.example1Cached(), TestOptimizer.getGenericFinder());
+
+        helpProcess(plan, dataManager, expected);
+    }
+
     @Test public void testPartitionedRows() throws Exception {
         String sql = "select e1, e2, count(e2) over (partition by e1 order by e2 ROWS BETWEEN CURRENT ROW AND UNBOUNDED FOLLOWING) c from pm1.g1";
 
@@ -42,6 +42,7 @@ import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
 import org.teiid.core.util.TimestampWithTimezone;
 import org.teiid.query.eval.Evaluator;
+import org.teiid.query.eval.ExpressionCompiler;
 import org.teiid.query.function.FunctionDescriptor;
 import org.teiid.query.parser.QueryParser;
 import org.teiid.query.processor.FakeDataManager;
@@ -564,4 +565,47 @@ public class TestExpressionEvaluator {
         assertEval("('a', null) is not distinct from ('a', null)", "true");
     }
 
+    @Test public void testCompiledExpressions() throws Exception {
+        Expression e1 = TestFunctionResolving.getExpression("pm1.g1.e1");
+        Expression e2 = TestFunctionResolving.getExpression("pm1.g1.e2");
+        Map<Expression, Integer> elements = new HashMap<Expression, Integer>();
+        elements.put(e1, 0);
+        elements.put(e2, 1);
+        String[] exprs = new String[] {
+                "case when pm1.g1.e2 > 1 then pm1.g1.e1 || 'x' else concat(pm1.g1.e1, 'y') end",
+                "pm1.g1.e2 + 1 = 3 or pm1.g1.e1 is null",
+                "not (pm1.g1.e1 = 'a') and pm1.g1.e2 < 5",
+                "case pm1.g1.e1 when 'a' then 1 when 'b' then 2 end",
+                "ucase(pm1.g1.e1) in ('A', 'C')",
+                "convert(pm1.g1.e1, integer) = 1",
+        };
+        List<?>[] tuples = new List<?>[] {
+                Arrays.asList("a", 1),
+                Arrays.asList("b", 2),
+                Arrays.asList(null, 2),
+                Arrays.asList("c", null),
+                Arrays.asList("1", 5),
+        };
+        Evaluator eval = new Evaluator(elements, null, new CommandContext());
+        for (String sql : exprs) {
+            Expression expr = TestFunctionResolving.getExpression(sql);
+            ExpressionCompiler.CompiledExpression compiled = ExpressionCompiler.compile(expr, elements);
+            for (List<?> tuple : tuples) {
+                Object expected = null;
+                String expectedError = null;
+                try {
+                    expected = eval.evaluate(expr, tuple);
+                } catch (ExpressionEvaluationException e) {
+                    expectedError = e.getMessage();
+                }
+                try {
+                    assertEquals(sql + " " + tuple, expected, compiled.evaluate(eval, tuple));
+                    assertNull(expectedError);
+                } catch (ExpressionEvaluationException e) {
+                    assertEquals(expectedError, e.getMessage());
+                }
+            }
+        }
+    }
+
 }
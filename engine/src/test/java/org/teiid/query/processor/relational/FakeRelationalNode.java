@@ -76,6 +76,11 @@ public class FakeRelationalNode extends RelationalNode {
         this.batchSize = batchSize;
     }
 
+    @Override
+    boolean isIndependent() {
+        return true;
+    }
+
     public TupleBatch nextBatchDirect() throws BlockedException, TeiidComponentException, TeiidProcessingException {
         if(data != null) {
             if(currentRow < data.length) {
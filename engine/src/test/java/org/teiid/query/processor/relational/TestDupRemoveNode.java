@@ -0,0 +1,105 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.processor.relational;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+import org.teiid.common.buffer.BlockedException;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleBatch;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
+
+@SuppressWarnings({"rawtypes", "nls"})
+public class TestDupRemoveNode {
+
+    private List<List<?>> helpTestDupRemove(BufferManagerImpl mgr, boolean hash, int rows, int distinct) throws Exception {
+        long reserve = mgr.getReserveBatchBytes();
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);
+        context.setOptions(new Options().hashDupRemove(hash));
+
+        ElementSymbol es1 = new ElementSymbol("e1");
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        ElementSymbol es2 = new ElementSymbol("e2");
+        es2.setType(DataTypeManager.DefaultDataClasses.STRING);
+        List<ElementSymbol> elements = Arrays.asList(es1, es2);
+
+        List[] data = new List[rows];
+        for (int i = 0; i < rows; i++) {
+            data[i] = Arrays.asList(i % distinct, String.valueOf(i % distinct));
+        }
+
+        BlockingFakeRelationalNode dataNode = new BlockingFakeRelationalNode(2, data);
+        dataNode.setReturnPeriod(3);
+        dataNode.setElements(elements);
+        dataNode.initialize(context, mgr, null);
+
+        DupRemoveNode node = new DupRemoveNode(1);
+        node.setElements(elements);
+        node.addChild(dataNode);
+        node.initialize(context, mgr, null);
+        node.open();
+
+        List<List<?>> result = new ArrayList<List<?>>();
+        while (true) {
+            try {
+                TupleBatch batch = node.nextBatch();
+                result.addAll(batch.getTuples());
+                if (batch.getTerminationFlag()) {
+                    break;
+                }
+            } catch (BlockedException e) {
+
+            }
+        }
+        node.close();
+        assertEquals(reserve, mgr.getReserveBatchBytes());
+        assertEquals(distinct, result.size());
+        assertEquals(distinct, new HashSet<List<?>>(result).size());
+        return result;
+    }
+
+    @Test public void testDupRemove() throws Exception {
+        List<List<?>> result = helpTestDupRemove(BufferManagerFactory.getTestBufferManager(10000000, 100), false, 1000, 100);
+        //the first occurrence is output in input order
+        assertEquals(Arrays.asList(0, "0"), result.get(0));
+        assertEquals(Arrays.asList(99, "99"), result.get(99));
+    }
+
+    @Test public void testHashDupRemove() throws Exception {
+        List<List<?>> result = helpTestDupRemove(BufferManagerFactory.getTestBufferManager(10000000, 100), true, 1000, 100);
+        assertEquals(Arrays.asList(0, "0"), result.get(0));
+        assertEquals(Arrays.asList(99, "99"), result.get(99));
+    }
+
+    @Test public void testHashDupRemoveSpill() throws Exception {
+        //no reserve is available beyond the initial forced reservation
+        helpTestDupRemove(BufferManagerFactory.getTestBufferManager(0, 2), true, 2000, 500);
+    }
+
+}
@@ -24,6 +24,7 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -478,6 +479,94 @@ public class TestGroupingNode {
         helpProcess(mgr, node, context, expected, null);
     }
 
+    @Test public void testHashAggregate() throws Exception {
+        BufferManager mgr = BufferManagerFactory.getStandaloneBufferManager();
+
+        GroupingNode node = getHashAggregateNode();
+        CommandContext context = new CommandContext("pid", "test", null, null,  1);               //$NON-NLS-1$ //$NON-NLS-2$
+
+        List[] expected = new List[] {
+            Arrays.asList(new Object[] { null, new Integer(2), new Long(3) }),
+            Arrays.asList(new Object[] { new Integer(0), new Integer(1), new Long(4) }),
+            Arrays.asList(new Object[] { new Integer(1), new Integer(1), new Long(2) }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(4), new Long(5) }),
+            Arrays.asList(new Object[] { new Integer(3), new Integer(1), new Long(0) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(3), new Long(5) }),
+            Arrays.asList(new Object[] { new Integer(5), new Integer(1), new Long(3) }),
+            Arrays.asList(new Object[] { new Integer(6), new Integer(2), new Long(7) })
+        };
+
+        helpProcessUnordered(mgr, node, context, expected, createTupleSource1());
+        assertTrue(node.getDescriptionProperties().toString().contains("Hash Aggregate"));
+    }
+
+    @Test public void testHashAggregateSpill() throws Exception {
+        //no reserve is available beyond the initial forced reservation
+        BufferManager mgr = BufferManagerFactory.getTestBufferManager(0, 1);
+
+        GroupingNode node = getHashAggregateNode();
+        CommandContext context = new CommandContext("pid", "test", null, null,  1);               //$NON-NLS-1$ //$NON-NLS-2$
+
+        int groups = 100;
+        List[] data = new List[groups * 4];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = Arrays.asList(i % groups, 1);
+        }
+        List[] expected = new List[groups];
+        for (int i = 0; i < groups; i++) {
+            expected[i] = Arrays.asList(i, 4, 4l);
+        }
+
+        helpProcessUnordered(mgr, node, context, expected, new FakeTupleSource(createTupleSource1().getSchema(), data));
+        node.close();
+    }
+
+    private void helpProcessUnordered(BufferManager mgr,
+                             GroupingNode node,
+                             CommandContext context,
+                             List[] expected,
+                             FakeTupleSource dataSource) throws TeiidComponentException, TeiidProcessingException {
+        RelationalNode dataNode = new FakeRelationalNode(0, dataSource, mgr.getProcessorBatchSize());
+        dataNode.setElements(dataSource.getSchema());
+        node.addChild(dataNode);
+        node.initialize(context, mgr, null);
+        node.open();
+
+        List<List<?>> actual = new ArrayList<List<?>>();
+        while(true) {
+            try {
+                TupleBatch batch = node.nextBatch();
+                actual.addAll(batch.getTuples());
+                if(batch.getTerminationFlag()) {
+                    break;
+                }
+            } catch (BlockedException e) {
+                //ignore
+            }
+        }
+        assertEquals(expected.length, actual.size());
+        assertEquals(new HashSet<List>(Arrays.asList(expected)), new HashSet<List>(actual));
+    }
+
+    private GroupingNode getHashAggregateNode() {
+        GroupingNode node = new GroupingNode(1);
+        List outputElements = new ArrayList();
+        ElementSymbol col1 = new ElementSymbol("col1"); //$NON-NLS-1$
+        col1.setType(Integer.class);
+        ElementSymbol col2 = new ElementSymbol("col2"); //$NON-NLS-1$
+        col2.setType(Integer.class);
+        outputElements.add(col1);
+        outputElements.add(new AggregateSymbol("COUNT", false, null)); //$NON-NLS-1$
+        outputElements.add(new AggregateSymbol("SUM", false, col2)); //$NON-NLS-1$
+        node.setElements(outputElements);
+
+        List groupingElements = new ArrayList();
+        groupingElements.add(col1);
+        node.setOrderBy(new OrderBy(groupingElements).getOrderByItems());
+        node.setHashAggregate(true);
+        return node;
+    }
+
     private GroupingNode getExampleGroupingNode() {
         GroupingNode node = new GroupingNode(1);
         List outputElements = new ArrayList();
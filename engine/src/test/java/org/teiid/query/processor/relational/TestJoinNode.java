@@ -1231,4 +1231,107 @@ public class TestJoinNode {
         TestProcessor.helpProcess(plan, context, hdm, results);
     }
 
+    private String helpTestHashJoin(List[] expectedResults, int batchSize, int processingBytes) throws TeiidComponentException, TeiidProcessingException {
+        helpCreateJoin();
+        this.joinStrategy = new HashJoinStrategy();
+        this.join.setJoinStrategy(joinStrategy);
+        BufferManagerImpl mgr = BufferManagerFactory.getTestBufferManager(processingBytes, batchSize);
+        mgr.setTargetBytesPerRow(100);
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+
+        join.addChild(leftNode);
+        join.addChild(rightNode);
+
+        leftNode.initialize(context, mgr, dataMgr);
+        rightNode.initialize(context, mgr, dataMgr);
+        join.initialize(context, mgr, dataMgr);
+
+        //the hash join does not guarantee an output order
+        List<String> expectedRows = new ArrayList<String>();
+        for (List row : expectedResults) {
+            expectedRows.add(String.valueOf(row));
+        }
+        Collections.sort(expectedRows);
+
+        String strategy = null;
+        for (int i = 0; i < 2; i++) {
+            join.open();
+            List<String> actual = new ArrayList<String>();
+            while(true) {
+                try {
+                    TupleBatch batch = join.nextBatch();
+                    for (List<?> tuple : batch.getTuples()) {
+                        actual.add(String.valueOf(tuple));
+                    }
+                    if(batch.getTerminationFlag()) {
+                        break;
+                    }
+                } catch(BlockedException e) {
+                    // ignore and retry
+                }
+            }
+            strategy = join.getJoinStrategy().toString();
+            join.close();
+            Collections.sort(actual);
+            assertEquals(expectedRows, actual);
+            join.reset();
+        }
+        return strategy;
+    }
+
+    @Test public void testHashJoin() throws Exception {
+        joinType = JoinType.JOIN_INNER;
+        expected = new List[] {
+            Arrays.asList(new Object[] { new Integer(1), new Integer(1) }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) }),
+            Arrays.asList(new Object[] { new Integer(4), new Integer(4) })
+        };
+        for (int batchSize : new int[] {1, 10, 100}) {
+            helpTestHashJoin(expected, batchSize, 100000);
+        }
+    }
+
+    @Test public void testHashJoinLeftOuter() throws Exception {
+        joinType = JoinType.JOIN_LEFT_OUTER;
+        rightTuples = createTuples3();
+        expected = new List[] {
+            Arrays.asList(new Object[] { new Integer(5), new Integer(5) }),
+            Arrays.asList(new Object[] { new Integer(3), new Integer(3) }),
+            Arrays.asList(new Object[] { new Integer(2), new Integer(2) }),
+            Arrays.asList(new Object[] { new Integer(4), null }),
+            Arrays.asList(new Object[] { new Integer(1), new Integer(1) }),
+            Arrays.asList(new Object[] { new Integer(4), null }),
+            Arrays.asList(new Object[] { new Integer(10), new Integer(10) }),
+            Arrays.asList(new Object[] { new Integer(10), new Integer(10) }),
+            Arrays.asList(new Object[] { new Integer(11), null }),
+            Arrays.asList(new Object[] { new Integer(11), null })
+        };
+        for (int batchSize : new int[] {1, 10, 100}) {
+            helpTestHashJoin(expected, batchSize, 100000);
+        }
+    }
+
+    @Test public void testHashJoinPartitioned() throws Exception {
+        joinType = JoinType.JOIN_INNER;
+        int rows = 1000;
+        leftTuples = new List[rows];
+        rightTuples = new List[rows/2];
+        for (int i = 0; i < rows; i++) {
+            leftTuples[i] = Arrays.asList((i*17) % rows);
+            if (i < rows/2) {
+                rightTuples[i] = Arrays.asList(i*2);
+            }
+        }
+        expected = new List[rows/2];
+        for (int i = 0; i < rows/2; i++) {
+            expected[i] = Arrays.asList(i*2, i*2);
+        }
+        String strategy = helpTestHashJoin(expected, 10, 1);
+        assertTrue(strategy, strategy.contains("PARTITIONS"));
+    }
+
 }
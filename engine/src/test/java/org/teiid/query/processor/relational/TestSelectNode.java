@@ -31,10 +31,12 @@ import org.teiid.api.exception.query.ExpressionEvaluationException;
 import org.teiid.common.buffer.BlockedException;
 import org.teiid.common.buffer.BufferManager;
 import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.ColumnarBatch;
 import org.teiid.common.buffer.TupleBatch;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.query.eval.ColumnarEvaluator;
 import org.teiid.query.eval.Evaluator;
 import org.teiid.query.function.FunctionDescriptor;
 import org.teiid.query.processor.BatchIterator;
@@ -42,13 +44,17 @@ import org.teiid.query.processor.FakeDataManager;
 import org.teiid.query.processor.ProcessorDataManager;
 import org.teiid.query.processor.QueryProcessor;
 import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
 import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.SetCriteria;
 import org.teiid.query.sql.symbol.Constant;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.sql.symbol.Expression;
 import org.teiid.query.sql.symbol.Function;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 @SuppressWarnings("unchecked")
 public class TestSelectNode {
@@ -67,8 +73,15 @@ public class TestSelectNode {
             RelationalNode child,
             SelectNode selectNode) throws TeiidComponentException,
             TeiidProcessingException {
+        helpTestSelect(elements, criteria, childElements, dataMgr, expected, child, selectNode, new CommandContext("pid", "test", null, null, 1)); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    private void helpTestSelect(List elements, Criteria criteria, List childElements,
+            ProcessorDataManager dataMgr, List[] expected,
+            RelationalNode child,
+            SelectNode selectNode, CommandContext context) throws TeiidComponentException,
+            TeiidProcessingException {
         BufferManager mgr = BufferManagerFactory.getStandaloneBufferManager();
-        CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
 
         child.setElements(childElements);
         child.initialize(context, mgr, dataMgr);
@@ -274,4 +287,95 @@ public class TestSelectNode {
         helpTestSelect(elements, crit, data, childElements, dataMgr, expected);
 
     }
+
+    @Test public void testColumnarSelect() throws TeiidComponentException, TeiidProcessingException {
+        ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+
+        ElementSymbol es2 = new ElementSymbol("e2"); //$NON-NLS-1$
+        es2.setType(DataTypeManager.DefaultDataClasses.STRING);
+
+        ElementSymbol es3 = new ElementSymbol("e3"); //$NON-NLS-1$
+        es3.setType(DataTypeManager.DefaultDataClasses.DOUBLE);
+
+        List elements = Arrays.asList(es1, es2);
+
+        //(e1 >= 3 and e2 in ('1', '2')) or (e3 is null and e2 <> '0')
+        Criteria crit = new CompoundCriteria(CompoundCriteria.OR,
+                new CompoundCriteria(CompoundCriteria.AND,
+                        new CompareCriteria(es1, CompareCriteria.GE, new Constant(3)),
+                        new SetCriteria(es2, Arrays.asList(new Constant("1"), new Constant("2")))), //$NON-NLS-1$ //$NON-NLS-2$
+                new CompoundCriteria(CompoundCriteria.AND,
+                        new IsNullCriteria(es3),
+                        new CompareCriteria(es2, CompareCriteria.NE, new Constant("0")))); //$NON-NLS-1$
+
+        List[] data = new List[20];
+        for(int i=0; i<20; i++) {
+            data[i] = Arrays.asList(i%7==0?null:i%5, i%6==0?null:String.valueOf(i%3), i%4==0?null:(double)i);
+        }
+
+        List childElements = Arrays.asList(es1, es2, es3);
+
+        List<List<?>> expected = new ArrayList<List<?>>();
+        for (List<?> row : data) {
+            Integer e1 = (Integer)row.get(0);
+            String e2 = (String)row.get(1);
+            if ((e1 != null && e1 >= 3 && ("1".equals(e2) || "2".equals(e2))) //$NON-NLS-1$ //$NON-NLS-2$
+                    || (row.get(2) == null && e2 != null && !e2.equals("0"))) { //$NON-NLS-1$
+                expected.add(row.subList(0, 2));
+            }
+        }
+        assertTrue(!expected.isEmpty());
+        assertNotNull(ColumnarEvaluator.create(crit, RelationalNode.createLookupMap(childElements)));
+        //a single test per column is left to the row evaluator
+        assertNull(ColumnarEvaluator.create(new CompoundCriteria(CompoundCriteria.AND,
+                new CompareCriteria(es1, CompareCriteria.GE, new Constant(3)), new IsNullCriteria(es3)), RelationalNode.createLookupMap(childElements)));
+
+        CommandContext context = new CommandContext("pid", "test", null, null, 1); //$NON-NLS-1$ //$NON-NLS-2$
+        context.setOptions(new Options().columnarProcessing(true));
+        helpTestSelect(elements, crit, childElements, null, expected.toArray(new List[expected.size()]), new FakeRelationalNode(2, data, 6), new SelectNode(1), context);
+    }
+    @Test public void testColumnarSetCriteriaNulls() throws Exception {
+        ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+
+        ElementSymbol es2 = new ElementSymbol("e2"); //$NON-NLS-1$
+        es2.setType(DataTypeManager.DefaultDataClasses.STRING);
+
+        List childElements = Arrays.asList(es1, es2);
+        Map lookup = RelationalNode.createLookupMap(childElements);
+
+        List<List<?>> data = new ArrayList<List<?>>();
+        for(int i=0; i<12; i++) {
+            data.add(Arrays.asList(i%5==0?null:i%4, i%6==0?null:String.valueOf(i%3)));
+        }
+
+        List<SetCriteria> sets = new ArrayList<SetCriteria>();
+        //not in (), not in (1, null), in (1, null) and not in (1, 2)
+        sets.add(new SetCriteria(es1, new ArrayList<Constant>()));
+        sets.add(new SetCriteria(es1, Arrays.asList(new Constant(1), new Constant(null, DataTypeManager.DefaultDataClasses.INTEGER))));
+        sets.add(new SetCriteria(es1, Arrays.asList(new Constant(1), new Constant(null, DataTypeManager.DefaultDataClasses.INTEGER))));
+        sets.add(new SetCriteria(es1, Arrays.asList(new Constant(1), new Constant(2))));
+        sets.add(new SetCriteria(es2, new ArrayList<Constant>()));
+        sets.add(new SetCriteria(es2, Arrays.asList(new Constant("1"), new Constant(null, DataTypeManager.DefaultDataClasses.STRING)))); //$NON-NLS-1$
+        sets.add(new SetCriteria(es2, Arrays.asList(new Constant("1"), new Constant(null, DataTypeManager.DefaultDataClasses.STRING)))); //$NON-NLS-1$
+        sets.get(0).setNegated(true);
+        sets.get(1).setNegated(true);
+        sets.get(3).setNegated(true);
+        sets.get(4).setNegated(true);
+        sets.get(5).setNegated(true);
+
+        Evaluator evaluator = new Evaluator(lookup, null, null);
+        for (SetCriteria set : sets) {
+            //with a second test on the same column, which matches no row, the criteria is evaluated by column
+            Constant none = set.getExpression() == es1?new Constant(-1):new Constant("x"); //$NON-NLS-1$
+            Criteria crit = new CompoundCriteria(CompoundCriteria.OR, new CompareCriteria(set.getExpression(), CompareCriteria.EQ, none), set);
+            ColumnarEvaluator columnar = ColumnarEvaluator.create(crit, lookup);
+            assertNotNull(columnar);
+            boolean[] selection = columnar.evaluate(new ColumnarBatch(data, 2));
+            for (int i = 0; i < data.size(); i++) {
+                assertEquals(set + " " + data.get(i), evaluator.evaluate(crit, data.get(i)), selection[i]); //$NON-NLS-1$
+            }
+        }
+    }
 }
@@ -54,6 +54,7 @@ import org.teiid.query.sql.lang.OrderBy;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.unittest.RealMetadataFactory;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 @SuppressWarnings({"rawtypes", "nls"})
 public class TestSortNode {
@@ -377,4 +378,47 @@ public class TestSortNode {
         assertNull(ts.nextTuple());
     }
 
+    @Test public void testParallelMerge() throws Exception {
+        ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        //with little or no reserve there will be several merge passes
+        for (long bytesAvailable : new long[] {0, 100000}) {
+            BufferManagerImpl bm = BufferManagerFactory.getTestBufferManager(bytesAvailable, 2);
+            bm.setOptions(new Options().parallelSort(true));
+            long reserve = bm.getReserveBatchBytes();
+            TupleBuffer tsid = bm.createTupleBuffer(Arrays.asList(es1), "test", TupleSourceType.PROCESSOR); //$NON-NLS-1$
+            for (int i = 0; i < 1000; i++) {
+                tsid.addTuple(Arrays.asList((i*51) % 97));
+            }
+            tsid.close();
+            for (Mode mode : Mode.values()) {
+                SortUtility su = new SortUtility(tsid.createIndexedTupleSource(), Arrays.asList(es1), Arrays.asList(Boolean.TRUE), mode, bm, "test", tsid.getSchema()); //$NON-NLS-1$
+                su.setBatchSize(10);
+                //the groups are submitted through the context
+                CommandContext cc = new CommandContext();
+                cc.setUserRequestSourceConcurrency(4);
+                CommandContext.pushThreadLocalContext(cc);
+                TupleBuffer out = null;
+                try {
+                    out = su.sort();
+                } finally {
+                    CommandContext.popThreadLocalContext();
+                }
+                assertEquals(mode == Mode.SORT?1000:97, out.getRowCount());
+                TupleSource ts = out.createIndexedTupleSource();
+                Integer last = null;
+                for (List<?> tuple = ts.nextTuple(); tuple != null; tuple = ts.nextTuple()) {
+                    Integer value = (Integer)tuple.get(0);
+                    if (last != null) {
+                        assertTrue(mode == Mode.SORT?last <= value:last < value);
+                    }
+                    last = value;
+                }
+                out.remove();
+            }
+            tsid.remove();
+            assertEquals(reserve, bm.getReserveBatchBytes());
+        }
+    }
+
 }
@@ -22,7 +22,10 @@ import static org.junit.Assert.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.Test;
 import org.teiid.common.buffer.BlockedException;
@@ -32,9 +35,12 @@ import org.teiid.common.buffer.TupleBatch;
 import org.teiid.core.TeiidComponentException;
 import org.teiid.core.TeiidProcessingException;
 import org.teiid.core.types.DataTypeManager;
+import org.teiid.dqp.service.TransactionContext;
+import org.teiid.dqp.service.TransactionContext.Scope;
 import org.teiid.query.processor.FakeDataManager;
 import org.teiid.query.sql.symbol.ElementSymbol;
 import org.teiid.query.util.CommandContext;
+import org.teiid.query.util.Options;
 
 
 /**
@@ -221,4 +227,90 @@ public class TestUnionAllNode {
         helpTestUnionConfigs(3, 1, 6, 1, expected);
     }
 
+    @Test public void testParallelUnion() throws TeiidComponentException, TeiidProcessingException {
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        context.setOptions(new Options().parallelUnion(true));
+        context.setUserRequestSourceConcurrency(4);
+        Set<Thread> threads = helpTestParallelUnion(context);
+        assertFalse(threads.contains(Thread.currentThread()));
+    }
+
+    @Test public void testParallelUnionTransactional() throws TeiidComponentException, TeiidProcessingException {
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        context.setOptions(new Options().parallelUnion(true));
+        context.setUserRequestSourceConcurrency(4);
+        TransactionContext tc = new TransactionContext();
+        tc.setTransactionType(Scope.LOCAL);
+        context.setTransactionContext(tc);
+        //the source work must stay on the request thread
+        assertEquals(Collections.singleton(Thread.currentThread()), helpTestParallelUnion(context));
+    }
+
+    @Test public void testParallelUnionSerial() throws TeiidComponentException, TeiidProcessingException {
+        CommandContext context = new CommandContext("pid", "test", null, null, 1);               //$NON-NLS-1$ //$NON-NLS-2$
+        context.setOptions(new Options().parallelUnion(true));
+        context.setUserRequestSourceConcurrency(1);
+        assertEquals(Collections.singleton(Thread.currentThread()), helpTestParallelUnion(context));
+    }
+
+    /**
+     * @return the threads used to process the non-blocking branches
+     */
+    private Set<Thread> helpTestParallelUnion(CommandContext context) throws TeiidComponentException, TeiidProcessingException {
+        ElementSymbol es1 = new ElementSymbol("e1"); //$NON-NLS-1$
+        es1.setType(DataTypeManager.DefaultDataClasses.INTEGER);
+        List<ElementSymbol> elements = Arrays.asList(es1);
+
+        BufferManager mgr = BufferManagerFactory.getTestBufferManager(1, 2);
+        FakeDataManager fdm = new FakeDataManager();
+        final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+
+        int sources = 12;
+        int rowsPerSource = 25;
+        UnionAllNode union = new UnionAllNode(sources);
+        union.setElements(elements);
+        for (int i = 0; i < sources; i++) {
+            List[] tuples = new List[rowsPerSource];
+            for (int r = 0; r < rowsPerSource; r++) {
+                tuples[r] = Arrays.asList(i);
+            }
+            RelationalNode node = i % 2 == 0 ? new BlockingFakeRelationalNode(i, tuples, 10) : new FakeRelationalNode(i, tuples, 10) {
+                @Override
+                public TupleBatch nextBatchDirect() throws BlockedException, TeiidComponentException, TeiidProcessingException {
+                    threads.add(Thread.currentThread());
+                    return super.nextBatchDirect();
+                }
+            };
+            node.setElements(elements);
+            union.addChild(node);
+            node.initialize(context, mgr, fdm);
+        }
+        union.initialize(context, mgr, fdm);
+        union.open();
+
+        int[] counts = new int[sources];
+        int currentRow = 1;
+        while (true) {
+            try {
+                TupleBatch batch = union.nextBatch();
+                assertEquals(currentRow, batch.getBeginRow());
+                for (List<?> tuple : batch.getTuples()) {
+                    counts[(Integer)tuple.get(0)]++;
+                }
+                currentRow += batch.getRowCount();
+                if (batch.getTerminationFlag()) {
+                    break;
+                }
+            } catch (BlockedException e) {
+                // ignore and retry
+            }
+        }
+        union.close();
+
+        for (int i = 0; i < sources; i++) {
+            assertEquals(rowsPerSource, counts[i]);
+        }
+        return threads;
+    }
+
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.tempdata;
+
+import static org.junit.Assert.*;
+
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestRoaringBitmap {
+
+    private static RoaringBitmap create(BitSet expected, Random random, int size, double density) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (int i = 0; i < size; i++) {
+            if (random.nextDouble() < density) {
+                result.add(i);
+                expected.set(i);
+            }
+        }
+        return result;
+    }
+
+    private static void assertBits(BitSet expected, RoaringBitmap bitmap) {
+        assertEquals(expected.cardinality(), bitmap.getCardinality());
+        PrimitiveIterator.OfInt iter = bitmap.iterator();
+        for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1)) {
+            assertEquals(i, iter.nextInt());
+        }
+        assertFalse(iter.hasNext());
+    }
+
+    @Test public void testAndOr() {
+        Random random = new Random(1);
+        //sparse containers are arrays, dense containers are bitmaps
+        double[] densities = {0.001, 0.05, 0.5};
+        for (double d1 : densities) {
+            for (double d2 : densities) {
+                BitSet expected1 = new BitSet();
+                BitSet expected2 = new BitSet();
+                RoaringBitmap bitmap1 = create(expected1, random, 300000, d1);
+                RoaringBitmap bitmap2 = create(expected2, random, 200000, d2);
+                assertBits(expected1, bitmap1);
+
+                BitSet and = (BitSet)expected1.clone();
+                and.and(expected2);
+                assertBits(and, bitmap1.and(bitmap2));
+
+                BitSet or = (BitSet)expected1.clone();
+                or.or(expected2);
+                assertBits(or, bitmap1.or(bitmap2));
+
+                //the inputs are unchanged
+                assertBits(expected1, bitmap1);
+                assertBits(expected2, bitmap2);
+            }
+        }
+    }
+
+    @Test public void testUnorderedAdd() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        bitmap.add(70000);
+        bitmap.add(65535);
+        bitmap.add(3);
+        bitmap.add(65535);
+        assertEquals(3, bitmap.getCardinality());
+        assertTrue(bitmap.contains(65535));
+        assertFalse(bitmap.contains(65536));
+        PrimitiveIterator.OfInt iter = bitmap.iterator();
+        assertEquals(3, iter.nextInt());
+        assertEquals(65535, iter.nextInt());
+        assertEquals(70000, iter.nextInt());
+        assertFalse(iter.hasNext());
+    }
+
+}
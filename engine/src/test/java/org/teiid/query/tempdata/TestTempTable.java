@@ -0,0 +1,284 @@
+/*
+ * Copyright Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags and
+ * the COPYRIGHT.txt file distributed with this work.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.teiid.query.tempdata;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.teiid.common.buffer.BufferManagerFactory;
+import org.teiid.common.buffer.TupleBuffer;
+import org.teiid.common.buffer.TupleSource;
+import org.teiid.common.buffer.impl.BufferManagerImpl;
+import org.teiid.query.metadata.TempMetadataID;
+import org.teiid.query.processor.CollectionTupleSource;
+import org.teiid.query.sql.lang.CompareCriteria;
+import org.teiid.query.sql.lang.CompoundCriteria;
+import org.teiid.query.sql.lang.Criteria;
+import org.teiid.query.sql.lang.IsNullCriteria;
+import org.teiid.query.sql.lang.SetCriteria;
+import org.teiid.query.sql.symbol.Constant;
+import org.teiid.query.sql.symbol.ElementSymbol;
+import org.teiid.query.util.Options;
+
+@SuppressWarnings({"nls", "unchecked"})
+public class TestTempTable {
+
+    private static int count(TupleSource ts) throws Exception {
+        int count = 0;
+        while (ts.nextTuple() != null) {
+            count++;
+        }
+        ts.closeSource();
+        return count;
+    }
+
+    @Test public void testSnapshotReads() throws Exception {
+        BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+        bm.setOptions(new Options().tempTableSnapshotReads(true));
+        ElementSymbol e1 = new ElementSymbol("e1");
+        e1.setType(Integer.class);
+        ElementSymbol e2 = new ElementSymbol("e2");
+        e2.setType(String.class);
+        List<ElementSymbol> columns = new ArrayList<ElementSymbol>(Arrays.asList(e1, e2));
+        TempTable table = new TempTable(new TempMetadataID("x", Collections.EMPTY_LIST), bm, columns, 1, "1");
+
+        List<List<?>> rows = new ArrayList<List<?>>();
+        for (int i = 0; i < 5000; i++) {
+            rows.add(Arrays.asList(i, String.valueOf(i)));
+        }
+        table.insert(new CollectionTupleSource(rows.iterator()), columns, false, false, null);
+
+        TupleSource ts = table.createTupleSource(columns, null, null);
+        assertEquals(Arrays.asList(0, "0"), ts.nextTuple());
+
+        //update while the read is open
+        table.delete(new CompareCriteria(e1, CompareCriteria.GT, new Constant(10)));
+        table.insert(new CollectionTupleSource(Arrays.asList(Arrays.asList(-1, "-1")).iterator()), columns, false, false, null);
+
+        //the open read sees the table as of when it started
+        assertEquals(4999, count(ts));
+        assertEquals(12, count(table.createTupleSource(columns, null, null)));
+
+        //force truncation must not release the pages of an open read
+        ts = table.createTupleSource(columns, null, null);
+        table.truncate(true);
+        assertEquals(12, count(ts));
+        assertEquals(0, count(table.createTupleSource(columns, null, null)));
+    }
+
+    @Test public void testIncludedColumns() throws Exception {
+        BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+        ElementSymbol e1 = new ElementSymbol("e1");
+        e1.setType(Integer.class);
+        ElementSymbol e2 = new ElementSymbol("e2");
+        e2.setType(String.class);
+        ElementSymbol e3 = new ElementSymbol("e3");
+        e3.setType(Integer.class);
+        List<ElementSymbol> columns = new ArrayList<ElementSymbol>(Arrays.asList(e1, e2, e3));
+        TempTable table = new TempTable(new TempMetadataID("x", Collections.EMPTY_LIST), bm, columns, 1, "1");
+
+        List<List<?>> rows = new ArrayList<List<?>>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(Arrays.asList(i, String.valueOf(i), i * 2));
+        }
+        table.insert(new CollectionTupleSource(rows.iterator()), columns, false, false, null);
+        table.setUpdatable(false);
+        table.addIndex(Arrays.asList(e2), Arrays.asList(e3), false);
+
+        CompareCriteria crit = new CompareCriteria(e2, CompareCriteria.EQ, new Constant("5"));
+        TupleSource ts = table.createTupleSource(Arrays.asList(e2, e3), crit, null);
+        assertEquals(Arrays.asList("5", 10), ts.nextTuple());
+        assertNull(ts.nextTuple());
+        ts.closeSource();
+
+        //the index alone answers the query, so a row removed only from the table is still seen
+        table.getTree().remove(Arrays.asList(5));
+        ts = table.createTupleSource(Arrays.asList(e1, e3), crit, null);
+        assertEquals(Arrays.asList(5, 10), ts.nextTuple());
+        assertNull(ts.nextTuple());
+        ts.closeSource();
+    }
+
+    @Test public void testBitmapIndex() throws Exception {
+        helpTestBitmapIndex(1);
+    }
+
+    @Test public void testBitmapIndexRowId() throws Exception {
+        helpTestBitmapIndex(0);
+    }
+
+    private void helpTestBitmapIndex(int pkLength) throws Exception {
+        BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+        ElementSymbol e1 = new ElementSymbol("e1");
+        e1.setType(Integer.class);
+        ElementSymbol e2 = new ElementSymbol("e2");
+        e2.setType(String.class);
+        ElementSymbol e3 = new ElementSymbol("e3");
+        e3.setType(Integer.class);
+        List<ElementSymbol> columns = new ArrayList<ElementSymbol>(Arrays.asList(e1, e2, e3));
+        TempTable table = new TempTable(new TempMetadataID("x", Collections.EMPTY_LIST), bm, columns, pkLength, "1");
+
+        List<List<?>> rows = new ArrayList<List<?>>();
+        for (int i = 0; i < 10000; i++) {
+            rows.add(Arrays.asList(i, "r" + (i % 50), i % 7 == 0 ? null : i % 7));
+        }
+        table.insert(new CollectionTupleSource(rows.iterator()), Arrays.asList(e1, e2, e3), false, false, null);
+        table.setUpdatable(false);
+        table.addBitmapIndex(Arrays.asList(e2, e3));
+        assertNotNull(table.getBitmapIndex());
+
+        List<ElementSymbol> projected = Arrays.asList(e1, e2, e3);
+        Criteria crit = new CompoundCriteria(CompoundCriteria.AND,
+                new SetCriteria(e2, Arrays.asList(new Constant("r1"), new Constant("r2"))),
+                new CompareCriteria(e3, CompareCriteria.EQ, new Constant(1)));
+        //i % 50 in (1, 2) and i % 7 = 1
+        assertEquals(57, count(table.createTupleSource(projected, crit, null)));
+        TupleSource ts = table.createTupleSource(projected, crit, null);
+        assertEquals(Arrays.asList(1, "r1", 1), ts.nextTuple());
+        ts.closeSource();
+
+        crit = new CompoundCriteria(CompoundCriteria.AND,
+                new CompareCriteria(e2, CompareCriteria.EQ, new Constant("r3")),
+                new IsNullCriteria(e3));
+        assertEquals(28, count(table.createTupleSource(projected, crit, null)));
+
+        crit = new CompoundCriteria(CompoundCriteria.OR,
+                new CompareCriteria(e2, CompareCriteria.EQ, new Constant("r3")),
+                new CompareCriteria(e2, CompareCriteria.EQ, new Constant("r4")));
+        assertEquals(400, count(table.createTupleSource(projected, crit, null)));
+
+        //a value that does not exist
+        crit = new CompareCriteria(e2, CompareCriteria.EQ, new Constant("x"));
+        assertEquals(0, count(table.createTupleSource(projected, crit, null)));
+
+        //modifying the table drops the index, but an open read may still use the keys
+        BitmapIndex index = table.getBitmapIndex();
+        TupleBuffer keys = index.getKeys();
+        assertEquals(pkLength > 0, keys != null);
+        crit = new CompoundCriteria(CompoundCriteria.AND,
+                new SetCriteria(e2, Arrays.asList(new Constant("r1"), new Constant("r2"))),
+                new CompareCriteria(e3, CompareCriteria.EQ, new Constant(1)));
+        ts = table.createTupleSource(projected, crit, null);
+        assertNotNull(ts.nextTuple());
+        if (pkLength > 0) {
+            table.updateTuple(Arrays.asList(1, "r1", 2), false);
+        } else {
+            table.updateTuple(Arrays.asList(1l, 1, "r1", 2), false);
+        }
+        assertNull(table.getBitmapIndex());
+        assertTrue(index.isDropped());
+        if (keys != null) {
+            assertFalse(keys.isRemoved());
+        }
+        ts.closeSource();
+        if (keys != null) {
+            assertTrue(keys.isRemoved());
+        }
+
+        //a read that cannot use the index does not rebuild it
+        Criteria other = new CompareCriteria(e1, CompareCriteria.LT, new Constant(100));
+        assertEquals(100, count(table.createTupleSource(projected, other, null)));
+        assertNull(table.getBitmapIndex());
+
+        //the next read that would use the index rebuilds it
+        assertEquals(56, count(table.createTupleSource(projected, crit, null)));
+        assertNotNull(table.getBitmapIndex());
+        assertNotSame(index, table.getBitmapIndex());
+    }
+
+    private static CompareCriteria bindEligible(ElementSymbol es, Object value) {
+        Constant c = new Constant(value);
+        c.setBindEligible(true);
+        return new CompareCriteria(es, CompareCriteria.EQ, c);
+    }
+
+    @Test public void testImplicitIndexes() throws Exception {
+        BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+        List<ElementSymbol> columns = new ArrayList<ElementSymbol>();
+        for (int i = 0; i < TempTable.MAX_IMPLICIT_INDEXES + 3; i++) {
+            ElementSymbol es = new ElementSymbol("e" + i);
+            es.setType(Integer.class);
+            columns.add(es);
+        }
+        TempTable table = new TempTable(new TempMetadataID("x", Collections.EMPTY_LIST), bm, columns, 1, "1");
+        table.setUpdatable(false);
+        ElementSymbol last = columns.get(columns.size() - 1);
+        table.addIndex(Arrays.asList(last), false);
+
+        //the implicit index is returned rather than the first declared index
+        TempTable index = table.createImplicitIndexIfNeeded(bindEligible(columns.get(1), 1));
+        assertEquals(columns.get(1), index.getColumns().get(0));
+        assertNull(table.createImplicitIndexIfNeeded(bindEligible(columns.get(1), 2)));
+        assertNull(table.createImplicitIndexIfNeeded(bindEligible(last, 1)));
+
+        for (int i = 2; i <= TempTable.MAX_IMPLICIT_INDEXES; i++) {
+            assertNotNull(table.createImplicitIndexIfNeeded(bindEligible(columns.get(i), 1)));
+        }
+        assertNull(table.createImplicitIndexIfNeeded(bindEligible(columns.get(TempTable.MAX_IMPLICIT_INDEXES + 1), 1)));
+    }
+
+    @Test public void testReadWriteIndexes() throws Exception {
+        BufferManagerImpl bm = BufferManagerFactory.createBufferManager();
+        ElementSymbol e1 = new ElementSymbol("e1");
+        e1.setType(Integer.class);
+        ElementSymbol e2 = new ElementSymbol("e2");
+        e2.setType(String.class);
+        ElementSymbol e3 = new ElementSymbol("e3");
+        e3.setType(Integer.class);
+        List<ElementSymbol> columns = new ArrayList<ElementSymbol>(Arrays.asList(e1, e2, e3));
+
+        for (boolean included : new boolean[] {false, true}) {
+            TempTable table = new TempTable(new TempMetadataID("x", Collections.EMPTY_LIST), bm, columns, 1, "1");
+            List<List<?>> rows = new ArrayList<List<?>>();
+            for (int i = 0; i < 100; i++) {
+                rows.add(Arrays.asList(i, String.valueOf(i), i * 2));
+            }
+            table.insert(new CollectionTupleSource(rows.iterator()), columns, false, false, null);
+            table.setUpdatable(false);
+            table.addIndex(Arrays.asList(e2), included?Arrays.asList(e3):Collections.<ElementSymbol>emptyList(), false);
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(baos);
+            table.writeTo(oos);
+            oos.close();
+
+            TempTable copy = new TempTable(new TempMetadataID("x", Collections.EMPTY_LIST), bm, columns, 1, "1");
+            copy.setUpdatable(false);
+            copy.readFrom(new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray())));
+            //the index was read, so it is not created again
+            TempTable index = copy.addIndex(Arrays.asList(e2), false);
+            assertEquals(included?3:2, index.getColumns().size());
+
+            TupleSource ts = copy.createTupleSource(Arrays.asList(e1, e3), new CompareCriteria(e2, CompareCriteria.EQ, new Constant("5")), null);
+            assertEquals(Arrays.asList(5, 10), ts.nextTuple());
+            assertNull(ts.nextTuple());
+            ts.closeSource();
+        }
+    }
+
+}
@@ -27,6 +27,7 @@ import org.teiid.cache.CacheFactory;
 import org.teiid.dqp.internal.process.DQPConfiguration;
 import org.teiid.dqp.internal.process.DataRolePolicyDecider;
 import org.teiid.dqp.internal.process.DefaultAuthorizationValidator;
+import org.teiid.dqp.internal.process.ResultSetCacheStore;
 import org.teiid.net.socket.AuthenticationType;
 import org.teiid.query.ObjectReplicator;
 import org.teiid.security.SecurityHelper;
@@ -43,6 +44,8 @@ public class EmbeddedConfiguration extends DQPConfiguration {
     private String bufferDirectory;
     private CacheFactory cacheFactory;
     private int maxResultSetCacheStaleness = DEFAULT_MAX_STALENESS_SECONDS;
+    private String resultSetCacheDirectory;
+    private long maxResultSetCacheDirectorySize = ResultSetCacheStore.DEFAULT_MAX_DIRECTORY_SIZE;
     private String infinispanConfigFile;
     private List<SocketConfiguration> transports;
     private int maxODBCLobSizeAllowed = 5*1024*1024; // 5 MB
@@ -150,6 +153,30 @@ public class EmbeddedConfiguration extends DQPConfiguration {
         this.maxResultSetCacheStaleness = maxResultSetCacheStaleness;
     }
 
+    public String getResultSetCacheDirectory() {
+        return resultSetCacheDirectory;
+    }
+
+    /**
+     * Set the directory used to persist vdb and user scoped result set cache entries
+     * across restarts.  If null, the default, the entries are not persisted.
+     */
+    public void setResultSetCacheDirectory(String resultSetCacheDirectory) {
+        this.resultSetCacheDirectory = resultSetCacheDirectory;
+    }
+
+    public long getMaxResultSetCacheDirectorySize() {
+        return maxResultSetCacheDirectorySize;
+    }
+
+    /**
+     * Set the max size in bytes of the persisted result set cache entries, the oldest entries
+     * are removed once it is exceeded.  Defaults to 1 GB, -1 is unlimited.
+     */
+    public void setMaxResultSetCacheDirectorySize(long maxResultSetCacheDirectorySize) {
+        this.maxResultSetCacheDirectorySize = maxResultSetCacheDirectorySize;
+    }
+
     protected void stop() {
         if (cacheFactory != null) {
             cacheFactory.destroy();
@@ -20,6 +20,7 @@ package org.teiid.runtime;
 
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationHandler;
@@ -79,6 +80,7 @@ import org.teiid.dqp.internal.datamgr.TranslatorRepository;
 import org.teiid.dqp.internal.process.CachedResults;
 import org.teiid.dqp.internal.process.DQPCore;
 import org.teiid.dqp.internal.process.PreparedPlan;
+import org.teiid.dqp.internal.process.ResultSetCacheStore;
 import org.teiid.dqp.internal.process.SessionAwareCache;
 import org.teiid.dqp.internal.process.TransactionServerImpl;
 import org.teiid.dqp.service.BufferService;
@@ -104,6 +106,7 @@ import org.teiid.net.ConnectionException;
 import org.teiid.net.ServerConnection;
 import org.teiid.net.socket.ObjectChannel;
 import org.teiid.query.ObjectReplicator;
+import org.teiid.query.ReplicatedObject;
 import org.teiid.query.metadata.DDLStringVisitor;
 import org.teiid.query.metadata.NioZipFileSystem;
 import org.teiid.query.metadata.SystemMetadata;
@@ -440,6 +443,13 @@ public class EmbeddedServer extends AbstractVDBDeployer implements EventDistribu
         rs = new SessionAwareCache<CachedResults>("resultset", config.getCacheFactory(), SessionAwareCache.Type.RESULTSET, config.getMaxResultSetCacheStaleness()); //$NON-NLS-1$
         ppc = new SessionAwareCache<PreparedPlan>("preparedplan", config.getCacheFactory(), SessionAwareCache.Type.PREPAREDPLAN, 0); //$NON-NLS-1$
         rs.setTupleBufferCache(bs.getTupleBufferCache());
+        if (config.getResultSetCacheDirectory() != null && bs.getBufferManager() instanceof ReplicatedObject) {
+            @SuppressWarnings("unchecked")
+            ReplicatedObject<String> bufferState = (ReplicatedObject<String>)bs.getBufferManager();
+            ResultSetCacheStore store = new ResultSetCacheStore(new File(config.getResultSetCacheDirectory()), bs.getTupleBufferCache(), bufferState);
+            store.setMaxDirectorySize(config.getMaxResultSetCacheDirectorySize());
+            rs.setPersistentStore(store);
+        }
         this.dqp.setResultsetCache(rs);
 
         ppc.setTupleBufferCache(bs.getTupleBufferCache());
@@ -448,6 +458,9 @@ public class EmbeddedServer extends AbstractVDBDeployer implements EventDistribu
         this.dqp.setTransactionService((TransactionService)LogManager.createLoggingProxy(LogConstants.CTX_TXN_LOG, this.transactionService, new Class[] {TransactionService.class}, MessageLevel.DETAIL, Thread.currentThread().getContextClassLoader()));
 
         this.dqp.start(config);
+        if (rs.getPersistentStore() != null) {
+            rs.getPersistentStore().setExecutor(this.dqp.getProcessWorkerPool());
+        }
         this.sessionService.setDqp(this.dqp);
         this.services.setSecurityHelper(this.sessionService.getSecurityHelper());
         if (this.config.getAuthenticationType() != null) {
@@ -576,6 +589,9 @@ public class EmbeddedServer extends AbstractVDBDeployer implements EventDistribu
                 if (!vdb.getVDB().getStatus().equals(Status.ACTIVE)) {
                     return;
                 }
+                if (rs.getPersistentStore() != null) {
+                    rs.getPersistentStore().load(vdb.getVDBKey(), ResultSetCacheStore.getFingerprint(vdb.getVDB()), rs);
+                }
                 GlobalTableStore gts = CompositeGlobalTableStore.createInstance(vdb, dqp.getBufferManager(), replicator);
 
                 vdb.getVDB().addAttachment(GlobalTableStore.class, gts);
@@ -43,6 +43,16 @@ class Cache implements CacheBean {
         return cache.getRequestCount();
     }
 
+    @Override
+    public long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    @Override
+    public long getSizeEstimate() {
+        return cache.getSizeEstimate();
+    }
+
     @Override
     public void clear() {
         cache.clearAll();
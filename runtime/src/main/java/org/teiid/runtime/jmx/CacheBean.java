@@ -29,6 +29,10 @@ public interface CacheBean {
 
     long getRequestCount();
 
+    long getEvictionCount();
+
+    long getSizeEstimate();
+
     public void clear();
 
 }
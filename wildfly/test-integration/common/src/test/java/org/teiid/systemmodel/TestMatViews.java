@@ -665,6 +665,64 @@ public class TestMatViews {
         assertEquals("ax", rs.getString(1));
     }
 
+    @Test
+    public void testInternalIncrementalMatview() throws Exception {
+        ModelMetaData mmd2 = new ModelMetaData();
+        mmd2.setName("m");
+        mmd2.setModelType(Type.PHYSICAL);
+        mmd2.addSourceMapping("x", "x", null);
+        mmd2.addSourceMetadata("DDL", "CREATE foreign TABLE t (col string, colx string) options (updatable true); "
+                + "CREATE VIEW v1 (col1 string, col2 string, primary key (col1)) "
+                + "OPTIONS (MATERIALIZED true, \"teiid_rel:MATVIEW_INCREMENTAL\" true) AS select col, colx from t;");
+
+        HardCodedExecutionFactory hcef = new HardCodedExecutionFactory() {
+            @Override
+            public boolean supportsCompareCriteriaEquals() {
+                return true;
+            }
+        };
+        hcef.addData("SELECT t.col, t.colx FROM t", Arrays.asList(Arrays.asList("a", "ax")));
+        hcef.addData("SELECT t.col, t.colx FROM t WHERE t.col = 'b'", Arrays.asList(Arrays.asList("b", "d")));
+        hcef.addUpdate("INSERT INTO t (col, colx) VALUES ('b', 'd')", new int[] {1});
+        server.addTranslator("x", hcef);
+
+        server.deployVDB("comp", mmd2);
+
+        Connection c = server.getDriver().connect("jdbc:teiid:comp", null);
+
+        Statement s = c.createStatement();
+        ResultSet rs = s.executeQuery("select * from v1");
+        rs.next();
+        assertEquals("a", rs.getString(1));
+
+        s.execute("insert into t (col, colx) values ('b', 'd')");
+        assertEquals(1, s.getUpdateCount());
+
+        rs = s.executeQuery("select count(*) from v1");
+        rs.next();
+        assertEquals(2, rs.getInt(1));
+
+        hcef.addData("SELECT t.col FROM t WHERE t.col = 'a'", Arrays.asList(Arrays.asList("a")));
+        hcef.addUpdate("UPDATE t SET colx = 'bx' WHERE t.col = 'a'", new int[] {1});
+        hcef.addData("SELECT t.col, t.colx FROM t WHERE t.col = 'a'", Arrays.asList(Arrays.asList("a", "bx")));
+        s.execute("update t set colx = 'bx' where col = 'a'");
+        assertEquals(1, s.getUpdateCount());
+
+        rs = s.executeQuery("select col2 from v1 where col1 = 'a'");
+        rs.next();
+        assertEquals("bx", rs.getString(1));
+
+        hcef.addData("SELECT t.col FROM t WHERE t.col = 'b'", Arrays.asList(Arrays.asList("b")));
+        hcef.addUpdate("DELETE FROM t WHERE t.col = 'b'", new int[] {1});
+        hcef.addData("SELECT t.col, t.colx FROM t WHERE t.col = 'b'", new ArrayList<List<?>>());
+        s.execute("delete from t where col = 'b'");
+        assertEquals(1, s.getUpdateCount());
+
+        rs = s.executeQuery("select count(*) from v1");
+        rs.next();
+        assertEquals(1, rs.getInt(1));
+    }
+
     @Test
     public void testInternalPollingQuery() throws Exception {
         ModelMetaData mmd2 = new ModelMetaData();
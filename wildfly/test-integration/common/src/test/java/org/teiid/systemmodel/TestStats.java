@@ -84,4 +84,14 @@ public class TestStats {
         Statement s = connection.createStatement();
         s.execute("call setColumnStats(tableName=>'partssupplier.partssupplier.parts', columnName=>'foo', max=>32, nullcount=>0)");
     }
+
+    @Test(expected=SQLException.class) public void testAnalyzeColumnInvalidColumn() throws Exception {
+        Statement s = connection.createStatement();
+        s.execute("call analyzeColumn(tableName=>'partssupplier.partssupplier.parts', columnName=>'foo')");
+    }
+
+    @Test(expected=SQLException.class) public void testAnalyzeColumnInvalidSampleSize() throws Exception {
+        Statement s = connection.createStatement();
+        s.execute("call analyzeColumn(tableName=>'partssupplier.partssupplier.parts', columnName=>'PART_ID', sampleSize=>0)");
+    }
 }
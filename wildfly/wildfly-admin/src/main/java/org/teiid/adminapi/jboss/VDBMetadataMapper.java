@@ -1078,6 +1078,8 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
         private static final String HITRATIO = "hit-ratio"; //$NON-NLS-1$
         private static final String TOTAL_ENTRIES = "total-entries"; //$NON-NLS-1$
         private static final String REQUEST_COUNT = "request-count"; //$NON-NLS-1$
+        private static final String EVICTION_COUNT = "eviction-count"; //$NON-NLS-1$
+        private static final String SIZE_ESTIMATE = "size-estimate"; //$NON-NLS-1$
 
         public static CacheStatisticsMetadataMapper INSTANCE = new CacheStatisticsMetadataMapper();
 
@@ -1088,6 +1090,8 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
             node.get(TOTAL_ENTRIES).set(object.getTotalEntries());
             node.get(HITRATIO).set(String.valueOf(object.getHitRatio()));
             node.get(REQUEST_COUNT).set(object.getRequestCount());
+            node.get(EVICTION_COUNT).set(object.getEvictionCount());
+            node.get(SIZE_ESTIMATE).set(object.getSizeEstimate());
 
             wrapDomain(object, node);
             return node;
@@ -1101,6 +1105,12 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
             cache.setTotalEntries(node.get(TOTAL_ENTRIES).asInt());
             cache.setHitRatio(Double.parseDouble(node.get(HITRATIO).asString()));
             cache.setRequestCount(node.get(REQUEST_COUNT).asInt());
+            if (node.has(EVICTION_COUNT)) {
+                cache.setEvictionCount(node.get(EVICTION_COUNT).asLong());
+            }
+            if (node.has(SIZE_ESTIMATE)) {
+                cache.setSizeEstimate(node.get(SIZE_ESTIMATE).asLong());
+            }
 
             unwrapDomain(cache, node);
             return cache;
@@ -1110,7 +1120,9 @@ public class VDBMetadataMapper implements MetadataMapper<VDBMetaData> {
             return new AttributeDefinition[] {
                     createAttribute(TOTAL_ENTRIES, ModelType.INT, false),
                     createAttribute(HITRATIO, ModelType.STRING, false),
-                    createAttribute(REQUEST_COUNT, ModelType.INT, false)
+                    createAttribute(REQUEST_COUNT, ModelType.INT, false),
+                    createAttribute(EVICTION_COUNT, ModelType.LONG, false),
+                    createAttribute(SIZE_ESTIMATE, ModelType.LONG, false)
             };
         }
     }